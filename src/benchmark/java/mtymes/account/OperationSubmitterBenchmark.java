@@ -0,0 +1,69 @@
+package mtymes.account;
+
+import javafixes.object.Either;
+import mtymes.account.config.Dependencies;
+import mtymes.account.config.SystemProperties;
+import mtymes.account.domain.account.AccountId;
+import mtymes.common.domain.Failure;
+import mtymes.common.domain.Success;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javafixes.math.Decimal.d;
+
+// whole synchronous transfer: storing the operation, registering it in the opLog and waiting until the worker applies both parts
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(MILLISECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class OperationSubmitterBenchmark {
+
+    @Param({"2", "1000"})
+    public int accountCount;
+
+    private EmbeddedDB db;
+    private Dependencies dependencies;
+    private AccountId[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = MongoManager.getEmbeddedDB();
+        db.removeAllData();
+
+        dependencies = new Dependencies(new SystemProperties(
+                0,
+                "localhost",
+                db.getPort(),
+                db.getDbName(),
+                10
+        ));
+
+        OperationSubmitter submitter = dependencies.submitter;
+        accountIds = new AccountId[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = submitter.createAccount().getRight().accountId;
+            submitter.depositMoney(accountIds[i], d("1_000_000_000"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dependencies.shutdown();
+        MongoManager.release(db);
+    }
+
+    @Benchmark
+    public Either<Failure, Success> transferMoney() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int fromIndex = random.nextInt(accountCount);
+        int toIndex = (fromIndex + 1 + random.nextInt(accountCount - 1)) % accountCount;
+        return dependencies.submitter.transferMoney(accountIds[fromIndex], accountIds[toIndex], d("1"));
+    }
+}
@@ -0,0 +1,60 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.domain.operation.Operation;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.*;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static mtymes.account.dao.mongo.MongoCodecs.codecRegistry;
+import static mtymes.account.dao.mongo.MongoOperationDao.*;
+import static mtymes.common.mongo.DocumentBuilder.docBuilder;
+import static mtymes.test.Random.randomOperation;
+
+// includes the conversion from and into the raw bson bytes, as that is what the driver does with each stored or loaded document
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MongoMapperBenchmark {
+
+    private final MongoMapper mapper = new MongoMapper();
+    private final DocumentCodec codec = new DocumentCodec(codecRegistry());
+
+    @Param({"CreateAccount", "DepositTo", "WithdrawFrom", "TransferFrom", "TransferTo"})
+    public String operationType;
+
+    private Operation operation;
+    private RawBsonDocument encodedOperation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        do {
+            operation = randomOperation();
+        } while (!operation.type().equals(operationType));
+        encodedOperation = encode();
+    }
+
+    @Benchmark
+    public RawBsonDocument encode() {
+        Document document = docBuilder()
+                .put(OPERATION_ID, operation.operationId)
+                .put(TYPE, operation.type())
+                .put(BODY, operation.apply(mapper))
+                .build();
+        return new RawBsonDocument(document, codec);
+    }
+
+    @Benchmark
+    public Operation decode() {
+        Document document = encodedOperation.decode(codec);
+        return mapper.toOperation(
+                mapper.getOperationId(document, OPERATION_ID),
+                document.getString(TYPE),
+                (Document) document.get(BODY)
+        );
+    }
+}
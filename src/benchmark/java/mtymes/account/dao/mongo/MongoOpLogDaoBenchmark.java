@@ -0,0 +1,75 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.SeqId;
+import mtymes.common.metrics.Metrics;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static mtymes.account.dao.mongo.MongoCollections.opLogCollection;
+import static mtymes.account.dao.mongo.MongoCollections.seqCountersCollection;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomOperationId;
+
+// registerOperationId is the only entry point into the SeqId allocation (storeWithSequenceId for the OptimisticLoop),
+// the fewer accounts there are the more threads compete for the next SeqId of the same account
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class MongoOpLogDaoBenchmark {
+
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+    @Param({"OptimisticLoop", "AtomicCounter", "ReservedBlocks"})
+    public SeqIdAllocation seqIdAllocation;
+
+    @Param({"1", "16", "1024"})
+    public int accountCount;
+
+    private EmbeddedDB db;
+    private MongoOpLogDao opLogDao;
+    private AccountId[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        db = MongoManager.getEmbeddedDB();
+        db.removeAllData();
+
+        switch (seqIdAllocation) {
+            case AtomicCounter:
+                opLogDao = new MongoOpLogDao(opLogCollection(db.getDatabase()), seqCountersCollection(db.getDatabase()), contention);
+                break;
+            case ReservedBlocks:
+                opLogDao = new MongoOpLogDao(opLogCollection(db.getDatabase()), seqCountersCollection(db.getDatabase()), 100, contention);
+                break;
+            default:
+                opLogDao = new MongoOpLogDao(opLogCollection(db.getDatabase()), contention);
+        }
+
+        accountIds = new AccountId[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = randomAccountId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MongoManager.release(db);
+    }
+
+    @Benchmark
+    public SeqId registerOperationId() {
+        AccountId accountId = accountIds[ThreadLocalRandom.current().nextInt(accountCount)];
+        return opLogDao.registerOperationId(accountId, randomOperationId());
+    }
+}
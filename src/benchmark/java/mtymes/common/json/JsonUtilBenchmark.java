@@ -0,0 +1,33 @@
+package mtymes.common.json;
+
+import mtymes.account.domain.account.Account;
+import mtymes.common.domain.Failure;
+import org.openjdk.jmh.annotations.*;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.common.domain.Failure.failure;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomAmount;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonUtilBenchmark {
+
+    private final Account account = new Account(randomAccountId(), randomAmount(), seqId(1_234));
+    private final Failure failure = failure("Insufficient funds on account");
+
+    @Benchmark
+    public String accountToJson() {
+        return JsonUtil.toJsonString(account);
+    }
+
+    @Benchmark
+    public String failureToJson() {
+        return JsonUtil.toJsonString(failure);
+    }
+}
@@ -0,0 +1,60 @@
+package mtymes.common.util;
+
+import mtymes.account.domain.account.AccountId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static mtymes.test.Random.randomAccountId;
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SetQueueBenchmark {
+
+    // the lower the count, the more often an added account is already queued
+    @Param({"16", "100000"})
+    public int accountCount;
+
+    private SetQueue<AccountId> queue;
+    private AccountId[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = new SetQueue<>();
+        accountIds = new AccountId[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = randomAccountId();
+        }
+    }
+
+    @Benchmark
+    @Group("singleThread")
+    public Optional<AccountId> addAndTake() {
+        queue.add(randomQueuedAccountId());
+        return queue.takeNextAvailable();
+    }
+
+    @Benchmark
+    @Group("producersAndConsumers")
+    @GroupThreads(4)
+    public void add() {
+        queue.add(randomQueuedAccountId());
+    }
+
+    @Benchmark
+    @Group("producersAndConsumers")
+    @GroupThreads(4)
+    public Optional<AccountId> take() {
+        return queue.takeNextAvailable();
+    }
+
+    private AccountId randomQueuedAccountId() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accountCount)];
+    }
+}
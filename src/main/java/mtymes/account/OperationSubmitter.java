@@ -2,86 +2,326 @@ package mtymes.account;
 
 import javafixes.math.Decimal;
 import javafixes.object.Either;
-import mtymes.account.dao.AccountDao;
-import mtymes.account.dao.OpLogDao;
-import mtymes.account.dao.OperationDao;
+import mtymes.account.dao.*;
+import mtymes.account.dao.mongo.AmountFormat;
 import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.*;
+import mtymes.account.handler.CompletionRegistry;
 import mtymes.account.work.Worker;
 import mtymes.common.domain.Failure;
 import mtymes.common.domain.Success;
+import mtymes.common.metrics.Metrics;
+import mtymes.common.metrics.Timer;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static java.lang.String.format;
 import static javafixes.object.Either.left;
 import static javafixes.object.Either.right;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static mtymes.account.domain.operation.FinalState.Applied;
 import static mtymes.common.domain.Failure.failure;
 
 public class OperationSubmitter {
 
+    private static final long UNFINISHED_OPERATION_POLL_INTERVAL_MS = 10;
+
     private final IdGenerator idGenerator;
     private final AccountDao accountDao;
     private final OperationDao operationDao;
     private final OpLogDao opLogDao;
     private final Worker worker;
+    private final CompletionRegistry completions;
+    private final Executor asyncExecutor;
+    private final Duration unfinishedOperationTimeout;
+    private final AmountFormat amountFormat;
+    private final Optional<AsyncAccountDao> asyncAccountDao;
+    private final Optional<AsyncOperationDao> asyncOperationDao;
+    private final Optional<AsyncOpLogDao> asyncOpLogDao;
+    private final Timer storeOperationTimer;
+    private final Timer registerOperationIdTimer;
 
-    public OperationSubmitter(IdGenerator idGenerator, AccountDao accountDao, OperationDao operationDao, OpLogDao opLogDao, Worker worker) {
+    public OperationSubmitter(IdGenerator idGenerator, AccountDao accountDao, OperationDao operationDao, OpLogDao opLogDao, Worker worker, CompletionRegistry completions, Executor asyncExecutor, Duration unfinishedOperationTimeout, AmountFormat amountFormat, Metrics metrics) {
         this.idGenerator = idGenerator;
         this.accountDao = accountDao;
         this.operationDao = operationDao;
         this.opLogDao = opLogDao;
         this.worker = worker;
+        this.completions = completions;
+        this.asyncExecutor = asyncExecutor;
+        this.unfinishedOperationTimeout = unfinishedOperationTimeout;
+        this.amountFormat = amountFormat;
+        this.asyncAccountDao = Optional.empty();
+        this.asyncOperationDao = Optional.empty();
+        this.asyncOpLogDao = Optional.empty();
+        this.storeOperationTimer = metrics.timer("bank_store_operation_seconds", "Time to store a submitted operation");
+        this.registerOperationIdTimer = metrics.timer("bank_register_operation_id_seconds", "Time to register a submitted operation in the opLog of its account");
+    }
+
+    // the async api logs operations and loads their results using the non-blocking daos,
+    // only the drain of the account runs on the asyncExecutor
+    public OperationSubmitter(IdGenerator idGenerator, AccountDao accountDao, OperationDao operationDao, OpLogDao opLogDao, Worker worker, CompletionRegistry completions, Executor asyncExecutor, Duration unfinishedOperationTimeout, AmountFormat amountFormat, Metrics metrics, AsyncAccountDao asyncAccountDao, AsyncOperationDao asyncOperationDao, AsyncOpLogDao asyncOpLogDao) {
+        this.idGenerator = idGenerator;
+        this.accountDao = accountDao;
+        this.operationDao = operationDao;
+        this.opLogDao = opLogDao;
+        this.worker = worker;
+        this.completions = completions;
+        this.asyncExecutor = asyncExecutor;
+        this.unfinishedOperationTimeout = unfinishedOperationTimeout;
+        this.amountFormat = amountFormat;
+        this.asyncAccountDao = Optional.of(asyncAccountDao);
+        this.asyncOperationDao = Optional.of(asyncOperationDao);
+        this.asyncOpLogDao = Optional.of(asyncOpLogDao);
+        this.storeOperationTimer = metrics.timer("bank_store_operation_seconds", "Time to store a submitted operation");
+        this.registerOperationIdTimer = metrics.timer("bank_register_operation_id_seconds", "Time to register a submitted operation in the opLog of its account");
     }
 
     public Either<Failure, Account> createAccount() {
         OperationId operationId = idGenerator.nextOperationId();
         AccountId accountId = idGenerator.nextAccountId();
         LoggedOperation operation = submitOperation(new CreateAccount(operationId, accountId));
-
-        if (wasOperationApplied(operation)) {
-            return accountDao
-                    .findAccount(accountId)
-                    .map(this::asResponse)
-                    .orElseGet(() -> asFailure(format("Failed to load created Account '%s'", accountId)));
-        } else {
-            return asFailure(operation.description.orElse("Failed to finish this operation"));
-        }
+        return asCreatedAccountResponse(accountId, operation);
     }
 
     public Either<Failure, Success> depositMoney(AccountId accountId, Decimal amount) {
+        Optional<Failure> invalidAmount = validateAmount(amount);
+        if (invalidAmount.isPresent()) {
+            return left(invalidAmount.get());
+        }
         OperationId operationId = idGenerator.nextOperationId();
         LoggedOperation operation = submitOperation(new DepositTo(operationId, accountId, amount));
         return asResponse(operation);
     }
 
     public Either<Failure, Success> withdrawMoney(AccountId accountId, Decimal amount) {
+        Optional<Failure> invalidAmount = validateAmount(amount);
+        if (invalidAmount.isPresent()) {
+            return left(invalidAmount.get());
+        }
         OperationId operationId = idGenerator.nextOperationId();
         LoggedOperation operation = submitOperation(new WithdrawFrom(operationId, accountId, amount));
         return asResponse(operation);
     }
 
     public Either<Failure, Success> transferMoney(AccountId fromAccountId, AccountId toAccountId, Decimal amount) {
+        Optional<Failure> invalidAmount = validateAmount(amount);
+        if (invalidAmount.isPresent()) {
+            return left(invalidAmount.get());
+        }
         OperationId operationId = idGenerator.nextOperationId();
         OperationId toPartOperationId = idGenerator.nextOperationId();
         LoggedOperation operation = submitOperation(new TransferFrom(operationId, toPartOperationId, new TransferDetail(fromAccountId, toAccountId, amount)));
         return asResponse(operation);
     }
 
+    /* ========================== */
+    /* ---     async api      --- */
+    /* ========================== */
+
+    // each step runs on the asyncExecutor so the calling thread is released immediately
+    // and the returned future completes once the operation reached its FinalState
+
+    public CompletableFuture<Either<Failure, Account>> createAccountAsync() {
+        OperationId operationId = idGenerator.nextOperationId();
+        AccountId accountId = idGenerator.nextAccountId();
+        return submitOperationAsync(new CreateAccount(operationId, accountId))
+                .thenCompose(operation -> asCreatedAccountResponseAsync(accountId, operation));
+    }
+
+    public CompletableFuture<Either<Failure, Success>> depositMoneyAsync(AccountId accountId, Decimal amount) {
+        Optional<Failure> invalidAmount = validateAmount(amount);
+        if (invalidAmount.isPresent()) {
+            return completedFuture(left(invalidAmount.get()));
+        }
+        OperationId operationId = idGenerator.nextOperationId();
+        return submitOperationAsync(new DepositTo(operationId, accountId, amount))
+                .thenApply(this::asResponse);
+    }
+
+    public CompletableFuture<Either<Failure, Success>> withdrawMoneyAsync(AccountId accountId, Decimal amount) {
+        Optional<Failure> invalidAmount = validateAmount(amount);
+        if (invalidAmount.isPresent()) {
+            return completedFuture(left(invalidAmount.get()));
+        }
+        OperationId operationId = idGenerator.nextOperationId();
+        return submitOperationAsync(new WithdrawFrom(operationId, accountId, amount))
+                .thenApply(this::asResponse);
+    }
+
+    public CompletableFuture<Either<Failure, Success>> transferMoneyAsync(AccountId fromAccountId, AccountId toAccountId, Decimal amount) {
+        Optional<Failure> invalidAmount = validateAmount(amount);
+        if (invalidAmount.isPresent()) {
+            return completedFuture(left(invalidAmount.get()));
+        }
+        OperationId operationId = idGenerator.nextOperationId();
+        OperationId toPartOperationId = idGenerator.nextOperationId();
+        return submitOperationAsync(new TransferFrom(operationId, toPartOperationId, new TransferDetail(fromAccountId, toAccountId, amount)))
+                .thenApply(this::asResponse);
+    }
+
     /* ========================== */
     /* ---   helper methods   --- */
     /* ========================== */
 
+    // amounts that can't be stored are refused before they are logged, so they can't fail a batch of inserts
+    private Optional<Failure> validateAmount(Decimal amount) {
+        return amountFormat.validate(amount).map(Failure::failure);
+    }
+
     private LoggedOperation submitOperation(Operation operation) {
         AccountId accountId = operation.affectedAccountId();
 
+        completions.awaitCompletionOf(operation.operationId);
+        try {
+            logOperation(operation);
+            worker.runUnfinishedOperations(accountId);
+        } catch (RuntimeException e) {
+            completions.stopAwaitingCompletionOf(operation.operationId);
+            throw e;
+        }
+
+        return loadLoggedOperation(operation);
+    }
+
+    private CompletableFuture<LoggedOperation> submitOperationAsync(Operation operation) {
+        AccountId accountId = operation.affectedAccountId();
+
+        completions.awaitCompletionOf(operation.operationId);
+        return logOperationAsync(operation)
+                .thenRunAsync(() -> worker.runUnfinishedOperations(accountId), asyncExecutor)
+                .thenCompose(ignore -> loadLoggedOperationAsync(operation))
+                .whenComplete((loggedOperation, failure) -> {
+                    if (failure != null) {
+                        completions.stopAwaitingCompletionOf(operation.operationId);
+                    }
+                });
+    }
+
+    private void logOperation(Operation operation) {
+        long storeStartTime = System.nanoTime();
         operationDao.storeOperation(operation);
-        opLogDao.registerOperationId(accountId, operation.operationId);
-        worker.runUnfinishedOperations(accountId);
+        storeOperationTimer.recordSince(storeStartTime);
+
+        long registerStartTime = System.nanoTime();
+        opLogDao.registerOperationId(operation.affectedAccountId(), operation.operationId);
+        registerOperationIdTimer.recordSince(registerStartTime);
+    }
+
+    private CompletableFuture<Void> logOperationAsync(Operation operation) {
+        if (!asyncOperationDao.isPresent()) {
+            return runAsync(() -> logOperation(operation), asyncExecutor);
+        }
+        long storeStartTime = System.nanoTime();
+        return asyncOperationDao.get()
+                .storeOperation(operation)
+                .thenCompose(ignore -> {
+                    storeOperationTimer.recordSince(storeStartTime);
+                    long registerStartTime = System.nanoTime();
+                    return asyncOpLogDao.get()
+                            .registerOperationId(operation.affectedAccountId(), operation.operationId)
+                            .thenApply(seqId -> {
+                                registerOperationIdTimer.recordSince(registerStartTime);
+                                return null;
+                            });
+                });
+    }
+
+    private CompletableFuture<LoggedOperation> loadLoggedOperationAsync(Operation operation) {
+        Optional<LoggedOperation> completion = completions.takeCompletionOf(operation);
+        if (completion.isPresent()) {
+            return completedFuture(completion.get());
+        }
+
+        long deadline = System.nanoTime() + unfinishedOperationTimeout.toNanos();
+        return pollLoggedOperationAsync(operation.operationId, deadline);
+    }
+
+    // operation can still be in progress if its account is owned by another node,
+    // instead of blocking a thread each poll is scheduled after the previous one
+    private CompletableFuture<LoggedOperation> pollLoggedOperationAsync(OperationId operationId, long deadline) {
+        return findLoggedOperationAsync(operationId)
+                .thenCompose(loggedOperation -> {
+                    if (loggedOperation.isFinished() || System.nanoTime() >= deadline) {
+                        return completedFuture(loggedOperation);
+                    }
+                    return runAsync(() -> {}, delayedExecutor(UNFINISHED_OPERATION_POLL_INTERVAL_MS, MILLISECONDS, asyncExecutor))
+                            .thenCompose(ignore -> pollLoggedOperationAsync(operationId, deadline));
+                });
+    }
+
+    private CompletableFuture<LoggedOperation> findLoggedOperationAsync(OperationId operationId) {
+        if (!asyncOperationDao.isPresent()) {
+            return supplyAsync(() -> findLoggedOperation(operationId), asyncExecutor);
+        }
+        return asyncOperationDao.get()
+                .findLoggedOperation(operationId)
+                .thenApply(loggedOperation -> loggedOperation.orElseThrow(() -> operationNotFound(operationId)));
+    }
 
-        return operationDao.findLoggedOperation(operation.operationId).get();
+    // the db is read only if the operation was not finished by this process (for example by another node)
+    private LoggedOperation loadLoggedOperation(Operation operation) {
+        Optional<LoggedOperation> completion = completions.takeCompletionOf(operation);
+        if (completion.isPresent()) {
+            return completion.get();
+        }
+
+        // operation can still be in progress if its account is owned by another node
+        long deadline = System.nanoTime() + unfinishedOperationTimeout.toNanos();
+        LoggedOperation loggedOperation = findLoggedOperation(operation.operationId);
+        while (!loggedOperation.isFinished() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(UNFINISHED_OPERATION_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            loggedOperation = findLoggedOperation(operation.operationId);
+        }
+        return loggedOperation;
+    }
+
+    private LoggedOperation findLoggedOperation(OperationId operationId) {
+        return operationDao
+                .findLoggedOperation(operationId)
+                .orElseThrow(() -> operationNotFound(operationId));
+    }
+
+    private IllegalStateException operationNotFound(OperationId operationId) {
+        return new IllegalStateException(format("Failed to load submitted Operation '%s'", operationId));
+    }
+
+    private Either<Failure, Account> asCreatedAccountResponse(AccountId accountId, LoggedOperation operation) {
+        if (wasOperationApplied(operation)) {
+            return accountDao
+                    .findAccount(accountId)
+                    .map(this::asResponse)
+                    .orElseGet(() -> asFailure(format("Failed to load created Account '%s'", accountId)));
+        } else {
+            return asFailure(operation.description.orElse("Failed to finish this operation"));
+        }
+    }
+
+    private CompletableFuture<Either<Failure, Account>> asCreatedAccountResponseAsync(AccountId accountId, LoggedOperation operation) {
+        if (!asyncAccountDao.isPresent()) {
+            return supplyAsync(() -> asCreatedAccountResponse(accountId, operation), asyncExecutor);
+        }
+        if (!wasOperationApplied(operation)) {
+            return completedFuture(asFailure(operation.description.orElse("Failed to finish this operation")));
+        }
+        return asyncAccountDao.get()
+                .findAccount(accountId)
+                .thenApply(account -> account
+                        .map(this::asResponse)
+                        .orElseGet(() -> asFailure(format("Failed to load created Account '%s'", accountId))));
     }
 
     private boolean wasOperationApplied(LoggedOperation operation) {
@@ -43,6 +43,9 @@ public class Bank {
 
         Service spark = Service.ignite();
         spark.port(port);
+        if (properties.httpThreadCount() > 0) {
+            spark.threadPool(properties.httpThreadCount());
+        }
 
         spark.get("/account/:accountId", (req, res) -> {
             AccountId accountId = accountId(req.params(":accountId"));
@@ -101,7 +104,29 @@ public class Bank {
 
         spark.get("/work/queued/stats", (req, res) -> sweatshop.queuedWorkStats(), jsonTransformer);
 
-        spark.after((req, res) -> res.type("application/json"));
+        spark.get("/contention/stats", (req, res) -> {
+            String top = req.queryParamOrDefault("top", "10");
+            if (!top.matches("\\d{1,9}")) {
+                res.status(400);
+                return failure(format("Parameter 'top' must be a non-negative integer but was '%s'", top));
+            }
+            return dependencies.contention.stats(Integer.parseInt(top));
+        }, jsonTransformer);
+
+        spark.get("/metrics", (req, res) -> {
+            res.type("text/plain; version=0.0.4");
+            return dependencies.metrics.toPrometheusText();
+        });
+
+        dependencies.accountCache.ifPresent(accountCache ->
+                spark.get("/account/cache/stats", (req, res) -> accountCache.stats(), jsonTransformer)
+        );
+
+        spark.after((req, res) -> {
+            if (res.type() == null) {
+                res.type("application/json");
+            }
+        });
 
         spark.exception(Exception.class, (e, req, res) -> {
             res.status(500);
@@ -1,54 +1,182 @@
 package mtymes.account.config;
 
 import com.mongodb.MongoClient;
+import com.mongodb.async.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import mtymes.account.IdGenerator;
 import mtymes.account.OperationSubmitter;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.AccountSnapshotDao;
+import mtymes.account.dao.CachingAccountDao;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.dao.OperationDao;
-import mtymes.account.dao.mongo.MongoAccountDao;
-import mtymes.account.dao.mongo.MongoOpLogDao;
-import mtymes.account.dao.mongo.MongoOperationDao;
+import mtymes.account.dao.journal.JournalStorage;
+import mtymes.account.dao.memory.InMemoryAccountDao;
+import mtymes.account.dao.memory.InMemoryAccountSnapshotDao;
+import mtymes.account.dao.memory.InMemoryOpLogDao;
+import mtymes.account.dao.memory.InMemoryOperationDao;
+import mtymes.account.dao.mongo.*;
 import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.node.NodeId;
 import mtymes.account.handler.*;
+import mtymes.account.recovery.AccountRecovery;
+import mtymes.account.work.AccountAffinity;
 import mtymes.account.work.Sweatshop;
 import mtymes.account.work.Worker;
+import mtymes.common.metrics.Metrics;
 import mtymes.common.util.SetQueue;
 
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static mtymes.account.dao.StorageEngine.Journal;
+import static mtymes.account.dao.StorageEngine.Mongo;
+import static mtymes.account.dao.mongo.MongoCodecs.codecRegistry;
 import static mtymes.account.dao.mongo.MongoCollections.*;
+import static mtymes.account.dao.mongo.SeqIdAllocation.OptimisticLoop;
+import static mtymes.account.domain.node.NodeId.nodeId;
 
 public class Dependencies {
 
     public final AccountDao accountDao;
+    public final Optional<CachingAccountDao> accountCache;
     public final OperationSubmitter submitter;
     public final Sweatshop sweatshop;
+    public final AccountRecovery accountRecovery;
+    public final NodeId nodeId = nodeId(UUID.randomUUID());
+    public final Metrics metrics = new Metrics();
+    public final ContentionMonitor contention = new ContentionMonitor(nodeId, metrics);
+    private final ExecutorService asyncSubmitterExecutor;
+    private final Optional<AccountAffinity> affinity;
+    private final Optional<com.mongodb.async.client.MongoClient> asyncMongoClient;
+    private final Optional<JournalStorage> journalStorage;
+    private final Optional<SkippedSeqIdCleanup> skippedSeqIdCleanup;
 
     public Dependencies(SystemProperties properties) {
-        MongoClient mongoClient = new MongoClient(properties.dbHostName(), properties.dbPort());
-        MongoDatabase database = mongoClient.getDatabase(properties.dbName());
-        this.accountDao = new MongoAccountDao(accountsCollection(database));
-        OpLogDao opLogDao = new MongoOpLogDao(opLogCollection(database));
-        OperationDao operationDao = new MongoOperationDao(operationsCollection(database));
+        Optional<MongoDatabase> database = (properties.storageEngine() == Mongo)
+                ? Optional.of(new MongoClient(properties.dbHostName(), properties.dbPort()).getDatabase(properties.dbName()).withCodecRegistry(codecRegistry(properties.uuidFormat(), properties.amountFormat())))
+                : Optional.empty();
+        this.journalStorage = (properties.storageEngine() == Journal)
+                ? Optional.of(new JournalStorage(properties.journalDirectory(), properties.journalSegmentSize(), properties.journalForceOnAppend(), properties.journalSnapshotInterval()).start())
+                : Optional.empty();
+        AccountDao storedAccountDao = database.isPresent()
+                ? new MongoAccountDao(accountsCollection(database.get()))
+                : journalStorage.map(storage -> storage.accountDao).orElseGet(InMemoryAccountDao::new);
+        if (properties.accountCacheSize() > 0) {
+            // in-memory and journal storage can't be shared by several nodes, but mongo accounts cached by two nodes would go stale
+            checkArgument(!database.isPresent() || properties.accountAffinity(), "accountCacheSize requires accountAffinity with the Mongo storage engine");
+            CachingAccountDao cachingAccountDao = new CachingAccountDao(storedAccountDao, properties.accountCacheSize());
+            this.accountCache = Optional.of(cachingAccountDao);
+            this.accountDao = cachingAccountDao;
+        } else {
+            this.accountCache = Optional.empty();
+            this.accountDao = storedAccountDao;
+        }
+        Optional<MongoOpLogDao> mongoOpLogDao = database.map(db -> createOpLogDao(properties, db));
+        OpLogDao opLogDao = mongoOpLogDao.isPresent()
+                ? mongoOpLogDao.get()
+                : journalStorage.map(storage -> storage.opLogDao).orElseGet(InMemoryOpLogDao::new);
+        // only SeqIds handed out by a counter can be skipped
+        this.skippedSeqIdCleanup = mongoOpLogDao
+                .filter(dao -> properties.seqIdAllocation() != OptimisticLoop)
+                .map(dao -> new SkippedSeqIdCleanup(dao, properties.skippedSeqIdRetention()).start());
+        OperationDao operationDao = database.isPresent()
+                ? createOperationDao(properties, database.get())
+                : journalStorage.map(storage -> storage.operationDao).orElseGet(InMemoryOperationDao::new);
+
+        AccountSnapshotDao snapshotDao = database.isPresent()
+                ? new MongoAccountSnapshotDao(accountSnapshotsCollection(database.get()))
+                : new InMemoryAccountSnapshotDao();
+        this.accountRecovery = new AccountRecovery(accountDao, snapshotDao, operationDao, opLogDao, properties.accountRecoveryParallelism())
+                .start(properties.accountSnapshotInterval());
 
         IdGenerator idGenerator = new IdGenerator();
-        SetQueue<AccountId> workQueue = new SetQueue<>();
-
-        OperationDispatcher dispatcher = new OperationDispatcher(
-                opLogDao,
-                new CreateAccountHandler(accountDao, operationDao),
-                new DepositToHandler(accountDao, operationDao),
-                new WithdrawFromHandler(accountDao, operationDao),
-                new TransferFromHandler(accountDao, operationDao, opLogDao, workQueue),
-                new TransferToHandler(accountDao, operationDao)
-        );
-        Worker worker = new Worker(opLogDao, operationDao, dispatcher);
-
-        this.sweatshop = new Sweatshop(workQueue, properties.backgroundWorkerCount(), worker, properties.workerIdleTimeout()).start();
-        this.submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker);
+        SetQueue<AccountId> workQueue = new SetQueue<>(metrics.timer("bank_work_queue_wait_seconds", "Time an account with unfinished operations waits in the work queue"));
+        CompletionRegistry completions = new CompletionRegistry();
+
+        CreateAccountHandler createAccountHandler = new CreateAccountHandler(accountDao, operationDao, completions, contention);
+        DepositToHandler depositToHandler = new DepositToHandler(accountDao, operationDao, completions, contention);
+        WithdrawFromHandler withdrawFromHandler = new WithdrawFromHandler(accountDao, operationDao, completions, contention);
+        TransferFromHandler transferFromHandler = new TransferFromHandler(accountDao, operationDao, opLogDao, workQueue, completions, contention);
+        TransferRefunds transferRefunds = new TransferRefunds(operationDao, opLogDao, workQueue);
+        TransferToHandler transferToHandler = new TransferToHandler(accountDao, operationDao, transferRefunds, completions, contention);
+        OperationDispatcher dispatcher = properties.batchedBalanceUpdates()
+                ? new OperationDispatcher(opLogDao, createAccountHandler, depositToHandler, withdrawFromHandler, transferFromHandler, transferToHandler, new BatchedBalanceHandler(accountDao, operationDao, transferRefunds, completions, contention), metrics)
+                : new OperationDispatcher(opLogDao, createAccountHandler, depositToHandler, withdrawFromHandler, transferFromHandler, transferToHandler, metrics);
+        Worker worker;
+        if (properties.accountAffinity()) {
+            checkArgument(database.isPresent(), "accountAffinity requires the Mongo storage engine");
+            // operations of accounts owned by another node are finished there, so the submitter has to wait for them
+            checkArgument(!properties.unfinishedOperationTimeout().isZero(), "accountAffinity requires a positive unfinishedOperationTimeout");
+
+            AccountAffinity accountAffinity = new AccountAffinity(
+                    nodeId,
+                    new MongoNodeLeaseDao(nodeLeasesCollection(database.get())),
+                    new MongoForwardedWorkDao(forwardedWorkCollection(database.get())),
+                    workQueue,
+                    properties.nodeLeaseDuration(),
+                    properties.forwardedWorkPollInterval()
+            );
+            // cached accounts of previously foreign accounts could be stale
+            accountCache.ifPresent(cache -> accountAffinity.onOwnershipChange(cache::invalidateAll));
+            this.affinity = Optional.of(accountAffinity.start());
+            worker = new Worker(opLogDao, operationDao, dispatcher, accountAffinity);
+        } else {
+            this.affinity = Optional.empty();
+            worker = new Worker(opLogDao, operationDao, dispatcher);
+        }
+
+        this.sweatshop = new Sweatshop(workQueue, properties.backgroundWorkerCount(), worker, properties.workerExecution(), properties.maxConcurrentDrains()).start();
+        this.asyncSubmitterExecutor = newFixedThreadPool(properties.asyncSubmitterThreadCount());
+        if (properties.asyncMongoDriver()) {
+            checkArgument(database.isPresent(), "asyncMongoDriver requires the Mongo storage engine");
+            checkArgument(properties.seqIdAllocation() == OptimisticLoop, "asyncMongoDriver supports only OptimisticLoop SeqId allocation");
+
+            com.mongodb.async.client.MongoClient asyncClient = MongoClients.create("mongodb://" + properties.dbHostName() + ":" + properties.dbPort());
+            com.mongodb.async.client.MongoDatabase asyncDatabase = asyncClient.getDatabase(properties.dbName());
+            this.asyncMongoClient = Optional.of(asyncClient);
+            this.submitter = new OperationSubmitter(
+                    idGenerator, accountDao, operationDao, opLogDao, worker, completions, asyncSubmitterExecutor, properties.unfinishedOperationTimeout(), properties.amountFormat(), metrics,
+                    new MongoAsyncAccountDao(asyncCollection(asyncDatabase, accountsCollection(database.get()))),
+                    new MongoAsyncOperationDao(asyncCollection(asyncDatabase, operationsCollection(database.get()))),
+                    new MongoAsyncOpLogDao(asyncCollection(asyncDatabase, opLogCollection(database.get())), contention)
+            );
+        } else {
+            this.asyncMongoClient = Optional.empty();
+            this.submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker, completions, asyncSubmitterExecutor, properties.unfinishedOperationTimeout(), properties.amountFormat(), metrics);
+        }
+    }
+
+    private MongoOpLogDao createOpLogDao(SystemProperties properties, MongoDatabase database) {
+        switch (properties.seqIdAllocation()) {
+            case AtomicCounter:
+                return new MongoOpLogDao(opLogCollection(database), seqCountersCollection(database), contention);
+            case ReservedBlocks:
+                return new MongoOpLogDao(opLogCollection(database), seqCountersCollection(database), properties.seqIdBlockSize(), contention);
+            default:
+                return new MongoOpLogDao(opLogCollection(database), contention);
+        }
+    }
+
+    private OperationDao createOperationDao(SystemProperties properties, MongoDatabase database) {
+        if (properties.operationInsertBatchSize() > 1) {
+            return new MongoOperationDao(operationsCollection(database), properties.operationInsertBatchSize(), properties.operationInsertBatchDelay());
+        } else {
+            return new MongoOperationDao(operationsCollection(database));
+        }
     }
 
     public void shutdown() {
         sweatshop.shutdown();
+        asyncSubmitterExecutor.shutdownNow();
+        affinity.ifPresent(AccountAffinity::shutdown);
+        asyncMongoClient.ifPresent(com.mongodb.async.client.MongoClient::close);
+        accountRecovery.shutdown();
+        skippedSeqIdCleanup.ifPresent(SkippedSeqIdCleanup::shutdown);
+        journalStorage.ifPresent(JournalStorage::shutdown);
     }
 }
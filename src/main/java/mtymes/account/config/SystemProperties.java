@@ -1,7 +1,23 @@
 package mtymes.account.config;
 
+import mtymes.account.dao.StorageEngine;
+import mtymes.account.dao.mongo.AmountFormat;
+import mtymes.account.dao.mongo.SeqIdAllocation;
+import mtymes.account.dao.mongo.UuidFormat;
+import mtymes.account.work.WorkerExecution;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static mtymes.account.dao.StorageEngine.Mongo;
+import static mtymes.account.dao.mongo.AmountFormat.decimal128;
+import static mtymes.account.dao.mongo.SeqIdAllocation.OptimisticLoop;
+import static mtymes.account.dao.mongo.UuidFormat.Text;
+import static mtymes.account.work.WorkerExecution.FixedThreads;
+
 public class SystemProperties {
 
     private final int appPort;
@@ -9,15 +25,200 @@ public class SystemProperties {
     private final int dbPort;
     private final String dbName;
     private final int backgroundWorkerCount;
-    private final Duration workerIdleTimeout;
 
-    public SystemProperties(int appPort, String dbHostName, int dbPort, String dbName, int backgroundWorkerCount, Duration workerIdleTimeout) {
+    // optional properties
+    private StorageEngine storageEngine = Mongo;
+    private SeqIdAllocation seqIdAllocation = OptimisticLoop;
+    private int seqIdBlockSize = 64;
+    // SeqIds handed out by AtomicCounter or ReservedBlocks are stored within seconds, skipped ones are kept much longer
+    private Duration skippedSeqIdRetention = Duration.ofHours(1);
+    private UuidFormat uuidFormat = Text;
+    private AmountFormat amountFormat = decimal128();
+    private int asyncSubmitterThreadCount = 16;
+    // 1 = each operation is inserted on its own
+    private int operationInsertBatchSize = 1;
+    private Duration operationInsertBatchDelay = Duration.ZERO;
+    private boolean batchedBalanceUpdates = false;
+    // 0 = accounts are not cached
+    private long accountCacheSize = 0;
+    private boolean accountAffinity = false;
+    private Duration nodeLeaseDuration = Duration.ofSeconds(10);
+    private Duration forwardedWorkPollInterval = Duration.ofMillis(50);
+    private Duration unfinishedOperationTimeout = Duration.ZERO;
+    private WorkerExecution workerExecution = FixedThreads;
+    // only for TaskPerDrain execution - bounds the db concurrency of the drains instead of the thread count
+    private int maxConcurrentDrains = 64;
+    // 0 = default http thread pool
+    private int httpThreadCount = 0;
+    private boolean asyncMongoDriver = false;
+    private Path journalDirectory = Paths.get("journal");
+    private int journalSegmentSize = 64 * 1024 * 1024;
+    private boolean journalForceOnAppend = false;
+    // 0 = snapshots are not taken periodically
+    private Duration journalSnapshotInterval = Duration.ofMinutes(5);
+    // 0 = account snapshots are not taken periodically
+    private Duration accountSnapshotInterval = Duration.ZERO;
+    private int accountRecoveryParallelism = 8;
+
+    public SystemProperties(int appPort, String dbHostName, int dbPort, String dbName, int backgroundWorkerCount) {
         this.appPort = appPort;
         this.dbHostName = dbHostName;
         this.dbPort = dbPort;
         this.dbName = dbName;
         this.backgroundWorkerCount = backgroundWorkerCount;
-        this.workerIdleTimeout = workerIdleTimeout;
+    }
+
+    public SystemProperties storageEngine(StorageEngine storageEngine) {
+        checkNotNull(storageEngine, "storageEngine can't be null");
+        this.storageEngine = storageEngine;
+        return this;
+    }
+
+    public SystemProperties seqIdAllocation(SeqIdAllocation seqIdAllocation) {
+        checkNotNull(seqIdAllocation, "seqIdAllocation can't be null");
+        this.seqIdAllocation = seqIdAllocation;
+        return this;
+    }
+
+    public SystemProperties seqIdBlockSize(int seqIdBlockSize) {
+        checkArgument(seqIdBlockSize > 0, "seqIdBlockSize must be a positive value");
+        this.seqIdBlockSize = seqIdBlockSize;
+        return this;
+    }
+
+    public SystemProperties skippedSeqIdRetention(Duration skippedSeqIdRetention) {
+        checkNotNull(skippedSeqIdRetention, "skippedSeqIdRetention can't be null");
+        checkArgument(!skippedSeqIdRetention.isNegative() && !skippedSeqIdRetention.isZero(), "skippedSeqIdRetention must be a positive value");
+        this.skippedSeqIdRetention = skippedSeqIdRetention;
+        return this;
+    }
+
+    public SystemProperties uuidFormat(UuidFormat uuidFormat) {
+        checkNotNull(uuidFormat, "uuidFormat can't be null");
+        this.uuidFormat = uuidFormat;
+        return this;
+    }
+
+    public SystemProperties amountFormat(AmountFormat amountFormat) {
+        checkNotNull(amountFormat, "amountFormat can't be null");
+        this.amountFormat = amountFormat;
+        return this;
+    }
+
+    public SystemProperties asyncSubmitterThreadCount(int asyncSubmitterThreadCount) {
+        checkArgument(asyncSubmitterThreadCount > 0, "asyncSubmitterThreadCount must be a positive value");
+        this.asyncSubmitterThreadCount = asyncSubmitterThreadCount;
+        return this;
+    }
+
+    public SystemProperties operationInsertBatchSize(int operationInsertBatchSize) {
+        checkArgument(operationInsertBatchSize > 0, "operationInsertBatchSize must be a positive value");
+        this.operationInsertBatchSize = operationInsertBatchSize;
+        return this;
+    }
+
+    public SystemProperties operationInsertBatchDelay(Duration operationInsertBatchDelay) {
+        checkNotNull(operationInsertBatchDelay, "operationInsertBatchDelay can't be null");
+        checkArgument(!operationInsertBatchDelay.isNegative(), "operationInsertBatchDelay can't be negative");
+        this.operationInsertBatchDelay = operationInsertBatchDelay;
+        return this;
+    }
+
+    public SystemProperties batchedBalanceUpdates(boolean batchedBalanceUpdates) {
+        this.batchedBalanceUpdates = batchedBalanceUpdates;
+        return this;
+    }
+
+    public SystemProperties accountCacheSize(long accountCacheSize) {
+        checkArgument(accountCacheSize >= 0, "accountCacheSize can't be negative");
+        this.accountCacheSize = accountCacheSize;
+        return this;
+    }
+
+    public SystemProperties accountAffinity(boolean accountAffinity) {
+        this.accountAffinity = accountAffinity;
+        return this;
+    }
+
+    public SystemProperties nodeLeaseDuration(Duration nodeLeaseDuration) {
+        checkNotNull(nodeLeaseDuration, "nodeLeaseDuration can't be null");
+        checkArgument(nodeLeaseDuration.toMillis() >= 3, "nodeLeaseDuration must be at least 3 milliseconds");
+        this.nodeLeaseDuration = nodeLeaseDuration;
+        return this;
+    }
+
+    public SystemProperties forwardedWorkPollInterval(Duration forwardedWorkPollInterval) {
+        checkNotNull(forwardedWorkPollInterval, "forwardedWorkPollInterval can't be null");
+        checkArgument(forwardedWorkPollInterval.toMillis() > 0, "forwardedWorkPollInterval must be at least 1 millisecond");
+        this.forwardedWorkPollInterval = forwardedWorkPollInterval;
+        return this;
+    }
+
+    public SystemProperties unfinishedOperationTimeout(Duration unfinishedOperationTimeout) {
+        checkNotNull(unfinishedOperationTimeout, "unfinishedOperationTimeout can't be null");
+        checkArgument(!unfinishedOperationTimeout.isNegative(), "unfinishedOperationTimeout can't be negative");
+        this.unfinishedOperationTimeout = unfinishedOperationTimeout;
+        return this;
+    }
+
+    public SystemProperties workerExecution(WorkerExecution workerExecution) {
+        checkNotNull(workerExecution, "workerExecution can't be null");
+        this.workerExecution = workerExecution;
+        return this;
+    }
+
+    public SystemProperties maxConcurrentDrains(int maxConcurrentDrains) {
+        checkArgument(maxConcurrentDrains > 0, "maxConcurrentDrains must be a positive value");
+        this.maxConcurrentDrains = maxConcurrentDrains;
+        return this;
+    }
+
+    public SystemProperties httpThreadCount(int httpThreadCount) {
+        checkArgument(httpThreadCount >= 0, "httpThreadCount can't be negative");
+        this.httpThreadCount = httpThreadCount;
+        return this;
+    }
+
+    public SystemProperties asyncMongoDriver(boolean asyncMongoDriver) {
+        this.asyncMongoDriver = asyncMongoDriver;
+        return this;
+    }
+
+    public SystemProperties journalDirectory(Path journalDirectory) {
+        checkNotNull(journalDirectory, "journalDirectory can't be null");
+        this.journalDirectory = journalDirectory;
+        return this;
+    }
+
+    public SystemProperties journalSegmentSize(int journalSegmentSize) {
+        checkArgument(journalSegmentSize > 0, "journalSegmentSize must be a positive value");
+        this.journalSegmentSize = journalSegmentSize;
+        return this;
+    }
+
+    public SystemProperties journalForceOnAppend(boolean journalForceOnAppend) {
+        this.journalForceOnAppend = journalForceOnAppend;
+        return this;
+    }
+
+    public SystemProperties journalSnapshotInterval(Duration journalSnapshotInterval) {
+        checkNotNull(journalSnapshotInterval, "journalSnapshotInterval can't be null");
+        checkArgument(!journalSnapshotInterval.isNegative(), "journalSnapshotInterval can't be negative");
+        this.journalSnapshotInterval = journalSnapshotInterval;
+        return this;
+    }
+
+    public SystemProperties accountSnapshotInterval(Duration accountSnapshotInterval) {
+        checkNotNull(accountSnapshotInterval, "accountSnapshotInterval can't be null");
+        checkArgument(!accountSnapshotInterval.isNegative(), "accountSnapshotInterval can't be negative");
+        this.accountSnapshotInterval = accountSnapshotInterval;
+        return this;
+    }
+
+    public SystemProperties accountRecoveryParallelism(int accountRecoveryParallelism) {
+        checkArgument(accountRecoveryParallelism > 0, "accountRecoveryParallelism must be a positive value");
+        this.accountRecoveryParallelism = accountRecoveryParallelism;
+        return this;
     }
 
     public int appPort() {
@@ -40,7 +241,103 @@ public class SystemProperties {
         return backgroundWorkerCount;
     }
 
-    public Duration workerIdleTimeout() {
-        return workerIdleTimeout;
+    public StorageEngine storageEngine() {
+        return storageEngine;
+    }
+
+    public SeqIdAllocation seqIdAllocation() {
+        return seqIdAllocation;
+    }
+
+    public int seqIdBlockSize() {
+        return seqIdBlockSize;
+    }
+
+    public Duration skippedSeqIdRetention() {
+        return skippedSeqIdRetention;
+    }
+
+    public UuidFormat uuidFormat() {
+        return uuidFormat;
+    }
+
+    public AmountFormat amountFormat() {
+        return amountFormat;
+    }
+
+    public int asyncSubmitterThreadCount() {
+        return asyncSubmitterThreadCount;
+    }
+
+    public int operationInsertBatchSize() {
+        return operationInsertBatchSize;
+    }
+
+    public Duration operationInsertBatchDelay() {
+        return operationInsertBatchDelay;
+    }
+
+    public boolean batchedBalanceUpdates() {
+        return batchedBalanceUpdates;
+    }
+
+    public long accountCacheSize() {
+        return accountCacheSize;
+    }
+
+    public boolean accountAffinity() {
+        return accountAffinity;
+    }
+
+    public Duration nodeLeaseDuration() {
+        return nodeLeaseDuration;
+    }
+
+    public Duration forwardedWorkPollInterval() {
+        return forwardedWorkPollInterval;
+    }
+
+    public Duration unfinishedOperationTimeout() {
+        return unfinishedOperationTimeout;
+    }
+
+    public WorkerExecution workerExecution() {
+        return workerExecution;
+    }
+
+    public int maxConcurrentDrains() {
+        return maxConcurrentDrains;
+    }
+
+    public int httpThreadCount() {
+        return httpThreadCount;
+    }
+
+    public boolean asyncMongoDriver() {
+        return asyncMongoDriver;
+    }
+
+    public Path journalDirectory() {
+        return journalDirectory;
+    }
+
+    public int journalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    public boolean journalForceOnAppend() {
+        return journalForceOnAppend;
+    }
+
+    public Duration journalSnapshotInterval() {
+        return journalSnapshotInterval;
+    }
+
+    public Duration accountSnapshotInterval() {
+        return accountSnapshotInterval;
+    }
+
+    public int accountRecoveryParallelism() {
+        return accountRecoveryParallelism;
     }
 }
@@ -0,0 +1,66 @@
+package mtymes.account.contention;
+
+import mtymes.account.domain.ContentionStats;
+import mtymes.account.domain.HotAccount;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.node.NodeId;
+import mtymes.common.metrics.Counter;
+import mtymes.common.metrics.Metrics;
+import mtymes.common.util.SpaceSavingSketch;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static com.google.common.collect.Maps.newTreeMap;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Record of lost optimistic races of one application node: opLog inserts retried because their SeqId was taken
+ * and conditional account writes rejected because the account version has moved.
+ * Counts are kept per handler (and exposed as metrics), the most contended accounts are estimated with a sketch.
+ */
+public class ContentionMonitor {
+
+    private static final int TRACKED_ACCOUNT_COUNT = 256;
+    private static final int SKETCH_STRIPE_COUNT = 16;
+    private static final String UPDATE_CONFLICTS_NAME = "bank_account_update_conflicts_total";
+    private static final String UPDATE_CONFLICTS_HELP = "Conditional account writes that failed as the account has been modified concurrently, by handler";
+
+    private final NodeId nodeId;
+    private final Metrics metrics;
+    private final Counter seqIdConflicts;
+    private final ConcurrentMap<String, Counter> accountUpdateConflicts = newConcurrentMap();
+    private final SpaceSavingSketch<AccountId> contendedAccounts = new SpaceSavingSketch<>(TRACKED_ACCOUNT_COUNT, SKETCH_STRIPE_COUNT);
+
+    public ContentionMonitor(NodeId nodeId, Metrics metrics) {
+        this.nodeId = nodeId;
+        this.metrics = metrics;
+        this.seqIdConflicts = metrics.counter("bank_seq_id_retries_total", "Inserts into the opLog retried because the SeqId was already taken");
+    }
+
+    public void recordSeqIdConflict(AccountId accountId) {
+        seqIdConflicts.increment();
+        contendedAccounts.offer(accountId);
+    }
+
+    public void recordAccountUpdateConflict(AccountId accountId, String handlerName) {
+        accountUpdateConflicts
+                .computeIfAbsent(handlerName, name -> metrics.counter(UPDATE_CONFLICTS_NAME, UPDATE_CONFLICTS_HELP, "handler", name))
+                .increment();
+        contendedAccounts.offer(accountId);
+    }
+
+    public ContentionStats stats(int hottestAccountCount) {
+        Map<String, Long> updateConflictCounts = newTreeMap();
+        accountUpdateConflicts.forEach((handlerName, counter) -> updateConflictCounts.put(handlerName, counter.count()));
+        return new ContentionStats(
+                nodeId,
+                seqIdConflicts.count(),
+                updateConflictCounts,
+                contendedAccounts.top(hottestAccountCount).stream()
+                        .map(estimate -> new HotAccount(estimate.item, estimate.count, estimate.maxOverestimate))
+                        .collect(toList())
+        );
+    }
+}
@@ -16,4 +16,12 @@ public interface AccountDao {
     Optional<Account> findAccount(AccountId accountId);
 
     Optional<SeqId> findCurrentVersion(AccountId accountId);
+
+    // returns the stored state of an already loaded account - only a dao that can serve stale accounts has to read it again
+    default Optional<Account> refreshAccount(Account account) {
+        return Optional.of(account);
+    }
+
+    // replaces the account only if its version is still currentVersion (or creates it if it's still missing) - only for recovery of broken accounts
+    boolean restoreAccount(Account account, Optional<SeqId> currentVersion);
 }
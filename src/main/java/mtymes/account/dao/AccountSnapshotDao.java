@@ -0,0 +1,14 @@
+package mtymes.account.dao;
+
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+
+import java.util.Optional;
+
+public interface AccountSnapshotDao {
+
+    // an existing snapshot is replaced only by a snapshot with a newer version
+    void storeSnapshot(Account account);
+
+    Optional<Account> findSnapshot(AccountId accountId);
+}
@@ -0,0 +1,13 @@
+package mtymes.account.dao;
+
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// non-blocking version of the AccountDao reads used by the async submit path
+public interface AsyncAccountDao {
+
+    CompletableFuture<Optional<Account>> findAccount(AccountId accountId);
+}
@@ -0,0 +1,13 @@
+package mtymes.account.dao;
+
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+
+import java.util.concurrent.CompletableFuture;
+
+// non-blocking version of the OpLogDao writes used by the async submit path
+public interface AsyncOpLogDao {
+
+    CompletableFuture<SeqId> registerOperationId(AccountId accountId, OperationId operationId);
+}
@@ -0,0 +1,16 @@
+package mtymes.account.dao;
+
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import mtymes.account.domain.operation.OperationId;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// non-blocking version of the OperationDao calls used by the async submit path
+public interface AsyncOperationDao {
+
+    CompletableFuture<Void> storeOperation(Operation operation);
+
+    CompletableFuture<Optional<LoggedOperation>> findLoggedOperation(OperationId operationId);
+}
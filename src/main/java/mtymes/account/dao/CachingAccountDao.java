@@ -0,0 +1,116 @@
+package mtymes.account.dao;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import javafixes.math.Decimal;
+import mtymes.account.domain.AccountCacheStats;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.SeqId;
+
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.cache.CacheBuilder.newBuilder;
+
+/**
+ * Write-through cache of accounts with least recently used eviction.
+ * Cached accounts are only replaced by accounts with a newer version, and dropped once a conditional write fails
+ * as that means the account has been modified by someone else.
+ * It can serve stale accounts if the same account is also modified by another node, so any rejection based on a cached
+ * account should be confirmed with refreshAccount.
+ */
+public class CachingAccountDao implements AccountDao {
+
+    private final AccountDao accountDao;
+    private final Cache<AccountId, Account> accounts;
+
+    public CachingAccountDao(AccountDao accountDao, long maxSize) {
+        checkArgument(maxSize > 0, "maxSize must be a positive value");
+
+        this.accountDao = accountDao;
+        this.accounts = newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    @Override
+    public boolean createAccount(AccountId accountId, SeqId version) {
+        boolean success = accountDao.createAccount(accountId, version);
+        if (success) {
+            cache(new Account(accountId, Decimal.ZERO, version));
+        } else {
+            accounts.invalidate(accountId);
+        }
+        return success;
+    }
+
+    @Override
+    public boolean updateBalance(AccountId accountId, Decimal newBalance, SeqId oldVersion, SeqId newVersion) {
+        boolean success = accountDao.updateBalance(accountId, newBalance, oldVersion, newVersion);
+        if (success) {
+            cache(new Account(accountId, newBalance, newVersion));
+        } else {
+            accounts.invalidate(accountId);
+        }
+        return success;
+    }
+
+    @Override
+    public Optional<Account> findAccount(AccountId accountId) {
+        Account cachedAccount = accounts.getIfPresent(accountId);
+        if (cachedAccount != null) {
+            return Optional.of(cachedAccount);
+        }
+
+        Optional<Account> account = accountDao.findAccount(accountId);
+        account.ifPresent(this::cache);
+        return account;
+    }
+
+    @Override
+    public Optional<SeqId> findCurrentVersion(AccountId accountId) {
+        return findAccount(accountId).map(account -> account.version);
+    }
+
+    // bypasses the cached account as it may be stale
+    @Override
+    public Optional<Account> refreshAccount(Account account) {
+        accounts.invalidate(account.accountId);
+        return findAccount(account.accountId);
+    }
+
+    @Override
+    public boolean restoreAccount(Account account, Optional<SeqId> currentVersion) {
+        boolean success = accountDao.restoreAccount(account, currentVersion);
+        if (success) {
+            accounts.put(account.accountId, account);
+        } else {
+            accounts.invalidate(account.accountId);
+        }
+        return success;
+    }
+
+    public void invalidateAll() {
+        accounts.invalidateAll();
+    }
+
+    public AccountCacheStats stats() {
+        CacheStats stats = accounts.stats();
+        return new AccountCacheStats(
+                accounts.size(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.missRate(),
+                stats.evictionCount()
+        );
+    }
+
+    // a concurrently loaded older version must not replace a newer one
+    private void cache(Account account) {
+        accounts.asMap().merge(
+                account.accountId,
+                account,
+                (cachedAccount, newAccount) -> cachedAccount.version.isBefore(newAccount.version) ? newAccount : cachedAccount
+        );
+    }
+}
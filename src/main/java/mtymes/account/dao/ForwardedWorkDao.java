@@ -0,0 +1,15 @@
+package mtymes.account.dao;
+
+import mtymes.account.domain.account.AccountId;
+
+import java.util.List;
+
+public interface ForwardedWorkDao {
+
+    void forwardWork(AccountId accountId);
+
+    List<AccountId> findForwardedWork();
+
+    // returns false if the work has already been taken by someone else
+    boolean takeForwardedWork(AccountId accountId);
+}
@@ -0,0 +1,15 @@
+package mtymes.account.dao;
+
+import mtymes.account.domain.node.NodeId;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface NodeLeaseDao {
+
+    void renewLease(NodeId nodeId, Duration leaseDuration);
+
+    void releaseLease(NodeId nodeId);
+
+    List<NodeId> findLiveNodeIds();
+}
@@ -5,6 +5,7 @@ import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.OperationId;
 import mtymes.account.domain.operation.SeqId;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface OpLogDao {
@@ -13,5 +14,13 @@ public interface OpLogDao {
 
     void markAsFinished(OperationId operationId);
 
+    void markAsFinished(Collection<OperationId> operationIds);
+
     List<Tuple<OperationId, SeqId>> findUnfinishedOperationIds(AccountId accountId);
+
+    // finished and unfinished operationIds ordered by SeqId
+    List<Tuple<OperationId, SeqId>> findOperationIdsAfter(AccountId accountId, SeqId seqId);
+
+    // all accounts with at least one opLog entry
+    List<AccountId> findAccountIds();
 }
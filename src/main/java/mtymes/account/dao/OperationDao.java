@@ -4,6 +4,8 @@ import mtymes.account.domain.operation.LoggedOperation;
 import mtymes.account.domain.operation.Operation;
 import mtymes.account.domain.operation.OperationId;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface OperationDao {
@@ -14,5 +16,14 @@ public interface OperationDao {
 
     boolean markAsRejected(OperationId operationId, String description);
 
+    // returns number of operations that were marked by this call
+    int markAsApplied(Collection<OperationId> operationIds);
+
+    // returns number of operations that were marked by this call
+    int markAsRejected(Map<OperationId, String> descriptions);
+
     Optional<LoggedOperation> findLoggedOperation(OperationId operationId);
+
+    // operations that don't exist are not part of the response
+    Map<OperationId, LoggedOperation> findLoggedOperations(Collection<OperationId> operationIds);
 }
@@ -0,0 +1,10 @@
+package mtymes.account.dao;
+
+public enum StorageEngine {
+    // accounts, operations and opLogs are stored in MongoDB
+    Mongo,
+    // everything is kept in the memory of this process - for single node deployments and as a throughput reference
+    InMemory,
+    // kept in memory and every change is recorded into a local append-only journal first - for single node deployments
+    Journal
+}
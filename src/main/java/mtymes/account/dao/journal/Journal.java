@@ -0,0 +1,306 @@
+package mtymes.account.dao.journal;
+
+import mtymes.account.dao.memory.ChangeLog;
+import mtymes.account.dao.memory.InMemoryAccountDao;
+import mtymes.account.dao.memory.InMemoryOpLogDao;
+import mtymes.account.dao.memory.InMemoryOperationDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Append-only log of all changes, split into numbered segments.
+ * A snapshot with number N contains the state after all changes recorded in the segments 1..N,
+ * so the recovery reads the last snapshot and then replays only the segments after it.
+ */
+class Journal implements ChangeLog {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String FILE_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnAppend;
+
+    // guarded by the appendLock
+    private final Object appendLock = new Object();
+    private JournalSegment currentSegment;
+    private long currentSegmentNo;
+
+    Journal(Path directory, int segmentSize, boolean forceOnAppend) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceOnAppend = forceOnAppend;
+    }
+
+    // has to be called before any change is recorded
+    void recover(ChangeLog target) {
+        try {
+            Files.createDirectories(directory);
+            for (Path tempFile : listFiles(path -> path.getFileName().toString().endsWith(TEMP_SUFFIX))) {
+                Files.delete(tempFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        long snapshotNo = lastSnapshotNo();
+        if (snapshotNo > 0) {
+            readSnapshot(snapshotPath(snapshotNo), target);
+        }
+        JournalSegment segment = null;
+        long segmentNo = snapshotNo + 1;
+        for (long no : fileNos(SEGMENT_PREFIX)) {
+            if (no > snapshotNo) {
+                if (segment != null) {
+                    segment.close();
+                }
+                segment = JournalSegment.open(segmentPath(no), segmentSize);
+                segment.replay(record -> JournalRecords.replay(record, target));
+                segmentNo = no;
+            }
+        }
+        if (segment == null) {
+            segment = JournalSegment.open(segmentPath(segmentNo), segmentSize);
+        }
+        segment.clearTail();
+
+        synchronized (appendLock) {
+            this.currentSegment = segment;
+            this.currentSegmentNo = segmentNo;
+        }
+        deleteFilesCoveredBy(snapshotNo);
+    }
+
+    @Override
+    public void accountChanged(Account account) {
+        append(JournalRecords.accountRecord(account));
+    }
+
+    @Override
+    public void operationChanged(LoggedOperation operation) {
+        append(JournalRecords.operationRecord(operation));
+    }
+
+    @Override
+    public void opLogEntryChanged(AccountId accountId, OperationId operationId, SeqId seqId, boolean finished) {
+        append(JournalRecords.opLogEntryRecord(accountId, operationId, seqId, finished));
+    }
+
+    // new changes are recorded into a new segment - returns the number of the last segment that won't change anymore
+    long completeCurrentSegment() {
+        synchronized (appendLock) {
+            if (!currentSegment.isEmpty()) {
+                rollSegment();
+            }
+            return currentSegmentNo - 1;
+        }
+    }
+
+    long lastSnapshotNo() {
+        List<Long> snapshotNos = fileNos(SNAPSHOT_PREFIX);
+        return snapshotNos.isEmpty() ? 0 : snapshotNos.get(snapshotNos.size() - 1);
+    }
+
+    // the state is rebuilt from the journal files, so the snapshot isn't affected by changes that are being recorded concurrently
+    void writeSnapshot(long upToSegmentNo) {
+        InMemoryAccountDao accountDao = new InMemoryAccountDao();
+        InMemoryOperationDao operationDao = new InMemoryOperationDao();
+        InMemoryOpLogDao opLogDao = new InMemoryOpLogDao();
+        ChangeLog restore = restoreInto(accountDao, operationDao, opLogDao);
+
+        long previousSnapshotNo = lastSnapshotNo();
+        checkState(previousSnapshotNo < upToSegmentNo, "snapshot %s already exists", upToSegmentNo);
+        if (previousSnapshotNo > 0) {
+            readSnapshot(snapshotPath(previousSnapshotNo), restore);
+        }
+        for (long no : fileNos(SEGMENT_PREFIX)) {
+            if (no > previousSnapshotNo && no <= upToSegmentNo) {
+                JournalSegment segment = JournalSegment.open(segmentPath(no), segmentSize);
+                segment.replay(record -> JournalRecords.replay(record, restore));
+                segment.close();
+            }
+        }
+
+        Path snapshotPath = snapshotPath(upToSegmentNo);
+        Path tempPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + TEMP_SUFFIX);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                ChangeLog snapshotWriter = new SnapshotWriter(out);
+                operationDao.exportTo(snapshotWriter);
+                opLogDao.exportTo(snapshotWriter);
+                accountDao.exportTo(snapshotWriter);
+            }
+            try (FileChannel channel = FileChannel.open(tempPath, WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tempPath, snapshotPath, ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        deleteFilesCoveredBy(upToSegmentNo);
+    }
+
+    void close() {
+        synchronized (appendLock) {
+            currentSegment.close();
+        }
+    }
+
+    static ChangeLog restoreInto(InMemoryAccountDao accountDao, InMemoryOperationDao operationDao, InMemoryOpLogDao opLogDao) {
+        return new ChangeLog() {
+            @Override
+            public void accountChanged(Account account) {
+                accountDao.restore(account);
+            }
+
+            @Override
+            public void operationChanged(LoggedOperation operation) {
+                operationDao.restore(operation);
+            }
+
+            @Override
+            public void opLogEntryChanged(AccountId accountId, OperationId operationId, SeqId seqId, boolean finished) {
+                opLogDao.restore(accountId, operationId, seqId, finished);
+            }
+        };
+    }
+
+    private void append(byte[] record) {
+        synchronized (appendLock) {
+            if (!currentSegment.append(record)) {
+                rollSegment();
+                checkState(currentSegment.append(record), "record of %s bytes doesn't fit into an empty segment", record.length);
+            }
+            if (forceOnAppend) {
+                currentSegment.force();
+            }
+        }
+    }
+
+    // guarded by the appendLock
+    private void rollSegment() {
+        currentSegment.close();
+        currentSegmentNo++;
+        currentSegment = JournalSegment.open(segmentPath(currentSegmentNo), segmentSize);
+    }
+
+    private void readSnapshot(Path snapshotPath, ChangeLog target) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int checksum = in.readInt();
+                byte[] record = new byte[length];
+                in.readFully(record);
+                checkState(JournalRecords.checksum(record) == checksum, "snapshot %s is corrupted", snapshotPath);
+                JournalRecords.replay(record, target);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteFilesCoveredBy(long snapshotNo) {
+        try {
+            for (long no : fileNos(SEGMENT_PREFIX)) {
+                if (no <= snapshotNo) {
+                    Files.delete(segmentPath(no));
+                }
+            }
+            for (long no : fileNos(SNAPSHOT_PREFIX)) {
+                if (no < snapshotNo) {
+                    Files.delete(snapshotPath(no));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(long segmentNo) {
+        return directory.resolve(format("%s%012d%s", SEGMENT_PREFIX, segmentNo, FILE_SUFFIX));
+    }
+
+    private Path snapshotPath(long snapshotNo) {
+        return directory.resolve(format("%s%012d%s", SNAPSHOT_PREFIX, snapshotNo, FILE_SUFFIX));
+    }
+
+    // numbers of files with the given prefix in ascending order
+    private List<Long> fileNos(String prefix) {
+        return listFiles(path -> {
+            String fileName = path.getFileName().toString();
+            return fileName.startsWith(prefix) && fileName.endsWith(FILE_SUFFIX);
+        }).stream()
+                .map(path -> {
+                    String fileName = path.getFileName().toString();
+                    return Long.parseLong(fileName.substring(prefix.length(), fileName.length() - FILE_SUFFIX.length()));
+                })
+                .sorted()
+                .collect(toList());
+    }
+
+    private List<Path> listFiles(Predicate<Path> filter) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(filter).collect(toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class SnapshotWriter implements ChangeLog {
+
+        private final DataOutputStream out;
+
+        private SnapshotWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void accountChanged(Account account) {
+            write(JournalRecords.accountRecord(account));
+        }
+
+        @Override
+        public void operationChanged(LoggedOperation operation) {
+            write(JournalRecords.operationRecord(operation));
+        }
+
+        @Override
+        public void opLogEntryChanged(AccountId accountId, OperationId operationId, SeqId seqId, boolean finished) {
+            write(JournalRecords.opLogEntryRecord(accountId, operationId, seqId, finished));
+        }
+
+        private void write(byte[] record) {
+            try {
+                out.writeInt(record.length);
+                out.writeInt(JournalRecords.checksum(record));
+                out.write(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package mtymes.account.dao.journal;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import javafixes.math.Decimal;
+import mtymes.account.dao.memory.ChangeLog;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static com.google.common.io.ByteStreams.newDataInput;
+import static com.google.common.io.ByteStreams.newDataOutput;
+import static java.lang.String.format;
+import static mtymes.account.domain.account.AccountId.accountId;
+import static mtymes.account.domain.operation.OperationId.operationId;
+import static mtymes.account.domain.operation.SeqId.seqId;
+
+/**
+ * Binary form of the journal records. Each record holds the whole new state of one changed item,
+ * so replaying a record more than once or on top of a newer snapshot gives the same result.
+ */
+class JournalRecords {
+
+    private static final byte ACCOUNT = 1;
+    private static final byte OPERATION = 2;
+    private static final byte OP_LOG_ENTRY = 3;
+
+    private static final byte CREATE_ACCOUNT = 1;
+    private static final byte DEPOSIT_TO = 2;
+    private static final byte WITHDRAW_FROM = 3;
+    private static final byte TRANSFER_FROM = 4;
+    private static final byte TRANSFER_TO = 5;
+
+    private static final byte NOT_FINISHED = 0;
+    private static final byte APPLIED = 1;
+    private static final byte REJECTED = 2;
+
+    static byte[] accountRecord(Account account) {
+        ByteArrayDataOutput out = newDataOutput();
+        out.writeByte(ACCOUNT);
+        writeUUID(out, account.accountId.value());
+        writeDecimal(out, account.balance);
+        out.writeLong(account.version.value());
+        return out.toByteArray();
+    }
+
+    static byte[] operationRecord(LoggedOperation loggedOperation) {
+        ByteArrayDataOutput out = newDataOutput();
+        out.writeByte(OPERATION);
+        loggedOperation.operation.apply(new OperationWriter(out));
+        if (!loggedOperation.finalState.isPresent()) {
+            out.writeByte(NOT_FINISHED);
+        } else if (loggedOperation.finalState.get() == FinalState.Applied) {
+            out.writeByte(APPLIED);
+        } else {
+            out.writeByte(REJECTED);
+            out.writeUTF(loggedOperation.description.get());
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] opLogEntryRecord(AccountId accountId, OperationId operationId, SeqId seqId, boolean finished) {
+        ByteArrayDataOutput out = newDataOutput();
+        out.writeByte(OP_LOG_ENTRY);
+        writeUUID(out, accountId.value());
+        writeUUID(out, operationId.value());
+        out.writeLong(seqId.value());
+        out.writeBoolean(finished);
+        return out.toByteArray();
+    }
+
+    static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return (int) crc.getValue();
+    }
+
+    static void replay(byte[] record, ChangeLog target) {
+        ByteArrayDataInput in = newDataInput(record);
+        byte recordType = in.readByte();
+        switch (recordType) {
+            case ACCOUNT:
+                target.accountChanged(new Account(accountId(readUUID(in)), readDecimal(in), seqId(in.readLong())));
+                break;
+            case OPERATION:
+                Operation operation = readOperation(in);
+                byte finalState = in.readByte();
+                if (finalState == NOT_FINISHED) {
+                    target.operationChanged(new LoggedOperation(operation, Optional.empty(), Optional.empty()));
+                } else if (finalState == APPLIED) {
+                    target.operationChanged(new LoggedOperation(operation, Optional.of(FinalState.Applied), Optional.empty()));
+                } else {
+                    target.operationChanged(new LoggedOperation(operation, Optional.of(FinalState.Rejected), Optional.of(in.readUTF())));
+                }
+                break;
+            case OP_LOG_ENTRY:
+                target.opLogEntryChanged(accountId(readUUID(in)), operationId(readUUID(in)), seqId(in.readLong()), in.readBoolean());
+                break;
+            default:
+                throw new IllegalStateException(format("unknown journal record type %d", recordType));
+        }
+    }
+
+    private static Operation readOperation(ByteArrayDataInput in) {
+        byte operationType = in.readByte();
+        OperationId operationId = operationId(readUUID(in));
+        switch (operationType) {
+            case CREATE_ACCOUNT:
+                return new CreateAccount(operationId, accountId(readUUID(in)));
+            case DEPOSIT_TO:
+                return new DepositTo(operationId, accountId(readUUID(in)), readDecimal(in));
+            case WITHDRAW_FROM:
+                return new WithdrawFrom(operationId, accountId(readUUID(in)), readDecimal(in));
+            case TRANSFER_FROM:
+                return new TransferFrom(operationId, operationId(readUUID(in)), readTransferDetail(in));
+            case TRANSFER_TO:
+                return new TransferTo(operationId, readTransferDetail(in));
+            default:
+                throw new IllegalStateException(format("unknown journal operation type %d", operationType));
+        }
+    }
+
+    private static TransferDetail readTransferDetail(ByteArrayDataInput in) {
+        return new TransferDetail(accountId(readUUID(in)), accountId(readUUID(in)), readDecimal(in));
+    }
+
+    private static void writeTransferDetail(ByteArrayDataOutput out, TransferDetail detail) {
+        writeUUID(out, detail.fromAccountId.value());
+        writeUUID(out, detail.toAccountId.value());
+        writeDecimal(out, detail.amount);
+    }
+
+    private static void writeUUID(ByteArrayDataOutput out, UUID uuid) {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUUID(ByteArrayDataInput in) {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeDecimal(ByteArrayDataOutput out, Decimal decimal) {
+        BigDecimal value = decimal.bigDecimalValue();
+        byte[] unscaledValue = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeByte(unscaledValue.length);
+        out.write(unscaledValue);
+    }
+
+    private static Decimal readDecimal(ByteArrayDataInput in) {
+        int scale = in.readInt();
+        byte[] unscaledValue = new byte[in.readUnsignedByte()];
+        in.readFully(unscaledValue);
+        return Decimal.decimal(new BigDecimal(new BigInteger(unscaledValue), scale));
+    }
+
+    private static class OperationWriter implements OperationVisitor<Void> {
+
+        private final ByteArrayDataOutput out;
+
+        private OperationWriter(ByteArrayDataOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public Void visit(CreateAccount request) {
+            writeHeader(CREATE_ACCOUNT, request);
+            writeUUID(out, request.accountId.value());
+            return null;
+        }
+
+        @Override
+        public Void visit(DepositTo request) {
+            writeHeader(DEPOSIT_TO, request);
+            writeUUID(out, request.accountId.value());
+            writeDecimal(out, request.amount);
+            return null;
+        }
+
+        @Override
+        public Void visit(WithdrawFrom request) {
+            writeHeader(WITHDRAW_FROM, request);
+            writeUUID(out, request.accountId.value());
+            writeDecimal(out, request.amount);
+            return null;
+        }
+
+        @Override
+        public Void visit(TransferFrom request) {
+            writeHeader(TRANSFER_FROM, request);
+            writeUUID(out, request.toPartOperationId.value());
+            writeTransferDetail(out, request.detail);
+            return null;
+        }
+
+        @Override
+        public Void visit(TransferTo request) {
+            writeHeader(TRANSFER_TO, request);
+            writeTransferDetail(out, request.detail);
+            return null;
+        }
+
+        private void writeHeader(byte operationType, Operation operation) {
+            out.writeByte(operationType);
+            writeUUID(out, operation.operationId.value());
+        }
+    }
+}
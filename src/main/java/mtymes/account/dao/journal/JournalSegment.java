@@ -0,0 +1,104 @@
+package mtymes.account.dao.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * One fixed size file of the journal, written through a memory mapped buffer.
+ * Each record is stored as: length, crc32 of the content, content. The unwritten rest of the file is zero filled,
+ * so the first record with zero length or a wrong checksum (a write interrupted by a crash) marks the end of the segment.
+ */
+class JournalSegment {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int ZERO_CHUNK_SIZE = 64 * 1024;
+
+    final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment open(Path path, int segmentSize) {
+        try {
+            FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE);
+            MappedByteBuffer buffer = channel.map(READ_WRITE, 0, segmentSize);
+            return new JournalSegment(path, channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // returns false if there is not enough space left for the record
+    boolean append(byte[] record) {
+        if (buffer.remaining() < HEADER_SIZE + record.length) {
+            return false;
+        }
+        int position = buffer.position();
+        // the length is written last so a partially written record is never considered complete
+        buffer.position(position + 4);
+        buffer.putInt(JournalRecords.checksum(record));
+        buffer.put(record);
+        buffer.putInt(position, record.length);
+        return true;
+    }
+
+    // reads all complete records and moves the append position after the last one
+    void replay(Consumer<byte[]> recordConsumer) {
+        buffer.position(0);
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int position = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(position);
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(record);
+            if (JournalRecords.checksum(record) != checksum) {
+                buffer.position(position);
+                break;
+            }
+            recordConsumer.accept(record);
+        }
+    }
+
+    // clears leftovers of an interrupted write, so they can't be mistaken for a record after the next crash
+    void clearTail() {
+        int position = buffer.position();
+        byte[] zeros = new byte[ZERO_CHUNK_SIZE];
+        while (buffer.hasRemaining()) {
+            buffer.put(zeros, 0, Math.min(zeros.length, buffer.remaining()));
+        }
+        buffer.position(position);
+    }
+
+    boolean isEmpty() {
+        return buffer.position() == 0;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package mtymes.account.dao.journal;
+
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.dao.memory.InMemoryAccountDao;
+import mtymes.account.dao.memory.InMemoryOpLogDao;
+import mtymes.account.dao.memory.InMemoryOperationDao;
+import org.slf4j.Logger;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Keeps accounts, operations and opLogs in memory and records every change into a local journal
+ * (memory mapped segment files) before the change becomes visible.
+ * On creation the state is recovered from the last snapshot and the segments written after it.
+ * Without forceOnAppend the recorded changes survive a crash of the process but not of the operating system.
+ */
+public class JournalStorage {
+
+    private final Logger logger = getLogger(JournalStorage.class);
+
+    public final AccountDao accountDao;
+    public final OperationDao operationDao;
+    public final OpLogDao opLogDao;
+
+    private final Journal journal;
+    private final Duration snapshotInterval;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    public JournalStorage(Path directory, int segmentSize, boolean forceOnAppend, Duration snapshotInterval) {
+        checkNotNull(directory, "directory can't be null");
+        checkArgument(segmentSize > 0, "segmentSize must be a positive value");
+        checkNotNull(snapshotInterval, "snapshotInterval can't be null");
+        checkArgument(!snapshotInterval.isNegative(), "snapshotInterval can't be negative");
+
+        this.journal = new Journal(directory, segmentSize, forceOnAppend);
+        this.snapshotInterval = snapshotInterval;
+
+        InMemoryAccountDao accountDao = new InMemoryAccountDao(journal);
+        InMemoryOperationDao operationDao = new InMemoryOperationDao(journal);
+        InMemoryOpLogDao opLogDao = new InMemoryOpLogDao(journal);
+        journal.recover(Journal.restoreInto(accountDao, operationDao, opLogDao));
+
+        this.accountDao = accountDao;
+        this.operationDao = operationDao;
+        this.opLogDao = opLogDao;
+    }
+
+    // snapshots are taken periodically only if the snapshotInterval is positive
+    public JournalStorage start() {
+        if (!snapshotInterval.isZero()) {
+            scheduler = newSingleThreadScheduledExecutor();
+            long snapshotMillis = snapshotInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::takeSnapshotSafely, snapshotMillis, snapshotMillis, MILLISECONDS);
+        }
+        return this;
+    }
+
+    public synchronized void takeSnapshot() {
+        long lastCompleteSegmentNo = journal.completeCurrentSegment();
+        if (lastCompleteSegmentNo > journal.lastSnapshotNo()) {
+            journal.writeSnapshot(lastCompleteSegmentNo);
+        }
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        synchronized (this) {
+            journal.close();
+        }
+    }
+
+    private void takeSnapshotSafely() {
+        try {
+            takeSnapshot();
+        } catch (RuntimeException e) {
+            logger.error("Failed to take journal snapshot", e);
+        }
+    }
+}
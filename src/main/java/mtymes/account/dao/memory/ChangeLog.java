@@ -0,0 +1,35 @@
+package mtymes.account.dao.memory;
+
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+
+/**
+ * Receives the new state of every item changed by the in-memory daos.
+ * It is called before the change becomes visible to other threads and in the same order as the changes of each item,
+ * so a failure prevents the change and a change is never recorded before the changes it could depend on.
+ */
+public interface ChangeLog {
+
+    ChangeLog NONE = new ChangeLog() {
+        @Override
+        public void accountChanged(Account account) {
+        }
+
+        @Override
+        public void operationChanged(LoggedOperation operation) {
+        }
+
+        @Override
+        public void opLogEntryChanged(AccountId accountId, OperationId operationId, SeqId seqId, boolean finished) {
+        }
+    };
+
+    void accountChanged(Account account);
+
+    void operationChanged(LoggedOperation operation);
+
+    void opLogEntryChanged(AccountId accountId, OperationId operationId, SeqId seqId, boolean finished);
+}
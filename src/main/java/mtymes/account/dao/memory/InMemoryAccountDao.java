@@ -0,0 +1,89 @@
+package mtymes.account.dao.memory;
+
+import javafixes.math.Decimal;
+import mtymes.account.dao.AccountDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.SeqId;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class InMemoryAccountDao implements AccountDao {
+
+    private final ConcurrentMap<AccountId, Account> accounts = new ConcurrentHashMap<>();
+    private final ChangeLog changeLog;
+
+    public InMemoryAccountDao(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    public InMemoryAccountDao() {
+        this(ChangeLog.NONE);
+    }
+
+    @Override
+    public boolean createAccount(AccountId accountId, SeqId version) {
+        boolean[] created = {false};
+        accounts.computeIfAbsent(accountId, id -> {
+            Account account = new Account(accountId, Decimal.ZERO, version);
+            changeLog.accountChanged(account);
+            created[0] = true;
+            return account;
+        });
+        return created[0];
+    }
+
+    @Override
+    public boolean updateBalance(AccountId accountId, Decimal newBalance, SeqId oldVersion, SeqId newVersion) {
+        checkArgument(oldVersion.isBefore(newVersion), "oldVersion must be before newVersion");
+
+        boolean[] updated = {false};
+        accounts.computeIfPresent(accountId, (id, account) -> {
+            if (!account.version.equals(oldVersion)) {
+                return account;
+            }
+            Account updatedAccount = new Account(accountId, newBalance, newVersion);
+            changeLog.accountChanged(updatedAccount);
+            updated[0] = true;
+            return updatedAccount;
+        });
+        return updated[0];
+    }
+
+    @Override
+    public Optional<Account> findAccount(AccountId accountId) {
+        return Optional.ofNullable(accounts.get(accountId));
+    }
+
+    @Override
+    public Optional<SeqId> findCurrentVersion(AccountId accountId) {
+        return findAccount(accountId).map(account -> account.version);
+    }
+
+    @Override
+    public boolean restoreAccount(Account account, Optional<SeqId> currentVersion) {
+        boolean[] restored = {false};
+        accounts.compute(account.accountId, (id, currentAccount) -> {
+            if (!Optional.ofNullable(currentAccount).map(a -> a.version).equals(currentVersion)) {
+                return currentAccount;
+            }
+            changeLog.accountChanged(account);
+            restored[0] = true;
+            return account;
+        });
+        return restored[0];
+    }
+
+    // used during journal recovery - replaces the account without recording a change
+    public void restore(Account account) {
+        accounts.put(account.accountId, account);
+    }
+
+    public void exportTo(ChangeLog target) {
+        accounts.values().forEach(target::accountChanged);
+    }
+}
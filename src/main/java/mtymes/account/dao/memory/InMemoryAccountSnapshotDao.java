@@ -0,0 +1,28 @@
+package mtymes.account.dao.memory;
+
+import mtymes.account.dao.AccountSnapshotDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class InMemoryAccountSnapshotDao implements AccountSnapshotDao {
+
+    private final ConcurrentMap<AccountId, Account> snapshots = new ConcurrentHashMap<>();
+
+    @Override
+    public void storeSnapshot(Account account) {
+        snapshots.merge(
+                account.accountId,
+                account,
+                (snapshot, newSnapshot) -> snapshot.version.isBefore(newSnapshot.version) ? newSnapshot : snapshot
+        );
+    }
+
+    @Override
+    public Optional<Account> findSnapshot(AccountId accountId) {
+        return Optional.ofNullable(snapshots.get(accountId));
+    }
+}
@@ -0,0 +1,162 @@
+package mtymes.account.dao.memory;
+
+import javafixes.object.Tuple;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+import mtymes.account.exception.DuplicateItemException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Lists.newArrayList;
+import static javafixes.object.Tuple.tuple;
+import static mtymes.account.domain.operation.SeqId.seqId;
+
+/**
+ * Each account has its own append-only opLog, in which the SeqId of an entry is its position (starting with 1).
+ * So the SeqIds of an account are gap free and unique without any retries.
+ */
+public class InMemoryOpLogDao implements OpLogDao {
+
+    private final ConcurrentMap<AccountId, AccountOpLog> opLogs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<OperationId, OpLogEntry> entries = new ConcurrentHashMap<>();
+    private final ChangeLog changeLog;
+
+    public InMemoryOpLogDao(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    public InMemoryOpLogDao() {
+        this(ChangeLog.NONE);
+    }
+
+    @Override
+    public SeqId registerOperationId(AccountId accountId, OperationId operationId) {
+        AccountOpLog opLog = opLogs.computeIfAbsent(accountId, id -> new AccountOpLog());
+        synchronized (opLog) {
+            OpLogEntry entry = new OpLogEntry(accountId, operationId, seqId(opLog.entries.size() + 1));
+            if (entries.putIfAbsent(operationId, entry) != null) {
+                throw new DuplicateItemException();
+            }
+            try {
+                changeLog.opLogEntryChanged(accountId, operationId, entry.seqId, false);
+            } catch (RuntimeException e) {
+                entries.remove(operationId);
+                throw e;
+            }
+            opLog.entries.add(entry);
+            return entry.seqId;
+        }
+    }
+
+    @Override
+    public void markAsFinished(OperationId operationId) {
+        OpLogEntry entry = entries.get(operationId);
+        if (entry != null && !entry.finished) {
+            changeLog.opLogEntryChanged(entry.accountId, operationId, entry.seqId, true);
+            entry.finished = true;
+        }
+    }
+
+    @Override
+    public void markAsFinished(Collection<OperationId> operationIds) {
+        operationIds.forEach(this::markAsFinished);
+    }
+
+    @Override
+    public List<Tuple<OperationId, SeqId>> findUnfinishedOperationIds(AccountId accountId) {
+        List<Tuple<OperationId, SeqId>> operationIds = newArrayList();
+        AccountOpLog opLog = opLogs.get(accountId);
+        if (opLog == null) {
+            return operationIds;
+        }
+        synchronized (opLog) {
+            // entries before the first unfinished one can't become unfinished again
+            while (opLog.firstUnfinishedIndex < opLog.entries.size() && opLog.entries.get(opLog.firstUnfinishedIndex).finished) {
+                opLog.firstUnfinishedIndex++;
+            }
+            for (int i = opLog.firstUnfinishedIndex; i < opLog.entries.size(); i++) {
+                OpLogEntry entry = opLog.entries.get(i);
+                if (!entry.finished) {
+                    operationIds.add(tuple(entry.operationId, entry.seqId));
+                }
+            }
+        }
+        return operationIds;
+    }
+
+    @Override
+    public List<Tuple<OperationId, SeqId>> findOperationIdsAfter(AccountId accountId, SeqId seqId) {
+        List<Tuple<OperationId, SeqId>> operationIds = newArrayList();
+        AccountOpLog opLog = opLogs.get(accountId);
+        if (opLog == null) {
+            return operationIds;
+        }
+        synchronized (opLog) {
+            // the SeqId of an entry is its position + 1
+            for (long i = Math.max(seqId.value(), 0); i < opLog.entries.size(); i++) {
+                OpLogEntry entry = opLog.entries.get((int) i);
+                operationIds.add(tuple(entry.operationId, entry.seqId));
+            }
+        }
+        return operationIds;
+    }
+
+    @Override
+    public List<AccountId> findAccountIds() {
+        return newArrayList(opLogs.keySet());
+    }
+
+    // used during journal recovery - entries of each account have to be restored in the SeqId order
+    public void restore(AccountId accountId, OperationId operationId, SeqId seqId, boolean finished) {
+        OpLogEntry entry = entries.get(operationId);
+        if (entry == null) {
+            AccountOpLog opLog = opLogs.computeIfAbsent(accountId, id -> new AccountOpLog());
+            synchronized (opLog) {
+                checkState(seqId.value() == opLog.entries.size() + 1, "unexpected SeqId %s of operation '%s'", seqId, operationId);
+                entry = new OpLogEntry(accountId, operationId, seqId);
+                entries.put(operationId, entry);
+                opLog.entries.add(entry);
+            }
+        }
+        if (finished) {
+            entry.finished = true;
+        }
+    }
+
+    public void exportTo(ChangeLog target) {
+        for (AccountOpLog opLog : opLogs.values()) {
+            synchronized (opLog) {
+                for (OpLogEntry entry : opLog.entries) {
+                    target.opLogEntryChanged(entry.accountId, entry.operationId, entry.seqId, entry.finished);
+                }
+            }
+        }
+    }
+
+    private static class AccountOpLog {
+
+        // guarded by the AccountOpLog monitor
+        final List<OpLogEntry> entries = newArrayList();
+        int firstUnfinishedIndex = 0;
+    }
+
+    private static class OpLogEntry {
+
+        final AccountId accountId;
+        final OperationId operationId;
+        final SeqId seqId;
+        volatile boolean finished = false;
+
+        OpLogEntry(AccountId accountId, OperationId operationId, SeqId seqId) {
+            this.accountId = accountId;
+            this.operationId = operationId;
+            this.seqId = seqId;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package mtymes.account.dao.memory;
+
+import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.operation.FinalState;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.exception.DuplicateItemException;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static mtymes.account.domain.operation.FinalState.Applied;
+import static mtymes.account.domain.operation.FinalState.Rejected;
+
+public class InMemoryOperationDao implements OperationDao {
+
+    private final ConcurrentMap<OperationId, LoggedOperation> operations = new ConcurrentHashMap<>();
+    private final ChangeLog changeLog;
+
+    public InMemoryOperationDao(ChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    public InMemoryOperationDao() {
+        this(ChangeLog.NONE);
+    }
+
+    @Override
+    public void storeOperation(Operation operation) {
+        boolean[] stored = {false};
+        operations.computeIfAbsent(operation.operationId, id -> {
+            LoggedOperation loggedOperation = new LoggedOperation(operation, Optional.empty(), Optional.empty());
+            changeLog.operationChanged(loggedOperation);
+            stored[0] = true;
+            return loggedOperation;
+        });
+        if (!stored[0]) {
+            throw new DuplicateItemException();
+        }
+    }
+
+    @Override
+    public boolean markAsApplied(OperationId operationId) {
+        return markAsFinished(operationId, Applied, Optional.empty());
+    }
+
+    @Override
+    public boolean markAsRejected(OperationId operationId, String description) {
+        return markAsFinished(operationId, Rejected, Optional.of(description));
+    }
+
+    @Override
+    public int markAsApplied(Collection<OperationId> operationIds) {
+        int markedCount = 0;
+        for (OperationId operationId : operationIds) {
+            if (markAsApplied(operationId)) {
+                markedCount++;
+            }
+        }
+        return markedCount;
+    }
+
+    @Override
+    public int markAsRejected(Map<OperationId, String> descriptions) {
+        int markedCount = 0;
+        for (Map.Entry<OperationId, String> entry : descriptions.entrySet()) {
+            if (markAsRejected(entry.getKey(), entry.getValue())) {
+                markedCount++;
+            }
+        }
+        return markedCount;
+    }
+
+    @Override
+    public Optional<LoggedOperation> findLoggedOperation(OperationId operationId) {
+        return Optional.ofNullable(operations.get(operationId));
+    }
+
+    @Override
+    public Map<OperationId, LoggedOperation> findLoggedOperations(Collection<OperationId> operationIds) {
+        Map<OperationId, LoggedOperation> loggedOperations = newHashMap();
+        for (OperationId operationId : operationIds) {
+            LoggedOperation loggedOperation = operations.get(operationId);
+            if (loggedOperation != null) {
+                loggedOperations.put(operationId, loggedOperation);
+            }
+        }
+        return loggedOperations;
+    }
+
+    // used during journal recovery - replaces the operation without any checks and without recording a change
+    public void restore(LoggedOperation loggedOperation) {
+        operations.put(loggedOperation.operation.operationId, loggedOperation);
+    }
+
+    public void exportTo(ChangeLog target) {
+        operations.values().forEach(target::operationChanged);
+    }
+
+    // the same as the Mongo update conditioned on a missing final state
+    private boolean markAsFinished(OperationId operationId, FinalState state, Optional<String> description) {
+        boolean[] marked = {false};
+        operations.computeIfPresent(operationId, (id, loggedOperation) -> {
+            if (loggedOperation.isFinished()) {
+                return loggedOperation;
+            }
+            LoggedOperation finishedOperation = new LoggedOperation(loggedOperation.operation, Optional.of(state), description);
+            changeLog.operationChanged(finishedOperation);
+            marked[0] = true;
+            return finishedOperation;
+        });
+        return marked[0];
+    }
+}
@@ -0,0 +1,69 @@
+package mtymes.account.dao.mongo;
+
+import javafixes.math.Decimal;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.SeqId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import static mtymes.account.dao.mongo.MongoAccountDao.*;
+import static mtymes.account.dao.mongo.MongoCodecs.*;
+import static mtymes.account.domain.account.AccountId.accountId;
+import static mtymes.account.domain.operation.SeqId.seqId;
+
+class AccountCodec implements Codec<Account> {
+
+    private final UuidFormat uuidFormat;
+    private final AmountFormat amountFormat;
+
+    AccountCodec(UuidFormat uuidFormat, AmountFormat amountFormat) {
+        this.uuidFormat = uuidFormat;
+        this.amountFormat = amountFormat;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Account account, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeUUID(writer, uuidFormat, ACCOUNT_ID, account.accountId.value());
+        writeDecimal(writer, amountFormat, BALANCE, account.balance);
+        writer.writeInt64(VERSION, account.version.value());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Account decode(BsonReader reader, DecoderContext decoderContext) {
+        AccountId accountId = null;
+        Decimal balance = null;
+        SeqId version = null;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case ACCOUNT_ID:
+                    accountId = accountId(readUUID(reader));
+                    break;
+                case BALANCE:
+                    balance = readDecimal(reader, amountFormat);
+                    break;
+                case VERSION:
+                    version = seqId(reader.readInt64());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return new Account(accountId, balance, version);
+    }
+
+    @Override
+    public Class<Account> getEncoderClass() {
+        return Account.class;
+    }
+}
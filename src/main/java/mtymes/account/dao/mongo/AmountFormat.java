@@ -0,0 +1,79 @@
+package mtymes.account.dao.mongo;
+
+import javafixes.math.Decimal;
+import javafixes.object.DataObject;
+import mtymes.account.exception.AmountOutOfRangeException;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static javafixes.math.Decimal.decimal;
+
+/**
+ * Defines how balances and operation amounts are stored.
+ * Decimal128 keeps amounts of any precision. MinorUnits stores them as an Int64 count of the currency's minor unit
+ * (e.g. cents for scale 2), which makes the stored amounts smaller and cheaper to compare and convert.
+ * An amount with more decimal places than the scale, or one that does not fit into a long, is not stored but fails.
+ * The scale is capped at 6 so that balances up to 9 223 372 036 854.775807 can still be stored.
+ */
+public class AmountFormat extends DataObject {
+
+    private static final int MAX_SCALE = 6;
+
+    // empty = Decimal128
+    public final Optional<Integer> minorUnitScale;
+
+    private AmountFormat(Optional<Integer> minorUnitScale) {
+        this.minorUnitScale = minorUnitScale;
+    }
+
+    public static AmountFormat decimal128() {
+        return new AmountFormat(Optional.empty());
+    }
+
+    public static AmountFormat minorUnits(int scale) {
+        checkArgument(scale >= 0 && scale <= MAX_SCALE, "scale must be between 0 and " + MAX_SCALE);
+        return new AmountFormat(Optional.of(scale));
+    }
+
+    public boolean usesMinorUnits() {
+        return minorUnitScale.isPresent();
+    }
+
+    // returns the reason why the amount can't be stored
+    public Optional<String> validate(Decimal amount) {
+        if (!usesMinorUnits()) {
+            return Optional.empty();
+        }
+        int scale = scale();
+        BigDecimal value = amount.bigDecimalValue().stripTrailingZeros();
+        if (value.scale() > scale) {
+            return Optional.of(format("Amount %s has more than %d decimal places", amount, scale));
+        }
+        if (value.setScale(scale).unscaledValue().bitLength() > 63) {
+            return Optional.of(format("Amount %s does not fit into a long with %d decimal places", amount, scale));
+        }
+        return Optional.empty();
+    }
+
+    public long toMinorUnits(Decimal amount) {
+        Optional<String> failure = validate(amount);
+        if (failure.isPresent()) {
+            throw new AmountOutOfRangeException(failure.get());
+        }
+        return amount.bigDecimalValue().setScale(scale()).unscaledValue().longValue();
+    }
+
+    public Decimal fromMinorUnits(long minorUnits) {
+        return decimal(minorUnits, scale());
+    }
+
+    private int scale() {
+        if (!minorUnitScale.isPresent()) {
+            throw new IllegalStateException("Amounts are not stored in minor units");
+        }
+        return minorUnitScale.get();
+    }
+}
@@ -0,0 +1,36 @@
+package mtymes.account.dao.mongo;
+
+import javafixes.math.Decimal;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import static mtymes.account.dao.mongo.MongoCodecs.readDecimal;
+import static mtymes.account.dao.mongo.MongoCodecs.writeDecimal;
+
+// used for the amounts in Documents (see DocumentBuilder)
+class DecimalCodec implements Codec<Decimal> {
+
+    private final AmountFormat amountFormat;
+
+    DecimalCodec(AmountFormat amountFormat) {
+        this.amountFormat = amountFormat;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Decimal value, EncoderContext encoderContext) {
+        writeDecimal(writer, amountFormat, value);
+    }
+
+    @Override
+    public Decimal decode(BsonReader reader, DecoderContext decoderContext) {
+        return readDecimal(reader, amountFormat);
+    }
+
+    @Override
+    public Class<Decimal> getEncoderClass() {
+        return Decimal.class;
+    }
+}
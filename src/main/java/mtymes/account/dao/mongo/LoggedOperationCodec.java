@@ -0,0 +1,68 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.dao.mongo.OperationCodec.OperationFields;
+import mtymes.account.domain.operation.FinalState;
+import mtymes.account.domain.operation.LoggedOperation;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.Optional;
+
+import static mtymes.account.dao.mongo.MongoOperationDao.DESCRIPTION;
+import static mtymes.account.dao.mongo.MongoOperationDao.FINAL_STATE;
+import static mtymes.account.dao.mongo.OperationCodec.writeOperationFields;
+
+class LoggedOperationCodec implements Codec<LoggedOperation> {
+
+    private final UuidFormat uuidFormat;
+    private final AmountFormat amountFormat;
+
+    LoggedOperationCodec(UuidFormat uuidFormat, AmountFormat amountFormat) {
+        this.uuidFormat = uuidFormat;
+        this.amountFormat = amountFormat;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, LoggedOperation loggedOperation, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeOperationFields(writer, uuidFormat, amountFormat, loggedOperation.operation);
+        if (loggedOperation.finalState.isPresent()) {
+            writer.writeString(FINAL_STATE, loggedOperation.finalState.get().name());
+        }
+        if (loggedOperation.description.isPresent()) {
+            writer.writeString(DESCRIPTION, loggedOperation.description.get());
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public LoggedOperation decode(BsonReader reader, DecoderContext decoderContext) {
+        OperationFields fields = new OperationFields(amountFormat);
+        Optional<FinalState> finalState = Optional.empty();
+        Optional<String> description = Optional.empty();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (FINAL_STATE.equals(name)) {
+                finalState = Optional.of(FinalState.valueOf(reader.readString()));
+            } else if (DESCRIPTION.equals(name)) {
+                description = Optional.of(reader.readString());
+            } else if (!fields.readField(name, reader)) {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return new LoggedOperation(fields.toOperation(), finalState, description);
+    }
+
+    @Override
+    public Class<LoggedOperation> getEncoderClass() {
+        return LoggedOperation.class;
+    }
+}
@@ -23,20 +23,18 @@ public class MongoAccountDao extends MongoBaseDao implements AccountDao {
     public static final String VERSION = "version";
 
     private final MongoCollection<Document> accounts;
+    private final MongoCollection<Account> typedAccounts;
     private final MongoMapper mapper = new MongoMapper();
 
     public MongoAccountDao(MongoCollection<Document> accounts) {
         this.accounts = accounts;
+        this.typedAccounts = accounts.withDocumentClass(Account.class);
     }
 
     @Override
     public boolean createAccount(AccountId accountId, SeqId version) {
         try {
-            accounts.insertOne(docBuilder()
-                    .put(ACCOUNT_ID, accountId)
-                    .put(BALANCE, Decimal.ZERO)
-                    .put(VERSION, version)
-                    .build());
+            typedAccounts.insertOne(new Account(accountId, Decimal.ZERO, version));
             return true;
         } catch (MongoWriteException e) {
             return false;
@@ -66,15 +64,7 @@ public class MongoAccountDao extends MongoBaseDao implements AccountDao {
 
     @Override
     public Optional<Account> findAccount(AccountId accountId) {
-        return findOne(
-                accounts,
-                doc(ACCOUNT_ID, accountId),
-                doc -> new Account(
-                        mapper.getAccountId(doc, ACCOUNT_ID),
-                        mapper.getDecimal(doc, BALANCE),
-                        mapper.getSeqId(doc, VERSION)
-                )
-        );
+        return findOne(typedAccounts, doc(ACCOUNT_ID, accountId));
     }
 
     @Override
@@ -86,4 +76,24 @@ public class MongoAccountDao extends MongoBaseDao implements AccountDao {
                 doc -> mapper.getSeqId(doc, VERSION)
         );
     }
+
+    @Override
+    public boolean restoreAccount(Account account, Optional<SeqId> currentVersion) {
+        if (!currentVersion.isPresent()) {
+            try {
+                typedAccounts.insertOne(account);
+                return true;
+            } catch (MongoWriteException e) {
+                return false;
+            }
+        }
+        UpdateResult result = typedAccounts.replaceOne(
+                docBuilder()
+                        .put(ACCOUNT_ID, account.accountId)
+                        .put(VERSION, currentVersion.get())
+                        .build(),
+                account
+        );
+        return result.getMatchedCount() == 1;
+    }
 }
@@ -0,0 +1,67 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOptions;
+import mtymes.account.dao.AccountSnapshotDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import org.bson.Document;
+
+import java.util.Optional;
+
+import static mtymes.account.dao.mongo.MongoCodecs.amountFormat;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+import static mtymes.common.mongo.DocumentBuilder.docBuilder;
+
+public class MongoAccountSnapshotDao extends MongoBaseDao implements AccountSnapshotDao {
+
+    private static final int DUPLICATE_CODE = 11000;
+
+    public static final String ACCOUNT_ID = "accountId";
+    public static final String BALANCE = "balance";
+    public static final String VERSION = "version";
+
+    private final MongoCollection<Document> accountSnapshots;
+    private final MongoMapper mapper;
+
+    public MongoAccountSnapshotDao(MongoCollection<Document> accountSnapshots) {
+        this.accountSnapshots = accountSnapshots;
+        this.mapper = new MongoMapper(amountFormat(accountSnapshots.getCodecRegistry()));
+    }
+
+    @Override
+    public void storeSnapshot(Account account) {
+        try {
+            accountSnapshots.updateOne(
+                    docBuilder()
+                            .put(ACCOUNT_ID, account.accountId)
+                            .put(VERSION, doc("$lt", account.version))
+                            .build(),
+                    doc("$set", docBuilder()
+                            .put(BALANCE, account.balance)
+                            .put(VERSION, account.version)
+                            .build()),
+                    new UpdateOptions().upsert(true)
+            );
+        } catch (MongoWriteException e) {
+            // the upsert fails if a snapshot with the same or newer version already exists
+            if (e.getError().getCode() != DUPLICATE_CODE) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public Optional<Account> findSnapshot(AccountId accountId) {
+        return findOne(
+                accountSnapshots,
+                doc(ACCOUNT_ID, accountId),
+                doc -> new Account(
+                        mapper.getAccountId(doc, ACCOUNT_ID),
+                        mapper.getDecimal(doc, BALANCE),
+                        mapper.getSeqId(doc, VERSION)
+                )
+        );
+    }
+}
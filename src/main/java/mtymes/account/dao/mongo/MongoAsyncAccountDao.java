@@ -0,0 +1,39 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.async.client.MongoCollection;
+import mtymes.account.dao.AsyncAccountDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import org.bson.Document;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static mtymes.account.dao.mongo.MongoCodecs.amountFormat;
+import static mtymes.account.dao.mongo.MongoAccountDao.*;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+
+// same document structure as MongoAccountDao
+public class MongoAsyncAccountDao extends MongoAsyncBaseDao implements AsyncAccountDao {
+
+    private final MongoCollection<Document> accounts;
+    private final MongoMapper mapper;
+
+    public MongoAsyncAccountDao(MongoCollection<Document> accounts) {
+        this.accounts = accounts;
+        this.mapper = new MongoMapper(amountFormat(accounts.getCodecRegistry()));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Account>> findAccount(AccountId accountId) {
+        return findOne(
+                accounts,
+                doc(ACCOUNT_ID, accountId),
+                doc -> new Account(
+                        mapper.getAccountId(doc, ACCOUNT_ID),
+                        mapper.getDecimal(doc, BALANCE),
+                        mapper.getSeqId(doc, VERSION)
+                )
+        );
+    }
+}
@@ -0,0 +1,55 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.async.SingleResultCallback;
+import com.mongodb.async.client.MongoCollection;
+import org.bson.Document;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.google.common.collect.Lists.newArrayList;
+
+abstract class MongoAsyncBaseDao {
+
+    protected static final int DUPLICATE_CODE = 11000;
+
+    // completes the returned future once the driver calls the callback
+    protected <T> CompletableFuture<T> call(Consumer<SingleResultCallback<T>> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        operation.accept((result, failure) -> {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
+    protected <T> CompletableFuture<Optional<T>> findOne(MongoCollection<Document> collection, Document query, Function<Document, T> mapper) {
+        return this.<List<Document>>call(callback -> collection.find(query).limit(2).into(newArrayList(), callback))
+                .thenApply(dbItems -> toOptionalItem(query, dbItems, mapper));
+    }
+
+    protected boolean isDuplicateKeyFailure(Throwable failure) {
+        return failure instanceof MongoWriteException && ((MongoWriteException) failure).getError().getCode() == DUPLICATE_CODE;
+    }
+
+    protected RuntimeException asRuntimeException(Throwable failure) {
+        return (failure instanceof RuntimeException)
+                ? (RuntimeException) failure
+                : new CompletionException(failure);
+    }
+
+    private <T> Optional<T> toOptionalItem(Document query, List<Document> dbItems, Function<Document, T> mapper) {
+        if (dbItems.size() > 1) {
+            throw new IllegalStateException("found more than one db item for query: " + query);
+        }
+        return dbItems.stream().findFirst().map(mapper);
+    }
+}
@@ -0,0 +1,70 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.async.client.MongoCollection;
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.dao.AsyncOpLogDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+import org.bson.Document;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static mtymes.account.dao.mongo.MongoOpLogDao.*;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+import static mtymes.common.mongo.DocumentBuilder.docBuilder;
+
+// same document structure as MongoOpLogDao - SeqIds are allocated using the "Optimistic Loop" only
+public class MongoAsyncOpLogDao extends MongoAsyncBaseDao implements AsyncOpLogDao {
+
+    private final MongoCollection<Document> opLogs;
+    private final ContentionMonitor contention;
+
+    public MongoAsyncOpLogDao(MongoCollection<Document> opLogs, ContentionMonitor contention) {
+        this.opLogs = opLogs;
+        this.contention = contention;
+    }
+
+    @Override
+    public CompletableFuture<SeqId> registerOperationId(AccountId accountId, OperationId operationId) {
+        return getLastSeqId(accountId)
+                .thenCompose(lastSeqId -> storeWithSequenceId(operationId, new OptimisticLoop(accountId, lastSeqId, contention)))
+                .thenApply(SeqId::seqId);
+    }
+
+    // the same "Optimistic Loop" as in MongoOpLogDao, just chained instead of looped
+    private CompletableFuture<Long> storeWithSequenceId(OperationId operationId, OptimisticLoop loop) {
+        long idToUse = loop.idToUse();
+        Document document = docBuilder()
+                .put(ACCOUNT_ID, loop.accountId)
+                .put(OPERATION_ID, operationId)
+                .put(SEQ_ID, idToUse)
+                .build();
+        return this.<Void>call(callback -> opLogs.insertOne(document, callback))
+                .handle((ignore, failure) -> {
+                    if (failure == null) {
+                        return completedFuture(idToUse);
+                    } else if (!(failure instanceof MongoWriteException)) {
+                        throw asRuntimeException(failure);
+                    } else if (loop.retryAfter((MongoWriteException) failure)) {
+                        return storeWithSequenceId(operationId, loop);
+                    } else {
+                        return getLastSeqId(loop.accountId).thenCompose(lastSeqId -> {
+                            loop.restartAfter(lastSeqId);
+                            return storeWithSequenceId(operationId, loop);
+                        });
+                    }
+                })
+                .thenCompose(storedSeqId -> storedSeqId);
+    }
+
+    private CompletableFuture<Long> getLastSeqId(AccountId accountId) {
+        return this.<Document>call(callback -> opLogs
+                .find(doc(ACCOUNT_ID, accountId)).projection(doc(SEQ_ID, 1)).sort(doc(SEQ_ID, -1)).limit(1)
+                .first(callback)
+        ).thenApply(doc -> Optional.ofNullable(doc).map(lastDoc -> lastDoc.getLong(SEQ_ID)).orElse(0L));
+    }
+}
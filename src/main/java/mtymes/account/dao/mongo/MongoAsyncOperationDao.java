@@ -0,0 +1,70 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.async.client.MongoCollection;
+import mtymes.account.dao.AsyncOperationDao;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.exception.DuplicateItemException;
+import org.bson.Document;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static mtymes.account.dao.mongo.MongoCodecs.amountFormat;
+import static mtymes.account.dao.mongo.MongoOperationDao.*;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+import static mtymes.common.mongo.DocumentBuilder.docBuilder;
+
+// same document structure as MongoOperationDao
+public class MongoAsyncOperationDao extends MongoAsyncBaseDao implements AsyncOperationDao {
+
+    private final MongoCollection<Document> operations;
+    private final MongoMapper mapper;
+
+    public MongoAsyncOperationDao(MongoCollection<Document> operations) {
+        this.operations = operations;
+        this.mapper = new MongoMapper(amountFormat(operations.getCodecRegistry()));
+    }
+
+    @Override
+    public CompletableFuture<Void> storeOperation(Operation operation) {
+        Document document = docBuilder()
+                .put(OPERATION_ID, operation.operationId)
+                .put(TYPE, operation.type())
+                .put(BODY, operation.apply(mapper))
+                .build();
+
+        return this.<Void>call(callback -> operations.insertOne(document, callback))
+                .handle((ignore, failure) -> {
+                    if (failure == null) {
+                        return null;
+                    } else if (isDuplicateKeyFailure(failure)) {
+                        throw new DuplicateItemException(failure);
+                    } else {
+                        throw asRuntimeException(failure);
+                    }
+                });
+    }
+
+    @Override
+    public CompletableFuture<Optional<LoggedOperation>> findLoggedOperation(OperationId operationId) {
+        return findOne(
+                operations,
+                doc(OPERATION_ID, operationId),
+                this::toPersistedOperation
+        );
+    }
+
+    private LoggedOperation toPersistedOperation(Document doc) {
+        return new LoggedOperation(
+                mapper.toOperation(
+                        mapper.getOperationId(doc, OPERATION_ID),
+                        doc.getString(TYPE),
+                        (Document) doc.get(BODY)
+                ),
+                mapper.getOptionalFinalState(doc, FINAL_STATE),
+                mapper.getOptionalString(doc, DESCRIPTION)
+        );
+    }
+}
@@ -4,11 +4,27 @@ import com.mongodb.Function;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 
 import java.util.Optional;
 
 abstract class MongoBaseDao {
 
+    // the collection has to decode its items into the domain type (see MongoCodecs)
+    protected <T> Optional<T> findOne(MongoCollection<T> collection, Bson query) {
+        MongoCursor<T> iterator = collection.find(query).iterator();
+        if (iterator.hasNext()) {
+            T item = iterator.next();
+            if (iterator.hasNext()) {
+                throw new IllegalStateException("found more than one db item for query: " + query);
+            }
+
+            return Optional.of(item);
+        } else {
+            return Optional.empty();
+        }
+    }
+
     protected <T> Optional<T> findOne(MongoCollection<Document> collection, Document query, Function<Document, T> mapper) {
         MongoCursor<Document> iterator = collection.find(query).iterator();
         if (iterator.hasNext()) {
@@ -0,0 +1,174 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
+import javafixes.math.Decimal;
+import javafixes.object.Tuple;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import org.bson.BsonBinary;
+import org.bson.BsonBinarySubType;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.Decimal128;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.lang.String.format;
+import static javafixes.math.Decimal.d;
+import static javafixes.object.Tuple.tuple;
+import static mtymes.account.dao.mongo.AmountFormat.decimal128;
+import static mtymes.account.dao.mongo.UuidFormat.Text;
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
+import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+/**
+ * Codecs that write and read the domain types straight from the bson stream (without an intermediate Document).
+ * The stored documents have the same form as the ones written through the DocumentBuilder,
+ * so both ways of access can be used on the same collections.
+ *
+ * Uuids and amounts are written in the chosen UuidFormat and AmountFormat.
+ * Uuids are read in both formats, amounts stored as Decimal128 are read with any AmountFormat.
+ */
+public class MongoCodecs {
+
+    private static final ConcurrentMap<Tuple<UuidFormat, AmountFormat>, DomainCodecRegistry> CODEC_REGISTRIES = new ConcurrentHashMap<>();
+
+    public static CodecRegistry codecRegistry() {
+        return codecRegistry(Text, decimal128());
+    }
+
+    public static CodecRegistry codecRegistry(UuidFormat uuidFormat, AmountFormat amountFormat) {
+        return CODEC_REGISTRIES.computeIfAbsent(tuple(uuidFormat, amountFormat), formats -> new DomainCodecRegistry(formats.a, formats.b));
+    }
+
+    // collections of a database without one of these codec registries store the uuids as Text and amounts as Decimal128
+    public static MongoCollection<Document> withDomainCodecs(MongoCollection<Document> collection) {
+        if (collection.getCodecRegistry() instanceof DomainCodecRegistry) {
+            return collection;
+        }
+        return collection.withCodecRegistry(codecRegistry());
+    }
+
+    public static AmountFormat amountFormat(CodecRegistry codecRegistry) {
+        if (codecRegistry instanceof DomainCodecRegistry) {
+            return ((DomainCodecRegistry) codecRegistry).amountFormat;
+        }
+        return decimal128();
+    }
+
+    static void writeUUID(BsonWriter writer, UuidFormat uuidFormat, String name, UUID value) {
+        writer.writeName(name);
+        writeUUID(writer, uuidFormat, value);
+    }
+
+    static void writeUUID(BsonWriter writer, UuidFormat uuidFormat, UUID value) {
+        if (uuidFormat == Text) {
+            writer.writeString(value.toString());
+        } else {
+            byte[] bytes = ByteBuffer.allocate(16)
+                    .putLong(value.getMostSignificantBits())
+                    .putLong(value.getLeastSignificantBits())
+                    .array();
+            writer.writeBinaryData(new BsonBinary(BsonBinarySubType.UUID_STANDARD, bytes));
+        }
+    }
+
+    static UUID readUUID(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return UUID.fromString(reader.readString());
+        }
+        BsonBinary binary = reader.readBinaryData();
+        if (binary.getType() != BsonBinarySubType.UUID_STANDARD.getValue() || binary.getData().length != 16) {
+            throw new IllegalStateException(format("Binary data of subtype %d and length %d is not a uuid", binary.getType(), binary.getData().length));
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(binary.getData());
+        return new UUID(bytes.getLong(), bytes.getLong());
+    }
+
+    static void writeDecimal(BsonWriter writer, AmountFormat amountFormat, String name, Decimal value) {
+        writer.writeName(name);
+        writeDecimal(writer, amountFormat, value);
+    }
+
+    static void writeDecimal(BsonWriter writer, AmountFormat amountFormat, Decimal value) {
+        if (amountFormat.usesMinorUnits()) {
+            writer.writeInt64(amountFormat.toMinorUnits(value));
+        } else {
+            writer.writeDecimal128(new Decimal128(value.bigDecimalValue()));
+        }
+    }
+
+    // amounts stored as Decimal128 can be read with any AmountFormat
+    static Decimal readDecimal(BsonReader reader, AmountFormat amountFormat) {
+        if (reader.getCurrentBsonType() == BsonType.INT64) {
+            return amountFormat.fromMinorUnits(reader.readInt64());
+        }
+        return d(reader.readDecimal128().bigDecimalValue());
+    }
+
+    // codecs of one combination of the uuid and amount formats
+    private static class DomainCodecRegistry implements CodecRegistry {
+
+        private final AmountFormat amountFormat;
+        private final CodecRegistry codecRegistry;
+
+        private DomainCodecRegistry(UuidFormat uuidFormat, AmountFormat amountFormat) {
+            this.amountFormat = amountFormat;
+            this.codecRegistry = fromRegistries(
+                    fromCodecs(new UuidCodec(uuidFormat)),
+                    fromProviders(new DomainCodecProvider(uuidFormat, amountFormat)),
+                    MongoClient.getDefaultCodecRegistry()
+            );
+        }
+
+        @Override
+        public <T> Codec<T> get(Class<T> clazz) {
+            return codecRegistry.get(clazz);
+        }
+    }
+
+    private static class DomainCodecProvider implements CodecProvider {
+
+        private final AccountCodec accountCodec;
+        private final OperationCodec operationCodec;
+        private final LoggedOperationCodec loggedOperationCodec;
+        private final OpLogEntryCodec opLogEntryCodec;
+        private final DecimalCodec decimalCodec;
+
+        private DomainCodecProvider(UuidFormat uuidFormat, AmountFormat amountFormat) {
+            this.accountCodec = new AccountCodec(uuidFormat, amountFormat);
+            this.operationCodec = new OperationCodec(uuidFormat, amountFormat);
+            this.loggedOperationCodec = new LoggedOperationCodec(uuidFormat, amountFormat);
+            this.opLogEntryCodec = new OpLogEntryCodec(uuidFormat);
+            this.decimalCodec = new DecimalCodec(amountFormat);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+            if (clazz == Account.class) {
+                return (Codec<T>) accountCodec;
+            } else if (clazz == LoggedOperation.class) {
+                return (Codec<T>) loggedOperationCodec;
+            } else if (Operation.class.isAssignableFrom(clazz)) {
+                return (Codec<T>) operationCodec;
+            } else if (clazz == OpLogEntry.class) {
+                return (Codec<T>) opLogEntryCodec;
+            } else if (Decimal.class.isAssignableFrom(clazz)) {
+                return (Codec<T>) decimalCodec;
+            }
+            return null;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.function.Consumer;
 import static com.mongodb.client.model.Indexes.ascending;
 import static com.mongodb.client.model.Indexes.descending;
 import static javafixes.common.CollectionUtil.newSet;
+import static mtymes.account.dao.mongo.MongoCodecs.withDomainCodecs;
 
 public class MongoCollections {
 
@@ -26,6 +27,19 @@ public class MongoCollections {
         );
     }
 
+    public static MongoCollection<Document> accountSnapshotsCollection(MongoDatabase database) {
+        return getOrCreateCollection(
+                database,
+                "accountSnapshots",
+                accountSnapshots -> accountSnapshots.createIndex(
+                        ascending(
+                                MongoAccountSnapshotDao.ACCOUNT_ID
+                        ),
+                        new IndexOptions().unique(true)
+                )
+        );
+    }
+
     public static MongoCollection<Document> opLogCollection(MongoDatabase database) {
         return getOrCreateCollection(
                 database,
@@ -44,10 +58,55 @@ public class MongoCollections {
                             ),
                             new IndexOptions().unique(true)
                     );
+                    opLogs.createIndex(
+                            ascending(
+                                    MongoOpLogDao.SKIPPED_AT
+                            ),
+                            new IndexOptions().sparse(true)
+                    );
                 }
         );
     }
 
+    public static MongoCollection<Document> seqCountersCollection(MongoDatabase database) {
+        return getOrCreateCollection(
+                database,
+                "seqCounters",
+                seqCounters -> seqCounters.createIndex(
+                        ascending(
+                                MongoSeqIdCounter.ACCOUNT_ID
+                        ),
+                        new IndexOptions().unique(true)
+                )
+        );
+    }
+
+    public static MongoCollection<Document> nodeLeasesCollection(MongoDatabase database) {
+        return getOrCreateCollection(
+                database,
+                "nodeLeases",
+                nodeLeases -> nodeLeases.createIndex(
+                        ascending(
+                                MongoNodeLeaseDao.NODE_ID
+                        ),
+                        new IndexOptions().unique(true)
+                )
+        );
+    }
+
+    public static MongoCollection<Document> forwardedWorkCollection(MongoDatabase database) {
+        return getOrCreateCollection(
+                database,
+                "forwardedWork",
+                forwardedWork -> forwardedWork.createIndex(
+                        ascending(
+                                MongoForwardedWorkDao.ACCOUNT_ID
+                        ),
+                        new IndexOptions().unique(true)
+                )
+        );
+    }
+
     public static MongoCollection<Document> operationsCollection(MongoDatabase database) {
         return getOrCreateCollection(
                 database,
@@ -63,15 +122,22 @@ public class MongoCollections {
         );
     }
 
+    // the collection (and its indexes) has to be created using the sync driver first
+    public static com.mongodb.async.client.MongoCollection<Document> asyncCollection(com.mongodb.async.client.MongoDatabase database, MongoCollection<Document> collection) {
+        return database.getCollection(collection.getNamespace().getCollectionName())
+                .withCodecRegistry(collection.getCodecRegistry());
+    }
+
+    // the returned collection can be used with the domain types (see MongoCodecs)
     private static MongoCollection<Document> getOrCreateCollection(MongoDatabase database, String collectionName, Consumer<MongoCollection<Document>> afterCreation) {
         if (!newSet(database.listCollectionNames()).contains(collectionName)) {
             database.createCollection(collectionName);
 
             MongoCollection<Document> collection = database.getCollection(collectionName);
             afterCreation.accept(collection);
-            return collection;
+            return withDomainCodecs(collection);
         } else {
-            return database.getCollection(collectionName);
+            return withDomainCodecs(database.getCollection(collectionName));
         }
     }
 }
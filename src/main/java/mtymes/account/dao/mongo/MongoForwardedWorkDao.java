@@ -0,0 +1,57 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOptions;
+import mtymes.account.dao.ForwardedWorkDao;
+import mtymes.account.domain.account.AccountId;
+import org.bson.Document;
+
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+
+public class MongoForwardedWorkDao implements ForwardedWorkDao {
+
+    private static final int DUPLICATE_CODE = 11000;
+
+    public static final String ACCOUNT_ID = "accountId";
+
+    private final MongoCollection<Document> forwardedWork;
+    private final MongoMapper mapper = new MongoMapper();
+
+    public MongoForwardedWorkDao(MongoCollection<Document> forwardedWork) {
+        this.forwardedWork = forwardedWork;
+    }
+
+    @Override
+    public void forwardWork(AccountId accountId) {
+        try {
+            forwardedWork.updateOne(
+                    doc(ACCOUNT_ID, accountId),
+                    doc("$setOnInsert", doc(ACCOUNT_ID, accountId)),
+                    new UpdateOptions().upsert(true)
+            );
+        } catch (MongoWriteException e) {
+            if (e.getError().getCode() != DUPLICATE_CODE) {
+                throw e;
+            }
+            // do nothing - another concurrent thread already forwarded it
+        }
+    }
+
+    @Override
+    public List<AccountId> findForwardedWork() {
+        List<AccountId> accountIds = newArrayList();
+        for (Document doc : forwardedWork.find()) {
+            accountIds.add(mapper.getAccountId(doc, ACCOUNT_ID));
+        }
+        return accountIds;
+    }
+
+    @Override
+    public boolean takeForwardedWork(AccountId accountId) {
+        return forwardedWork.deleteOne(doc(ACCOUNT_ID, accountId)).getDeletedCount() == 1;
+    }
+}
@@ -0,0 +1,145 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import mtymes.account.exception.DuplicateItemException;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.newArrayList;
+
+/**
+ * Group commit of concurrent inserts.
+ * The thread that acquires the flush lock writes all pending documents (up to maxBatchSize) using one unordered insertMany,
+ * while the other threads wait for the lock and return as soon as their document has been written.
+ * Before flushing, the writing thread waits up to maxBatchDelay for the batch to fill up.
+ */
+class MongoInsertBatcher {
+
+    private static final int DUPLICATE_CODE = 11000;
+    private static final long FILL_UP_CHECK_NANOS = 10_000;
+
+    private final MongoCollection<Document> collection;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+
+    private final Queue<PendingInsert> pendingInserts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    MongoInsertBatcher(MongoCollection<Document> collection, int maxBatchSize, Duration maxBatchDelay) {
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be a positive value");
+        checkArgument(!maxBatchDelay.isNegative(), "maxBatchDelay can't be negative");
+
+        this.collection = collection;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayNanos = maxBatchDelay.toNanos();
+    }
+
+    void insert(Document document) {
+        PendingInsert insert = new PendingInsert(document);
+        pendingInserts.add(insert);
+        pendingCount.incrementAndGet();
+
+        while (!insert.isDone()) {
+            flushLock.lock();
+            try {
+                if (!insert.isDone()) {
+                    waitForBatchToFillUp();
+                    flush();
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+
+        if (insert.failure != null) {
+            throw insert.failure;
+        }
+    }
+
+    private void waitForBatchToFillUp() {
+        long deadline = System.nanoTime() + maxBatchDelayNanos;
+        while (pendingCount.get() < maxBatchSize && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(FILL_UP_CHECK_NANOS);
+        }
+    }
+
+    private void flush() {
+        List<PendingInsert> batch = newArrayList();
+        PendingInsert insert;
+        while (batch.size() < maxBatchSize && (insert = pendingInserts.poll()) != null) {
+            batch.add(insert);
+        }
+        pendingCount.addAndGet(-batch.size());
+
+        List<Document> documents = newArrayList();
+        for (PendingInsert pendingInsert : batch) {
+            documents.add(pendingInsert.document);
+        }
+
+        try {
+            collection.insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                batch.get(error.getIndex()).failure = (error.getCode() == DUPLICATE_CODE)
+                        ? new DuplicateItemException(e)
+                        : e;
+            }
+        } catch (MongoException e) {
+            for (PendingInsert pendingInsert : batch) {
+                pendingInsert.failure = e;
+            }
+        } catch (RuntimeException e) {
+            // a document that can't be encoded fails the whole batch before it is sent - so insert them one by one to fail only that one
+            for (PendingInsert pendingInsert : batch) {
+                insertOne(pendingInsert);
+            }
+        }
+
+        for (PendingInsert pendingInsert : batch) {
+            pendingInsert.done = true;
+        }
+    }
+
+    private void insertOne(PendingInsert insert) {
+        try {
+            collection.insertOne(insert.document);
+        } catch (MongoWriteException e) {
+            insert.failure = (e.getError().getCode() == DUPLICATE_CODE)
+                    ? new DuplicateItemException(e)
+                    : e;
+        } catch (RuntimeException e) {
+            insert.failure = e;
+        }
+    }
+
+    private static class PendingInsert {
+
+        final Document document;
+
+        // only modified while holding the flush lock
+        volatile RuntimeException failure;
+        volatile boolean done = false;
+
+        PendingInsert(Document document) {
+            this.document = document;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+    }
+}
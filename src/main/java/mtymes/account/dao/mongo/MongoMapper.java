@@ -10,6 +10,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static java.lang.String.format;
+import static mtymes.account.dao.mongo.AmountFormat.decimal128;
 import static javafixes.math.Decimal.d;
 import static mtymes.account.domain.account.AccountId.accountId;
 import static mtymes.account.domain.operation.OperationId.operationId;
@@ -25,6 +26,17 @@ public class MongoMapper implements OperationVisitor<Document> {
     public static final String FROM_ACCOUNT_ID = "fromAccountId";
     public static final String TO_ACCOUNT_ID = "toAccountId";
 
+    private final AmountFormat amountFormat;
+
+    public MongoMapper() {
+        this(decimal128());
+    }
+
+    // the amountFormat is needed only to read amounts stored in minor units
+    public MongoMapper(AmountFormat amountFormat) {
+        this.amountFormat = amountFormat;
+    }
+
     @Override
     public Document visit(CreateAccount request) {
         return docBuilder()
@@ -126,11 +138,22 @@ public class MongoMapper implements OperationVisitor<Document> {
     }
 
     public Decimal getDecimal(Document doc, String fieldName) {
-        return d(((Decimal128) doc.get(fieldName)).bigDecimalValue());
+        Object value = doc.get(fieldName);
+        if (value instanceof Decimal) {
+            return (Decimal) value;
+        } else if (value instanceof Long) {
+            return amountFormat.fromMinorUnits((Long) value);
+        }
+        return d(((Decimal128) value).bigDecimalValue());
     }
 
+    // the uuid could have been stored in any UuidFormat
     public UUID getUUID(Document doc, String fieldName) {
-        return UUID.fromString(doc.getString(fieldName));
+        Object value = doc.get(fieldName);
+        if (value instanceof UUID) {
+            return (UUID) value;
+        }
+        return UUID.fromString((String) value);
     }
 
     public Optional<String> getOptionalString(Document doc, String fieldName) {
@@ -0,0 +1,51 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOptions;
+import mtymes.account.dao.NodeLeaseDao;
+import mtymes.account.domain.node.NodeId;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+
+public class MongoNodeLeaseDao implements NodeLeaseDao {
+
+    public static final String NODE_ID = "nodeId";
+    public static final String EXPIRES_AT = "expiresAt";
+
+    private final MongoCollection<Document> nodeLeases;
+    private final MongoMapper mapper = new MongoMapper();
+
+    public MongoNodeLeaseDao(MongoCollection<Document> nodeLeases) {
+        this.nodeLeases = nodeLeases;
+    }
+
+    @Override
+    public void renewLease(NodeId nodeId, Duration leaseDuration) {
+        nodeLeases.updateOne(
+                doc(NODE_ID, nodeId),
+                doc("$set", doc(EXPIRES_AT, new Date(System.currentTimeMillis() + leaseDuration.toMillis()))),
+                new UpdateOptions().upsert(true)
+        );
+    }
+
+    @Override
+    public void releaseLease(NodeId nodeId) {
+        nodeLeases.deleteOne(doc(NODE_ID, nodeId));
+    }
+
+    @Override
+    public List<NodeId> findLiveNodeIds() {
+        List<NodeId> nodeIds = newArrayList();
+        for (Document doc : nodeLeases.find(doc(EXPIRES_AT, doc("$gt", new Date())))) {
+            nodeIds.add(nodeId(mapper.getUUID(doc, NODE_ID)));
+        }
+        return nodeIds;
+    }
+}
@@ -1,10 +1,15 @@
 package mtymes.account.dao.mongo;
 
+import com.google.common.cache.Cache;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.InsertManyOptions;
 import javafixes.object.Tuple;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.OperationId;
@@ -12,10 +17,23 @@ import mtymes.account.domain.operation.SeqId;
 import mtymes.account.exception.DuplicateItemException;
 import org.bson.Document;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.LongStream.range;
 import static javafixes.common.CollectionUtil.newList;
 import static javafixes.object.Tuple.tuple;
+import static mtymes.account.domain.operation.OperationId.operationId;
 import static mtymes.account.domain.operation.SeqId.seqId;
 import static mtymes.common.mongo.DocumentBuilder.doc;
 import static mtymes.common.mongo.DocumentBuilder.docBuilder;
@@ -23,28 +41,50 @@ import static mtymes.common.mongo.DocumentBuilder.docBuilder;
 public class MongoOpLogDao extends MongoBaseDao implements OpLogDao {
 
     private static final int DUPLICATE_CODE = 11000;
+    private static final long IN_FLIGHT_TIMEOUT_IN_MILLIS = 5_000;
+    private static final long GAP_FREE_CACHE_SIZE = 100_000;
 
     public static final String ACCOUNT_ID = "accId";
     public static final String SEQ_ID = "seqId";
     public static final String OPERATION_ID = "opId";
     public static final String FINISHED = "finished";
+    public static final String SKIPPED = "skipped";
+    public static final String SKIPPED_AT = "skippedAt";
 
     private final MongoCollection<Document> opLogs;
+    private final MongoCollection<OpLogEntry> opLogEntries;
+    private final Optional<MongoSeqIdCounter> seqIdCounter;
+    private final ContentionMonitor contention;
     private final MongoMapper mapper = new MongoMapper();
 
-    public MongoOpLogDao(MongoCollection<Document> opLogs) {
+    // SeqIds that were handed out by this node but are not stored yet
+    private final ConcurrentMap<Tuple<AccountId, Long>, CountDownLatch> inFlightSeqIds = newConcurrentMap();
+    // highest SeqId for which all lower SeqIds are known to be stored (stored SeqIds are never removed so this can only grow)
+    private final Cache<AccountId, Long> gapFreeUpTo = newBuilder().maximumSize(GAP_FREE_CACHE_SIZE).build();
+
+    public MongoOpLogDao(MongoCollection<Document> opLogs, ContentionMonitor contention) {
+        this.opLogs = opLogs;
+        this.opLogEntries = opLogs.withDocumentClass(OpLogEntry.class);
+        this.seqIdCounter = Optional.empty();
+        this.contention = contention;
+    }
+
+    public MongoOpLogDao(MongoCollection<Document> opLogs, MongoCollection<Document> seqCounters, ContentionMonitor contention) {
+        this(opLogs, seqCounters, 1, contention);
+    }
+
+    public MongoOpLogDao(MongoCollection<Document> opLogs, MongoCollection<Document> seqCounters, int seqIdBlockSize, ContentionMonitor contention) {
         this.opLogs = opLogs;
+        this.opLogEntries = opLogs.withDocumentClass(OpLogEntry.class);
+        this.seqIdCounter = Optional.of(new MongoSeqIdCounter(seqCounters, this::getLastSeqId, seqIdBlockSize));
+        this.contention = contention;
     }
 
     @Override
     public SeqId registerOperationId(AccountId accountId, OperationId operationId) {
-        long seqIdValue = storeWithSequenceId(
-                accountId,
-                docBuilder()
-                        .put(ACCOUNT_ID, accountId)
-                        .put(OPERATION_ID, operationId)
-                        .build()
-        );
+        long seqIdValue = seqIdCounter.isPresent()
+                ? storeWithCounterSequenceId(seqIdCounter.get(), accountId, operationId)
+                : storeWithSequenceId(accountId, operationId);
         return seqId(seqIdValue);
     }
 
@@ -53,9 +93,55 @@ public class MongoOpLogDao extends MongoBaseDao implements OpLogDao {
         opLogs.updateOne(doc(OPERATION_ID, operationId), doc("$set", doc(FINISHED, true)));
     }
 
+    @Override
+    public void markAsFinished(Collection<OperationId> operationIds) {
+        opLogs.updateMany(doc(OPERATION_ID, doc("$in", operationIds)), doc("$set", doc(FINISHED, true)));
+    }
+
     @Override
     public List<Tuple<OperationId, SeqId>> findUnfinishedOperationIds(AccountId accountId) {
-        MongoIterable<Tuple<OperationId, SeqId>> operationIds = opLogs.find(
+        List<Tuple<OperationId, SeqId>> operationIds = loadUnfinishedOperationIds(accountId);
+        if (seqIdCounter.isPresent() && !operationIds.isEmpty()) {
+            boolean allGapsSkipped = skipSeqIdGaps(accountId, operationIds);
+            if (!allGapsSkipped) {
+                // some of the missing SeqIds have been stored in the meantime
+                return findUnfinishedOperationIds(accountId);
+            }
+        }
+        return operationIds;
+    }
+
+    @Override
+    public List<Tuple<OperationId, SeqId>> findOperationIdsAfter(AccountId accountId, SeqId seqId) {
+        MongoIterable<Tuple<OperationId, SeqId>> operationIds = opLogEntries.find(
+                docBuilder()
+                        .put(ACCOUNT_ID, accountId)
+                        .put(SEQ_ID, doc("$gt", seqId))
+                        .build()
+        ).projection(
+                docBuilder()
+                        .put(SEQ_ID, 1)
+                        .put(OPERATION_ID, 1)
+                        .build()
+        ).sort(
+                doc(SEQ_ID, 1)
+        ).map(entry -> tuple(entry.operationId, entry.seqId));
+        return newList(operationIds);
+    }
+
+    @Override
+    public List<AccountId> findAccountIds() {
+        // unlike distinct the aggregation result is not limited by the max document size
+        MongoIterable<AccountId> accountIds = opLogs.aggregate(
+                newList(doc("$group", doc("_id", "$" + ACCOUNT_ID)))
+        ).allowDiskUse(true).map(
+                doc -> mapper.getAccountId(doc, "_id")
+        );
+        return newList(accountIds);
+    }
+
+    private List<Tuple<OperationId, SeqId>> loadUnfinishedOperationIds(AccountId accountId) {
+        MongoIterable<Tuple<OperationId, SeqId>> operationIds = opLogEntries.find(
                 docBuilder()
                         .put(ACCOUNT_ID, accountId)
                         .put(FINISHED, null)
@@ -69,36 +155,51 @@ public class MongoOpLogDao extends MongoBaseDao implements OpLogDao {
 
         ).sort(
                 doc(SEQ_ID, 1)
-        ).map(doc -> tuple(
-                mapper.getOperationId(doc, OPERATION_ID),
-                mapper.getSeqId(doc, SEQ_ID)
-        ));
+        ).map(entry -> tuple(entry.operationId, entry.seqId));
         return newList(operationIds);
     }
 
-    // using "Optimistic Loop" to guarantee the sequencing of Operations
-    // look at: https://docs.mongodb.com/v3.0/tutorial/create-an-auto-incrementing-field/ for more details
-    private long storeWithSequenceId(AccountId accountId, Document document) throws DuplicateItemException {
+    private long storeWithSequenceId(AccountId accountId, OperationId operationId) throws DuplicateItemException {
+        OptimisticLoop loop = new OptimisticLoop(accountId, getLastSeqId(accountId), contention);
+        while (true) {
+            try {
+                opLogEntries.insertOne(new OpLogEntry(accountId, operationId, seqId(loop.idToUse())));
+                return loop.idToUse();
+            } catch (MongoWriteException e) {
+                if (!loop.retryAfter(e)) {
+                    loop.restartAfter(getLastSeqId(accountId));
+                }
+            }
+        }
+    }
+
+    // SeqIds from the counter can be stored out of order (a thread can be slower to store a lower SeqId than another
+    // thread storing a higher one). This is why readers skip missing SeqIds (see skipSeqIdGaps) and why a SeqId that
+    // has been skipped has to be replaced by a new one
+    private long storeWithCounterSequenceId(MongoSeqIdCounter counter, AccountId accountId, OperationId operationId) throws DuplicateItemException {
         long idToUse;
 
-        int attemptCount = 0; // use of this is relevant only in case of multi-node scenario
+        int attemptCount = 0;
 
-        idToUse = getLastSeqId(accountId) + 1;
         boolean retry;
         do {
             retry = false;
+            idToUse = counter.nextSeqId(accountId);
+            Tuple<AccountId, Long> inFlightKey = tuple(accountId, idToUse);
+            CountDownLatch storedSignal = new CountDownLatch(1);
+            inFlightSeqIds.put(inFlightKey, storedSignal);
             try {
-                document.put(SEQ_ID, idToUse);
-                opLogs.insertOne(document);
+                opLogEntries.insertOne(new OpLogEntry(accountId, operationId, seqId(idToUse)));
             } catch (MongoWriteException e) {
                 if (e.getError().getCode() == DUPLICATE_CODE) {
                     if (e.getError().getMessage().contains(SEQ_ID)) {
                         retry = true;
+                        contention.recordSeqIdConflict(accountId);
                         if (++attemptCount < 3) {
-                            idToUse++;
+                            counter.discardReservedSeqIds(accountId);
                         } else {
                             attemptCount = 0;
-                            idToUse = getLastSeqId(accountId) + 1;
+                            counter.catchUpWithStoredSeqIds(accountId);
                         }
                     } else {
                         throw new DuplicateItemException(e);
@@ -106,16 +207,104 @@ public class MongoOpLogDao extends MongoBaseDao implements OpLogDao {
                 } else {
                     throw e;
                 }
+            } finally {
+                inFlightSeqIds.remove(inFlightKey);
+                storedSignal.countDown();
             }
         } while (retry);
 
         return idToUse;
     }
 
+    // makes sure no missing SeqId can be stored before the returned (unfinished) operationIds
+    // - by storing a "skipped" opLog entry under each missing SeqId. Only SeqIds handed out but never stored leave gaps,
+    // so a block abandoned by a node (see MongoSeqIdCounter) leaves at most seqIdBlockSize - 1 skipped entries.
+    // These are needed only while the missing SeqIds could be still in flight - afterwards see removeSkippedSeqIds
+    private boolean skipSeqIdGaps(AccountId accountId, List<Tuple<OperationId, SeqId>> operationIds) {
+        long lastSeqId = operationIds.get(operationIds.size() - 1).b.value();
+        long firstSeqId = operationIds.get(0).b.value();
+
+        Long knownGapFreeSeqId = gapFreeUpTo.getIfPresent(accountId);
+        long previousSeqId = (knownGapFreeSeqId != null && knownGapFreeSeqId >= firstSeqId - 1)
+                ? firstSeqId - 1
+                : getLastSeqIdBefore(accountId, firstSeqId);
+
+        List<Long> missingSeqIds = newList();
+        for (Tuple<OperationId, SeqId> operationId : operationIds) {
+            long seqId = operationId.b.value();
+            range(previousSeqId + 1, seqId).forEach(missingSeqIds::add);
+            previousSeqId = seqId;
+        }
+
+        boolean allGapsSkipped = missingSeqIds.isEmpty() || storeSkippedSeqIds(accountId, missingSeqIds);
+        if (allGapsSkipped) {
+            gapFreeUpTo.asMap().merge(accountId, lastSeqId, Math::max);
+        }
+        return allGapsSkipped;
+    }
+
+    private boolean storeSkippedSeqIds(AccountId accountId, List<Long> missingSeqIds) {
+        for (Long missingSeqId : missingSeqIds) {
+            waitForInFlightSeqId(accountId, missingSeqId);
+        }
+
+        List<Document> skippedEntries = missingSeqIds.stream()
+                .map(missingSeqId -> docBuilder()
+                        .put(ACCOUNT_ID, accountId)
+                        .put(SEQ_ID, missingSeqId)
+                        .put(OPERATION_ID, operationId(randomUUID()))
+                        .put(SKIPPED, true)
+                        .put(SKIPPED_AT, new Date())
+                        .put(FINISHED, true)
+                        .build())
+                .collect(toList());
+        try {
+            opLogs.insertMany(skippedEntries, new InsertManyOptions().ordered(false));
+            return true;
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_CODE) {
+                    throw e;
+                }
+            }
+            return false;
+        }
+    }
+
+    // a skipped SeqId always lies below a stored operation, so its removal changes neither the last SeqId of the account
+    // nor the gaps found by skipSeqIdGaps. It only has to outlive every insert that could still use the SeqId
+    public long removeSkippedSeqIds(Duration olderThan) {
+        Date skippedBefore = new Date(System.currentTimeMillis() - olderThan.toMillis());
+        return opLogs.deleteMany(doc(SKIPPED_AT, doc("$lt", skippedBefore))).getDeletedCount();
+    }
+
+    private void waitForInFlightSeqId(AccountId accountId, long seqId) {
+        CountDownLatch storedSignal = inFlightSeqIds.get(tuple(accountId, seqId));
+        if (storedSignal != null) {
+            try {
+                // if the store won't finish in time the SeqId will be skipped and the storing thread will use a new one
+                storedSignal.await(IN_FLIGHT_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     private long getLastSeqId(AccountId accountId) {
         MongoCursor<Document> idIterator = opLogs
                 .find(doc(ACCOUNT_ID, accountId)).projection(doc(SEQ_ID, 1)).sort(doc(SEQ_ID, -1)).limit(1)
                 .iterator();
         return idIterator.hasNext() ? idIterator.next().getLong(SEQ_ID) : 0;
     }
+
+    private long getLastSeqIdBefore(AccountId accountId, long seqId) {
+        MongoCursor<Document> idIterator = opLogs
+                .find(docBuilder()
+                        .put(ACCOUNT_ID, accountId)
+                        .put(SEQ_ID, doc("$lt", seqId))
+                        .build())
+                .projection(doc(SEQ_ID, 1)).sort(doc(SEQ_ID, -1)).limit(1)
+                .iterator();
+        return idIterator.hasNext() ? idIterator.next().getLong(SEQ_ID) : 0;
+    }
 }
@@ -1,7 +1,10 @@
 package mtymes.account.dao.mongo;
 
 import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.result.UpdateResult;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.operation.FinalState;
@@ -11,8 +14,15 @@ import mtymes.account.domain.operation.OperationId;
 import mtymes.account.exception.DuplicateItemException;
 import org.bson.Document;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static com.google.common.collect.Maps.newHashMap;
+import static java.util.stream.Collectors.toList;
+
 import static mtymes.account.domain.operation.FinalState.Applied;
 import static mtymes.account.domain.operation.FinalState.Rejected;
 import static mtymes.common.mongo.DocumentBuilder.doc;
@@ -26,23 +36,42 @@ public class MongoOperationDao extends MongoBaseDao implements OperationDao {
     public static final String TYPE = "type";
     public static final String BODY = "body";
     public static final String FINAL_STATE = "finalState";
-    private static final String DESCRIPTION = "description";
+    public static final String DESCRIPTION = "description";
 
     private final MongoCollection<Document> operations;
+    private final MongoCollection<Operation> typedOperations;
+    private final MongoCollection<LoggedOperation> typedLoggedOperations;
     private final MongoMapper mapper = new MongoMapper();
 
+    private final Optional<MongoInsertBatcher> insertBatcher;
+
     public MongoOperationDao(MongoCollection<Document> operations) {
         this.operations = operations;
+        this.typedOperations = operations.withDocumentClass(Operation.class);
+        this.typedLoggedOperations = operations.withDocumentClass(LoggedOperation.class);
+        this.insertBatcher = Optional.empty();
+    }
+
+    // concurrently stored operations are written together using one insertMany
+    public MongoOperationDao(MongoCollection<Document> operations, int maxInsertBatchSize, Duration maxInsertBatchDelay) {
+        this.operations = operations;
+        this.typedOperations = operations.withDocumentClass(Operation.class);
+        this.typedLoggedOperations = operations.withDocumentClass(LoggedOperation.class);
+        this.insertBatcher = Optional.of(new MongoInsertBatcher(operations, maxInsertBatchSize, maxInsertBatchDelay));
     }
 
     @Override
     public void storeOperation(Operation operation) {
-        try {
-            operations.insertOne(docBuilder()
+        if (insertBatcher.isPresent()) {
+            insertBatcher.get().insert(docBuilder()
                     .put(OPERATION_ID, operation.operationId)
                     .put(TYPE, operation.type())
                     .put(BODY, operation.apply(mapper))
                     .build());
+            return;
+        }
+        try {
+            typedOperations.insertOne(operation);
         } catch (MongoWriteException e) {
             if (e.getError().getCode() == DUPLICATE_CODE) {
                 throw new DuplicateItemException(e);
@@ -63,37 +92,70 @@ public class MongoOperationDao extends MongoBaseDao implements OperationDao {
     }
 
     @Override
-    public Optional<LoggedOperation> findLoggedOperation(OperationId operationId) {
-        return findOne(
-                operations,
-                doc(OPERATION_ID, operationId),
-                this::toPersistedOperation
+    public int markAsApplied(Collection<OperationId> operationIds) {
+        if (operationIds.isEmpty()) {
+            return 0;
+        }
+        UpdateResult result = operations.updateMany(
+                docBuilder()
+                        .put(OPERATION_ID, doc("$in", operationIds))
+                        .put(FINAL_STATE, null)
+                        .build(),
+                doc("$set", doc(FINAL_STATE, Applied))
         );
+        return (int) result.getModifiedCount();
+    }
+
+    @Override
+    public int markAsRejected(Map<OperationId, String> descriptions) {
+        if (descriptions.isEmpty()) {
+            return 0;
+        }
+        List<UpdateOneModel<Document>> updates = descriptions.entrySet().stream()
+                .map(entry -> new UpdateOneModel<Document>(
+                        finishQuery(entry.getKey()),
+                        finishUpdate(Rejected, Optional.of(entry.getValue()))
+                ))
+                .collect(toList());
+        BulkWriteResult result = operations.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        return result.getModifiedCount();
+    }
+
+    @Override
+    public Optional<LoggedOperation> findLoggedOperation(OperationId operationId) {
+        return findOne(typedLoggedOperations, doc(OPERATION_ID, operationId));
+    }
+
+    @Override
+    public Map<OperationId, LoggedOperation> findLoggedOperations(Collection<OperationId> operationIds) {
+        Map<OperationId, LoggedOperation> loggedOperations = newHashMap();
+        if (!operationIds.isEmpty()) {
+            for (LoggedOperation loggedOperation : typedLoggedOperations.find(doc(OPERATION_ID, doc("$in", operationIds)))) {
+                loggedOperations.put(loggedOperation.operation.operationId, loggedOperation);
+            }
+        }
+        return loggedOperations;
     }
 
     private boolean markAsFinished(OperationId operationId, FinalState state, Optional<String> description) {
         UpdateResult result = operations.updateOne(
-                docBuilder()
-                        .put(OPERATION_ID, operationId)
-                        .put(FINAL_STATE, null)
-                        .build(),
-                doc("$set", docBuilder()
-                        .put(FINAL_STATE, state)
-                        .put(DESCRIPTION, description)
-                        .build())
+                finishQuery(operationId),
+                finishUpdate(state, description)
         );
         return result.getModifiedCount() == 1;
     }
 
-    private LoggedOperation toPersistedOperation(Document doc) {
-        return new LoggedOperation(
-                mapper.toOperation(
-                        mapper.getOperationId(doc, OPERATION_ID),
-                        doc.getString(TYPE),
-                        (Document) doc.get(BODY)
-                ),
-                mapper.getOptionalFinalState(doc, FINAL_STATE),
-                mapper.getOptionalString(doc, DESCRIPTION)
-        );
+    private Document finishQuery(OperationId operationId) {
+        return docBuilder()
+                .put(OPERATION_ID, operationId)
+                .put(FINAL_STATE, null)
+                .build();
+    }
+
+    private Document finishUpdate(FinalState state, Optional<String> description) {
+        return doc("$set", docBuilder()
+                .put(FINAL_STATE, state)
+                .put(DESCRIPTION, description)
+                .build());
     }
 }
@@ -0,0 +1,105 @@
+package mtymes.account.dao.mongo;
+
+import com.google.common.cache.Cache;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import mtymes.account.domain.account.AccountId;
+import org.bson.Document;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.cache.CacheBuilder.newBuilder;
+import static com.mongodb.client.model.ReturnDocument.AFTER;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+import static mtymes.common.mongo.DocumentBuilder.docBuilder;
+
+/**
+ * Per account counter document that hands out SeqIds using an atomic {@code $inc}.
+ * The counter is lazily initialized from the last SeqId stored in the opLog so existing accounts continue their sequence.
+ * If blockSize is bigger than 1, a whole block of SeqIds is reserved with one {@code $inc} and handed out from memory.
+ */
+class MongoSeqIdCounter {
+
+    private static final int DUPLICATE_CODE = 11000;
+    private static final long RESERVED_BLOCKS_CACHE_SIZE = 100_000;
+
+    public static final String ACCOUNT_ID = "accId";
+    public static final String LAST_SEQ_ID = "lastSeqId";
+
+    private final MongoCollection<Document> seqCounters;
+    private final Function<AccountId, Long> lastStoredSeqId;
+    private final int blockSize;
+
+    // evicting a block just means its unused SeqIds will end up as gaps in the opLog
+    private final Cache<AccountId, SeqIdBlock> reservedBlocks = newBuilder().maximumSize(RESERVED_BLOCKS_CACHE_SIZE).build();
+
+    MongoSeqIdCounter(MongoCollection<Document> seqCounters, Function<AccountId, Long> lastStoredSeqId, int blockSize) {
+        checkArgument(blockSize > 0, "blockSize must be a positive value");
+
+        this.seqCounters = seqCounters;
+        this.lastStoredSeqId = lastStoredSeqId;
+        this.blockSize = blockSize;
+    }
+
+    long nextSeqId(AccountId accountId) {
+        if (blockSize == 1) {
+            return reserveSeqIds(accountId, 1);
+        }
+        try {
+            return reservedBlocks
+                    .get(accountId, () -> new SeqIdBlock(blockSize))
+                    .nextSeqId(size -> reserveSeqIds(accountId, size));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // reserved SeqIds can't be used once a higher SeqId has been stored by some other node
+    void discardReservedSeqIds(AccountId accountId) {
+        reservedBlocks.invalidate(accountId);
+    }
+
+    // used if the counter falls behind the stored opLog (for example after the opLog was written using OptimisticLoop)
+    void catchUpWithStoredSeqIds(AccountId accountId) {
+        discardReservedSeqIds(accountId);
+        seqCounters.updateOne(
+                doc(ACCOUNT_ID, accountId),
+                doc("$max", doc(LAST_SEQ_ID, lastStoredSeqId.apply(accountId)))
+        );
+    }
+
+    // returns the last reserved SeqId
+    private long reserveSeqIds(AccountId accountId, int count) {
+        Document counter = increment(accountId, count);
+        if (counter == null) {
+            initialize(accountId);
+            counter = increment(accountId, count);
+        }
+        return counter.getLong(LAST_SEQ_ID);
+    }
+
+    private Document increment(AccountId accountId, int count) {
+        return seqCounters.findOneAndUpdate(
+                doc(ACCOUNT_ID, accountId),
+                doc("$inc", doc(LAST_SEQ_ID, (long) count)),
+                new FindOneAndUpdateOptions().returnDocument(AFTER)
+        );
+    }
+
+    private void initialize(AccountId accountId) {
+        try {
+            seqCounters.insertOne(docBuilder()
+                    .put(ACCOUNT_ID, accountId)
+                    .put(LAST_SEQ_ID, lastStoredSeqId.apply(accountId))
+                    .build());
+        } catch (MongoWriteException e) {
+            if (e.getError().getCode() != DUPLICATE_CODE) {
+                throw e;
+            }
+            // do nothing - another concurrent thread already initialized it
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+
+// the fields of a stored opLog entry that are written when it is registered (the accountId is not read back by queries)
+class OpLogEntry {
+
+    final AccountId accountId;
+    final OperationId operationId;
+    final SeqId seqId;
+
+    OpLogEntry(AccountId accountId, OperationId operationId, SeqId seqId) {
+        this.accountId = accountId;
+        this.operationId = operationId;
+        this.seqId = seqId;
+    }
+}
@@ -0,0 +1,69 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import static mtymes.account.dao.mongo.MongoCodecs.readUUID;
+import static mtymes.account.dao.mongo.MongoCodecs.writeUUID;
+import static mtymes.account.dao.mongo.MongoOpLogDao.*;
+import static mtymes.account.domain.account.AccountId.accountId;
+import static mtymes.account.domain.operation.OperationId.operationId;
+import static mtymes.account.domain.operation.SeqId.seqId;
+
+// fields that are not part of the projection are decoded as null
+class OpLogEntryCodec implements Codec<OpLogEntry> {
+
+    private final UuidFormat uuidFormat;
+
+    OpLogEntryCodec(UuidFormat uuidFormat) {
+        this.uuidFormat = uuidFormat;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, OpLogEntry entry, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeUUID(writer, uuidFormat, ACCOUNT_ID, entry.accountId.value());
+        writeUUID(writer, uuidFormat, OPERATION_ID, entry.operationId.value());
+        writer.writeInt64(SEQ_ID, entry.seqId.value());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public OpLogEntry decode(BsonReader reader, DecoderContext decoderContext) {
+        AccountId accountId = null;
+        OperationId operationId = null;
+        SeqId seqId = null;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case ACCOUNT_ID:
+                    accountId = accountId(readUUID(reader));
+                    break;
+                case OPERATION_ID:
+                    operationId = operationId(readUUID(reader));
+                    break;
+                case SEQ_ID:
+                    seqId = seqId(reader.readInt64());
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return new OpLogEntry(accountId, operationId, seqId);
+    }
+
+    @Override
+    public Class<OpLogEntry> getEncoderClass() {
+        return OpLogEntry.class;
+    }
+}
@@ -0,0 +1,195 @@
+package mtymes.account.dao.mongo;
+
+import javafixes.math.Decimal;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.*;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import static java.lang.String.format;
+import static mtymes.account.dao.mongo.MongoCodecs.*;
+import static mtymes.account.dao.mongo.MongoMapper.*;
+import static mtymes.account.dao.mongo.MongoOperationDao.*;
+import static mtymes.account.domain.account.AccountId.accountId;
+import static mtymes.account.domain.operation.OperationId.operationId;
+
+// stores the operation in the same form as MongoOperationDao: operationId, type and the operation specific body
+class OperationCodec implements Codec<Operation> {
+
+    private final UuidFormat uuidFormat;
+    private final AmountFormat amountFormat;
+
+    OperationCodec(UuidFormat uuidFormat, AmountFormat amountFormat) {
+        this.uuidFormat = uuidFormat;
+        this.amountFormat = amountFormat;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Operation operation, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writeOperationFields(writer, uuidFormat, amountFormat, operation);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Operation decode(BsonReader reader, DecoderContext decoderContext) {
+        OperationFields fields = new OperationFields(amountFormat);
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (!fields.readField(name, reader)) {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return fields.toOperation();
+    }
+
+    @Override
+    public Class<Operation> getEncoderClass() {
+        return Operation.class;
+    }
+
+    static void writeOperationFields(BsonWriter writer, UuidFormat uuidFormat, AmountFormat amountFormat, Operation operation) {
+        writeUUID(writer, uuidFormat, OPERATION_ID, operation.operationId.value());
+        writer.writeString(TYPE, operation.type());
+        writer.writeStartDocument(BODY);
+        operation.apply(new BodyWriter(writer, uuidFormat, amountFormat));
+        writer.writeEndDocument();
+    }
+
+    // collects the stored fields, as the type doesn't have to be read before the body
+    static class OperationFields {
+
+        private final AmountFormat amountFormat;
+
+        private OperationId operationId;
+        private String type;
+        private AccountId accountId;
+        private Decimal amount;
+        private OperationId toPartOperationId;
+        private AccountId fromAccountId;
+        private AccountId toAccountId;
+
+        OperationFields(AmountFormat amountFormat) {
+            this.amountFormat = amountFormat;
+        }
+
+        // returns false if the field is not an operation field
+        boolean readField(String name, BsonReader reader) {
+            switch (name) {
+                case OPERATION_ID:
+                    operationId = operationId(readUUID(reader));
+                    return true;
+                case TYPE:
+                    type = reader.readString();
+                    return true;
+                case BODY:
+                    readBody(reader);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        Operation toOperation() {
+            switch (type) {
+                case "CreateAccount":
+                    return new CreateAccount(operationId, accountId);
+                case "DepositTo":
+                    return new DepositTo(operationId, accountId, amount);
+                case "WithdrawFrom":
+                    return new WithdrawFrom(operationId, accountId, amount);
+                case "TransferFrom":
+                    return new TransferFrom(operationId, toPartOperationId, new TransferDetail(fromAccountId, toAccountId, amount));
+                case "TransferTo":
+                    return new TransferTo(operationId, new TransferDetail(fromAccountId, toAccountId, amount));
+            }
+            throw new IllegalStateException(format("Unknown type '%s'", type));
+        }
+
+        private void readBody(BsonReader reader) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case ACCOUNT_ID:
+                        accountId = accountId(readUUID(reader));
+                        break;
+                    case AMOUNT:
+                        amount = readDecimal(reader, amountFormat);
+                        break;
+                    case TO_PART_OPERATION_ID:
+                        toPartOperationId = operationId(readUUID(reader));
+                        break;
+                    case FROM_ACCOUNT_ID:
+                        fromAccountId = accountId(readUUID(reader));
+                        break;
+                    case TO_ACCOUNT_ID:
+                        toAccountId = accountId(readUUID(reader));
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+        }
+    }
+
+    private static class BodyWriter implements OperationVisitor<Void> {
+
+        private final BsonWriter writer;
+        private final UuidFormat uuidFormat;
+        private final AmountFormat amountFormat;
+
+        private BodyWriter(BsonWriter writer, UuidFormat uuidFormat, AmountFormat amountFormat) {
+            this.writer = writer;
+            this.uuidFormat = uuidFormat;
+            this.amountFormat = amountFormat;
+        }
+
+        @Override
+        public Void visit(CreateAccount request) {
+            writeUUID(writer, uuidFormat, ACCOUNT_ID, request.accountId.value());
+            return null;
+        }
+
+        @Override
+        public Void visit(DepositTo request) {
+            writeUUID(writer, uuidFormat, ACCOUNT_ID, request.accountId.value());
+            writeDecimal(writer, amountFormat, AMOUNT, request.amount);
+            return null;
+        }
+
+        @Override
+        public Void visit(WithdrawFrom request) {
+            writeUUID(writer, uuidFormat, ACCOUNT_ID, request.accountId.value());
+            writeDecimal(writer, amountFormat, AMOUNT, request.amount);
+            return null;
+        }
+
+        @Override
+        public Void visit(TransferFrom request) {
+            writeUUID(writer, uuidFormat, TO_PART_OPERATION_ID, request.toPartOperationId.value());
+            writeTransferDetail(request.detail);
+            return null;
+        }
+
+        @Override
+        public Void visit(TransferTo request) {
+            writeTransferDetail(request.detail);
+            return null;
+        }
+
+        private void writeTransferDetail(TransferDetail detail) {
+            writeUUID(writer, uuidFormat, FROM_ACCOUNT_ID, detail.fromAccountId.value());
+            writeUUID(writer, uuidFormat, TO_ACCOUNT_ID, detail.toAccountId.value());
+            writeDecimal(writer, amountFormat, AMOUNT, detail.amount);
+        }
+    }
+}
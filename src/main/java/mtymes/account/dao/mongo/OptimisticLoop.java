@@ -0,0 +1,54 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.MongoWriteException;
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.exception.DuplicateItemException;
+
+import static mtymes.account.dao.mongo.MongoOpLogDao.SEQ_ID;
+
+// SeqIds to try when using "Optimistic Loop" to guarantee the sequencing of Operations
+// look at: https://docs.mongodb.com/v3.0/tutorial/create-an-auto-incrementing-field/ for more details
+class OptimisticLoop {
+
+    private static final int DUPLICATE_CODE = 11000;
+    private static final int MAX_INCREMENT_ATTEMPTS = 3;
+
+    final AccountId accountId;
+    private final ContentionMonitor contention;
+
+    private long idToUse;
+    private int attemptCount = 0; // use of this is relevant only in case of multi-node scenario
+
+    OptimisticLoop(AccountId accountId, long lastSeqId, ContentionMonitor contention) {
+        this.accountId = accountId;
+        this.contention = contention;
+        this.idToUse = lastSeqId + 1;
+    }
+
+    long idToUse() {
+        return idToUse;
+    }
+
+    // returns false if the last stored SeqId has to be loaded before the next attempt (see restartAfter)
+    boolean retryAfter(MongoWriteException e) throws DuplicateItemException {
+        if (e.getError().getCode() != DUPLICATE_CODE) {
+            throw e;
+        }
+        if (!e.getError().getMessage().contains(SEQ_ID)) {
+            throw new DuplicateItemException(e);
+        }
+
+        contention.recordSeqIdConflict(accountId);
+        if (++attemptCount < MAX_INCREMENT_ATTEMPTS) {
+            idToUse++;
+            return true;
+        }
+        return false;
+    }
+
+    void restartAfter(long lastSeqId) {
+        attemptCount = 0;
+        idToUse = lastSeqId + 1;
+    }
+}
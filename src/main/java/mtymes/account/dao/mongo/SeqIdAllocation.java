@@ -0,0 +1,11 @@
+package mtymes.account.dao.mongo;
+
+public enum SeqIdAllocation {
+    // finds last stored SeqId and retries the insert on duplicate SeqId (see MongoOpLogDao.storeWithSequenceId)
+    OptimisticLoop,
+    // atomically increments a per account counter document and inserts with the returned SeqId
+    AtomicCounter,
+    // reserves a block of SeqIds per account with one counter increment and hands them out from memory
+    // (unused SeqIds are skipped once a higher one is stored - works best if each account is handled by one node)
+    ReservedBlocks
+}
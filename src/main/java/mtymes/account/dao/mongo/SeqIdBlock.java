@@ -0,0 +1,25 @@
+package mtymes.account.dao.mongo;
+
+import java.util.function.IntToLongFunction;
+
+// range of reserved SeqIds that are handed out in order
+class SeqIdBlock {
+
+    private final int blockSize;
+
+    private long nextSeqId = 1;
+    private long lastSeqId = 0;
+
+    SeqIdBlock(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    // reserveBlock reserves the given number of SeqIds and returns the last one of them
+    synchronized long nextSeqId(IntToLongFunction reserveBlock) {
+        if (nextSeqId > lastSeqId) {
+            lastSeqId = reserveBlock.applyAsLong(blockSize);
+            nextSeqId = lastSeqId - blockSize + 1;
+        }
+        return nextSeqId++;
+    }
+}
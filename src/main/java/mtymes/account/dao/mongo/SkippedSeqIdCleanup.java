@@ -0,0 +1,48 @@
+package mtymes.account.dao.mongo;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+// periodically removes the "skipped" opLog entries older than the retention (see MongoOpLogDao.removeSkippedSeqIds)
+public class SkippedSeqIdCleanup {
+
+    private static final Logger logger = getLogger(SkippedSeqIdCleanup.class);
+
+    private final MongoOpLogDao opLogDao;
+    private final Duration retention;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    public SkippedSeqIdCleanup(MongoOpLogDao opLogDao, Duration retention) {
+        this.opLogDao = opLogDao;
+        this.retention = retention;
+    }
+
+    public SkippedSeqIdCleanup start() {
+        scheduler = newSingleThreadScheduledExecutor();
+        long retentionMillis = retention.toMillis();
+        scheduler.scheduleWithFixedDelay(this::removeSkippedSeqIdsSafely, retentionMillis, retentionMillis, MILLISECONDS);
+        return this;
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void removeSkippedSeqIdsSafely() {
+        try {
+            long removedCount = opLogDao.removeSkippedSeqIds(retention);
+            logger.info("Removed " + removedCount + " skipped opLog entries");
+        } catch (RuntimeException e) {
+            logger.error("Failed to remove skipped opLog entries", e);
+        }
+    }
+}
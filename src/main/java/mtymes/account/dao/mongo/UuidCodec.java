@@ -0,0 +1,37 @@
+package mtymes.account.dao.mongo;
+
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.UUID;
+
+import static mtymes.account.dao.mongo.MongoCodecs.readUUID;
+import static mtymes.account.dao.mongo.MongoCodecs.writeUUID;
+
+// used for the uuids in Documents (see DocumentBuilder) - reads both formats
+class UuidCodec implements Codec<UUID> {
+
+    private final UuidFormat uuidFormat;
+
+    UuidCodec(UuidFormat uuidFormat) {
+        this.uuidFormat = uuidFormat;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, UUID value, EncoderContext encoderContext) {
+        writeUUID(writer, uuidFormat, value);
+    }
+
+    @Override
+    public UUID decode(BsonReader reader, DecoderContext decoderContext) {
+        return readUUID(reader);
+    }
+
+    @Override
+    public Class<UUID> getEncoderClass() {
+        return UUID.class;
+    }
+}
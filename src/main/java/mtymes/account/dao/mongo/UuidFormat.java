@@ -0,0 +1,9 @@
+package mtymes.account.dao.mongo;
+
+public enum UuidFormat {
+    // 36 character string
+    Text,
+    // 16 bytes long bson binary (subtype 4) - halves the size of the id indexes
+    // (existing data has to be converted first, see UuidMigration)
+    Binary
+}
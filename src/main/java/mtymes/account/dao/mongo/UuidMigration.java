@@ -0,0 +1,94 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.slf4j.Logger;
+
+import java.util.List;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static mtymes.account.dao.mongo.MongoCodecs.amountFormat;
+import static mtymes.account.dao.mongo.MongoCodecs.codecRegistry;
+import static mtymes.account.dao.mongo.MongoCollections.*;
+import static mtymes.account.dao.mongo.UuidFormat.Binary;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Rewrites the stored uuids of all collections into the given UuidFormat.
+ * Only documents with a uuid in the other format are updated, so an interrupted migration can be run again.
+ *
+ * The uuids are read in any format, but queries match only the stored one. So the migration should run
+ * while no node is running and the nodes should be started with the new UuidFormat afterwards.
+ */
+public class UuidMigration {
+
+    private final Logger logger = getLogger(UuidMigration.class);
+
+    private final MongoDatabase database;
+    private final MongoMapper mapper = new MongoMapper();
+
+    public UuidMigration(MongoDatabase database) {
+        this.database = database;
+    }
+
+    // returns number of updated documents
+    public long migrateTo(UuidFormat uuidFormat) {
+        MongoDatabase targetDatabase = database.withCodecRegistry(codecRegistry(uuidFormat, amountFormat(database.getCodecRegistry())));
+        String body = MongoOperationDao.BODY + ".";
+        return migrate(accountsCollection(targetDatabase), uuidFormat, MongoAccountDao.ACCOUNT_ID)
+                + migrate(accountSnapshotsCollection(targetDatabase), uuidFormat, MongoAccountSnapshotDao.ACCOUNT_ID)
+                + migrate(opLogCollection(targetDatabase), uuidFormat, MongoOpLogDao.ACCOUNT_ID, MongoOpLogDao.OPERATION_ID)
+                + migrate(seqCountersCollection(targetDatabase), uuidFormat, MongoSeqIdCounter.ACCOUNT_ID)
+                + migrate(nodeLeasesCollection(targetDatabase), uuidFormat, MongoNodeLeaseDao.NODE_ID)
+                + migrate(forwardedWorkCollection(targetDatabase), uuidFormat, MongoForwardedWorkDao.ACCOUNT_ID)
+                + migrate(operationsCollection(targetDatabase), uuidFormat,
+                        MongoOperationDao.OPERATION_ID,
+                        body + MongoMapper.ACCOUNT_ID,
+                        body + MongoMapper.TO_PART_OPERATION_ID,
+                        body + MongoMapper.FROM_ACCOUNT_ID,
+                        body + MongoMapper.TO_ACCOUNT_ID
+                );
+    }
+
+    private long migrate(MongoCollection<Document> collection, UuidFormat uuidFormat, String... fieldPaths) {
+        String typeToMigrate = (uuidFormat == Binary) ? "string" : "binData";
+        List<Document> conditions = newArrayList();
+        for (String fieldPath : fieldPaths) {
+            conditions.add(doc(fieldPath, doc("$type", typeToMigrate)));
+        }
+
+        long updatedCount = 0;
+        for (Document document : collection.find(doc("$or", conditions))) {
+            Document values = new Document();
+            for (String fieldPath : fieldPaths) {
+                Document parent = document;
+                String[] pathParts = fieldPath.split("\\.");
+                for (int i = 0; i < pathParts.length - 1 && parent != null; i++) {
+                    parent = (Document) parent.get(pathParts[i]);
+                }
+                String fieldName = pathParts[pathParts.length - 1];
+                if (parent != null && parent.get(fieldName) != null) {
+                    values.put(fieldPath, mapper.getUUID(parent, fieldName));
+                }
+            }
+            collection.updateOne(doc("_id", document.get("_id")), doc("$set", values));
+            updatedCount++;
+        }
+
+        logger.info("Migrated " + updatedCount + " documents of collection '" + collection.getNamespace().getCollectionName() + "' to " + uuidFormat + " uuids");
+        return updatedCount;
+    }
+
+    // arguments: dbHostName dbPort dbName uuidFormat
+    public static void main(String[] args) {
+        MongoClient client = new MongoClient(args[0], Integer.parseInt(args[1]));
+        try {
+            new UuidMigration(client.getDatabase(args[2])).migrateTo(UuidFormat.valueOf(args[3]));
+        } finally {
+            client.close();
+        }
+    }
+}
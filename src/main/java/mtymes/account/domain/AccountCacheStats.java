@@ -0,0 +1,30 @@
+package mtymes.account.domain;
+
+public class AccountCacheStats {
+
+    public final long size;
+    public final long hitCount;
+    public final long missCount;
+    public final double hitRate;
+    public final double missRate;
+    public final long evictionCount;
+
+    public AccountCacheStats(long size, long hitCount, long missCount, double hitRate, double missRate, long evictionCount) {
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+        this.missRate = missRate;
+        this.evictionCount = evictionCount;
+    }
+
+    @SuppressWarnings("unused")
+    private AccountCacheStats() {
+        this.size = -1;
+        this.hitCount = -1;
+        this.missCount = -1;
+        this.hitRate = -1;
+        this.missRate = -1;
+        this.evictionCount = -1;
+    }
+}
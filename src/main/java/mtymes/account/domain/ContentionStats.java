@@ -0,0 +1,29 @@
+package mtymes.account.domain;
+
+import mtymes.account.domain.node.NodeId;
+
+import java.util.List;
+import java.util.Map;
+
+public class ContentionStats {
+
+    public final NodeId nodeId;
+    public final long seqIdConflictCount;
+    public final Map<String, Long> accountUpdateConflictCounts;
+    public final List<HotAccount> hottestAccounts;
+
+    public ContentionStats(NodeId nodeId, long seqIdConflictCount, Map<String, Long> accountUpdateConflictCounts, List<HotAccount> hottestAccounts) {
+        this.nodeId = nodeId;
+        this.seqIdConflictCount = seqIdConflictCount;
+        this.accountUpdateConflictCounts = accountUpdateConflictCounts;
+        this.hottestAccounts = hottestAccounts;
+    }
+
+    @SuppressWarnings("unused")
+    private ContentionStats() {
+        this.nodeId = null;
+        this.seqIdConflictCount = -1;
+        this.accountUpdateConflictCounts = null;
+        this.hottestAccounts = null;
+    }
+}
@@ -0,0 +1,24 @@
+package mtymes.account.domain;
+
+import mtymes.account.domain.account.AccountId;
+
+public class HotAccount {
+
+    public final AccountId accountId;
+    public final long conflictCount;
+    // the conflictCount can be higher than the real count by at most this value
+    public final long maxOverestimate;
+
+    public HotAccount(AccountId accountId, long conflictCount, long maxOverestimate) {
+        this.accountId = accountId;
+        this.conflictCount = conflictCount;
+        this.maxOverestimate = maxOverestimate;
+    }
+
+    @SuppressWarnings("unused")
+    private HotAccount() {
+        this.accountId = null;
+        this.conflictCount = -1;
+        this.maxOverestimate = -1;
+    }
+}
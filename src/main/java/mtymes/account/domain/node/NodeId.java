@@ -0,0 +1,22 @@
+package mtymes.account.domain.node;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import javafixes.object.Microtype;
+
+import java.util.UUID;
+
+public class NodeId extends Microtype<UUID> {
+
+    private NodeId(UUID value) {
+        super(value);
+    }
+
+    public static NodeId nodeId(UUID value) {
+        return new NodeId(value);
+    }
+
+    @JsonCreator
+    public static NodeId nodeId(String value) {
+        return new NodeId(UUID.fromString(value));
+    }
+}
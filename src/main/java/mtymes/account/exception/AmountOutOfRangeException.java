@@ -0,0 +1,8 @@
+package mtymes.account.exception;
+
+public class AmountOutOfRangeException extends ArithmeticException {
+
+    public AmountOutOfRangeException(String message) {
+        super(message);
+    }
+}
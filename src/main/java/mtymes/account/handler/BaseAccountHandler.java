@@ -1,5 +1,6 @@
 package mtymes.account.handler;
 
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.Account;
@@ -13,26 +14,31 @@ import static java.lang.String.format;
 
 public abstract class BaseAccountHandler<T extends Operation> extends BaseOperationHandler<T> {
 
-    protected BaseAccountHandler(AccountDao accountDao, OperationDao operationDao) {
-        super(accountDao, operationDao);
+    protected BaseAccountHandler(AccountDao accountDao, OperationDao operationDao, CompletionRegistry completions, ContentionMonitor contention) {
+        super(accountDao, operationDao, completions, contention);
     }
 
     @Override
     public void handleOperation(SeqId seqId, T operation) {
         AccountId accountId = extractAccountId(operation);
         Optional<Account> optionalAccount = loadAccount(accountId);
-        if (optionalAccount.isPresent()) {
+        while (optionalAccount.isPresent()) {
             Account account = optionalAccount.get();
             if (seqId.canApplyAfter(account.version)) {
 
-                applyOperation(account, seqId, operation);
+                boolean success = applyOperation(account, seqId, operation);
+                if (!success) {
+                    // the loaded account was stale - reload it and check again
+                    optionalAccount = reloadAccount(accountId, seqId);
+                    continue;
+                }
 
             } else if (seqId.isCurrentlyApplied(account.version)) {
                 markOperationAsApplied(operation.operationId);
             }
-        } else {
-            markOperationAsRejected(operation.operationId, format(logAsAccountName() + " '%s' does not exist", accountId));
+            return;
         }
+        markOperationAsRejected(operation.operationId, format(logAsAccountName() + " '%s' does not exist", accountId));
     }
 
     protected String logAsAccountName() {
@@ -41,5 +47,6 @@ public abstract class BaseAccountHandler<T extends Operation> extends BaseOperat
 
     protected abstract AccountId extractAccountId(T operation);
 
-    protected abstract void applyOperation(Account account, SeqId seqId, T operation);
+    // returns false if the account version has been moved concurrently and the operation was not applied
+    protected abstract boolean applyOperation(Account account, SeqId seqId, T operation);
 }
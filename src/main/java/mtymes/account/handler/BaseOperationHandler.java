@@ -1,5 +1,6 @@
 package mtymes.account.handler;
 
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.Account;
@@ -14,10 +15,14 @@ public abstract class BaseOperationHandler<T extends Operation> implements Opera
 
     protected final AccountDao accountDao;
     protected final OperationDao operationDao;
+    private final CompletionRegistry completions;
+    private final ContentionMonitor contention;
 
-    protected BaseOperationHandler(AccountDao accountDao, OperationDao operationDao) {
+    protected BaseOperationHandler(AccountDao accountDao, OperationDao operationDao, CompletionRegistry completions, ContentionMonitor contention) {
         this.accountDao = accountDao;
         this.operationDao = operationDao;
+        this.completions = completions;
+        this.contention = contention;
     }
 
     protected Optional<Account> loadAccount(AccountId accountId) {
@@ -28,11 +33,41 @@ public abstract class BaseOperationHandler<T extends Operation> implements Opera
         return accountDao.findCurrentVersion(accountId);
     }
 
+    // a rejection must not be based on an account served stale by a cache
+    protected boolean isStale(Account account) {
+        return accountDao.refreshAccount(account)
+                .map(storedAccount -> !storedAccount.version.equals(account.version))
+                .orElse(false);
+    }
+
+    // to be called after a failed conditional write - the lost race is recorded unless the write has been already done by this operation
+    protected Optional<Account> reloadAccount(AccountId accountId, SeqId seqId) {
+        Optional<Account> account = loadAccount(accountId);
+        recordConflictUnlessCurrentlyApplied(accountId, seqId, account.map(a -> a.version));
+        return account;
+    }
+
+    protected Optional<SeqId> reloadAccountVersion(AccountId accountId, SeqId seqId) {
+        Optional<SeqId> version = loadAccountVersion(accountId);
+        recordConflictUnlessCurrentlyApplied(accountId, seqId, version);
+        return version;
+    }
+
+    private void recordConflictUnlessCurrentlyApplied(AccountId accountId, SeqId seqId, Optional<SeqId> version) {
+        if (!version.isPresent() || !seqId.isCurrentlyApplied(version.get())) {
+            contention.recordAccountUpdateConflict(accountId, getClass().getSimpleName());
+        }
+    }
+
     protected void markOperationAsApplied(OperationId operationId) {
-        operationDao.markAsApplied(operationId);
+        if (operationDao.markAsApplied(operationId)) {
+            completions.markAsApplied(operationId);
+        }
     }
 
     protected void markOperationAsRejected(OperationId operationId, String description) {
-        operationDao.markAsRejected(operationId, description);
+        if (operationDao.markAsRejected(operationId, description)) {
+            completions.markAsRejected(operationId, description);
+        }
     }
 }
@@ -0,0 +1,219 @@
+package mtymes.account.handler;
+
+import com.google.common.collect.ImmutableMap;
+import javafixes.math.Decimal;
+import javafixes.object.Tuple;
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.*;
+import mtymes.account.exception.AmountOutOfRangeException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static java.lang.String.format;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Applies a run of DepositTo, WithdrawFrom and TransferTo operations of one account with a single balance update.
+ * The operations are folded in SeqId order on top of the loaded account - overdrafts are still rejected one by one.
+ * A TransferTo that can't be credited is refunded to its From Account (see TransferRefunds).
+ *
+ * To stay crash safe the writes are done in this order: rejected operations, balance and version of the last applied
+ * operation and then the applied operations. So any unfinished operation whose SeqId is not after the account version
+ * has already been applied.
+ */
+public class BatchedBalanceHandler {
+
+    private static final BalanceChangeVisitor BALANCE_CHANGE = new BalanceChangeVisitor();
+
+    private final AccountDao accountDao;
+    private final OperationDao operationDao;
+    private final TransferRefunds refunds;
+    private final CompletionRegistry completions;
+    private final ContentionMonitor contention;
+
+    public BatchedBalanceHandler(AccountDao accountDao, OperationDao operationDao, TransferRefunds refunds, CompletionRegistry completions, ContentionMonitor contention) {
+        this.accountDao = accountDao;
+        this.operationDao = operationDao;
+        this.refunds = refunds;
+        this.completions = completions;
+        this.contention = contention;
+    }
+
+    public boolean canHandle(Operation operation) {
+        return operation.apply(BALANCE_CHANGE).isPresent();
+    }
+
+    // all operations must affect the same account and be ordered by SeqId
+    public void handleOperations(List<Tuple<SeqId, Operation>> operations) {
+        List<Tuple<SeqId, Operation>> operationsToApply = newArrayList(operations);
+        List<TransferTo> transferTos = transferTos(operations);
+        Set<OperationId> refundedOperationIds = transferTos.isEmpty() ? emptySet() : refunds.findRefunded(transferTos);
+        Optional<SeqId> failedWriteSeqId = Optional.empty();
+        while (!operationsToApply.isEmpty()) {
+            AccountId accountId = operationsToApply.get(0).b.affectedAccountId();
+            Optional<Account> optionalAccount = accountDao.findAccount(accountId);
+            if (failedWriteSeqId.isPresent()) {
+                recordConflictUnlessCurrentlyApplied(accountId, failedWriteSeqId.get(), optionalAccount);
+            }
+            if (!optionalAccount.isPresent()) {
+                Map<OperationId, String> rejections = newLinkedHashMap();
+                for (Tuple<SeqId, Operation> operation : operationsToApply) {
+                    String accountName = operation.b.apply(BALANCE_CHANGE).get().accountName;
+                    rejections.put(operation.b.operationId, format(accountName + " '%s' does not exist", accountId));
+                }
+                markOperationsAsRejected(rejections);
+                return;
+            }
+            Account account = optionalAccount.get();
+
+            Decimal balance = account.balance;
+            Optional<SeqId> lastAppliedSeqId = Optional.empty();
+            List<OperationId> appliedOperationIds = newArrayList();
+            Map<OperationId, String> rejections = newLinkedHashMap();
+            boolean overdrawn = false;
+            for (Tuple<SeqId, Operation> operation : operationsToApply) {
+                SeqId seqId = operation.a;
+                OperationId operationId = operation.b.operationId;
+                if (seqId.canApplyAfter(account.version) && refundedOperationIds.contains(operationId)) {
+                    // the credit failed before and the amount went back to the From Account
+                    rejections.put(operationId, refunds.refund((TransferTo) operation.b));
+                } else if (seqId.canApplyAfter(account.version)) {
+                    Decimal newBalance = balance.plus(operation.b.apply(BALANCE_CHANGE).get().amount);
+                    if (newBalance.compareTo(Decimal.ZERO) < 0) {
+                        rejections.put(operationId, format("Insufficient funds on account '%s'", accountId));
+                        overdrawn = true;
+                    } else {
+                        balance = newBalance;
+                        lastAppliedSeqId = Optional.of(seqId);
+                        appliedOperationIds.add(operationId);
+                    }
+                } else {
+                    // rejected operations are stored before the account version is moved, so this one was applied
+                    appliedOperationIds.add(operationId);
+                }
+            }
+
+            if (overdrawn && isStale(account)) {
+                // overdrafts must not be rejected based on an account served stale by a cache - fold again on top of the stored one
+                continue;
+            }
+            markOperationsAsRejected(rejections);
+            if (lastAppliedSeqId.isPresent()) {
+                boolean success;
+                try {
+                    success = accountDao.updateBalance(accountId, balance, account.version, lastAppliedSeqId.get());
+                } catch (AmountOutOfRangeException e) {
+                    operationsToApply.removeIf(operation -> rejections.containsKey(operation.b.operationId));
+                    handleOneByOne(operationsToApply, accountId);
+                    return;
+                }
+                if (!success) {
+                    failedWriteSeqId = lastAppliedSeqId;
+                    // some of the operations have been applied concurrently - fold the rest again on top of the new account version
+                    operationsToApply.removeIf(operation -> rejections.containsKey(operation.b.operationId));
+                    continue;
+                }
+            }
+            markOperationsAsApplied(appliedOperationIds);
+            return;
+        }
+    }
+
+    // the folded balance can't be stored - apply the operations one at a time so only the ones that move the balance out of range are rejected
+    private void handleOneByOne(List<Tuple<SeqId, Operation>> operations, AccountId accountId) {
+        if (operations.size() == 1) {
+            Operation operation = operations.get(0).b;
+            String description = (operation instanceof TransferTo)
+                    ? refunds.refund((TransferTo) operation)
+                    : format("Balance of account '%s' would be out of range", accountId);
+            markOperationsAsRejected(ImmutableMap.of(operation.operationId, description));
+            return;
+        }
+        for (Tuple<SeqId, Operation> operation : operations) {
+            handleOperations(singletonList(operation));
+        }
+    }
+
+    private List<TransferTo> transferTos(List<Tuple<SeqId, Operation>> operations) {
+        return operations.stream()
+                .map(operation -> operation.b)
+                .filter(operation -> operation instanceof TransferTo)
+                .map(operation -> (TransferTo) operation)
+                .collect(toList());
+    }
+
+    private boolean isStale(Account account) {
+        return accountDao.refreshAccount(account)
+                .map(storedAccount -> !storedAccount.version.equals(account.version))
+                .orElse(false);
+    }
+
+    // a re-drain of operations already applied by another thread is not a lost race
+    private void recordConflictUnlessCurrentlyApplied(AccountId accountId, SeqId seqId, Optional<Account> account) {
+        if (!account.isPresent() || !seqId.isCurrentlyApplied(account.get().version)) {
+            contention.recordAccountUpdateConflict(accountId, BatchedBalanceHandler.class.getSimpleName());
+        }
+    }
+
+    private void markOperationsAsRejected(Map<OperationId, String> rejections) {
+        if (!rejections.isEmpty() && operationDao.markAsRejected(rejections) == rejections.size()) {
+            rejections.forEach(completions::markAsRejected);
+        }
+    }
+
+    private void markOperationsAsApplied(List<OperationId> operationIds) {
+        if (!operationIds.isEmpty() && operationDao.markAsApplied(operationIds) == operationIds.size()) {
+            operationIds.forEach(completions::markAsApplied);
+        }
+    }
+
+    private static class BalanceChange {
+
+        final Decimal amount;
+        final String accountName;
+
+        BalanceChange(Decimal amount, String accountName) {
+            this.amount = amount;
+            this.accountName = accountName;
+        }
+    }
+
+    private static class BalanceChangeVisitor implements OperationVisitor<Optional<BalanceChange>> {
+
+        @Override
+        public Optional<BalanceChange> visit(CreateAccount request) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<BalanceChange> visit(DepositTo request) {
+            return Optional.of(new BalanceChange(request.amount, "Account"));
+        }
+
+        @Override
+        public Optional<BalanceChange> visit(WithdrawFrom request) {
+            return Optional.of(new BalanceChange(Decimal.ZERO.minus(request.amount), "Account"));
+        }
+
+        @Override
+        public Optional<BalanceChange> visit(TransferFrom request) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<BalanceChange> visit(TransferTo request) {
+            return Optional.of(new BalanceChange(request.detail.amount, "To Account"));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package mtymes.account.handler;
+
+import mtymes.account.domain.operation.FinalState;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import mtymes.account.domain.operation.OperationId;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static mtymes.account.domain.operation.FinalState.Applied;
+import static mtymes.account.domain.operation.FinalState.Rejected;
+
+/**
+ * In-process notification of finished operations, so the submitter doesn't have to re-read them from the db.
+ * Only operations that are awaited are tracked - notifications for any other operation are ignored.
+ */
+public class CompletionRegistry {
+
+    private final ConcurrentMap<OperationId, Optional<Completion>> completions = new ConcurrentHashMap<>();
+
+    // has to be called before the operation is submitted, otherwise the notification could be missed
+    public void awaitCompletionOf(OperationId operationId) {
+        completions.put(operationId, Optional.empty());
+    }
+
+    public void stopAwaitingCompletionOf(OperationId operationId) {
+        completions.remove(operationId);
+    }
+
+    public void markAsApplied(OperationId operationId) {
+        completions.replace(operationId, Optional.of(new Completion(Applied, Optional.empty())));
+    }
+
+    public void markAsRejected(OperationId operationId, String description) {
+        completions.replace(operationId, Optional.of(new Completion(Rejected, Optional.of(description))));
+    }
+
+    // empty if the operation was not finished by this process (for example it was finished on another node)
+    public Optional<LoggedOperation> takeCompletionOf(Operation operation) {
+        Optional<Completion> completion = completions.remove(operation.operationId);
+        if (completion == null || !completion.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(new LoggedOperation(
+                operation,
+                Optional.of(completion.get().finalState),
+                completion.get().description
+        ));
+    }
+
+    private static class Completion {
+
+        final FinalState finalState;
+        final Optional<String> description;
+
+        Completion(FinalState finalState, Optional<String> description) {
+            this.finalState = finalState;
+            this.description = description;
+        }
+    }
+}
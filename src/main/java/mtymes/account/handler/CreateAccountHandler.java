@@ -1,5 +1,6 @@
 package mtymes.account.handler;
 
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.operation.CreateAccount;
@@ -11,8 +12,8 @@ import static java.lang.String.format;
 
 public class CreateAccountHandler extends BaseOperationHandler<CreateAccount> {
 
-    public CreateAccountHandler(AccountDao accountDao, OperationDao operationDao) {
-        super(accountDao, operationDao);
+    public CreateAccountHandler(AccountDao accountDao, OperationDao operationDao, CompletionRegistry completions, ContentionMonitor contention) {
+        super(accountDao, operationDao, completions, contention);
     }
 
     @Override
@@ -26,7 +27,7 @@ public class CreateAccountHandler extends BaseOperationHandler<CreateAccount> {
     }
 
     private void onAccountNotCreated(SeqId seqId, CreateAccount operation) {
-        Optional<SeqId> optionalVersion = loadAccountVersion(operation.accountId);
+        Optional<SeqId> optionalVersion = reloadAccountVersion(operation.accountId, seqId);
         if (!optionalVersion.isPresent()) {
             markOperationAsRejected(operation.operationId, format("Failed to create Account '%s'", operation.accountId));
         } else {
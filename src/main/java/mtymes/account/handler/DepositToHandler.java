@@ -1,21 +1,21 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.DepositTo;
 import mtymes.account.domain.operation.SeqId;
-
-import java.util.Optional;
+import mtymes.account.exception.AmountOutOfRangeException;
 
 import static java.lang.String.format;
 
 public class DepositToHandler extends BaseAccountHandler<DepositTo> {
 
-    public DepositToHandler(AccountDao accountDao, OperationDao operationDao) {
-        super(accountDao, operationDao);
+    public DepositToHandler(AccountDao accountDao, OperationDao operationDao, CompletionRegistry completions, ContentionMonitor contention) {
+        super(accountDao, operationDao, completions, contention);
     }
 
     @Override
@@ -24,9 +24,18 @@ public class DepositToHandler extends BaseAccountHandler<DepositTo> {
     }
 
     @Override
-    protected void applyOperation(Account account, SeqId seqId, DepositTo operation) {
+    protected boolean applyOperation(Account account, SeqId seqId, DepositTo operation) {
         Decimal newBalance = account.balance.plus(operation.amount);
-        accountDao.updateBalance(account.accountId, newBalance, account.version, seqId);
-        markOperationAsApplied(operation.operationId);
+        boolean success;
+        try {
+            success = accountDao.updateBalance(account.accountId, newBalance, account.version, seqId);
+        } catch (AmountOutOfRangeException e) {
+            markOperationAsRejected(operation.operationId, format("Balance of account '%s' would be out of range", account.accountId));
+            return true;
+        }
+        if (success) {
+            markOperationAsApplied(operation.operationId);
+        }
+        return success;
     }
 }
@@ -1,26 +1,108 @@
 package mtymes.account.handler;
 
+import javafixes.object.Tuple;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.domain.operation.*;
+import mtymes.common.metrics.Metrics;
+import mtymes.common.metrics.Timer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newConcurrentMap;
+import static javafixes.object.Tuple.tuple;
 
 public class OperationDispatcher {
 
+    private static final String HANDLER_TIMER_NAME = "bank_operation_handler_seconds";
+    private static final String HANDLER_TIMER_HELP = "Time to handle an operation, by operation type";
+
     private final OpLogDao opLogDao;
     private final DispatchVisitor dispatchVisitor;
+    private final Optional<BatchedBalanceHandler> batchedBalanceHandler;
+    private final Metrics metrics;
+    private final Timer markAsFinishedTimer;
+    private final Timer batchedHandlerTimer;
+    private final ConcurrentMap<String, Timer> handlerTimers = newConcurrentMap();
 
-    public OperationDispatcher(OpLogDao opLogDao, CreateAccountHandler createAccountHandler, DepositToHandler depositToHandler, WithdrawFromHandler withdrawFromHandler, TransferFromHandler transferFromHandler, TransferToHandler transferToHandler) {
+    public OperationDispatcher(OpLogDao opLogDao, CreateAccountHandler createAccountHandler, DepositToHandler depositToHandler, WithdrawFromHandler withdrawFromHandler, TransferFromHandler transferFromHandler, TransferToHandler transferToHandler, Metrics metrics) {
         this.opLogDao = opLogDao;
         this.dispatchVisitor = new DispatchVisitor(createAccountHandler, depositToHandler, withdrawFromHandler, transferFromHandler, transferToHandler);
+        this.batchedBalanceHandler = Optional.empty();
+        this.metrics = metrics;
+        this.markAsFinishedTimer = metrics.timer("bank_mark_as_finished_seconds", "Time to mark handled operations as finished in the opLog");
+        this.batchedHandlerTimer = metrics.timer(HANDLER_TIMER_NAME, HANDLER_TIMER_HELP, "type", "BatchedBalance");
+    }
+
+    // consecutive balance operations dispatched together are applied with one account update
+    public OperationDispatcher(OpLogDao opLogDao, CreateAccountHandler createAccountHandler, DepositToHandler depositToHandler, WithdrawFromHandler withdrawFromHandler, TransferFromHandler transferFromHandler, TransferToHandler transferToHandler, BatchedBalanceHandler batchedBalanceHandler, Metrics metrics) {
+        this.opLogDao = opLogDao;
+        this.dispatchVisitor = new DispatchVisitor(createAccountHandler, depositToHandler, withdrawFromHandler, transferFromHandler, transferToHandler);
+        this.batchedBalanceHandler = Optional.of(batchedBalanceHandler);
+        this.metrics = metrics;
+        this.markAsFinishedTimer = metrics.timer("bank_mark_as_finished_seconds", "Time to mark handled operations as finished in the opLog");
+        this.batchedHandlerTimer = metrics.timer(HANDLER_TIMER_NAME, HANDLER_TIMER_HELP, "type", "BatchedBalance");
     }
 
-    @SuppressWarnings("unchecked")
     public void dispatchOperation(SeqId seqId, LoggedOperation loggedOperation) {
+        handleOperation(seqId, loggedOperation);
+        long startTime = System.nanoTime();
+        opLogDao.markAsFinished(loggedOperation.operation.operationId);
+        markAsFinishedTimer.recordSince(startTime);
+    }
+
+    // handles the operations in the given order and marks all of them as finished in the opLog with one write
+    // (if any of them fails, already handled operations stay unfinished in the opLog and are just skipped on the next run)
+    public void dispatchOperations(List<Tuple<SeqId, LoggedOperation>> loggedOperations) {
+        List<OperationId> handledOperationIds = newArrayList();
+        List<Tuple<SeqId, Operation>> balanceOperations = newArrayList();
+        for (Tuple<SeqId, LoggedOperation> loggedOperation : loggedOperations) {
+            if (canBeBatched(loggedOperation.b)) {
+                balanceOperations.add(tuple(loggedOperation.a, loggedOperation.b.operation));
+            } else {
+                handleBalanceOperations(balanceOperations);
+                handleOperation(loggedOperation.a, loggedOperation.b);
+            }
+            handledOperationIds.add(loggedOperation.b.operation.operationId);
+        }
+        handleBalanceOperations(balanceOperations);
+        if (!handledOperationIds.isEmpty()) {
+            long startTime = System.nanoTime();
+            opLogDao.markAsFinished(handledOperationIds);
+            markAsFinishedTimer.recordSince(startTime);
+        }
+    }
+
+    private boolean canBeBatched(LoggedOperation loggedOperation) {
+        return batchedBalanceHandler.isPresent()
+                && !loggedOperation.isFinished()
+                && batchedBalanceHandler.get().canHandle(loggedOperation.operation);
+    }
+
+    private void handleBalanceOperations(List<Tuple<SeqId, Operation>> balanceOperations) {
+        if (!balanceOperations.isEmpty()) {
+            long startTime = System.nanoTime();
+            batchedBalanceHandler.get().handleOperations(newArrayList(balanceOperations));
+            batchedHandlerTimer.recordSince(startTime);
+            balanceOperations.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleOperation(SeqId seqId, LoggedOperation loggedOperation) {
         Operation operation = loggedOperation.operation;
         if (!loggedOperation.isFinished()) {
             OperationHandler handler = operation.apply(dispatchVisitor);
+            long startTime = System.nanoTime();
             handler.handleOperation(seqId, operation);
+            handlerTimer(operation.type()).recordSince(startTime);
         }
-        opLogDao.markAsFinished(operation.operationId);
+    }
+
+    private Timer handlerTimer(String operationType) {
+        return handlerTimers.computeIfAbsent(operationType, type -> metrics.timer(HANDLER_TIMER_NAME, HANDLER_TIMER_HELP, "type", type));
     }
 
     private class DispatchVisitor implements OperationVisitor<OperationHandler<?>> {
@@ -1,6 +1,7 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.dao.OperationDao;
@@ -22,8 +23,8 @@ public class TransferFromHandler extends BaseOperationHandler<TransferFrom> {
     private final OpLogDao opLogDao;
     private final SetQueue<AccountId> workQueue;
 
-    public TransferFromHandler(AccountDao accountDao, OperationDao operationDao, OpLogDao opLogDao, SetQueue<AccountId> workQueue) {
-        super(accountDao, operationDao);
+    public TransferFromHandler(AccountDao accountDao, OperationDao operationDao, OpLogDao opLogDao, SetQueue<AccountId> workQueue, CompletionRegistry completions, ContentionMonitor contention) {
+        super(accountDao, operationDao, completions, contention);
         this.opLogDao = opLogDao;
         this.workQueue = workQueue;
     }
@@ -42,25 +43,28 @@ public class TransferFromHandler extends BaseOperationHandler<TransferFrom> {
             return;
         }
 
-        boolean success = withdrawMoney(seqId, optionalFromAccount.get(), operation);
-        if (success) {
-            submitOperationTransferTo(operation);
-        }
-    }
-
-    private boolean withdrawMoney(SeqId seqId, Account account, TransferFrom operation) {
-        TransferDetail detail = operation.detail;
-        if (seqId.canApplyAfter(account.version)) {
-            Decimal newBalance = account.balance.minus(detail.amount);
+        Account fromAccount = optionalFromAccount.get();
+        while (seqId.canApplyAfter(fromAccount.version)) {
+            Decimal newBalance = fromAccount.balance.minus(detail.amount);
             if (newBalance.compareTo(Decimal.ZERO) < 0) {
-                markOperationAsRejected(operation.operationId, format("Insufficient funds on account '%s'", detail.fromAccountId));
-                return false;
-            } else {
-                accountDao.updateBalance(detail.fromAccountId, newBalance, account.version, seqId);
-                return true;
+                if (!isStale(fromAccount)) {
+                    markOperationAsRejected(operation.operationId, format("Insufficient funds on account '%s'", detail.fromAccountId));
+                    return;
+                }
+            } else if (accountDao.updateBalance(detail.fromAccountId, newBalance, fromAccount.version, seqId)) {
+                submitOperationTransferTo(operation);
+                return;
+            }
+            // the loaded account was stale - reload it and check again
+            optionalFromAccount = reloadAccount(detail.fromAccountId, seqId);
+            if (!optionalFromAccount.isPresent()) {
+                markOperationAsRejected(operation.operationId, format("From Account '%s' does not exist", detail.fromAccountId));
+                return;
             }
-        } else {
-            return seqId.isCurrentlyApplied(account.version);
+            fromAccount = optionalFromAccount.get();
+        }
+        if (seqId.isCurrentlyApplied(fromAccount.version)) {
+            submitOperationTransferTo(operation);
         }
     }
 
@@ -0,0 +1,80 @@
+package mtymes.account.handler;
+
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.DepositTo;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.TransferDetail;
+import mtymes.account.domain.operation.TransferTo;
+import mtymes.account.exception.DuplicateItemException;
+import mtymes.common.util.SetQueue;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static mtymes.account.domain.operation.OperationId.operationId;
+
+/**
+ * The From Account of a transfer is debited before its TransferTo is handled, so a TransferTo that can't be credited
+ * (the balance would be out of range) can't be just rejected - its amount is deposited back to the From Account.
+ *
+ * The refund is logged under an OperationId derived from the TransferTo (so it can be logged only once) before the
+ * TransferTo is rejected. A re-handled TransferTo whose refund has been already logged is never credited.
+ */
+public class TransferRefunds {
+
+    private final OperationDao operationDao;
+    private final OpLogDao opLogDao;
+    private final SetQueue<AccountId> workQueue;
+
+    public TransferRefunds(OperationDao operationDao, OpLogDao opLogDao, SetQueue<AccountId> workQueue) {
+        this.operationDao = operationDao;
+        this.opLogDao = opLogDao;
+        this.workQueue = workQueue;
+    }
+
+    public boolean isRefunded(TransferTo operation) {
+        return operationDao.findLoggedOperation(refundOperationId(operation.operationId)).isPresent();
+    }
+
+    // returns the ids of the given operations whose refund has been already logged
+    public Set<OperationId> findRefunded(Collection<TransferTo> operations) {
+        Map<OperationId, LoggedOperation> refunds = operationDao.findLoggedOperations(operations.stream()
+                .map(operation -> refundOperationId(operation.operationId))
+                .collect(toList()));
+        return operations.stream()
+                .map(operation -> operation.operationId)
+                .filter(operationId -> refunds.containsKey(refundOperationId(operationId)))
+                .collect(toSet());
+    }
+
+    // returns the description the TransferTo should be rejected with
+    public String refund(TransferTo operation) {
+        TransferDetail detail = operation.detail;
+        OperationId refundOperationId = refundOperationId(operation.operationId);
+        try {
+            operationDao.storeOperation(new DepositTo(refundOperationId, detail.fromAccountId, detail.amount));
+        } catch (DuplicateItemException e) {
+            // do nothing - the refund has been already stored
+        }
+        try {
+            opLogDao.registerOperationId(detail.fromAccountId, refundOperationId);
+        } catch (DuplicateItemException e) {
+            // do nothing - the refund has been already registered
+        }
+        workQueue.add(detail.fromAccountId);
+        return format("Balance of account '%s' would be out of range - amount has been refunded to account '%s'", detail.toAccountId, detail.fromAccountId);
+    }
+
+    static OperationId refundOperationId(OperationId transferToOperationId) {
+        return operationId(UUID.nameUUIDFromBytes(("refund:" + transferToOperationId).getBytes(UTF_8)));
+    }
+}
@@ -1,6 +1,7 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.Account;
@@ -8,15 +9,15 @@ import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.SeqId;
 import mtymes.account.domain.operation.TransferDetail;
 import mtymes.account.domain.operation.TransferTo;
-
-import java.util.Optional;
-
-import static java.lang.String.format;
+import mtymes.account.exception.AmountOutOfRangeException;
 
 public class TransferToHandler extends BaseAccountHandler<TransferTo>{
 
-    public TransferToHandler(AccountDao accountDao, OperationDao operationDao) {
-        super(accountDao, operationDao);
+    private final TransferRefunds refunds;
+
+    public TransferToHandler(AccountDao accountDao, OperationDao operationDao, TransferRefunds refunds, CompletionRegistry completions, ContentionMonitor contention) {
+        super(accountDao, operationDao, completions, contention);
+        this.refunds = refunds;
     }
 
     @Override
@@ -30,10 +31,24 @@ public class TransferToHandler extends BaseAccountHandler<TransferTo>{
     }
 
     @Override
-    protected void applyOperation(Account account, SeqId seqId, TransferTo operation) {
+    protected boolean applyOperation(Account account, SeqId seqId, TransferTo operation) {
         TransferDetail detail = operation.detail;
+        if (refunds.isRefunded(operation)) {
+            // the credit failed before and the amount went back to the From Account
+            markOperationAsRejected(operation.operationId, refunds.refund(operation));
+            return true;
+        }
         Decimal newBalance = account.balance.plus(detail.amount);
-        accountDao.updateBalance(detail.toAccountId, newBalance, account.version, seqId);
-        markOperationAsApplied(operation.operationId);
+        boolean success;
+        try {
+            success = accountDao.updateBalance(detail.toAccountId, newBalance, account.version, seqId);
+        } catch (AmountOutOfRangeException e) {
+            markOperationAsRejected(operation.operationId, refunds.refund(operation));
+            return true;
+        }
+        if (success) {
+            markOperationAsApplied(operation.operationId);
+        }
+        return success;
     }
 }
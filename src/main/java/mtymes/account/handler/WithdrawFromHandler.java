@@ -1,6 +1,7 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.Account;
@@ -8,14 +9,12 @@ import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.SeqId;
 import mtymes.account.domain.operation.WithdrawFrom;
 
-import java.util.Optional;
-
 import static java.lang.String.format;
 
 public class WithdrawFromHandler extends BaseAccountHandler<WithdrawFrom> {
 
-    public WithdrawFromHandler(AccountDao accountDao, OperationDao operationDao) {
-        super(accountDao, operationDao);
+    public WithdrawFromHandler(AccountDao accountDao, OperationDao operationDao, CompletionRegistry completions, ContentionMonitor contention) {
+        super(accountDao, operationDao, completions, contention);
     }
 
     @Override
@@ -24,13 +23,19 @@ public class WithdrawFromHandler extends BaseAccountHandler<WithdrawFrom> {
     }
 
     @Override
-    protected void applyOperation(Account account, SeqId seqId, WithdrawFrom operation) {
+    protected boolean applyOperation(Account account, SeqId seqId, WithdrawFrom operation) {
         Decimal newBalance = account.balance.minus(operation.amount);
         if (newBalance.compareTo(Decimal.ZERO) < 0) {
+            if (isStale(account)) {
+                return false;
+            }
             markOperationAsRejected(operation.operationId, format("Insufficient funds on account '%s'", account.accountId));
-        } else {
-            accountDao.updateBalance(account.accountId, newBalance, account.version, seqId);
+            return true;
+        }
+        boolean success = accountDao.updateBalance(account.accountId, newBalance, account.version, seqId);
+        if (success) {
             markOperationAsApplied(operation.operationId);
         }
+        return success;
     }
 }
@@ -0,0 +1,306 @@
+package mtymes.account.recovery;
+
+import javafixes.math.Decimal;
+import javafixes.object.Tuple;
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.AccountSnapshotDao;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.*;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.lang.String.format;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+import static mtymes.account.domain.operation.FinalState.Applied;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Rebuilds account balances from the opLogs and operations.
+ * The replay of an account starts from its last snapshot (or from nothing) and applies the Applied operations
+ * registered after the snapshot version in SeqId order. It stops at the first unfinished operation,
+ * as that one could still be applied or rejected.
+ *
+ * Bulk actions split the accounts into partitions that are processed in parallel on a fork/join pool.
+ * Accounts that are ahead of their replay only because of an unfinished operation are considered valid.
+ *
+ * Verification and rebuild can run next to live traffic: the account is read first and replayed only up to its read version,
+ * and a rebuilt account is stored only if its version has not moved since it was read.
+ */
+public class AccountRecovery {
+
+    private static final int PARTITION_SIZE = 256;
+
+    private final Logger logger = getLogger(AccountRecovery.class);
+
+    private final AccountDao accountDao;
+    private final AccountSnapshotDao snapshotDao;
+    private final OperationDao operationDao;
+    private final OpLogDao opLogDao;
+    private final ForkJoinPool pool;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    public AccountRecovery(AccountDao accountDao, AccountSnapshotDao snapshotDao, OperationDao operationDao, OpLogDao opLogDao, int parallelism) {
+        checkArgument(parallelism > 0, "parallelism must be a positive value");
+
+        this.accountDao = accountDao;
+        this.snapshotDao = snapshotDao;
+        this.operationDao = operationDao;
+        this.opLogDao = opLogDao;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // snapshots of all accounts are taken periodically only if the snapshotInterval is positive
+    public AccountRecovery start(Duration snapshotInterval) {
+        checkArgument(!snapshotInterval.isNegative(), "snapshotInterval can't be negative");
+        if (!snapshotInterval.isZero()) {
+            scheduler = newSingleThreadScheduledExecutor();
+            long snapshotMillis = snapshotInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::takeSnapshotsSafely, snapshotMillis, snapshotMillis, MILLISECONDS);
+        }
+        return this;
+    }
+
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        pool.shutdownNow();
+    }
+
+    public List<AccountId> findAllAccountIds() {
+        return opLogDao.findAccountIds();
+    }
+
+    public Optional<Account> replayAccount(AccountId accountId) {
+        return replay(accountId, Optional.empty()).account;
+    }
+
+    // returns number of stored snapshots
+    public int takeSnapshots(List<AccountId> accountIds) {
+        AtomicInteger snapshotCount = new AtomicInteger(0);
+        forEachInParallel(accountIds, accountId -> {
+            Optional<Account> account = accountDao.findAccount(accountId);
+            if (account.isPresent()) {
+                snapshotDao.storeSnapshot(account.get());
+                snapshotCount.incrementAndGet();
+            }
+        });
+        return snapshotCount.get();
+    }
+
+    // returns accounts that don't match their replay
+    public List<AccountId> verifyAccounts(List<AccountId> accountIds) {
+        Queue<AccountId> mismatchedAccountIds = new ConcurrentLinkedQueue<>();
+        forEachInParallel(accountIds, accountId -> {
+            Optional<Account> account = accountDao.findAccount(accountId);
+            if (!matchesReplay(account, replayUpTo(account, accountId))) {
+                mismatchedAccountIds.add(accountId);
+            }
+        });
+        return newArrayList(mismatchedAccountIds);
+    }
+
+    // returns number of restored accounts
+    public int rebuildAccounts(List<AccountId> accountIds) {
+        AtomicInteger restoredCount = new AtomicInteger(0);
+        forEachInParallel(accountIds, accountId -> {
+            Optional<Account> account = accountDao.findAccount(accountId);
+            Replay replay = replayUpTo(account, accountId);
+            if (!matchesReplay(account, replay)) {
+                if (replay.account.isPresent()) {
+                    if (accountDao.restoreAccount(replay.account.get(), account.map(a -> a.version))) {
+                        restoredCount.incrementAndGet();
+                    } else {
+                        logger.warn("Account '" + accountId + "' has been modified during its rebuild and has not been restored");
+                    }
+                } else {
+                    logger.warn("Account '" + accountId + "' exists but its creation has not been applied");
+                }
+            }
+        });
+        return restoredCount.get();
+    }
+
+    private boolean matchesReplay(Optional<Account> account, Replay replay) {
+        if (!replay.account.isPresent()) {
+            // the unfinished operation could be an already applied account creation
+            return !account.isPresent() || replay.hasUnfinishedOperation;
+        }
+        if (!account.isPresent()) {
+            return false;
+        }
+        SeqId version = account.get().version;
+        SeqId replayedVersion = replay.account.get().version;
+        if (replay.hasUnfinishedOperation && replayedVersion.isBefore(version)) {
+            // the unfinished operation has already been applied to the account
+            return true;
+        }
+        return version.equals(replayedVersion) && account.get().balance.compareTo(replay.account.get().balance) == 0;
+    }
+
+    // operations registered after the read account version are not replayed as they could be applied concurrently
+    private Replay replayUpTo(Optional<Account> account, AccountId accountId) {
+        Optional<SeqId> version = account.map(a -> a.version);
+        Replay replay = replay(accountId, version);
+        if (replay.hasAppliedOperationAfter && accountDao.findCurrentVersion(accountId).equals(version)) {
+            // an operation after the account version has been applied but the account has not moved - so it lost the write
+            return replay(accountId, Optional.empty());
+        }
+        return replay;
+    }
+
+    private Replay replay(AccountId accountId, Optional<SeqId> toSeqId) {
+        Optional<Account> account = snapshotDao.findSnapshot(accountId);
+        if (account.isPresent() && toSeqId.isPresent() && toSeqId.get().isBefore(account.get().version)) {
+            // the snapshot has been taken after the account was read
+            account = Optional.empty();
+        }
+        SeqId fromSeqId = account.map(snapshot -> snapshot.version).orElse(seqId(0));
+
+        List<Tuple<OperationId, SeqId>> operationIds = opLogDao.findOperationIdsAfter(accountId, fromSeqId);
+        Map<OperationId, LoggedOperation> operations = operationDao.findLoggedOperations(
+                operationIds.stream().map(operationId -> operationId.a).collect(toList())
+        );
+        for (Tuple<OperationId, SeqId> operationId : operationIds) {
+            if (toSeqId.isPresent() && toSeqId.get().isBefore(operationId.b)) {
+                return new Replay(account, false, isAnyApplied(operations, operationIds, toSeqId.get()));
+            }
+            LoggedOperation loggedOperation = operations.get(operationId.a);
+            if (loggedOperation == null) {
+                // entry of a skipped SeqId
+                continue;
+            }
+            if (!loggedOperation.isFinished()) {
+                return new Replay(account, true, false);
+            }
+            if (loggedOperation.finalState.get() == Applied) {
+                account = loggedOperation.operation.apply(new ReplayStep(accountId, account, operationId.b));
+            }
+        }
+        return new Replay(account, false, false);
+    }
+
+    private boolean isAnyApplied(Map<OperationId, LoggedOperation> operations, List<Tuple<OperationId, SeqId>> operationIds, SeqId afterSeqId) {
+        return operationIds.stream()
+                .filter(operationId -> afterSeqId.isBefore(operationId.b))
+                .map(operationId -> operations.get(operationId.a))
+                .anyMatch(operation -> operation != null && operation.finalState.map(state -> state == Applied).orElse(false));
+    }
+
+    private void forEachInParallel(List<AccountId> accountIds, Consumer<AccountId> action) {
+        pool.invoke(new PartitionAction(accountIds, action));
+    }
+
+    private void takeSnapshotsSafely() {
+        try {
+            int snapshotCount = takeSnapshots(findAllAccountIds());
+            logger.info("Stored " + snapshotCount + " account snapshots");
+        } catch (RuntimeException e) {
+            logger.error("Failed to take account snapshots", e);
+        }
+    }
+
+    private static class Replay {
+
+        final Optional<Account> account;
+        final boolean hasUnfinishedOperation;
+        // an operation after the version the replay was limited to has been applied
+        final boolean hasAppliedOperationAfter;
+
+        Replay(Optional<Account> account, boolean hasUnfinishedOperation, boolean hasAppliedOperationAfter) {
+            this.account = account;
+            this.hasUnfinishedOperation = hasUnfinishedOperation;
+            this.hasAppliedOperationAfter = hasAppliedOperationAfter;
+        }
+    }
+
+    private static class PartitionAction extends RecursiveAction {
+
+        private final List<AccountId> accountIds;
+        private final Consumer<AccountId> action;
+
+        PartitionAction(List<AccountId> accountIds, Consumer<AccountId> action) {
+            this.accountIds = accountIds;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (accountIds.size() <= PARTITION_SIZE) {
+                accountIds.forEach(action);
+            } else {
+                int middle = accountIds.size() / 2;
+                invokeAll(
+                        new PartitionAction(accountIds.subList(0, middle), action),
+                        new PartitionAction(accountIds.subList(middle, accountIds.size()), action)
+                );
+            }
+        }
+    }
+
+    // applies an Applied operation on top of the account state
+    private static class ReplayStep implements OperationVisitor<Optional<Account>> {
+
+        private final AccountId accountId;
+        private final Optional<Account> account;
+        private final SeqId seqId;
+
+        ReplayStep(AccountId accountId, Optional<Account> account, SeqId seqId) {
+            this.accountId = accountId;
+            this.account = account;
+            this.seqId = seqId;
+        }
+
+        @Override
+        public Optional<Account> visit(CreateAccount request) {
+            return Optional.of(new Account(accountId, Decimal.ZERO, seqId));
+        }
+
+        @Override
+        public Optional<Account> visit(DepositTo request) {
+            return changeBalance(request.amount);
+        }
+
+        @Override
+        public Optional<Account> visit(WithdrawFrom request) {
+            return changeBalance(Decimal.ZERO.minus(request.amount));
+        }
+
+        @Override
+        public Optional<Account> visit(TransferFrom request) {
+            return changeBalance(Decimal.ZERO.minus(request.detail.amount));
+        }
+
+        @Override
+        public Optional<Account> visit(TransferTo request) {
+            return changeBalance(request.detail.amount);
+        }
+
+        private Optional<Account> changeBalance(Decimal amount) {
+            if (!account.isPresent()) {
+                throw new IllegalStateException(format("Operation with SeqId %s was applied before Account '%s' was created", seqId, accountId));
+            }
+            return Optional.of(new Account(accountId, account.get().balance.plus(amount), seqId));
+        }
+    }
+}
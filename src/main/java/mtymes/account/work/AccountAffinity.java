@@ -0,0 +1,127 @@
+package mtymes.account.work;
+
+import mtymes.account.dao.ForwardedWorkDao;
+import mtymes.account.dao.NodeLeaseDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.node.NodeId;
+import mtymes.common.util.SetQueue;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Assigns each account to one of the live nodes (nodes with a valid lease) using a consistent hash ring.
+ * Work for accounts owned by another node is forwarded through the db, and the owning node polls it into its work queue,
+ * so the submitting node has to wait (up to the unfinishedOperationTimeout) for the operation to be finished by the owner.
+ * Live nodes are refreshed every third of the lease duration, so for up to that long two nodes can consider themselves
+ * owners of the same account and cached accounts are invalidated only once the change is noticed.
+ * This is fine as the operations are still applied using the optimistic version checks
+ * and a failed check makes the handler reload the account from the db.
+ */
+public class AccountAffinity {
+
+    private static final int VIRTUAL_NODE_COUNT = 64;
+
+    private final Logger logger = getLogger(AccountAffinity.class);
+
+    private final NodeId localNodeId;
+    private final NodeLeaseDao leaseDao;
+    private final ForwardedWorkDao forwardedWorkDao;
+    private final SetQueue<AccountId> workQueue;
+    private final Duration leaseDuration;
+    private final Duration forwardedWorkPollInterval;
+
+    private final List<Runnable> ownershipChangeListeners = newCopyOnWriteArrayList();
+
+    private volatile Set<NodeId> liveNodeIds;
+    private volatile ConsistentHashRing ring;
+    private volatile ScheduledExecutorService scheduler;
+
+    public AccountAffinity(NodeId localNodeId, NodeLeaseDao leaseDao, ForwardedWorkDao forwardedWorkDao, SetQueue<AccountId> workQueue, Duration leaseDuration, Duration forwardedWorkPollInterval) {
+        checkArgument(leaseDuration.toMillis() >= 3, "leaseDuration must be at least 3 milliseconds");
+        checkArgument(forwardedWorkPollInterval.toMillis() > 0, "forwardedWorkPollInterval must be at least 1 millisecond");
+
+        this.localNodeId = localNodeId;
+        this.leaseDao = leaseDao;
+        this.forwardedWorkDao = forwardedWorkDao;
+        this.workQueue = workQueue;
+        this.leaseDuration = leaseDuration;
+        this.forwardedWorkPollInterval = forwardedWorkPollInterval;
+
+        this.liveNodeIds = singleton(localNodeId);
+        this.ring = new ConsistentHashRing(liveNodeIds, VIRTUAL_NODE_COUNT);
+    }
+
+    public boolean isOwnedLocally(AccountId accountId) {
+        return localNodeId.equals(ring.ownerOf(accountId));
+    }
+
+    public void forwardWork(AccountId accountId) {
+        forwardedWorkDao.forwardWork(accountId);
+    }
+
+    public void onOwnershipChange(Runnable listener) {
+        ownershipChangeListeners.add(listener);
+    }
+
+    public AccountAffinity start() {
+        refreshLiveNodes();
+        scheduler = newSingleThreadScheduledExecutor();
+        long leaseRenewalMillis = leaseDuration.toMillis() / 3;
+        scheduler.scheduleWithFixedDelay(this::refreshLiveNodesSafely, leaseRenewalMillis, leaseRenewalMillis, MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::pickUpForwardedWorkSafely, 0, forwardedWorkPollInterval.toMillis(), MILLISECONDS);
+        return this;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        leaseDao.releaseLease(localNodeId);
+    }
+
+    void refreshLiveNodes() {
+        leaseDao.renewLease(localNodeId, leaseDuration);
+
+        Set<NodeId> newLiveNodeIds = newHashSet(leaseDao.findLiveNodeIds());
+        newLiveNodeIds.add(localNodeId);
+        if (!newLiveNodeIds.equals(liveNodeIds)) {
+            ring = new ConsistentHashRing(newLiveNodeIds, VIRTUAL_NODE_COUNT);
+            liveNodeIds = newLiveNodeIds;
+            ownershipChangeListeners.forEach(Runnable::run);
+        }
+    }
+
+    void pickUpForwardedWork() {
+        for (AccountId accountId : forwardedWorkDao.findForwardedWork()) {
+            if (isOwnedLocally(accountId) && forwardedWorkDao.takeForwardedWork(accountId)) {
+                workQueue.add(accountId);
+            }
+        }
+    }
+
+    private void refreshLiveNodesSafely() {
+        try {
+            refreshLiveNodes();
+        } catch (RuntimeException e) {
+            logger.error("Failed to refresh live nodes", e);
+        }
+    }
+
+    private void pickUpForwardedWorkSafely() {
+        try {
+            pickUpForwardedWork();
+        } catch (RuntimeException e) {
+            logger.error("Failed to pick up forwarded work", e);
+        }
+    }
+}
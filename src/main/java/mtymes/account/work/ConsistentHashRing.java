@@ -0,0 +1,42 @@
+package mtymes.account.work;
+
+import com.google.common.hash.HashFunction;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.node.NodeId;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.hash.Hashing.murmur3_128;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// if a node joins or leaves, only the accounts owned by that node change their owner
+class ConsistentHashRing {
+
+    private static final HashFunction HASH_FUNCTION = murmur3_128();
+
+    private final NavigableMap<Long, NodeId> ring = new TreeMap<>();
+
+    ConsistentHashRing(Collection<NodeId> nodeIds, int virtualNodeCount) {
+        checkArgument(!nodeIds.isEmpty(), "at least one node must be provided");
+        checkArgument(virtualNodeCount > 0, "virtualNodeCount must be a positive value");
+
+        for (NodeId nodeId : nodeIds) {
+            for (int i = 0; i < virtualNodeCount; i++) {
+                ring.put(hash(nodeId.value() + "#" + i), nodeId);
+            }
+        }
+    }
+
+    NodeId ownerOf(AccountId accountId) {
+        Map.Entry<Long, NodeId> entry = ring.ceilingEntry(hash(accountId.value().toString()));
+        return (entry != null) ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String value) {
+        return HASH_FUNCTION.hashString(value, UTF_8).asLong();
+    }
+}
@@ -0,0 +1,144 @@
+package mtymes.account.work;
+
+import mtymes.account.domain.account.AccountId;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Makes sure at most one drain per account runs in this process.
+ * A drain requested while another one of the same account is in progress is coalesced with other such requests
+ * into one follow-up drain, run by the thread of the drain in progress once it is done.
+ * Threads requesting the drain using drain wait for the follow-up drain, so when they return all operations logged
+ * before their request have been processed (the same as if they ran the drain themselves). Threads that don't need
+ * the result (the background workers) use requestDrain, which only records the follow-up drain and returns.
+ *
+ * One thread runs at most MAX_FOLLOW_UP_DRAINS follow-up drains, after that the follow-up drain is handed over
+ * to the threads waiting for it and one of them runs it (so a busy account can't keep one thread forever).
+ * A follow-up drain nobody waits for can't be handed over, so it's still run by the thread of the drain in progress.
+ */
+class DrainCoalescer {
+
+    static final int MAX_FOLLOW_UP_DRAINS = 8;
+
+    private final ConcurrentMap<AccountId, DrainState> drains = new ConcurrentHashMap<>();
+
+    void drain(AccountId accountId, Runnable drain) {
+        while (true) {
+            CompletableFuture<Boolean> awaitedDrain = requestFollowUpDrain(accountId, true);
+            if (awaitedDrain == null) {
+                runDrains(accountId, drain);
+                return;
+            }
+            boolean drained = waitFor(awaitedDrain);
+            if (drained) {
+                return;
+            }
+            // the follow-up drain has been handed over - request it again
+        }
+    }
+
+    // runs the drain unless another one is in progress, in which case only a follow-up drain is requested
+    void requestDrain(AccountId accountId, Runnable drain) {
+        if (requestFollowUpDrain(accountId, false) == null) {
+            runDrains(accountId, drain);
+        }
+    }
+
+    // returns the requested follow-up drain, or null if this thread should run the drain
+    private CompletableFuture<Boolean> requestFollowUpDrain(AccountId accountId, boolean awaited) {
+        AtomicReference<CompletableFuture<Boolean>> followUpDrain = new AtomicReference<>();
+        drains.compute(accountId, (id, state) -> {
+            if (state == null) {
+                return new DrainState();
+            }
+            if (state.followUpDrain == null) {
+                state.followUpDrain = new CompletableFuture<>();
+            }
+            state.followUpAwaited |= awaited;
+            followUpDrain.set(state.followUpDrain);
+            return state;
+        });
+        return followUpDrain.get();
+    }
+
+    private void runDrains(AccountId accountId, Runnable drain) {
+        CompletableFuture<Boolean> finishedDrain = null;
+        try {
+            for (int followUpDrainCount = 0; ; followUpDrainCount++) {
+                drain.run();
+                if (finishedDrain != null) {
+                    finishedDrain.complete(true);
+                    finishedDrain = null;
+                }
+
+                if (followUpDrainCount >= MAX_FOLLOW_UP_DRAINS && handOverFollowUpDrain(accountId)) {
+                    return;
+                }
+                finishedDrain = takeFollowUpDrain(accountId);
+                if (finishedDrain == null) {
+                    return;
+                }
+            }
+        } catch (Throwable e) {
+            // the waiting threads get the failure as their own drain would have failed as well
+            if (finishedDrain != null) {
+                finishedDrain.completeExceptionally(e);
+            }
+            DrainState state = drains.remove(accountId);
+            if (state != null && state.followUpDrain != null) {
+                state.followUpDrain.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Boolean> takeFollowUpDrain(AccountId accountId) {
+        AtomicReference<CompletableFuture<Boolean>> followUpDrain = new AtomicReference<>();
+        drains.computeIfPresent(accountId, (id, state) -> {
+            followUpDrain.set(state.followUpDrain);
+            state.followUpDrain = null;
+            state.followUpAwaited = false;
+            return (followUpDrain.get() != null) ? state : null;
+        });
+        return followUpDrain.get();
+    }
+
+    // returns false if there is a follow-up drain nobody waits for, so this thread has to run it
+    private boolean handOverFollowUpDrain(AccountId accountId) {
+        AtomicReference<CompletableFuture<Boolean>> handedOverDrain = new AtomicReference<>();
+        DrainState remainingState = drains.computeIfPresent(accountId, (id, state) -> {
+            if (state.followUpDrain != null && !state.followUpAwaited) {
+                return state;
+            }
+            handedOverDrain.set(state.followUpDrain);
+            return null;
+        });
+        if (handedOverDrain.get() != null) {
+            handedOverDrain.get().complete(false);
+        }
+        return remainingState == null;
+    }
+
+    // returns false if the follow-up drain has been handed over to the waiting threads
+    private boolean waitFor(CompletableFuture<Boolean> followUpDrain) {
+        try {
+            return followUpDrain.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class DrainState {
+
+        // only modified within the map's compute methods
+        CompletableFuture<Boolean> followUpDrain;
+        boolean followUpAwaited;
+    }
+}
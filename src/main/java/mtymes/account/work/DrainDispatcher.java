@@ -0,0 +1,74 @@
+package mtymes.account.work;
+
+import javafixes.concurrency.Task;
+import mtymes.account.domain.account.AccountId;
+import mtymes.common.util.SetQueue;
+import org.slf4j.Logger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static org.slf4j.LoggerFactory.getLogger;
+
+public class DrainDispatcher implements Task {
+
+    private Logger logger = getLogger(DrainDispatcher.class);
+
+    private final SetQueue<AccountId> queue;
+    private final Worker worker;
+    private final Executor drainExecutor;
+    private final Semaphore drainPermits;
+
+    private final AtomicInteger drainsInProgress = new AtomicInteger(0);
+
+    public DrainDispatcher(SetQueue<AccountId> queue, Worker worker, Executor drainExecutor, int maxConcurrentDrains) {
+        checkArgument(maxConcurrentDrains > 0, "maxConcurrentDrains must be a positive value");
+
+        this.queue = queue;
+        this.worker = worker;
+        this.drainExecutor = drainExecutor;
+        this.drainPermits = new Semaphore(maxConcurrentDrains);
+    }
+
+    public void run() throws InterruptedException {
+        while (true) {
+            drainPermits.acquire(); // account is taken only once it can be drained
+            AccountId accountId;
+            try {
+                accountId = queue.takeNext();
+            } catch (InterruptedException e) {
+                drainPermits.release();
+                throw e;
+            }
+
+            try {
+                drainExecutor.execute(() -> processAccountOperations(accountId));
+            } catch (RuntimeException e) {
+                drainPermits.release();
+                queue.add(accountId);
+                throw e;
+            }
+        }
+    }
+
+    public int drainsInProgress() {
+        return drainsInProgress.get();
+    }
+
+    private void processAccountOperations(AccountId accountId) {
+        try {
+            drainsInProgress.incrementAndGet();
+
+            worker.requestUnfinishedOperationsRun(accountId);
+        } catch (RuntimeException e) {
+            logger.error(format("Failed to evaluate operation for Account '%s'", accountId), e);
+            queue.add(accountId);
+        } finally {
+            drainsInProgress.decrementAndGet();
+            drainPermits.release();
+        }
+    }
+}
@@ -5,13 +5,15 @@ import mtymes.account.domain.QueuedWorkStats;
 import mtymes.account.domain.account.AccountId;
 import mtymes.common.util.Locker;
 import mtymes.common.util.SetQueue;
-import mtymes.common.util.Sleeper;
 
-import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static javafixes.concurrency.Runner.runner;
+import static mtymes.account.work.WorkerExecution.FixedThreads;
 
 public class Sweatshop {
 
@@ -20,32 +22,51 @@ public class Sweatshop {
     private final SetQueue<AccountId> workQueue;
     private final int workerCount;
     private final Worker worker;
-    private final Duration timeoutIfNoWork;
+    private final WorkerExecution execution;
+    private final int maxConcurrentDrains;
 
     private volatile Runner runner;
     private final List<WorkerThread> workers = newCopyOnWriteArrayList();
+    private volatile Optional<DrainDispatcher> drainDispatcher = Optional.empty();
+    private volatile Optional<ExecutorService> drainExecutor = Optional.empty();
 
-    public Sweatshop(SetQueue<AccountId> workQueue, int workerCount, Worker worker, Duration timeoutIfNoWork) {
+    public Sweatshop(SetQueue<AccountId> workQueue, int workerCount, Worker worker) {
+        this(workQueue, workerCount, worker, FixedThreads, workerCount);
+    }
+
+    // workerCount is used only by FixedThreads and maxConcurrentDrains only by TaskPerDrain execution
+    public Sweatshop(SetQueue<AccountId> workQueue, int workerCount, Worker worker, WorkerExecution execution, int maxConcurrentDrains) {
         this.workQueue = workQueue;
         this.workerCount = workerCount;
         this.worker = worker;
-        this.timeoutIfNoWork = timeoutIfNoWork;
+        this.execution = execution;
+        this.maxConcurrentDrains = maxConcurrentDrains;
     }
 
     public Object queuedWorkStats() {
         return new QueuedWorkStats(
                 workQueue.size(),
                 (int) workers.stream().filter(WorkerThread::isWorking).count()
+                        + drainDispatcher.map(DrainDispatcher::drainsInProgress).orElse(0)
         );
     }
 
     public Sweatshop start() {
         locker.lockAndRun(() -> {
-            runner = runner(workerCount);
-            for (int i = 0; i < workerCount; i++) {
-                WorkerThread workerThread = new WorkerThread(workQueue, worker, Sleeper.INSTANCE, timeoutIfNoWork);
-                runner.run(workerThread);
-                workers.add(workerThread);
+            if (execution == FixedThreads) {
+                runner = runner(workerCount);
+                for (int i = 0; i < workerCount; i++) {
+                    WorkerThread workerThread = new WorkerThread(workQueue, worker);
+                    runner.run(workerThread);
+                    workers.add(workerThread);
+                }
+            } else {
+                ExecutorService executor = newCachedThreadPool();
+                DrainDispatcher dispatcher = new DrainDispatcher(workQueue, worker, executor, maxConcurrentDrains);
+                runner = runner(1);
+                runner.run(dispatcher);
+                drainExecutor = Optional.of(executor);
+                drainDispatcher = Optional.of(dispatcher);
             }
         });
         return this;
@@ -55,6 +76,9 @@ public class Sweatshop {
         locker.lockAndRun(() -> {
             runner.shutdown();
             workers.clear();
+            drainExecutor.ifPresent(ExecutorService::shutdownNow);
+            drainExecutor = Optional.empty();
+            drainDispatcher = Optional.empty();
         });
     }
 }
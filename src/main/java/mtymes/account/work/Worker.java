@@ -10,24 +10,74 @@ import mtymes.account.domain.operation.SeqId;
 import mtymes.account.handler.OperationDispatcher;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static javafixes.object.Tuple.tuple;
 
 public class Worker {
 
     private final OpLogDao opLogDao;
     private final OperationDao operationDao;
     private final OperationDispatcher dispatcher;
+    private final Optional<AccountAffinity> affinity;
+    private final DrainCoalescer drains = new DrainCoalescer();
 
     public Worker(OpLogDao opLogDao, OperationDao operationDao, OperationDispatcher dispatcher) {
         this.opLogDao = opLogDao;
         this.operationDao = operationDao;
         this.dispatcher = dispatcher;
+        this.affinity = Optional.empty();
+    }
+
+    // work for accounts owned by other nodes is forwarded to them
+    public Worker(OpLogDao opLogDao, OperationDao operationDao, OperationDispatcher dispatcher, AccountAffinity affinity) {
+        this.opLogDao = opLogDao;
+        this.operationDao = operationDao;
+        this.dispatcher = dispatcher;
+        this.affinity = Optional.of(affinity);
     }
 
     public void runUnfinishedOperations(AccountId accountId) {
+        if (affinity.isPresent() && !affinity.get().isOwnedLocally(accountId)) {
+            affinity.get().forwardWork(accountId);
+            return;
+        }
+
+        drains.drain(accountId, () -> drainUnfinishedOperations(accountId));
+    }
+
+    // for the background threads - if the account is being drained by another thread, this only requests a follow-up drain and returns
+    public void requestUnfinishedOperationsRun(AccountId accountId) {
+        if (affinity.isPresent() && !affinity.get().isOwnedLocally(accountId)) {
+            affinity.get().forwardWork(accountId);
+            return;
+        }
+
+        drains.requestDrain(accountId, () -> drainUnfinishedOperations(accountId));
+    }
+
+    private void drainUnfinishedOperations(AccountId accountId) {
         List<Tuple<OperationId, SeqId>> unfinishedOpLogIds = opLogDao.findUnfinishedOperationIds(accountId);
+        if (unfinishedOpLogIds.isEmpty()) {
+            return;
+        }
+
+        Map<OperationId, LoggedOperation> foundOperations = operationDao.findLoggedOperations(
+                unfinishedOpLogIds.stream().map(unfinishedOpLogId -> unfinishedOpLogId.a).collect(toList())
+        );
+
+        List<Tuple<SeqId, LoggedOperation>> loggedOperations = newArrayList();
         for (Tuple<OperationId, SeqId> unfinishedOpLogId : unfinishedOpLogIds) {
-            LoggedOperation loggedOperation = operationDao.findLoggedOperation(unfinishedOpLogId.a).get();
-            dispatcher.dispatchOperation(unfinishedOpLogId.b, loggedOperation);
+            LoggedOperation loggedOperation = foundOperations.get(unfinishedOpLogId.a);
+            if (loggedOperation == null) {
+                throw new IllegalStateException(format("Operation '%s' logged under SeqId '%s' does not exist", unfinishedOpLogId.a, unfinishedOpLogId.b));
+            }
+            loggedOperations.add(tuple(unfinishedOpLogId.b, loggedOperation));
         }
+        dispatcher.dispatchOperations(loggedOperations);
     }
 }
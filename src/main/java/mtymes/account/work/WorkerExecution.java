@@ -0,0 +1,10 @@
+package mtymes.account.work;
+
+public enum WorkerExecution {
+    // each of the worker threads takes the next queued account and drains it
+    FixedThreads,
+    // one dispatcher thread hands each queued account to its own pooled thread,
+    // the number of concurrent drains (and so the db concurrency) is bounded by a semaphore of maxConcurrentDrains permits
+    // instead of the thread count
+    TaskPerDrain
+}
@@ -0,0 +1,28 @@
+package mtymes.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter implements Metric {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long value) {
+        count.add(value);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    @Override
+    public void writeSamples(StringBuilder out, String name, String labels) {
+        Metrics.writeSample(out, name, labels, count.sum());
+    }
+}
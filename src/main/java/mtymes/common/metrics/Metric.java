@@ -0,0 +1,7 @@
+package mtymes.common.metrics;
+
+interface Metric {
+
+    // labels are either empty or a comma separated list of name="value" pairs
+    void writeSamples(StringBuilder out, String name, String labels);
+}
@@ -0,0 +1,93 @@
+package mtymes.common.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Registry of counters and timers, rendered in the Prometheus text exposition format.
+ * Asking for an already registered metric (same name and label) returns the existing instance.
+ * Each application node owns one registry, so nodes running in one process (or tests) don't share their counts.
+ */
+public class Metrics {
+
+    private final ConcurrentMap<String, MetricFamily> families = new ConcurrentSkipListMap<>();
+
+    public Counter counter(String name, String help) {
+        return family(name, help, "counter").metric("", Counter::new);
+    }
+
+    public Counter counter(String name, String help, String labelName, String labelValue) {
+        return family(name, help, "counter").metric(label(labelName, labelValue), Counter::new);
+    }
+
+    public Timer timer(String name, String help) {
+        return family(name, help, "histogram").metric("", Timer::new);
+    }
+
+    public Timer timer(String name, String help, String labelName, String labelValue) {
+        return family(name, help, "histogram").metric(label(labelName, labelValue), Timer::new);
+    }
+
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder();
+        for (MetricFamily family : families.values()) {
+            family.writeTo(out);
+        }
+        return out.toString();
+    }
+
+    static void writeSample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private MetricFamily family(String name, String help, String type) {
+        MetricFamily family = families.computeIfAbsent(name, key -> new MetricFamily(name, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalStateException(format("Metric '%s' is already registered as %s", name, family.type));
+        }
+        return family;
+    }
+
+    private static String label(String name, String value) {
+        String escapedValue = value
+                .replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n");
+        return name + "=\"" + escapedValue + "\"";
+    }
+
+    private static class MetricFamily {
+
+        final String name;
+        final String help;
+        final String type;
+        final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+        MetricFamily(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T extends Metric> T metric(String labels, Supplier<T> creator) {
+            return (T) metrics.computeIfAbsent(labels, key -> creator.get());
+        }
+
+        void writeTo(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            for (Map.Entry<String, Metric> metric : metrics.entrySet()) {
+                metric.getValue().writeSamples(out, name, metric.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package mtymes.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Histogram of durations with fixed buckets (from 100 microseconds to 10 seconds).
+ * Recording only increments two striped counters, so it can be used on the hot path.
+ */
+public class Timer implements Metric {
+
+    private static final double[] BUCKET_BOUNDS_IN_SECONDS = {
+            0.0001, 0.00025, 0.0005,
+            0.001, 0.0025, 0.005,
+            0.01, 0.025, 0.05,
+            0.1, 0.25, 0.5,
+            1.0, 2.5, 5.0,
+            10.0
+    };
+    private static final long[] BUCKET_BOUNDS_IN_NANOS = new long[BUCKET_BOUNDS_IN_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_IN_SECONDS.length; i++) {
+            BUCKET_BOUNDS_IN_NANOS[i] = (long) (BUCKET_BOUNDS_IN_SECONDS[i] * SECONDS.toNanos(1));
+        }
+    }
+
+    // the last bucket holds durations above the highest bound
+    private final LongAdder[] bucketCounts = new LongAdder[BUCKET_BOUNDS_IN_NANOS.length + 1];
+    private final LongAdder sumInNanos = new LongAdder();
+
+    Timer() {
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long durationInNanos) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_IN_NANOS.length && durationInNanos > BUCKET_BOUNDS_IN_NANOS[bucket]) {
+            bucket++;
+        }
+        bucketCounts[bucket].increment();
+        sumInNanos.add(durationInNanos);
+    }
+
+    // startTime has to be a value returned by System.nanoTime()
+    public void recordSince(long startTime) {
+        record(System.nanoTime() - startTime);
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucketCount : bucketCounts) {
+            count += bucketCount.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public void writeSamples(StringBuilder out, String name, String labels) {
+        String labelsPrefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_IN_SECONDS.length; i++) {
+            cumulativeCount += bucketCounts[i].sum();
+            Metrics.writeSample(out, name + "_bucket", labelsPrefix + "le=\"" + BUCKET_BOUNDS_IN_SECONDS[i] + "\"", cumulativeCount);
+        }
+        cumulativeCount += bucketCounts[BUCKET_BOUNDS_IN_SECONDS.length].sum();
+        Metrics.writeSample(out, name + "_bucket", labelsPrefix + "le=\"+Inf\"", cumulativeCount);
+        Metrics.writeSample(out, name + "_sum", labels, (double) sumInNanos.sum() / SECONDS.toNanos(1));
+        Metrics.writeSample(out, name + "_count", labels, cumulativeCount);
+    }
+}
@@ -1,18 +1,16 @@
 package mtymes.common.mongo;
 
-import javafixes.math.Decimal;
 import javafixes.object.Microtype;
 import org.bson.Document;
-import org.bson.types.Decimal128;
 
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
 import static com.google.common.collect.Maps.newLinkedHashMap;
 import static java.util.stream.Collectors.toList;
 import static javafixes.common.StreamUtil.toStream;
 
+// uuids and amounts are kept as they are and get written by the codec registry of the collection (see MongoCodecs)
 public class DocumentBuilder {
 
     private final Map<String, Object> values = newLinkedHashMap();
@@ -49,11 +47,7 @@ public class DocumentBuilder {
             valueToStore = ((Microtype) valueToStore).getValue();
         }
 
-        if (valueToStore instanceof Decimal) {
-            valueToStore = new Decimal128(((Decimal) valueToStore).bigDecimalValue());
-        } else if (valueToStore instanceof UUID) {
-            valueToStore = valueToStore.toString();
-        } else if (valueToStore instanceof  Enum) {
+        if (valueToStore instanceof  Enum) {
             valueToStore = ((Enum) valueToStore).name();
         } else if (valueToStore instanceof Iterable) {
             valueToStore = toStream((Iterable) valueToStore)
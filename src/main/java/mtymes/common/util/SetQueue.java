@@ -1,36 +1,80 @@
 package mtymes.common.util;
 
-import java.util.Iterator;
+import mtymes.common.metrics.Timer;
+
+import java.time.Duration;
 import java.util.Optional;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 
-import static com.google.common.collect.Sets.newLinkedHashSet;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
+/**
+ * FIFO queue in which each item is queued at most once.
+ * The queued flags and items are held in concurrent non-blocking structures, and the semaphore only
+ * counts the available items - so adding and taking items never contends on a shared lock.
+ * Optionally the time each item spent in the queue is recorded into a waitTimer.
+ */
 public class SetQueue<T> {
 
-    private final Locker locker = new Locker();
-    private final Set<T> items = newLinkedHashSet();
+    // queued items and the System.nanoTime() of when they were queued (0 if there is no waitTimer)
+    private final ConcurrentMap<T, Long> queuedItems = new ConcurrentHashMap<>();
+    private final Queue<T> items = new ConcurrentLinkedQueue<>();
+    private final Semaphore availableItems = new Semaphore(0);
+    private final Optional<Timer> waitTimer;
+
+    public SetQueue() {
+        this.waitTimer = Optional.empty();
+    }
+
+    public SetQueue(Timer waitTimer) {
+        this.waitTimer = Optional.of(waitTimer);
+    }
 
     public void add(T item) {
-        locker.lockAndRun((Runnable)
-                () -> items.add(item)
-        );
+        long queuedAt = waitTimer.isPresent() ? System.nanoTime() : 0L;
+        if (queuedItems.putIfAbsent(item, queuedAt) == null) {
+            items.offer(item);
+            availableItems.release();
+        }
     }
 
     public Optional<T> takeNextAvailable() {
-        return locker.lockAndRun(() -> {
-            Iterator<T> iterator = items.iterator();
-            if (iterator.hasNext()) {
-                T item = iterator.next();
-                iterator.remove();
-                return Optional.of(item);
-            } else {
-                return Optional.empty();
-            }
-        });
+        if (availableItems.tryAcquire()) {
+            return Optional.of(take());
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    public Optional<T> takeNext(Duration timeout) throws InterruptedException {
+        if (availableItems.tryAcquire(timeout.toNanos(), NANOSECONDS)) {
+            return Optional.of(take());
+        } else {
+            return Optional.empty();
+        }
+    }
+
+    public T takeNext() throws InterruptedException {
+        availableItems.acquire();
+        return take();
     }
 
     public int size() {
-        return items.size();
+        return availableItems.availablePermits();
+    }
+
+    // the item is added to the queue before its permit is released, so the acquired permit guarantees there is one.
+    // an item added between polling it and clearing its flag is ignored, but as it hasn't been processed yet, no work is lost
+    private T take() {
+        T item = items.poll();
+        long queuedAt = queuedItems.remove(item);
+        if (waitTimer.isPresent()) {
+            waitTimer.get().recordSince(queuedAt);
+        }
+        return item;
     }
 }
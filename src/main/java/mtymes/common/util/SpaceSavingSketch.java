@@ -0,0 +1,95 @@
+package mtymes.common.util;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Maps.newHashMap;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Approximate counts of the most frequent items using the Space-Saving algorithm.
+ * At most capacity items are tracked - a new item replaces the one with the lowest count and inherits that count
+ * as its possible overestimate. Any item seen more than totalCount / capacity times is guaranteed to be tracked.
+ *
+ * The capacity can be split into stripes (an item always goes into the same stripe, chosen by its hash), so concurrent
+ * offers of different items rarely wait on the same lock and a full stripe scans only its own items for the lowest count.
+ * The guarantee then holds per stripe: an item seen more than stripeTotalCount / stripeCapacity times is tracked.
+ */
+public class SpaceSavingSketch<T> {
+
+    private final List<Stripe<T>> stripes;
+
+    public SpaceSavingSketch(int capacity) {
+        this(capacity, 1);
+    }
+
+    public SpaceSavingSketch(int capacity, int stripeCount) {
+        checkArgument(capacity > 0, "capacity must be a positive value");
+        checkArgument(stripeCount > 0, "stripeCount must be a positive value");
+        checkArgument(capacity >= stripeCount, "capacity can't be lower than stripeCount");
+        this.stripes = newArrayList();
+        for (int i = 0; i < stripeCount; i++) {
+            // the remainder of the capacity is spread over the first stripes
+            stripes.add(new Stripe<>(capacity / stripeCount + (i < capacity % stripeCount ? 1 : 0)));
+        }
+    }
+
+    public void offer(T item) {
+        stripes.get(Math.floorMod(item.hashCode(), stripes.size())).offer(item);
+    }
+
+    // the items with the highest counts, the highest first
+    public List<Estimate<T>> top(int count) {
+        List<Estimate<T>> allEstimates = newArrayList();
+        for (Stripe<T> stripe : stripes) {
+            allEstimates.addAll(stripe.estimates());
+        }
+        return allEstimates.stream()
+                .sorted(Comparator.comparingLong((Estimate<T> value) -> value.count).reversed())
+                .limit(count)
+                .collect(toList());
+    }
+
+    private static class Stripe<T> {
+
+        private final int capacity;
+        private final Map<T, Estimate<T>> estimates = newHashMap();
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void offer(T item) {
+            Estimate<T> estimate = estimates.get(item);
+            if (estimate != null) {
+                estimates.put(item, new Estimate<>(item, estimate.count + 1, estimate.maxOverestimate));
+            } else if (estimates.size() < capacity) {
+                estimates.put(item, new Estimate<>(item, 1, 0));
+            } else {
+                Estimate<T> lowest = estimates.values().stream().min(Comparator.comparingLong(value -> value.count)).get();
+                estimates.remove(lowest.item);
+                estimates.put(item, new Estimate<>(item, lowest.count + 1, lowest.count));
+            }
+        }
+
+        synchronized List<Estimate<T>> estimates() {
+            return newArrayList(estimates.values());
+        }
+    }
+
+    public static class Estimate<T> {
+
+        public final T item;
+        public final long count;
+        public final long maxOverestimate;
+
+        public Estimate(T item, long count, long maxOverestimate) {
+            this.item = item;
+            this.count = count;
+            this.maxOverestimate = maxOverestimate;
+        }
+    }
+}
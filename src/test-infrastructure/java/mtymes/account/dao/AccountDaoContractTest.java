@@ -0,0 +1,212 @@
+package mtymes.account.dao;
+
+import javafixes.math.Decimal;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.SeqId;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static javafixes.math.Decimal.ZERO;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.test.Condition.after;
+import static mtymes.test.Condition.otherThan;
+import static mtymes.test.OptionalMatcher.isNotPresent;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+// behaviour expected from every AccountDao implementation
+public abstract class AccountDaoContractTest {
+
+    private AccountDao accountDao;
+
+    @Before
+    public void setUp() throws Exception {
+        accountDao = createDao();
+    }
+
+    // returns a dao without any stored data
+    protected abstract AccountDao createDao();
+
+    @Test
+    public void shouldCreateAndLoadNewAccount() {
+        AccountId accountId = randomAccountId();
+        SeqId version = randomSeqId();
+
+        // When
+        boolean success = accountDao.createAccount(accountId, version);
+
+        // Then
+        assertThat(success, is(true));
+        Optional<Account> account = accountDao.findAccount(accountId);
+        assertThat(account, isPresentAndEqualTo(new Account(accountId, ZERO, version)));
+        assertThat(accountDao.findCurrentVersion(accountId), isPresentAndEqualTo(version));
+    }
+
+    @Test
+    public void shouldFailToCreateAccountIfItAlreadyExists() {
+        AccountId accountId = randomAccountId();
+        SeqId version = randomSeqId();
+        accountDao.createAccount(accountId, version);
+
+        SeqId newVersion = randomSeqId(otherThan(version));
+
+        // When
+        boolean success = accountDao.createAccount(accountId, newVersion);
+
+        // Then
+        assertThat(success, is(false));
+        Optional<Account> account = accountDao.findAccount(accountId);
+        assertThat(account, isPresentAndEqualTo(new Account(accountId, ZERO, version)));
+        assertThat(accountDao.findCurrentVersion(accountId), isPresentAndEqualTo(version));
+    }
+
+    @Test
+    public void shouldNotFindNonExistingAccount() {
+        assertThat(accountDao.findAccount(randomAccountId()), isNotPresent());
+        assertThat(accountDao.findCurrentVersion(randomAccountId()), isNotPresent());
+    }
+
+    @Test
+    public void shouldUpdateBalance() {
+        AccountId accountId = randomAccountId();
+        SeqId currentVersion = randomSeqId();
+        accountDao.createAccount(accountId, currentVersion);
+
+        SeqId newVersion = seqId(currentVersion.value() + randomLong(1, 100));
+        Decimal newBalance = randomAmount();
+
+        // When
+        boolean success = accountDao.updateBalance(accountId, newBalance, currentVersion, newVersion);
+
+        // Then
+        assertThat(success, is(true));
+        Optional<Account> account = accountDao.findAccount(accountId);
+        assertThat(account, isPresentAndEqualTo(new Account(accountId, newBalance, newVersion)));
+        assertThat(accountDao.findCurrentVersion(accountId), isPresentAndEqualTo(newVersion));
+    }
+
+    @Test
+    public void shouldNotUpdateBalanceOnVersionMismatch() {
+        AccountId accountId = randomAccountId();
+        SeqId currentVersion = randomSeqId();
+        accountDao.createAccount(accountId, currentVersion);
+
+        SeqId differentVersion = seqId(currentVersion.value() + randomLong(1, 100));
+        SeqId newVersion = seqId(differentVersion.value() + randomLong(1, 100));
+        Decimal newBalance = randomAmount();
+
+        // When
+        boolean success = accountDao.updateBalance(accountId, newBalance, differentVersion, newVersion);
+
+        // Then
+        assertThat(success, is(false));
+        Optional<Account> account = accountDao.findAccount(accountId);
+        assertThat(account, isPresentAndEqualTo(new Account(accountId, Decimal.ZERO, currentVersion)));
+        assertThat(accountDao.findCurrentVersion(accountId), isPresentAndEqualTo(currentVersion));
+    }
+
+    @Test
+    public void shouldFailToUpdateBalanceIfNewVersionIsBeforeCurrentVersion() {
+        AccountId accountId = randomAccountId();
+        SeqId currentVersion = randomSeqId();
+        accountDao.createAccount(accountId, currentVersion);
+
+        SeqId newVersion = seqId(currentVersion.value() - randomLong(1, 100));
+        Decimal newBalance = randomAmount();
+
+        try {
+            // When
+            accountDao.updateBalance(accountId, newBalance, currentVersion, newVersion);
+            // Then
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertThat(expected.getMessage(), equalTo("oldVersion must be before newVersion"));
+        }
+    }
+
+    @Test
+    public void shouldFailToUpdateBalanceIfNewVersionIsTheSameCurrentVersion() {
+        AccountId accountId = randomAccountId();
+        SeqId currentVersion = randomSeqId();
+        accountDao.createAccount(accountId, currentVersion);
+
+        SeqId newVersion = currentVersion;
+        Decimal newBalance = randomAmount();
+
+        try {
+            // When
+            accountDao.updateBalance(accountId, newBalance, currentVersion, newVersion);
+            // Then
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertThat(expected.getMessage(), equalTo("oldVersion must be before newVersion"));
+        }
+    }
+
+    @Test
+    public void shouldNotUpdateBalanceForNonExistingAccount() {
+        SeqId oldVersion = randomSeqId();
+        SeqId newVersion = randomSeqId(after(oldVersion));
+        assertThat(accountDao.updateBalance(randomAccountId(), randomAmount(), oldVersion, newVersion), is(false));
+    }
+
+    @Test
+    public void shouldRestoreExistingAccount() {
+        AccountId accountId = randomAccountId();
+        accountDao.createAccount(accountId, seqId(5));
+        Account account = new Account(accountId, randomAmount(), seqId(3));
+
+        // When
+        boolean success = accountDao.restoreAccount(account, Optional.of(seqId(5)));
+
+        // Then
+        assertThat(success, is(true));
+        assertThat(accountDao.findAccount(accountId), isPresentAndEqualTo(account));
+    }
+
+    @Test
+    public void shouldNotRestoreAccountWhoseVersionHasMoved() {
+        AccountId accountId = randomAccountId();
+        accountDao.createAccount(accountId, seqId(5));
+        Account account = new Account(accountId, randomAmount(), seqId(3));
+
+        // When
+        boolean success = accountDao.restoreAccount(account, Optional.of(seqId(4)));
+
+        // Then
+        assertThat(success, is(false));
+        assertThat(accountDao.findAccount(accountId), isPresentAndEqualTo(new Account(accountId, Decimal.ZERO, seqId(5))));
+    }
+
+    @Test
+    public void shouldRestoreMissingAccount() {
+        Account account = new Account(randomAccountId(), randomAmount(), randomSeqId());
+
+        // When
+        boolean success = accountDao.restoreAccount(account, Optional.empty());
+
+        // Then
+        assertThat(success, is(true));
+        assertThat(accountDao.findAccount(account.accountId), isPresentAndEqualTo(account));
+    }
+
+    @Test
+    public void shouldNotRestoreMissingAccountThatHasBeenCreated() {
+        AccountId accountId = randomAccountId();
+        accountDao.createAccount(accountId, seqId(5));
+
+        // When
+        boolean success = accountDao.restoreAccount(new Account(accountId, randomAmount(), seqId(3)), Optional.empty());
+
+        // Then
+        assertThat(success, is(false));
+        assertThat(accountDao.findAccount(accountId), isPresentAndEqualTo(new Account(accountId, Decimal.ZERO, seqId(5))));
+    }
+}
@@ -0,0 +1,283 @@
+package mtymes.account.dao;
+
+import com.google.common.collect.ImmutableMap;
+import mtymes.account.domain.operation.*;
+import mtymes.account.exception.DuplicateItemException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static javafixes.common.CollectionUtil.newList;
+import static mtymes.account.domain.operation.FinalState.Applied;
+import static mtymes.account.domain.operation.FinalState.Rejected;
+import static mtymes.test.ConcurrencyUtil.runConcurrentlyOnNThreads;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+// behaviour expected from every OperationDao implementation
+public abstract class OperationDaoContractTest {
+
+    private OperationDao operationDao;
+
+    @Before
+    public void setUp() throws Exception {
+        operationDao = createDao();
+    }
+
+    // returns a dao without any stored data
+    protected abstract OperationDao createDao();
+
+    @Test
+    public void shouldBeAbleToStoreAndLoadEachOperation() {
+        List<Operation> allOperations = newList(
+                new CreateAccount(randomOperationId(), randomAccountId()),
+                new DepositTo(randomOperationId(), randomAccountId(), randomPositiveAmount()),
+                new WithdrawFrom(randomOperationId(), randomAccountId(), randomPositiveAmount()),
+                new TransferFrom(randomOperationId(), randomOperationId(), new TransferDetail(randomAccountId(), randomAccountId(), randomPositiveAmount())),
+                new TransferTo(randomOperationId(), new TransferDetail(randomAccountId(), randomAccountId(), randomPositiveAmount()))
+        );
+        for (Operation operation : allOperations) {
+            // When
+            operationDao.storeOperation(operation);
+
+            // Then
+            Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operation.operationId);
+            assertThat(actualOperation, isPresentAndEqualTo(newOperation(operation)));
+        }
+    }
+
+    @Test
+    public void shouldLoadMultipleOperationsAtOnce() {
+        Operation operation1 = randomOperation();
+        Operation operation2 = randomOperation();
+        Operation otherOperation = randomOperation();
+        OperationId missingOperationId = randomOperationId();
+        operationDao.storeOperation(operation1);
+        operationDao.storeOperation(operation2);
+        operationDao.storeOperation(otherOperation);
+        operationDao.markAsApplied(operation2.operationId);
+
+        // When
+        Map<OperationId, LoggedOperation> loggedOperations = operationDao.findLoggedOperations(newList(operation1.operationId, operation2.operationId, missingOperationId));
+
+        // Then
+        assertThat(loggedOperations, equalTo(ImmutableMap.of(
+                operation1.operationId, newOperation(operation1),
+                operation2.operationId, appliedOperation(operation2)
+        )));
+    }
+
+    @Test
+    public void shouldFailToStoreTwoOperationsUnderTheSameOperationId() {
+        OperationId operationId = randomOperationId();
+        operationDao.storeOperation(randomOperation(operationId));
+
+        try {
+            // When
+            operationDao.storeOperation(randomOperation(operationId));
+
+            // Then
+            fail("expected DuplicateItemException");
+        } catch (DuplicateItemException expectedException) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldMarkOperationAsApplied() {
+        OperationId operationId = randomOperationId();
+        Operation operation = randomOperation(operationId);
+        operationDao.storeOperation(operation);
+
+        // When
+        boolean success = operationDao.markAsApplied(operationId);
+
+        // Then
+        assertThat(success, is(true));
+        Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operationId);
+        assertThat(actualOperation, isPresentAndEqualTo(appliedOperation(operation)));
+    }
+
+    @Test
+    public void shouldMarkOperationAsRejected() {
+        OperationId operationId = randomOperationId();
+        Operation operation = randomOperation(operationId);
+        operationDao.storeOperation(operation);
+
+        // When
+        boolean success = operationDao.markAsRejected(operationId, "failure description");
+
+        // Then
+        assertThat(success, is(true));
+        Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operationId);
+        assertThat(actualOperation, isPresentAndEqualTo(rejectedOperation(operation, "failure description")));
+    }
+
+    @Test
+    public void shouldNotMarkOperationAsAppliedTwice() {
+        OperationId operationId = randomOperationId();
+        Operation operation = randomOperation(operationId);
+        operationDao.storeOperation(operation);
+        operationDao.markAsApplied(operationId);
+
+        // When
+        boolean success = operationDao.markAsApplied(operationId);
+
+        // Then
+        assertThat(success, is(false));
+        Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operationId);
+        assertThat(actualOperation, isPresentAndEqualTo(appliedOperation(operation)));
+    }
+
+    @Test
+    public void shouldNotMarkOperationAsRejectedTwice() {
+        OperationId operationId = randomOperationId();
+        Operation operation = randomOperation(operationId);
+        operationDao.storeOperation(operation);
+        operationDao.markAsRejected(operationId, "first commentary");
+
+        // When
+        boolean success = operationDao.markAsRejected(operationId, "second commentary");
+
+        // Then
+        assertThat(success, is(false));
+        Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operationId);
+        assertThat(actualOperation, isPresentAndEqualTo(rejectedOperation(operation, "first commentary")));
+    }
+
+    @Test
+    public void shouldNotMarkOperationAsAppliedIfItIsAlreadyRejected() {
+        OperationId operationId = randomOperationId();
+        Operation operation = randomOperation(operationId);
+        operationDao.storeOperation(operation);
+        operationDao.markAsRejected(operationId, "first commentary");
+
+        // When
+        boolean success = operationDao.markAsApplied(operationId);
+
+        // Then
+        assertThat(success, is(false));
+        Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operationId);
+        assertThat(actualOperation, isPresentAndEqualTo(rejectedOperation(operation, "first commentary")));
+    }
+
+    @Test
+    public void shouldNotMarkOperationAsRejectedIfItIsAlreadyApplied() {
+        OperationId operationId = randomOperationId();
+        Operation operation = randomOperation(operationId);
+        operationDao.storeOperation(operation);
+        operationDao.markAsApplied(operationId);
+
+        // When
+        boolean success = operationDao.markAsRejected(operationId, "failure description");
+
+        // Then
+        assertThat(success, is(false));
+        Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operationId);
+        assertThat(actualOperation, isPresentAndEqualTo(appliedOperation(operation)));
+    }
+
+    @Test
+    public void shouldMarkMultipleOperationsAsAppliedAtOnce() {
+        Operation operation1 = randomOperation();
+        Operation operation2 = randomOperation();
+        Operation operation3 = randomOperation();
+        operationDao.storeOperation(operation1);
+        operationDao.storeOperation(operation2);
+        operationDao.storeOperation(operation3);
+        operationDao.markAsRejected(operation2.operationId, "first commentary");
+
+        // When
+        int markedCount = operationDao.markAsApplied(newList(operation1.operationId, operation2.operationId, operation3.operationId));
+
+        // Then
+        assertThat(markedCount, is(2));
+        assertThat(operationDao.findLoggedOperation(operation1.operationId), isPresentAndEqualTo(appliedOperation(operation1)));
+        assertThat(operationDao.findLoggedOperation(operation2.operationId), isPresentAndEqualTo(rejectedOperation(operation2, "first commentary")));
+        assertThat(operationDao.findLoggedOperation(operation3.operationId), isPresentAndEqualTo(appliedOperation(operation3)));
+    }
+
+    @Test
+    public void shouldMarkMultipleOperationsAsRejectedAtOnce() {
+        Operation operation1 = randomOperation();
+        Operation operation2 = randomOperation();
+        Operation operation3 = randomOperation();
+        operationDao.storeOperation(operation1);
+        operationDao.storeOperation(operation2);
+        operationDao.storeOperation(operation3);
+        operationDao.markAsApplied(operation2.operationId);
+
+        // When
+        int markedCount = operationDao.markAsRejected(ImmutableMap.of(
+                operation1.operationId, "description 1",
+                operation2.operationId, "description 2",
+                operation3.operationId, "description 3"
+        ));
+
+        // Then
+        assertThat(markedCount, is(2));
+        assertThat(operationDao.findLoggedOperation(operation1.operationId), isPresentAndEqualTo(rejectedOperation(operation1, "description 1")));
+        assertThat(operationDao.findLoggedOperation(operation2.operationId), isPresentAndEqualTo(appliedOperation(operation2)));
+        assertThat(operationDao.findLoggedOperation(operation3.operationId), isPresentAndEqualTo(rejectedOperation(operation3, "description 3")));
+    }
+
+    @Test
+    public void shouldAllowOnlyOneFinalizationMethodOnConcurrentRequests() {
+        int threadCount = 64;
+
+        OperationId operationId = randomOperationId();
+        Operation operation = randomOperation(operationId);
+        operationDao.storeOperation(operation);
+
+        List<FinalState> appliedStates = newCopyOnWriteArrayList();
+
+        runConcurrentlyOnNThreads(
+                () -> {
+                    FinalState stateToApply = pickRandomValue(FinalState.values());
+
+                    // When
+                    boolean success;
+                    if (stateToApply == FinalState.Applied) {
+                        success = operationDao.markAsApplied(operationId);
+                    } else {
+                        success = operationDao.markAsRejected(operationId, "some description");
+                    }
+
+                    if (success) {
+                        appliedStates.add(stateToApply);
+                    }
+                },
+                threadCount
+        );
+
+        // Then
+        assertThat(appliedStates.size(), is(1));
+
+        Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operationId);
+        if (appliedStates.get(0) == FinalState.Applied) {
+            assertThat(actualOperation, isPresentAndEqualTo(appliedOperation(operation)));
+        } else {
+            assertThat(actualOperation, isPresentAndEqualTo(rejectedOperation(operation, "some description")));
+        }
+    }
+
+    private LoggedOperation newOperation(Operation operation) {
+        return new LoggedOperation(operation, Optional.empty(), Optional.empty());
+    }
+
+    private LoggedOperation appliedOperation(Operation operation) {
+        return new LoggedOperation(operation, Optional.of(Applied), Optional.empty());
+    }
+
+    private LoggedOperation rejectedOperation(Operation operation, String description) {
+        return new LoggedOperation(operation, Optional.of(Rejected), Optional.of(description));
+    }
+}
\ No newline at end of file
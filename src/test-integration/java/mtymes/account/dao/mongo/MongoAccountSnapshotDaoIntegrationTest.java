@@ -0,0 +1,83 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.dao.AccountSnapshotDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static mtymes.account.dao.mongo.MongoCollections.accountSnapshotsCollection;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.test.OptionalMatcher.isNotPresent;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.*;
+import static org.junit.Assert.assertThat;
+
+public class MongoAccountSnapshotDaoIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static AccountSnapshotDao snapshotDao;
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        snapshotDao = new MongoAccountSnapshotDao(accountSnapshotsCollection(db.getDatabase()));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldStoreAndLoadSnapshot() {
+        Account account = new Account(randomAccountId(), randomAmount(), randomSeqId());
+
+        // When
+        snapshotDao.storeSnapshot(account);
+
+        // Then
+        assertThat(snapshotDao.findSnapshot(account.accountId), isPresentAndEqualTo(account));
+    }
+
+    @Test
+    public void shouldReplaceSnapshotWithNewerVersion() {
+        AccountId accountId = randomAccountId();
+        snapshotDao.storeSnapshot(new Account(accountId, randomAmount(), seqId(3)));
+        Account newerAccount = new Account(accountId, randomAmount(), seqId(4));
+
+        // When
+        snapshotDao.storeSnapshot(newerAccount);
+
+        // Then
+        assertThat(snapshotDao.findSnapshot(accountId), isPresentAndEqualTo(newerAccount));
+    }
+
+    @Test
+    public void shouldNotReplaceSnapshotWithTheSameOrOlderVersion() {
+        AccountId accountId = randomAccountId();
+        Account account = new Account(accountId, randomAmount(), seqId(3));
+        snapshotDao.storeSnapshot(account);
+
+        // When
+        snapshotDao.storeSnapshot(new Account(accountId, randomAmount(), seqId(3)));
+        snapshotDao.storeSnapshot(new Account(accountId, randomAmount(), seqId(2)));
+
+        // Then
+        assertThat(snapshotDao.findSnapshot(accountId), isPresentAndEqualTo(account));
+    }
+
+    @Test
+    public void shouldNotFindMissingSnapshot() {
+        assertThat(snapshotDao.findSnapshot(randomAccountId()), isNotPresent());
+    }
+}
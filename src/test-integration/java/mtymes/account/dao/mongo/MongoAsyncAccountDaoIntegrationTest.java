@@ -0,0 +1,74 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.async.client.MongoClient;
+import com.mongodb.async.client.MongoClients;
+import javafixes.math.Decimal;
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.AsyncAccountDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.SeqId;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static mtymes.account.dao.mongo.MongoCollections.accountsCollection;
+import static mtymes.account.dao.mongo.MongoCollections.asyncCollection;
+import static mtymes.test.Condition.after;
+import static mtymes.test.OptionalMatcher.isNotPresent;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.*;
+import static org.junit.Assert.assertThat;
+
+public class MongoAsyncAccountDaoIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static MongoClient asyncClient;
+    private static AccountDao accountDao;
+    private static AsyncAccountDao asyncAccountDao;
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        asyncClient = MongoClients.create("mongodb://localhost:" + db.getPort());
+        accountDao = new MongoAccountDao(accountsCollection(db.getDatabase()));
+        asyncAccountDao = new MongoAsyncAccountDao(asyncCollection(asyncClient.getDatabase(db.getDbName()), accountsCollection(db.getDatabase())));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        asyncClient.close();
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldFindAccountStoredBySyncDao() throws Exception {
+        AccountId accountId = randomAccountId();
+        SeqId version = randomSeqId();
+        SeqId newVersion = randomSeqId(after(version));
+        Decimal newBalance = randomAmount();
+        accountDao.createAccount(accountId, version);
+        accountDao.updateBalance(accountId, newBalance, version, newVersion);
+
+        // When
+        Optional<Account> account = asyncAccountDao.findAccount(accountId).get();
+
+        // Then
+        assertThat(account, isPresentAndEqualTo(new Account(accountId, newBalance, newVersion)));
+    }
+
+    @Test
+    public void shouldNotFindNonExistingAccount() throws Exception {
+        assertThat(asyncAccountDao.findAccount(randomAccountId()).get(), isNotPresent());
+    }
+}
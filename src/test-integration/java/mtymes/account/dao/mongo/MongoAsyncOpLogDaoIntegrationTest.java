@@ -0,0 +1,108 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.async.client.MongoClient;
+import com.mongodb.async.client.MongoClients;
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.dao.AsyncOpLogDao;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+import mtymes.common.metrics.Metrics;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.object.Tuple.tuple;
+import static mtymes.account.dao.mongo.MongoCollections.asyncCollection;
+import static mtymes.account.dao.mongo.MongoCollections.opLogCollection;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomOperationId;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class MongoAsyncOpLogDaoIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static MongoClient asyncClient;
+    private static OpLogDao opLogDao;
+    private static AsyncOpLogDao asyncOpLogDao;
+    private static final ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        asyncClient = MongoClients.create("mongodb://localhost:" + db.getPort());
+        opLogDao = new MongoOpLogDao(opLogCollection(db.getDatabase()), contention);
+        asyncOpLogDao = new MongoAsyncOpLogDao(asyncCollection(asyncClient.getDatabase(db.getDbName()), opLogCollection(db.getDatabase())), contention);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        asyncClient.close();
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldRegisterOperationsUnderFollowingSeqIds() throws Exception {
+        AccountId accountId = randomAccountId();
+        OperationId operationId1 = randomOperationId();
+        OperationId operationId2 = randomOperationId();
+        OperationId operationId3 = randomOperationId();
+
+        // When
+        SeqId seqId1 = asyncOpLogDao.registerOperationId(accountId, operationId1).get();
+        SeqId seqId2 = opLogDao.registerOperationId(accountId, operationId2);
+        SeqId seqId3 = asyncOpLogDao.registerOperationId(accountId, operationId3).get();
+
+        // Then
+        assertThat(seqId1, equalTo(seqId(1)));
+        assertThat(seqId2, equalTo(seqId(2)));
+        assertThat(seqId3, equalTo(seqId(3)));
+        assertThat(opLogDao.findUnfinishedOperationIds(accountId), equalTo(newList(
+                tuple(operationId1, seqId1),
+                tuple(operationId2, seqId2),
+                tuple(operationId3, seqId3)
+        )));
+    }
+
+    @Test
+    public void shouldRegisterConcurrentOperationsUnderUniqueSeqIds() throws Exception {
+        AccountId accountId = randomAccountId();
+        int operationCount = 50;
+
+        // When
+        List<CompletableFuture<SeqId>> registrations = newArrayList();
+        for (int i = 0; i < operationCount; i++) {
+            registrations.add(asyncOpLogDao.registerOperationId(accountId, randomOperationId()));
+        }
+
+        // Then
+        List<SeqId> seqIds = newArrayList();
+        for (CompletableFuture<SeqId> registration : registrations) {
+            seqIds.add(registration.get());
+        }
+        List<SeqId> expectedSeqIds = newArrayList();
+        for (int i = 1; i <= operationCount; i++) {
+            expectedSeqIds.add(seqId(i));
+        }
+        assertThat(seqIds, containsInAnyOrder(expectedSeqIds.toArray()));
+    }
+}
@@ -0,0 +1,81 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.async.client.MongoClient;
+import com.mongodb.async.client.MongoClients;
+import mtymes.account.dao.AsyncOperationDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import mtymes.account.exception.DuplicateItemException;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static mtymes.account.dao.mongo.MongoCollections.asyncCollection;
+import static mtymes.account.dao.mongo.MongoCollections.operationsCollection;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.randomOperation;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MongoAsyncOperationDaoIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static MongoClient asyncClient;
+    private static OperationDao operationDao;
+    private static AsyncOperationDao asyncOperationDao;
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        asyncClient = MongoClients.create("mongodb://localhost:" + db.getPort());
+        operationDao = new MongoOperationDao(operationsCollection(db.getDatabase()));
+        asyncOperationDao = new MongoAsyncOperationDao(asyncCollection(asyncClient.getDatabase(db.getDbName()), operationsCollection(db.getDatabase())));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        asyncClient.close();
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldStoreOperationReadableBySyncDao() throws Exception {
+        Operation operation = randomOperation();
+
+        // When
+        asyncOperationDao.storeOperation(operation).get();
+
+        // Then
+        assertThat(operationDao.findLoggedOperation(operation.operationId), isPresentAndEqualTo(new LoggedOperation(operation, Optional.empty(), Optional.empty())));
+        assertThat(asyncOperationDao.findLoggedOperation(operation.operationId).get(), isPresentAndEqualTo(new LoggedOperation(operation, Optional.empty(), Optional.empty())));
+    }
+
+    @Test
+    public void shouldFailToStoreDuplicateOperation() throws Exception {
+        Operation operation = randomOperation();
+        operationDao.storeOperation(operation);
+
+        try {
+            // When
+            asyncOperationDao.storeOperation(operation).get();
+
+            fail("should fail with DuplicateItemException");
+        } catch (ExecutionException expectedException) {
+            // Then
+            assertThat(expectedException.getCause(), instanceOf(DuplicateItemException.class));
+        }
+    }
+}
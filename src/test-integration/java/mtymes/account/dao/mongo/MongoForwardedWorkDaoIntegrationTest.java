@@ -0,0 +1,66 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.dao.ForwardedWorkDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static mtymes.account.dao.mongo.MongoCollections.forwardedWorkCollection;
+import static mtymes.test.Random.randomAccountId;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class MongoForwardedWorkDaoIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static ForwardedWorkDao forwardedWorkDao;
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        forwardedWorkDao = new MongoForwardedWorkDao(forwardedWorkCollection(db.getDatabase()));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldForwardWorkOfEachAccountOnlyOnce() {
+        AccountId accountId1 = randomAccountId();
+        AccountId accountId2 = randomAccountId();
+
+        // When
+        forwardedWorkDao.forwardWork(accountId1);
+        forwardedWorkDao.forwardWork(accountId2);
+        forwardedWorkDao.forwardWork(accountId1);
+
+        // Then
+        assertThat(forwardedWorkDao.findForwardedWork(), containsInAnyOrder(accountId1, accountId2));
+    }
+
+    @Test
+    public void shouldTakeForwardedWorkOnlyOnce() {
+        AccountId accountId = randomAccountId();
+        forwardedWorkDao.forwardWork(accountId);
+
+        // When
+        boolean firstTake = forwardedWorkDao.takeForwardedWork(accountId);
+        boolean secondTake = forwardedWorkDao.takeForwardedWork(accountId);
+
+        // Then
+        assertThat(firstTake, is(true));
+        assertThat(secondTake, is(false));
+        assertThat(forwardedWorkDao.findForwardedWork(), empty());
+    }
+}
@@ -0,0 +1,82 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.dao.NodeLeaseDao;
+import mtymes.account.domain.node.NodeId;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static mtymes.account.dao.mongo.MongoCollections.nodeLeasesCollection;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+public class MongoNodeLeaseDaoIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static NodeLeaseDao leaseDao;
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        leaseDao = new MongoNodeLeaseDao(nodeLeasesCollection(db.getDatabase()));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldFindNodesWithValidLease() {
+        NodeId nodeId1 = nodeId(UUID.randomUUID());
+        NodeId nodeId2 = nodeId(UUID.randomUUID());
+
+        // When
+        leaseDao.renewLease(nodeId1, Duration.ofMinutes(1));
+        leaseDao.renewLease(nodeId2, Duration.ofMinutes(1));
+        leaseDao.renewLease(nodeId1, Duration.ofMinutes(1));
+
+        // Then
+        assertThat(leaseDao.findLiveNodeIds(), containsInAnyOrder(nodeId1, nodeId2));
+    }
+
+    @Test
+    public void shouldNotFindNodesWithExpiredLease() throws InterruptedException {
+        NodeId liveNodeId = nodeId(UUID.randomUUID());
+        NodeId expiredNodeId = nodeId(UUID.randomUUID());
+        leaseDao.renewLease(liveNodeId, Duration.ofMinutes(1));
+        leaseDao.renewLease(expiredNodeId, Duration.ofMillis(1));
+
+        // When
+        Thread.sleep(10);
+
+        // Then
+        assertThat(leaseDao.findLiveNodeIds(), contains(liveNodeId));
+    }
+
+    @Test
+    public void shouldNotFindNodesWithReleasedLease() {
+        NodeId nodeId = nodeId(UUID.randomUUID());
+        leaseDao.renewLease(nodeId, Duration.ofMinutes(1));
+
+        // When
+        leaseDao.releaseLease(nodeId);
+
+        // Then
+        assertThat(leaseDao.findLiveNodeIds(), empty());
+    }
+}
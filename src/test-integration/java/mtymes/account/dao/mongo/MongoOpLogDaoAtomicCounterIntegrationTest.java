@@ -0,0 +1,233 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import javafixes.object.Tuple;
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+import mtymes.account.exception.DuplicateItemException;
+import mtymes.common.metrics.Metrics;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static java.util.stream.Collectors.*;
+import static java.util.stream.IntStream.rangeClosed;
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.common.CollectionUtil.newSet;
+import static javafixes.object.Tuple.tuple;
+import static mtymes.account.dao.mongo.MongoCollections.opLogCollection;
+import static mtymes.account.dao.mongo.MongoCollections.seqCountersCollection;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+import static mtymes.common.mongo.DocumentBuilder.docBuilder;
+import static mtymes.test.ConcurrencyUtil.runConcurrentlyOnNThreads;
+import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MongoOpLogDaoAtomicCounterIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static MongoCollection<Document> opLogs;
+    private static MongoCollection<Document> seqCounters;
+    private static OpLogDao opLogDao;
+    private static final ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        MongoDatabase database = db.getDatabase();
+        opLogs = opLogCollection(database);
+        seqCounters = seqCountersCollection(database);
+        opLogDao = new MongoOpLogDao(opLogs, seqCounters, contention);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldStoreOperationsWithSequentialOpLogIdForEachAccount() {
+        AccountId accountId1 = randomAccountId();
+        AccountId accountId2 = randomAccountId();
+        AccountId accountId3 = randomAccountId();
+        assertThat(opLogDao.registerOperationId(accountId1, randomOperationId()), equalTo(seqId(1)));
+        assertThat(opLogDao.registerOperationId(accountId1, randomOperationId()), equalTo(seqId(2)));
+        assertThat(opLogDao.registerOperationId(accountId2, randomOperationId()), equalTo(seqId(1)));
+        assertThat(opLogDao.registerOperationId(accountId1, randomOperationId()), equalTo(seqId(3)));
+        assertThat(opLogDao.registerOperationId(accountId1, randomOperationId()), equalTo(seqId(4)));
+        assertThat(opLogDao.registerOperationId(accountId2, randomOperationId()), equalTo(seqId(2)));
+        assertThat(opLogDao.registerOperationId(accountId3, randomOperationId()), equalTo(seqId(1)));
+        assertThat(opLogDao.registerOperationId(accountId2, randomOperationId()), equalTo(seqId(3)));
+    }
+
+    @Test
+    public void shouldFailToRegisterTheSameOperationIdTwice() {
+        AccountId accountId = randomAccountId();
+        OperationId operationId = randomOperationId();
+
+        opLogDao.registerOperationId(accountId, operationId);
+
+        try {
+            // When
+            opLogDao.registerOperationId(accountId, operationId);
+
+            // Then
+            fail("expected DuplicateItemException");
+        } catch (DuplicateItemException expectedException) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldContinueSequenceOfOperationsStoredUsingOptimisticLoop() {
+        AccountId accountId = randomAccountId();
+        OpLogDao optimisticLoopDao = new MongoOpLogDao(opLogs, contention);
+        optimisticLoopDao.registerOperationId(accountId, randomOperationId());
+        optimisticLoopDao.registerOperationId(accountId, randomOperationId());
+
+        // When
+        SeqId seqId = opLogDao.registerOperationId(accountId, randomOperationId());
+
+        // Then
+        assertThat(seqId, equalTo(seqId(3)));
+    }
+
+    @Test
+    public void shouldCatchUpIfCounterFallsBehindStoredOperations() {
+        AccountId accountId = randomAccountId();
+        opLogDao.registerOperationId(accountId, randomOperationId());
+        OpLogDao optimisticLoopDao = new MongoOpLogDao(opLogs, contention);
+        optimisticLoopDao.registerOperationId(accountId, randomOperationId());
+        optimisticLoopDao.registerOperationId(accountId, randomOperationId());
+        optimisticLoopDao.registerOperationId(accountId, randomOperationId());
+        optimisticLoopDao.registerOperationId(accountId, randomOperationId());
+
+        // When
+        SeqId seqId = opLogDao.registerOperationId(accountId, randomOperationId());
+
+        // Then
+        assertThat(seqId, equalTo(seqId(6)));
+    }
+
+    @Test
+    public void shouldSkipSeqIdThatWasHandedOutButNotStored() {
+        AccountId accountId = randomAccountId();
+        OperationId operationId1 = randomOperationId();
+        OperationId operationId3 = randomOperationId();
+
+        SeqId seqId1 = opLogDao.registerOperationId(accountId, operationId1);
+        handOutSeqIdWithoutStoringIt(accountId);
+        SeqId seqId3 = opLogDao.registerOperationId(accountId, operationId3);
+
+        // When
+        List<Tuple<OperationId, SeqId>> unFinishedOpLogIds = opLogDao.findUnfinishedOperationIds(accountId);
+
+        // Then
+        assertThat(seqId3, equalTo(seqId(3)));
+        assertThat(unFinishedOpLogIds, equalTo(newList(
+                tuple(operationId1, seqId1),
+                tuple(operationId3, seqId3)
+        )));
+        assertThat(opLogs.count(docBuilder()
+                .put(MongoOpLogDao.ACCOUNT_ID, accountId)
+                .put(MongoOpLogDao.SEQ_ID, 2L)
+                .put(MongoOpLogDao.SKIPPED, true)
+                .put(MongoOpLogDao.FINISHED, true)
+                .build()), is(1L));
+    }
+
+    @Test
+    public void shouldNotReuseSkippedSeqId() {
+        AccountId accountId = randomAccountId();
+        OpLogDao otherNodeDao = new MongoOpLogDao(opLogs, seqCounters, contention);
+
+        opLogDao.registerOperationId(accountId, randomOperationId());
+        handOutSeqIdWithoutStoringIt(accountId);
+        opLogDao.registerOperationId(accountId, randomOperationId());
+        otherNodeDao.findUnfinishedOperationIds(accountId);
+        resetCounter(accountId, 1);
+
+        // When
+        SeqId seqId = opLogDao.registerOperationId(accountId, randomOperationId());
+
+        // Then
+        assertThat(seqId, equalTo(seqId(4)));
+    }
+
+    @Test
+    public void shouldCreateUniqueSequentialOpLogIdsOnConcurrentWrites() {
+        int threadCount = 64;
+
+        List<Tuple<AccountId, SeqId>> seqIds = newCopyOnWriteArrayList();
+
+        List<AccountId> accountIds = rangeClosed(1, 10).mapToObj(value -> randomAccountId()).collect(toList());
+        Map<AccountId, AtomicInteger> highestId = accountIds.stream().collect(toMap(
+                accountId -> accountId,
+                accountId -> new AtomicInteger(0)
+        ));
+
+        runConcurrentlyOnNThreads(
+                () -> {
+                    AccountId accountId = pickRandomValue(accountIds);
+                    OperationId operationId = randomOperationId();
+
+                    // When
+                    seqIds.add(tuple(
+                            accountId,
+                            opLogDao.registerOperationId(accountId, operationId)
+                    ));
+
+                    highestId.get(accountId).incrementAndGet();
+                },
+                threadCount
+        );
+
+        // Then
+        assertThat(seqIds.size(), is(threadCount));
+
+        Set<Tuple<AccountId, SeqId>> expectedSeqIds = highestId.entrySet().stream()
+                .filter(entry -> entry.getValue().get() > 0)
+                .flatMap(entry -> rangeClosed(1, entry.getValue().get()).mapToObj(seqId -> tuple(entry.getKey(), seqId(seqId))))
+                .collect(toSet());
+        assertThat(newSet(seqIds), equalTo(expectedSeqIds));
+    }
+
+    private void handOutSeqIdWithoutStoringIt(AccountId accountId) {
+        seqCounters.updateOne(
+                doc(MongoSeqIdCounter.ACCOUNT_ID, accountId),
+                doc("$inc", doc(MongoSeqIdCounter.LAST_SEQ_ID, 1L))
+        );
+    }
+
+    private void resetCounter(AccountId accountId, long lastSeqId) {
+        seqCounters.updateOne(
+                doc(MongoSeqIdCounter.ACCOUNT_ID, accountId),
+                doc("$set", doc(MongoSeqIdCounter.LAST_SEQ_ID, lastSeqId))
+        );
+    }
+}
@@ -0,0 +1,179 @@
+package mtymes.account.dao.mongo;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import javafixes.object.Tuple;
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.domain.operation.SeqId;
+import mtymes.common.metrics.Metrics;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.bson.Document;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.common.CollectionUtil.newSet;
+import static javafixes.object.Tuple.tuple;
+import static mtymes.account.dao.mongo.MongoCollections.opLogCollection;
+import static mtymes.account.dao.mongo.MongoCollections.seqCountersCollection;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.common.mongo.DocumentBuilder.doc;
+import static mtymes.test.ConcurrencyUtil.runConcurrentlyOnNThreads;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomOperationId;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MongoOpLogDaoReservedBlocksIntegrationTest {
+
+    private static final int BLOCK_SIZE = 4;
+
+    private static EmbeddedDB db;
+    private static MongoCollection<Document> opLogs;
+    private static MongoCollection<Document> seqCounters;
+    private static final ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        MongoDatabase database = db.getDatabase();
+        opLogs = opLogCollection(database);
+        seqCounters = seqCountersCollection(database);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldReserveWholeBlockOfSeqIdsAtOnce() {
+        OpLogDao opLogDao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        AccountId accountId = randomAccountId();
+
+        // When
+        assertThat(opLogDao.registerOperationId(accountId, randomOperationId()), equalTo(seqId(1)));
+        assertThat(opLogDao.registerOperationId(accountId, randomOperationId()), equalTo(seqId(2)));
+        assertThat(opLogDao.registerOperationId(accountId, randomOperationId()), equalTo(seqId(3)));
+
+        // Then
+        assertThat(lastReservedSeqId(accountId), is(4L));
+
+        // When
+        assertThat(opLogDao.registerOperationId(accountId, randomOperationId()), equalTo(seqId(4)));
+        assertThat(opLogDao.registerOperationId(accountId, randomOperationId()), equalTo(seqId(5)));
+
+        // Then
+        assertThat(lastReservedSeqId(accountId), is(8L));
+    }
+
+    @Test
+    public void shouldSkipUnusedSeqIdsOfOtherNode() {
+        OpLogDao node1Dao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        OpLogDao node2Dao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        AccountId accountId = randomAccountId();
+        OperationId operationId1 = randomOperationId();
+        OperationId operationId2 = randomOperationId();
+        OperationId operationId3 = randomOperationId();
+
+        SeqId seqId1 = node1Dao.registerOperationId(accountId, operationId1);
+        SeqId seqId2 = node2Dao.registerOperationId(accountId, operationId2);
+
+        // When
+        List<Tuple<OperationId, SeqId>> unFinishedOpLogIds = node2Dao.findUnfinishedOperationIds(accountId);
+        SeqId seqId3 = node1Dao.registerOperationId(accountId, operationId3);
+
+        // Then
+        assertThat(seqId1, equalTo(seqId(1)));
+        assertThat(seqId2, equalTo(seqId(5)));
+        assertThat(unFinishedOpLogIds, equalTo(newList(
+                tuple(operationId1, seqId1),
+                tuple(operationId2, seqId2)
+        )));
+        assertThat(seqId3, equalTo(seqId(9)));
+    }
+
+    @Test
+    public void shouldRemoveSkippedSeqIdsWithoutSkippingThemAgain() {
+        MongoOpLogDao node1Dao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        MongoOpLogDao node2Dao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        AccountId accountId = randomAccountId();
+        OperationId operationId1 = randomOperationId();
+        OperationId operationId2 = randomOperationId();
+
+        node1Dao.registerOperationId(accountId, operationId1);
+        SeqId seqId2 = node2Dao.registerOperationId(accountId, operationId2);
+        node2Dao.findUnfinishedOperationIds(accountId);
+        node2Dao.markAsFinished(operationId1);
+
+        // When
+        long removedCount = node2Dao.removeSkippedSeqIds(Duration.ofMillis(-1_000));
+
+        // Then
+        assertThat(removedCount, is((long) BLOCK_SIZE - 1));
+        assertThat(new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention).findUnfinishedOperationIds(accountId), equalTo(newList(
+                tuple(operationId2, seqId2)
+        )));
+        assertThat(opLogs.count(doc(MongoOpLogDao.SKIPPED, true)), is(0L));
+    }
+
+    @Test
+    public void shouldKeepSkippedSeqIdsWithinRetention() {
+        OpLogDao node1Dao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        MongoOpLogDao node2Dao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        AccountId accountId = randomAccountId();
+
+        node1Dao.registerOperationId(accountId, randomOperationId());
+        node2Dao.registerOperationId(accountId, randomOperationId());
+        node2Dao.findUnfinishedOperationIds(accountId);
+
+        // When
+        long removedCount = node2Dao.removeSkippedSeqIds(Duration.ofHours(1));
+
+        // Then
+        assertThat(removedCount, is(0L));
+        assertThat(opLogs.count(doc(MongoOpLogDao.SKIPPED, true)), is((long) BLOCK_SIZE - 1));
+    }
+
+    @Test
+    public void shouldCreateUniqueIncreasingSeqIdsOnConcurrentWrites() {
+        int threadCount = 64;
+        OpLogDao node1Dao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        OpLogDao node2Dao = new MongoOpLogDao(opLogs, seqCounters, BLOCK_SIZE, contention);
+        AccountId accountId = randomAccountId();
+
+        List<SeqId> seqIds = newCopyOnWriteArrayList();
+
+        // When
+        runConcurrentlyOnNThreads(
+                index -> seqIds.add((index % 2 == 0 ? node1Dao : node2Dao).registerOperationId(accountId, randomOperationId())),
+                threadCount
+        );
+
+        // Then
+        assertThat(newSet(seqIds).size(), is(threadCount));
+        assertThat(node1Dao.findUnfinishedOperationIds(accountId).size(), is(threadCount));
+    }
+
+    private long lastReservedSeqId(AccountId accountId) {
+        return seqCounters.find(doc(MongoSeqIdCounter.ACCOUNT_ID, accountId)).first().getLong(MongoSeqIdCounter.LAST_SEQ_ID);
+    }
+}
@@ -0,0 +1,121 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import mtymes.account.domain.operation.OperationId;
+import mtymes.account.exception.DuplicateItemException;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static mtymes.account.dao.mongo.MongoCollections.operationsCollection;
+import static mtymes.test.ConcurrencyUtil.runConcurrentlyOnNThreads;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MongoOperationDaoBatchedInsertIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static OperationDao operationDao;
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        operationDao = new MongoOperationDao(operationsCollection(db.getDatabase()), 64, Duration.ofNanos(200_000));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldStoreConcurrentlySubmittedOperations() {
+        int threadCount = 64;
+
+        List<Operation> storedOperations = newCopyOnWriteArrayList();
+
+        runConcurrentlyOnNThreads(
+                () -> {
+                    Operation operation = randomOperation();
+
+                    // When
+                    operationDao.storeOperation(operation);
+
+                    storedOperations.add(operation);
+                },
+                threadCount
+        );
+
+        // Then
+        assertThat(storedOperations.size(), is(threadCount));
+        for (Operation operation : storedOperations) {
+            Optional<LoggedOperation> actualOperation = operationDao.findLoggedOperation(operation.operationId);
+            assertThat(actualOperation, isPresentAndEqualTo(new LoggedOperation(operation, Optional.empty(), Optional.empty())));
+        }
+    }
+
+    @Test
+    public void shouldFailToStoreTwoOperationsUnderTheSameOperationId() {
+        OperationId operationId = randomOperationId();
+        operationDao.storeOperation(randomOperation(operationId));
+
+        try {
+            // When
+            operationDao.storeOperation(randomOperation(operationId));
+
+            // Then
+            fail("expected DuplicateItemException");
+        } catch (DuplicateItemException expectedException) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldFailOnlyDuplicateOperationsInTheSameBatch() {
+        int threadCount = 64;
+
+        OperationId duplicateOperationId = randomOperationId();
+        AtomicInteger storedDuplicateCount = new AtomicInteger(0);
+        AtomicInteger failedDuplicateCount = new AtomicInteger(0);
+        AtomicInteger storedUniqueCount = new AtomicInteger(0);
+
+        runConcurrentlyOnNThreads(
+                () -> {
+                    boolean storeDuplicate = randomBoolean();
+                    Operation operation = storeDuplicate ? randomOperation(duplicateOperationId) : randomOperation();
+
+                    // When
+                    try {
+                        operationDao.storeOperation(operation);
+                        (storeDuplicate ? storedDuplicateCount : storedUniqueCount).incrementAndGet();
+                    } catch (DuplicateItemException e) {
+                        failedDuplicateCount.incrementAndGet();
+                    }
+                },
+                threadCount
+        );
+
+        // Then
+        assertThat(storedDuplicateCount.get(), is(1));
+        assertThat(storedDuplicateCount.get() + failedDuplicateCount.get() + storedUniqueCount.get(), is(threadCount));
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static javafixes.concurrency.Runner.runner;
@@ -22,11 +23,13 @@ public class MongoOperationDaoPerformanceTest {
 
     private static EmbeddedDB db;
     private static OperationDao operationDao;
+    private static OperationDao batchingOperationDao;
 
     @BeforeClass
     public static void initDB() {
         db = MongoManager.getEmbeddedDB();
         operationDao = new MongoOperationDao(operationsCollection(db.getDatabase()));
+        batchingOperationDao = new MongoOperationDao(operationsCollection(db.getDatabase()), 256, Duration.ofNanos(200_000));
     }
 
     @Before
@@ -42,6 +45,19 @@ public class MongoOperationDaoPerformanceTest {
     // todo: test this for OpLogDao instead
     @Test
     public void shouldStoreAtLeast1000OpPerSecondOnConcurrentWrites() throws InterruptedException {
+        double insertsPerSecond = measureInsertsPerSecond(operationDao);
+
+        assertThat(insertsPerSecond, greaterThanOrEqualTo(1_000d));
+    }
+
+    @Test
+    public void shouldStoreAtLeast1000OpPerSecondOnConcurrentBatchedWrites() throws InterruptedException {
+        double insertsPerSecond = measureInsertsPerSecond(batchingOperationDao);
+
+        assertThat(insertsPerSecond, greaterThanOrEqualTo(1_000d));
+    }
+
+    private double measureInsertsPerSecond(OperationDao operationDao) throws InterruptedException {
         int threadCount = 128;
         int insertCount = 25_000;
         AtomicInteger insertCounter = new AtomicInteger(insertCount);
@@ -68,6 +84,6 @@ public class MongoOperationDaoPerformanceTest {
 
         double insertsPerSecond = (insertCount * 1000d) / (endTime - startTime);
         System.out.println(insertsPerSecond + " inserts/second");
-        assertThat(insertsPerSecond, greaterThanOrEqualTo(1_000d));
+        return insertsPerSecond;
     }
 }
@@ -0,0 +1,114 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import mtymes.common.metrics.Metrics;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.bson.BsonDocument;
+import org.bson.BsonType;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.math.Decimal.ZERO;
+import static javafixes.object.Tuple.tuple;
+import static mtymes.account.dao.mongo.AmountFormat.decimal128;
+import static mtymes.account.dao.mongo.MongoCodecs.codecRegistry;
+import static mtymes.account.dao.mongo.MongoCollections.*;
+import static mtymes.account.dao.mongo.UuidFormat.Binary;
+import static mtymes.account.dao.mongo.UuidFormat.Text;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomOperation;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class UuidMigrationIntegrationTest {
+
+    private static EmbeddedDB db;
+    private static final ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldMigrateStoredUuidsIntoBinaryAndBack() {
+        AccountId accountId = randomAccountId();
+        Operation operation = randomOperation(accountId);
+        storeData(Text, accountId, operation);
+
+        UuidMigration migration = new UuidMigration(db.getDatabase());
+
+        // When
+        long migratedCount = migration.migrateTo(Binary);
+
+        // Then
+        assertThat(migratedCount, is(3L));
+        assertThat(storedType("accounts", MongoAccountDao.ACCOUNT_ID), equalTo(BsonType.BINARY));
+        assertThat(storedType("opLogs", MongoOpLogDao.OPERATION_ID), equalTo(BsonType.BINARY));
+        assertThat(storedType("operations", MongoOperationDao.OPERATION_ID), equalTo(BsonType.BINARY));
+        assertThat(migration.migrateTo(Binary), is(0L));
+        verifyData(Binary, accountId, operation);
+
+        // When
+        migratedCount = migration.migrateTo(Text);
+
+        // Then
+        assertThat(migratedCount, is(3L));
+        assertThat(storedType("accounts", MongoAccountDao.ACCOUNT_ID), equalTo(BsonType.STRING));
+        verifyData(Text, accountId, operation);
+    }
+
+    private void storeData(UuidFormat uuidFormat, AccountId accountId, Operation operation) {
+        new MongoAccountDao(accountsCollection(database(uuidFormat))).createAccount(accountId, seqId(1));
+        new MongoOperationDao(operationsCollection(database(uuidFormat))).storeOperation(operation);
+        new MongoOpLogDao(opLogCollection(database(uuidFormat)), contention).registerOperationId(accountId, operation.operationId);
+    }
+
+    private void verifyData(UuidFormat uuidFormat, AccountId accountId, Operation operation) {
+        assertThat(
+                new MongoAccountDao(accountsCollection(database(uuidFormat))).findAccount(accountId),
+                isPresentAndEqualTo(new Account(accountId, ZERO, seqId(1)))
+        );
+        assertThat(
+                new MongoOperationDao(operationsCollection(database(uuidFormat))).findLoggedOperation(operation.operationId),
+                isPresentAndEqualTo(new LoggedOperation(operation, Optional.empty(), Optional.empty()))
+        );
+        assertThat(
+                new MongoOpLogDao(opLogCollection(database(uuidFormat)), contention).findUnfinishedOperationIds(accountId),
+                equalTo(newList(tuple(operation.operationId, seqId(1))))
+        );
+    }
+
+    private com.mongodb.client.MongoDatabase database(UuidFormat uuidFormat) {
+        return db.getDatabase().withCodecRegistry(codecRegistry(uuidFormat, decimal128()));
+    }
+
+    private BsonType storedType(String collectionName, String fieldName) {
+        return db.getDatabase().getCollection(collectionName, BsonDocument.class).find().first().get(fieldName).getBsonType();
+    }
+}
@@ -0,0 +1,142 @@
+package mtymes.account.work;
+
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.dao.memory.InMemoryAccountDao;
+import mtymes.account.dao.memory.InMemoryOpLogDao;
+import mtymes.account.dao.memory.InMemoryOperationDao;
+import mtymes.account.dao.mongo.MongoAccountDao;
+import mtymes.account.dao.mongo.MongoOpLogDao;
+import mtymes.account.dao.mongo.MongoOperationDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.CreateAccount;
+import mtymes.account.domain.operation.DepositTo;
+import mtymes.account.domain.operation.Operation;
+import mtymes.account.handler.*;
+import mtymes.common.metrics.Metrics;
+import mtymes.common.util.SetQueue;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static mtymes.account.dao.mongo.MongoCollections.*;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.account.work.WorkerExecution.FixedThreads;
+import static mtymes.account.work.WorkerExecution.TaskPerDrain;
+import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+// compares the drain throughput of the fixed worker threads with the task per drain execution (whose db concurrency is
+// bounded by maxConcurrentDrains instead of the thread count) and with the in-memory storage engine
+public class SweatshopPerformanceTest {
+
+    private static final int ACCOUNT_COUNT = 500;
+    private static final int DEPOSITS_PER_ACCOUNT = 10;
+    private static final int WORKER_COUNT = 64;
+    private static final int MAX_CONCURRENT_DRAINS = 64;
+
+    private static EmbeddedDB db;
+    private static AccountDao accountDao;
+    private static OperationDao operationDao;
+    private static OpLogDao opLogDao;
+    private static final ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+
+
+    @BeforeClass
+    public static void initDB() {
+        db = MongoManager.getEmbeddedDB();
+        accountDao = new MongoAccountDao(accountsCollection(db.getDatabase()));
+        operationDao = new MongoOperationDao(operationsCollection(db.getDatabase()));
+        opLogDao = new MongoOpLogDao(opLogCollection(db.getDatabase()), contention);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db.removeAllData();
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+    }
+
+    @Test
+    public void shouldApplyAtLeast1000OpPerSecondUsingFixedThreads() throws InterruptedException {
+        double operationsPerSecond = measureOperationsPerSecond(FixedThreads, accountDao, operationDao, opLogDao);
+
+        assertThat(operationsPerSecond, greaterThanOrEqualTo(1_000d));
+    }
+
+    @Test
+    public void shouldApplyAtLeast1000OpPerSecondUsingTaskPerDrain() throws InterruptedException {
+        double operationsPerSecond = measureOperationsPerSecond(TaskPerDrain, accountDao, operationDao, opLogDao);
+
+        assertThat(operationsPerSecond, greaterThanOrEqualTo(1_000d));
+    }
+
+    // upper bound of the processing pipeline throughput (no db round trips)
+    @Test
+    public void shouldApplyAtLeast10000OpPerSecondUsingInMemoryStorage() throws InterruptedException {
+        double operationsPerSecond = measureOperationsPerSecond(FixedThreads, new InMemoryAccountDao(), new InMemoryOperationDao(), new InMemoryOpLogDao());
+
+        assertThat(operationsPerSecond, greaterThanOrEqualTo(10_000d));
+    }
+
+    private double measureOperationsPerSecond(WorkerExecution execution, AccountDao accountDao, OperationDao operationDao, OpLogDao opLogDao) throws InterruptedException {
+        SetQueue<AccountId> workQueue = new SetQueue<>();
+        CompletionRegistry completions = new CompletionRegistry();
+        Worker worker = new Worker(opLogDao, operationDao, new OperationDispatcher(
+                opLogDao,
+                new CreateAccountHandler(accountDao, operationDao, completions, contention),
+                new DepositToHandler(accountDao, operationDao, completions, contention),
+                new WithdrawFromHandler(accountDao, operationDao, completions, contention),
+                new TransferFromHandler(accountDao, operationDao, opLogDao, workQueue, completions, contention),
+                new TransferToHandler(accountDao, operationDao, new TransferRefunds(operationDao, opLogDao, workQueue), completions, contention),
+                new Metrics()
+        ));
+
+        List<AccountId> accountIds = newArrayList();
+        for (int i = 0; i < ACCOUNT_COUNT; i++) {
+            AccountId accountId = randomAccountId();
+            logOperation(new CreateAccount(randomOperationId(), accountId), operationDao, opLogDao);
+            for (int j = 0; j < DEPOSITS_PER_ACCOUNT; j++) {
+                logOperation(new DepositTo(randomOperationId(), accountId, randomPositiveAmount()), operationDao, opLogDao);
+            }
+            accountIds.add(accountId);
+        }
+        int operationCount = ACCOUNT_COUNT * (DEPOSITS_PER_ACCOUNT + 1);
+
+        Sweatshop sweatshop = new Sweatshop(workQueue, WORKER_COUNT, worker, execution, MAX_CONCURRENT_DRAINS);
+        sweatshop.start();
+
+        long startTime = System.currentTimeMillis();
+        accountIds.forEach(workQueue::add);
+        for (AccountId accountId : accountIds) {
+            while (!opLogDao.findUnfinishedOperationIds(accountId).isEmpty()) {
+                Thread.sleep(1);
+            }
+        }
+        long endTime = System.currentTimeMillis();
+
+        sweatshop.shutdown();
+
+        double operationsPerSecond = (operationCount * 1000d) / (endTime - startTime);
+        System.out.println(execution + " (" + accountDao.getClass().getSimpleName() + "): " + operationsPerSecond + " operations/second");
+        return operationsPerSecond;
+    }
+
+    private void logOperation(Operation operation, OperationDao operationDao, OpLogDao opLogDao) {
+        operationDao.storeOperation(operation);
+        opLogDao.registerOperationId(operation.affectedAccountId(), operation.operationId);
+    }
+}
@@ -2,6 +2,7 @@ package mtymes.account.handler;
 
 import com.mongodb.client.MongoDatabase;
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.dao.OperationDao;
@@ -11,13 +12,17 @@ import mtymes.account.dao.mongo.MongoOperationDao;
 import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.*;
+import mtymes.common.metrics.Metrics;
 import mtymes.test.db.EmbeddedDB;
 import mtymes.test.db.MongoManager;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 
+import java.util.UUID;
+
 import static java.lang.String.format;
 import static mtymes.account.dao.mongo.MongoCollections.*;
+import static mtymes.account.domain.node.NodeId.nodeId;
 import static mtymes.test.Random.randomAccountId;
 import static mtymes.test.Random.randomOperationId;
 import static org.hamcrest.Matchers.greaterThan;
@@ -29,6 +34,7 @@ public abstract class BaseOperationHandlerStabilityTest {
     protected static AccountDao accountDao;
     protected static OperationDao operationDao;
     protected static OpLogDao opLogDao;
+    protected static final ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
 
     @BeforeClass
     public static void initDB() {
@@ -37,7 +43,7 @@ public abstract class BaseOperationHandlerStabilityTest {
 
         accountDao = new MongoAccountDao(accountsCollection(database));
         operationDao = new MongoOperationDao(operationsCollection(database));
-        opLogDao = new MongoOpLogDao(opLogCollection(database));
+        opLogDao = new MongoOpLogDao(opLogCollection(database), contention);
     }
 
     @AfterClass
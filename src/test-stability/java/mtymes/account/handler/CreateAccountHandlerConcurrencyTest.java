@@ -28,7 +28,7 @@ public class CreateAccountHandlerConcurrencyTest extends BaseOperationHandlerSta
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new CreateAccountHandler(accountDao, operationDao);
+        handler = new CreateAccountHandler(accountDao, operationDao, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -27,7 +27,7 @@ public class CreateAccountHandlerDisasterRecoveryTest extends BaseOperationHandl
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new CreateAccountHandler(brokenAccountDao, brokenOperationDao);
+        handler = new CreateAccountHandler(brokenAccountDao, brokenOperationDao, new CompletionRegistry(), contention);
     }
 
     @Test
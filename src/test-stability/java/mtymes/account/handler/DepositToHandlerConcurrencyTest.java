@@ -25,7 +25,7 @@ public class DepositToHandlerConcurrencyTest extends BaseOperationHandlerStabili
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new DepositToHandler(accountDao, operationDao);
+        handler = new DepositToHandler(accountDao, operationDao, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -24,7 +24,7 @@ public class DepositToHandlerDisasterRecoveryTest extends BaseOperationHandlerDi
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new DepositToHandler(brokenAccountDao, brokenOperationDao);
+        handler = new DepositToHandler(brokenAccountDao, brokenOperationDao, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -29,7 +29,7 @@ public class TransferFromHandlerConcurrencyTest extends BaseOperationHandlerStab
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new TransferFromHandler(accountDao, operationDao, opLogDao, workQueue);
+        handler = new TransferFromHandler(accountDao, operationDao, opLogDao, workQueue, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -28,7 +28,7 @@ public class TransferFromHandlerDisasterRecoveryTest extends BaseOperationHandle
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new TransferFromHandler(brokenAccountDao, brokenOperationDao, brokenOpLogDao, workQueue);
+        handler = new TransferFromHandler(brokenAccountDao, brokenOperationDao, brokenOpLogDao, workQueue, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -4,6 +4,7 @@ import javafixes.math.Decimal;
 import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.*;
+import mtymes.common.util.SetQueue;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -22,7 +23,7 @@ public class TransferToHandlerConcurrencyTest extends BaseOperationHandlerStabil
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new TransferToHandler(accountDao, operationDao);
+        handler = new TransferToHandler(accountDao, operationDao, new TransferRefunds(operationDao, opLogDao, new SetQueue<>()), new CompletionRegistry(), contention);
     }
 
     @Test
@@ -4,6 +4,7 @@ import javafixes.math.Decimal;
 import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.*;
+import mtymes.common.util.SetQueue;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -21,7 +22,7 @@ public class TransferToHandlerDisasterRecoveryTest extends BaseOperationHandlerD
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new TransferToHandler(brokenAccountDao, brokenOperationDao);
+        handler = new TransferToHandler(brokenAccountDao, brokenOperationDao, new TransferRefunds(brokenOperationDao, brokenOpLogDao, new SetQueue<>()), new CompletionRegistry(), contention);
     }
 
     @Test
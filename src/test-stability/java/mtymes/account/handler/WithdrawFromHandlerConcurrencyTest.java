@@ -26,7 +26,7 @@ public class WithdrawFromHandlerConcurrencyTest extends BaseOperationHandlerStab
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new WithdrawFromHandler(accountDao, operationDao);
+        handler = new WithdrawFromHandler(accountDao, operationDao, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -25,7 +25,7 @@ public class WithdrawFromHandlerDisasterRecoveryTest extends BaseOperationHandle
     @Before
     public void setUp() throws Exception {
         db.removeAllData();
-        handler = new WithdrawFromHandler(brokenAccountDao, brokenOperationDao);
+        handler = new WithdrawFromHandler(brokenAccountDao, brokenOperationDao, new CompletionRegistry(), contention);
     }
 
     @Test
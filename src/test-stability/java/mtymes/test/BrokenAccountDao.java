@@ -41,4 +41,10 @@ public class BrokenAccountDao extends BrokenClass implements AccountDao {
         failTheFirstTime("findCurrentVersion", accountId);
         return wrappedDao.findCurrentVersion(accountId);
     }
+
+    @Override
+    public boolean restoreAccount(Account account, Optional<SeqId> currentVersion) {
+        failTheFirstTime("restoreAccount", account, currentVersion);
+        return wrappedDao.restoreAccount(account, currentVersion);
+    }
 }
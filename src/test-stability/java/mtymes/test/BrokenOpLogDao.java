@@ -6,6 +6,7 @@ import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.OperationId;
 import mtymes.account.domain.operation.SeqId;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -30,9 +31,27 @@ public class BrokenOpLogDao extends BrokenClass implements OpLogDao {
         wrappedDao.markAsFinished(operationId);
     }
 
+    @Override
+    public void markAsFinished(Collection<OperationId> operationIds) {
+        failTheFirstTime("markAsFinished", operationIds);
+        wrappedDao.markAsFinished(operationIds);
+    }
+
     @Override
     public List<Tuple<OperationId, SeqId>> findUnfinishedOperationIds(AccountId accountId) {
         failTheFirstTime("findUnfinishedOperationIds", accountId);
         return wrappedDao.findUnfinishedOperationIds(accountId);
     }
+
+    @Override
+    public List<Tuple<OperationId, SeqId>> findOperationIdsAfter(AccountId accountId, SeqId seqId) {
+        failTheFirstTime("findOperationIdsAfter", accountId, seqId);
+        return wrappedDao.findOperationIdsAfter(accountId, seqId);
+    }
+
+    @Override
+    public List<AccountId> findAccountIds() {
+        failTheFirstTime("findAccountIds");
+        return wrappedDao.findAccountIds();
+    }
 }
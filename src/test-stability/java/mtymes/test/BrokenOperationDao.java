@@ -6,6 +6,8 @@ import mtymes.account.domain.operation.Operation;
 import mtymes.account.domain.operation.OperationId;
 import mtymes.account.exception.DuplicateItemException;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -36,9 +38,27 @@ public class BrokenOperationDao extends BrokenClass implements OperationDao {
         return wrappedDao.markAsRejected(operationId, description);
     }
 
+    @Override
+    public int markAsApplied(Collection<OperationId> operationIds) {
+        failTheFirstTime("markAsApplied", operationIds);
+        return wrappedDao.markAsApplied(operationIds);
+    }
+
+    @Override
+    public int markAsRejected(Map<OperationId, String> descriptions) {
+        failTheFirstTime("markAsRejected", descriptions);
+        return wrappedDao.markAsRejected(descriptions);
+    }
+
     @Override
     public Optional<LoggedOperation> findLoggedOperation(OperationId operationId) {
         failTheFirstTime("findLoggedOperation", operationId);
         return wrappedDao.findLoggedOperation(operationId);
     }
+
+    @Override
+    public Map<OperationId, LoggedOperation> findLoggedOperations(Collection<OperationId> operationIds) {
+        failTheFirstTime("findLoggedOperations", operationIds);
+        return wrappedDao.findLoggedOperations(operationIds);
+    }
 }
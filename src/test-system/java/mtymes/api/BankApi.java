@@ -32,4 +32,12 @@ public class BankApi extends BaseApi {
     public ResponseWrapper queuedWorkStats() {
         return get(path("work/queued/stats"));
     }
+
+    public ResponseWrapper contentionStats(String top) {
+        return get(path("contention/stats").queryParam("top", top));
+    }
+
+    public ResponseWrapper metrics() {
+        return get(path("metrics"));
+    }
 }
@@ -7,6 +7,7 @@ import org.json.JSONException;
 
 import static mtymes.common.json.JsonUtil.toJsonObject;
 import static mtymes.common.json.JsonUtil.toObject;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
@@ -42,6 +43,12 @@ public class ResponseWrapper {
         return shouldHaveBody(jsonBody, true);
     }
 
+    public ResponseWrapper shouldHaveTextBodyContaining(String text) {
+        assertThat(response.getHeader("Content-Type"), containsString("text/plain"));
+        assertThat(response.getResponseBody(), containsString(text));
+        return this;
+    }
+
     public AccountId accountId() {
         return AccountId.accountId(toJsonObject(response.getResponseBody()).get("accountId").asText());
     }
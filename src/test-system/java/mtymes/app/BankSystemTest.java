@@ -38,8 +38,7 @@ public class BankSystemTest {
                 "localhost",
                 db.getPort(),
                 db.getDbName(),
-                10,
-                Duration.ofMillis(0)
+                10
         );
         appNode = new Bank(properties).start();
 
@@ -472,6 +471,36 @@ public class BankSystemTest {
                         .build());
     }
 
+    @Test
+    public void shouldExposeOperationTimingsAsMetrics() {
+        AccountId accountId = api.createAccount().accountId();
+        api.depositMoney(accountId, randomPositiveAmount());
+
+        // When & Then
+        api.metrics()
+                .shouldHaveStatus(200)
+                .shouldHaveTextBodyContaining("# TYPE bank_store_operation_seconds histogram")
+                .shouldHaveTextBodyContaining("bank_register_operation_id_seconds_count")
+                .shouldHaveTextBodyContaining("bank_operation_handler_seconds_count{type=\"DepositTo\"}")
+                .shouldHaveTextBodyContaining("bank_mark_as_finished_seconds_count")
+                .shouldHaveTextBodyContaining("bank_work_queue_wait_seconds_count");
+    }
+
+    @Test
+    public void shouldFailToLoadContentionStatsForInvalidTop() {
+        // When & Then
+        api.contentionStats("-1")
+                .shouldHaveStatus(400)
+                .shouldHaveBody(jsonBuilder()
+                        .with("message", "Parameter 'top' must be a non-negative integer but was '-1'")
+                        .build());
+        api.contentionStats("ten")
+                .shouldHaveStatus(400)
+                .shouldHaveBody(jsonBuilder()
+                        .with("message", "Parameter 'top' must be a non-negative integer but was 'ten'")
+                        .build());
+    }
+
     private void waitForQueuedWorkToFinish(Duration duration) {
         long startTime = System.currentTimeMillis();
 
@@ -50,8 +50,7 @@ public class ConcurrencySystemTest {
                 "localhost",
                 db.getPort(),
                 db.getDbName(),
-                10,
-                Duration.ofMillis(0)
+                10
         );
         appNode = new Bank(properties).start();
 
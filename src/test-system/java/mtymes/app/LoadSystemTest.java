@@ -0,0 +1,82 @@
+package mtymes.app;
+
+import mtymes.account.app.Bank;
+import mtymes.account.config.SystemProperties;
+import mtymes.api.BankApi;
+import mtymes.load.Endpoint;
+import mtymes.load.LoadGenerator;
+import mtymes.load.LoadProfile;
+import mtymes.load.LoadReport;
+import mtymes.test.db.EmbeddedDB;
+import mtymes.test.db.MongoManager;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import static de.flapdoodle.embed.process.runtime.Network.getFreeServerPort;
+import static mtymes.load.Endpoint.*;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+public class LoadSystemTest {
+
+    private static EmbeddedDB db;
+    private static Bank appNode;
+    private static BankApi api;
+
+    @BeforeClass
+    public static void initDbAndApp() throws IOException {
+        db = MongoManager.getEmbeddedDB();
+
+        SystemProperties properties = new SystemProperties(
+                getFreeServerPort(),
+                "localhost",
+                db.getPort(),
+                db.getDbName(),
+                10
+        );
+        appNode = new Bank(properties).start();
+
+        api = new BankApi("localhost", appNode.getPort());
+    }
+
+    @AfterClass
+    public static void releaseDB() {
+        MongoManager.release(db);
+        appNode.shutdown();
+    }
+
+    @Test
+    public void shouldReportLatenciesOfMixedLoadOnHotAccounts() throws InterruptedException, IOException {
+        LoadProfile profile = new LoadProfile()
+                .endpointWeight(CreateAccount, 1)
+                .endpointWeight(LoadAccount, 4)
+                .endpointWeight(DepositMoney, 2)
+                .endpointWeight(WithdrawMoney, 2)
+                .endpointWeight(TransferMoney, 6)
+                .accountCount(50)
+                .accountSkew(0.99)
+                .requestsPerSecond(200)
+                .duration(Duration.ofSeconds(5));
+
+        // When
+        LoadReport report = new LoadGenerator(api, profile).run();
+
+        // Then
+        report.printSummary(System.out);
+        report.writeHistograms(Paths.get("build", "reports", "load"));
+
+        long requestCount = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            assertThat(report.requestCount(endpoint), greaterThan(0L));
+            assertThat(report.errorCount(endpoint), equalTo(0L));
+            requestCount += report.requestCount(endpoint);
+        }
+        assertThat(requestCount, equalTo(1_000L));
+    }
+}
@@ -13,7 +13,6 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
-import java.time.Duration;
 
 import static de.flapdoodle.embed.process.runtime.Network.getFreeServerPort;
 import static javafixes.math.Decimal.d;
@@ -40,8 +39,7 @@ public class TwoNodesSystemTest {
                 "localhost",
                 db.getPort(),
                 db.getDbName(),
-                10,
-                Duration.ofMillis(0)
+                10
         );
         appNode1 = new Bank(properties1).start();
         SystemProperties properties2 = new SystemProperties(
@@ -49,8 +47,7 @@ public class TwoNodesSystemTest {
                 "localhost",
                 db.getPort(),
                 db.getDbName(),
-                10,
-                Duration.ofMillis(0)
+                10
         );
         appNode2 = new Bank(properties2).start();
 
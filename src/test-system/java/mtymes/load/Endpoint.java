@@ -0,0 +1,9 @@
+package mtymes.load;
+
+public enum Endpoint {
+    CreateAccount,
+    LoadAccount,
+    DepositMoney,
+    WithdrawMoney,
+    TransferMoney
+}
@@ -0,0 +1,143 @@
+package mtymes.load;
+
+import javafixes.math.Decimal;
+import mtymes.account.domain.account.AccountId;
+import mtymes.api.BankApi;
+import mtymes.api.ResponseWrapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.*;
+import static javafixes.math.Decimal.d;
+
+/**
+ * Sends a mix of requests to the Bank using the BankApi client.
+ * The requests are started at a fixed rate (open-loop) - if the service slows down, the requests queue up
+ * (at most maxConcurrency of them are in flight) and their waiting time is part of the recorded latency.
+ * The used accounts are created (and funded) before the measured run.
+ */
+public class LoadGenerator {
+
+    private final BankApi api;
+    private final LoadProfile profile;
+
+    public LoadGenerator(BankApi api, LoadProfile profile) {
+        int totalWeight = profile.endpointWeights().values().stream().mapToInt(Integer::intValue).sum();
+        checkArgument(totalWeight > 0, "at least one endpoint must have a positive weight");
+
+        this.api = api;
+        this.profile = profile;
+    }
+
+    public LoadReport run() throws InterruptedException {
+        List<AccountId> accountIds = createAccounts();
+        ZipfianDistribution accountDistribution = new ZipfianDistribution(accountIds.size(), profile.accountSkew());
+        EndpointMix endpointMix = new EndpointMix(profile.endpointWeights());
+        LoadReport report = new LoadReport();
+
+        ExecutorService executor = newFixedThreadPool(profile.maxConcurrency());
+        try {
+            long intervalNanos = SECONDS.toNanos(1) / profile.requestsPerSecond();
+            long startTime = System.nanoTime();
+            long endTime = startTime + profile.duration().toNanos();
+            for (long intendedStartTime = startTime; intendedStartTime < endTime; intendedStartTime += intervalNanos) {
+                waitUntil(intendedStartTime);
+                long scheduledTime = intendedStartTime;
+                executor.execute(() -> sendRequest(endpointMix.nextEndpoint(), accountIds, accountDistribution, scheduledTime, report));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (!executor.awaitTermination(1, MINUTES)) {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    private List<AccountId> createAccounts() {
+        List<AccountId> accountIds = newArrayList();
+        for (int i = 0; i < profile.accountCount(); i++) {
+            AccountId accountId = api.createAccount().accountId();
+            api.depositMoney(accountId, profile.initialBalance());
+            accountIds.add(accountId);
+        }
+        return accountIds;
+    }
+
+    private void sendRequest(Endpoint endpoint, List<AccountId> accountIds, ZipfianDistribution accountDistribution, long scheduledTime, LoadReport report) {
+        try {
+            ResponseWrapper response = send(endpoint, accountIds, accountDistribution);
+            report.recordResponse(endpoint, microsSince(scheduledTime), response.status());
+        } catch (RuntimeException e) {
+            report.recordError(endpoint, microsSince(scheduledTime));
+        }
+    }
+
+    private ResponseWrapper send(Endpoint endpoint, List<AccountId> accountIds, ZipfianDistribution accountDistribution) {
+        AccountId accountId = accountIds.get(accountDistribution.nextIndex());
+        switch (endpoint) {
+            case CreateAccount:
+                return api.createAccount();
+            case LoadAccount:
+                return api.loadAccount(accountId);
+            case DepositMoney:
+                return api.depositMoney(accountId, randomAmount());
+            case WithdrawMoney:
+                return api.withdrawMoney(accountId, randomAmount());
+            case TransferMoney:
+                AccountId toAccountId = accountIds.get(accountDistribution.nextIndex());
+                while (toAccountId.equals(accountId)) {
+                    toAccountId = accountIds.get(ThreadLocalRandom.current().nextInt(accountIds.size()));
+                }
+                return api.transferMoney(accountId, toAccountId, randomAmount());
+        }
+        throw new IllegalStateException("Unknown endpoint " + endpoint);
+    }
+
+    private Decimal randomAmount() {
+        return d(ThreadLocalRandom.current().nextInt(1, profile.maxAmount() + 1));
+    }
+
+    private static long microsSince(long nanoTime) {
+        return NANOSECONDS.toMicros(System.nanoTime() - nanoTime);
+    }
+
+    private static void waitUntil(long nanoTime) throws InterruptedException {
+        long remainingNanos = nanoTime - System.nanoTime();
+        if (remainingNanos > 0) {
+            NANOSECONDS.sleep(remainingNanos);
+        }
+    }
+
+    private static class EndpointMix {
+
+        private final Endpoint[] endpoints;
+        private final int[] cumulativeWeights;
+
+        EndpointMix(Map<Endpoint, Integer> weights) {
+            endpoints = weights.keySet().toArray(new Endpoint[0]);
+            cumulativeWeights = new int[endpoints.length];
+            int sum = 0;
+            for (int i = 0; i < endpoints.length; i++) {
+                sum += weights.get(endpoints[i]);
+                cumulativeWeights[i] = sum;
+            }
+        }
+
+        Endpoint nextEndpoint() {
+            int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < endpoints.length; i++) {
+                if (value < cumulativeWeights[i]) {
+                    return endpoints[i];
+                }
+            }
+            throw new IllegalStateException("Weights are not in ascending order");
+        }
+    }
+}
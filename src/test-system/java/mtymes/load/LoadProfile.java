@@ -0,0 +1,108 @@
+package mtymes.load;
+
+import javafixes.math.Decimal;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static javafixes.math.Decimal.d;
+
+public class LoadProfile {
+
+    private final Map<Endpoint, Integer> endpointWeights = new EnumMap<>(Endpoint.class);
+    private int accountCount = 100;
+    private double accountSkew = 0.0;
+    private Decimal initialBalance = d("1_000_000");
+    private int maxAmount = 100;
+    private int requestsPerSecond = 100;
+    private Duration duration = Duration.ofSeconds(30);
+    private int maxConcurrency = 64;
+
+    public LoadProfile endpointWeight(Endpoint endpoint, int weight) {
+        checkNotNull(endpoint, "endpoint can't be null");
+        checkArgument(weight >= 0, "weight can't be negative");
+        endpointWeights.put(endpoint, weight);
+        return this;
+    }
+
+    public LoadProfile accountCount(int accountCount) {
+        checkArgument(accountCount > 1, "accountCount must be at least 2");
+        this.accountCount = accountCount;
+        return this;
+    }
+
+    // exponent of the Zipfian distribution of the used accounts - 0.0 means uniform and ~1.0 a few very hot accounts
+    public LoadProfile accountSkew(double accountSkew) {
+        checkArgument(accountSkew >= 0.0, "accountSkew can't be negative");
+        this.accountSkew = accountSkew;
+        return this;
+    }
+
+    public LoadProfile initialBalance(Decimal initialBalance) {
+        checkNotNull(initialBalance, "initialBalance can't be null");
+        this.initialBalance = initialBalance;
+        return this;
+    }
+
+    // amounts of deposits, withdrawals and transfers are picked randomly between 1 and maxAmount
+    public LoadProfile maxAmount(int maxAmount) {
+        checkArgument(maxAmount > 0, "maxAmount must be a positive value");
+        this.maxAmount = maxAmount;
+        return this;
+    }
+
+    // requests are started at this rate regardless of how long the previous ones take (open-loop)
+    public LoadProfile requestsPerSecond(int requestsPerSecond) {
+        checkArgument(requestsPerSecond > 0, "requestsPerSecond must be a positive value");
+        this.requestsPerSecond = requestsPerSecond;
+        return this;
+    }
+
+    public LoadProfile duration(Duration duration) {
+        checkNotNull(duration, "duration can't be null");
+        checkArgument(!duration.isNegative() && !duration.isZero(), "duration must be a positive value");
+        this.duration = duration;
+        return this;
+    }
+
+    public LoadProfile maxConcurrency(int maxConcurrency) {
+        checkArgument(maxConcurrency > 0, "maxConcurrency must be a positive value");
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public Map<Endpoint, Integer> endpointWeights() {
+        return endpointWeights;
+    }
+
+    public int accountCount() {
+        return accountCount;
+    }
+
+    public double accountSkew() {
+        return accountSkew;
+    }
+
+    public Decimal initialBalance() {
+        return initialBalance;
+    }
+
+    public int maxAmount() {
+        return maxAmount;
+    }
+
+    public int requestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public Duration duration() {
+        return duration;
+    }
+
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+}
@@ -0,0 +1,97 @@
+package mtymes.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Latencies (in microseconds) and outcomes of the requests of one load run, per endpoint.
+ * Latencies are measured from the time the request should have been sent, so a stalled service
+ * also shows in the latency of the requests that were waiting for it.
+ */
+public class LoadReport {
+
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    LoadReport() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    void recordResponse(Endpoint endpoint, long latencyMicros, int status) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        endpointStats.latencies.recordValue(latencyMicros);
+        if (status >= 500) {
+            endpointStats.errorCount.incrementAndGet();
+        } else if (status >= 400) {
+            endpointStats.rejectedCount.incrementAndGet();
+        }
+    }
+
+    void recordError(Endpoint endpoint, long latencyMicros) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        endpointStats.latencies.recordValue(latencyMicros);
+        endpointStats.errorCount.incrementAndGet();
+    }
+
+    public Histogram latencies(Endpoint endpoint) {
+        return stats.get(endpoint).latencies;
+    }
+
+    public long requestCount(Endpoint endpoint) {
+        return stats.get(endpoint).latencies.getTotalCount();
+    }
+
+    // 4xx responses, like a withdrawal from an account with insufficient funds
+    public long rejectedCount(Endpoint endpoint) {
+        return stats.get(endpoint).rejectedCount.get();
+    }
+
+    // 5xx responses and failed requests
+    public long errorCount(Endpoint endpoint) {
+        return stats.get(endpoint).errorCount.get();
+    }
+
+    public void printSummary(PrintStream out) {
+        out.println(format("%-14s %10s %10s %10s %12s %12s %12s %12s", "endpoint", "requests", "rejected", "errors", "p50 [us]", "p99 [us]", "p99.9 [us]", "max [us]"));
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram latencies = latencies(endpoint);
+            if (latencies.getTotalCount() > 0) {
+                out.println(format("%-14s %10d %10d %10d %12d %12d %12d %12d",
+                        endpoint, latencies.getTotalCount(), rejectedCount(endpoint), errorCount(endpoint),
+                        latencies.getValueAtPercentile(50.0), latencies.getValueAtPercentile(99.0),
+                        latencies.getValueAtPercentile(99.9), latencies.getMaxValue()));
+            }
+        }
+    }
+
+    // writes one <endpoint>.hgrm percentile distribution file (in milliseconds) per used endpoint
+    public void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram latencies = latencies(endpoint);
+            if (latencies.getTotalCount() > 0) {
+                try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(endpoint + ".hgrm")))) {
+                    latencies.outputPercentileDistribution(out, 1_000.0);
+                }
+            }
+        }
+    }
+
+    private static class EndpointStats {
+
+        final Histogram latencies = new ConcurrentHistogram(3);
+        final AtomicLong rejectedCount = new AtomicLong();
+        final AtomicLong errorCount = new AtomicLong();
+    }
+}
@@ -0,0 +1,29 @@
+package mtymes.load;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// index i (starting from 0) is picked with probability proportional to 1 / (i + 1)^exponent
+class ZipfianDistribution {
+
+    private final double[] cumulativeProbabilities;
+
+    ZipfianDistribution(int size, double exponent) {
+        cumulativeProbabilities = new double[size];
+        double sum = 0.0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulativeProbabilities[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulativeProbabilities[i] /= sum;
+        }
+    }
+
+    int nextIndex() {
+        double value = ThreadLocalRandom.current().nextDouble();
+        int index = Arrays.binarySearch(cumulativeProbabilities, value);
+        index = (index >= 0) ? index : -index - 1;
+        return Math.min(index, cumulativeProbabilities.length - 1);
+    }
+}
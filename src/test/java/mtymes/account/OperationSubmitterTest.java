@@ -2,23 +2,28 @@ package mtymes.account;
 
 import javafixes.math.Decimal;
 import javafixes.object.Either;
-import mtymes.account.dao.AccountDao;
-import mtymes.account.dao.OpLogDao;
-import mtymes.account.dao.OperationDao;
+import mtymes.account.dao.*;
 import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.*;
+import mtymes.account.handler.CompletionRegistry;
 import mtymes.account.work.Worker;
+import mtymes.common.metrics.Metrics;
 import mtymes.common.domain.Failure;
 import mtymes.common.domain.Success;
 import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static javafixes.object.Either.left;
 import static javafixes.object.Either.right;
+import static mtymes.account.dao.mongo.AmountFormat.decimal128;
+import static mtymes.account.dao.mongo.AmountFormat.minorUnits;
 import static mtymes.account.domain.operation.FinalState.Applied;
 import static mtymes.account.domain.operation.FinalState.Rejected;
 import static mtymes.common.domain.Failure.failure;
@@ -26,6 +31,7 @@ import static mtymes.domain.account.AccountBuilder.accountBuilder;
 import static mtymes.test.Random.*;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class OperationSubmitterTest extends StrictMockTest {
@@ -35,6 +41,7 @@ public class OperationSubmitterTest extends StrictMockTest {
     private OperationDao operationDao;
     private OpLogDao opLogDao;
     private Worker worker;
+    private CompletionRegistry completions;
 
     private OperationSubmitter submitter;
 
@@ -45,8 +52,9 @@ public class OperationSubmitterTest extends StrictMockTest {
         operationDao = mock(OperationDao.class);
         opLogDao = mock(OpLogDao.class);
         worker = mock(Worker.class);
+        completions = new CompletionRegistry();
 
-        submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker);
+        submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker, completions, Runnable::run, Duration.ZERO, decimal128(), new Metrics());
     }
 
     @Test
@@ -239,4 +247,278 @@ public class OperationSubmitterTest extends StrictMockTest {
         // Then
         assertThat(response, equalTo(left(failure(failureMessage))));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldCreateAccountAsynchronously() throws Exception {
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        CreateAccount expectedOperation = new CreateAccount(operationId, accountId);
+        Account expectedAccount = accountBuilder().accountId(accountId).build();
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        when(idGenerator.nextAccountId()).thenReturn(accountId);
+        doNothing().when(operationDao).storeOperation(expectedOperation);
+        when(opLogDao.registerOperationId(accountId, operationId)).thenReturn(randomSeqId());
+        doNothing().when(worker).runUnfinishedOperations(accountId);
+        when(operationDao.findLoggedOperation(operationId)).thenReturn(Optional.of(new LoggedOperation(expectedOperation, Optional.of(Applied), Optional.empty())));
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(expectedAccount));
+
+        // When
+        CompletableFuture<Either<Failure, Account>> response = submitter.createAccountAsync();
+
+        // Then
+        assertThat(response.get(), equalTo(right(expectedAccount)));
+    }
+
+    @Test
+    public void shouldDepositMoneyAsynchronously() throws Exception {
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        DepositTo expectedOperation = new DepositTo(operationId, accountId, amount);
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        doNothing().when(operationDao).storeOperation(expectedOperation);
+        when(opLogDao.registerOperationId(accountId, operationId)).thenReturn(randomSeqId());
+        doNothing().when(worker).runUnfinishedOperations(accountId);
+        when(operationDao.findLoggedOperation(operationId)).thenReturn(Optional.of(new LoggedOperation(expectedOperation, Optional.of(Applied), Optional.empty())));
+
+        // When
+        CompletableFuture<Either<Failure, Success>> response = submitter.depositMoneyAsync(accountId, amount);
+
+        // Then
+        assertThat(response.get(), equalTo(right(new Success())));
+    }
+
+    @Test
+    public void shouldWithdrawMoneyAsynchronously() throws Exception {
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        WithdrawFrom expectedOperation = new WithdrawFrom(operationId, accountId, amount);
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        doNothing().when(operationDao).storeOperation(expectedOperation);
+        when(opLogDao.registerOperationId(accountId, operationId)).thenReturn(randomSeqId());
+        doNothing().when(worker).runUnfinishedOperations(accountId);
+        String failureMessage = "for some reason the withdraw failed";
+        when(operationDao.findLoggedOperation(operationId)).thenReturn(Optional.of(new LoggedOperation(expectedOperation, Optional.of(Rejected), Optional.of(failureMessage))));
+
+        // When
+        CompletableFuture<Either<Failure, Success>> response = submitter.withdrawMoneyAsync(accountId, amount);
+
+        // Then
+        assertThat(response.get(), equalTo(left(failure(failureMessage))));
+    }
+
+    @Test
+    public void shouldTransferMoneyAsynchronously() throws Exception {
+        OperationId operationId = randomOperationId();
+        OperationId toPartOperationId = randomOperationId();
+        AccountId fromAccountId = randomAccountId();
+        AccountId toAccountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        TransferFrom expectedOperation = new TransferFrom(operationId, toPartOperationId, new TransferDetail(fromAccountId, toAccountId, amount));
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId, toPartOperationId);
+        doNothing().when(operationDao).storeOperation(expectedOperation);
+        when(opLogDao.registerOperationId(fromAccountId, operationId)).thenReturn(randomSeqId());
+        doNothing().when(worker).runUnfinishedOperations(fromAccountId);
+        when(operationDao.findLoggedOperation(operationId)).thenReturn(Optional.of(new LoggedOperation(expectedOperation, Optional.of(Applied), Optional.empty())));
+
+        // When
+        CompletableFuture<Either<Failure, Success>> response = submitter.transferMoneyAsync(fromAccountId, toAccountId, amount);
+
+        // Then
+        assertThat(response.get(), equalTo(right(new Success())));
+    }
+
+    @Test
+    public void shouldCompleteAsyncResponseExceptionallyIfUnableToStoreOperation() {
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        DepositTo expectedOperation = new DepositTo(operationId, accountId, amount);
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        doThrow(new IllegalStateException("db is down")).when(operationDao).storeOperation(expectedOperation);
+
+        // When
+        CompletableFuture<Either<Failure, Success>> response = submitter.depositMoneyAsync(accountId, amount);
+
+        // Then
+        assertTrue(response.isCompletedExceptionally());
+    }
+
+    @Test
+    public void shouldNotReloadOperationFinishedByThisProcess() {
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        DepositTo expectedOperation = new DepositTo(operationId, accountId, amount);
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        doNothing().when(operationDao).storeOperation(expectedOperation);
+        when(opLogDao.registerOperationId(accountId, operationId)).thenReturn(randomSeqId());
+        doAnswer(invocation -> {
+            completions.markAsApplied(operationId);
+            return null;
+        }).when(worker).runUnfinishedOperations(accountId);
+
+        // When
+        Either<Failure, Success> response = submitter.depositMoney(accountId, amount);
+
+        // Then
+        assertThat(response, equalTo(right(new Success())));
+    }
+
+    @Test
+    public void shouldNotReloadOperationRejectedByThisProcess() throws Exception {
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        WithdrawFrom expectedOperation = new WithdrawFrom(operationId, accountId, amount);
+        String failureMessage = "for some reason the withdraw failed";
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        doNothing().when(operationDao).storeOperation(expectedOperation);
+        when(opLogDao.registerOperationId(accountId, operationId)).thenReturn(randomSeqId());
+        doAnswer(invocation -> {
+            completions.markAsRejected(operationId, failureMessage);
+            return null;
+        }).when(worker).runUnfinishedOperations(accountId);
+
+        // When
+        CompletableFuture<Either<Failure, Success>> response = submitter.withdrawMoneyAsync(accountId, amount);
+
+        // Then
+        assertThat(response.get(), equalTo(left(failure(failureMessage))));
+    }
+
+    @Test
+    public void shouldRefuseAmountThatCanNotBeStoredWithoutLoggingIt() throws Exception {
+        submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker, completions, Runnable::run, Duration.ZERO, minorUnits(2), new Metrics());
+        AccountId accountId = randomAccountId();
+        Decimal amount = Decimal.d("10.001");
+        Failure expectedFailure = failure("Amount 10.001 has more than 2 decimal places");
+
+        // When
+        Either<Failure, Success> depositResponse = submitter.depositMoney(accountId, amount);
+        Either<Failure, Success> withdrawResponse = submitter.withdrawMoney(accountId, amount);
+        Either<Failure, Success> transferResponse = submitter.transferMoney(accountId, randomAccountId(), amount);
+        Either<Failure, Success> asyncTransferResponse = submitter.transferMoneyAsync(accountId, randomAccountId(), amount).get();
+
+        // Then
+        assertThat(depositResponse, equalTo(left(expectedFailure)));
+        assertThat(withdrawResponse, equalTo(left(expectedFailure)));
+        assertThat(transferResponse, equalTo(left(expectedFailure)));
+        assertThat(asyncTransferResponse, equalTo(left(expectedFailure)));
+    }
+
+    @Test
+    public void shouldCreateAccountAsynchronouslyUsingNonBlockingDaos() throws Exception {
+        AsyncAccountDao asyncAccountDao = mock(AsyncAccountDao.class);
+        AsyncOperationDao asyncOperationDao = mock(AsyncOperationDao.class);
+        AsyncOpLogDao asyncOpLogDao = mock(AsyncOpLogDao.class);
+        submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker, completions, Runnable::run, Duration.ZERO, decimal128(), new Metrics(), asyncAccountDao, asyncOperationDao, asyncOpLogDao);
+
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        CreateAccount expectedOperation = new CreateAccount(operationId, accountId);
+        Account expectedAccount = accountBuilder().accountId(accountId).build();
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        when(idGenerator.nextAccountId()).thenReturn(accountId);
+        when(asyncOperationDao.storeOperation(expectedOperation)).thenReturn(completedFuture(null));
+        when(asyncOpLogDao.registerOperationId(accountId, operationId)).thenReturn(completedFuture(randomSeqId()));
+        doNothing().when(worker).runUnfinishedOperations(accountId);
+        when(asyncOperationDao.findLoggedOperation(operationId)).thenReturn(completedFuture(Optional.of(new LoggedOperation(expectedOperation, Optional.of(Applied), Optional.empty()))));
+        when(asyncAccountDao.findAccount(accountId)).thenReturn(completedFuture(Optional.of(expectedAccount)));
+
+        // When
+        CompletableFuture<Either<Failure, Account>> response = submitter.createAccountAsync();
+
+        // Then
+        assertThat(response.get(), equalTo(right(expectedAccount)));
+    }
+
+    @Test
+    public void shouldNotReloadOperationFinishedByThisProcessUsingNonBlockingDaos() throws Exception {
+        AsyncAccountDao asyncAccountDao = mock(AsyncAccountDao.class);
+        AsyncOperationDao asyncOperationDao = mock(AsyncOperationDao.class);
+        AsyncOpLogDao asyncOpLogDao = mock(AsyncOpLogDao.class);
+        submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker, completions, Runnable::run, Duration.ZERO, decimal128(), new Metrics(), asyncAccountDao, asyncOperationDao, asyncOpLogDao);
+
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        DepositTo expectedOperation = new DepositTo(operationId, accountId, amount);
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        when(asyncOperationDao.storeOperation(expectedOperation)).thenReturn(completedFuture(null));
+        when(asyncOpLogDao.registerOperationId(accountId, operationId)).thenReturn(completedFuture(randomSeqId()));
+        doAnswer(invocation -> {
+            completions.markAsApplied(operationId);
+            return null;
+        }).when(worker).runUnfinishedOperations(accountId);
+
+        // When
+        CompletableFuture<Either<Failure, Success>> response = submitter.depositMoneyAsync(accountId, amount);
+
+        // Then
+        assertThat(response.get(), equalTo(right(new Success())));
+    }
+
+    @Test
+    public void shouldPollOperationUnfinishedByAnotherNodeUsingNonBlockingDaos() throws Exception {
+        AsyncAccountDao asyncAccountDao = mock(AsyncAccountDao.class);
+        AsyncOperationDao asyncOperationDao = mock(AsyncOperationDao.class);
+        AsyncOpLogDao asyncOpLogDao = mock(AsyncOpLogDao.class);
+        submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker, completions, Runnable::run, Duration.ofSeconds(5), decimal128(), new Metrics(), asyncAccountDao, asyncOperationDao, asyncOpLogDao);
+
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        DepositTo expectedOperation = new DepositTo(operationId, accountId, amount);
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        when(asyncOperationDao.storeOperation(expectedOperation)).thenReturn(completedFuture(null));
+        when(asyncOpLogDao.registerOperationId(accountId, operationId)).thenReturn(completedFuture(randomSeqId()));
+        doNothing().when(worker).runUnfinishedOperations(accountId);
+        when(asyncOperationDao.findLoggedOperation(operationId)).thenReturn(
+                completedFuture(Optional.of(new LoggedOperation(expectedOperation, Optional.empty(), Optional.empty()))),
+                completedFuture(Optional.of(new LoggedOperation(expectedOperation, Optional.of(Applied), Optional.empty())))
+        );
+
+        // When
+        CompletableFuture<Either<Failure, Success>> response = submitter.depositMoneyAsync(accountId, amount);
+
+        // Then
+        assertThat(response.get(), equalTo(right(new Success())));
+    }
+
+    @Test
+    public void shouldCompleteAsyncResponseExceptionallyIfSubmittedOperationCanNotBeLoaded() {
+        AsyncAccountDao asyncAccountDao = mock(AsyncAccountDao.class);
+        AsyncOperationDao asyncOperationDao = mock(AsyncOperationDao.class);
+        AsyncOpLogDao asyncOpLogDao = mock(AsyncOpLogDao.class);
+        submitter = new OperationSubmitter(idGenerator, accountDao, operationDao, opLogDao, worker, completions, Runnable::run, Duration.ZERO, decimal128(), new Metrics(), asyncAccountDao, asyncOperationDao, asyncOpLogDao);
+
+        OperationId operationId = randomOperationId();
+        AccountId accountId = randomAccountId();
+        Decimal amount = randomPositiveAmount();
+        DepositTo expectedOperation = new DepositTo(operationId, accountId, amount);
+
+        when(idGenerator.nextOperationId()).thenReturn(operationId);
+        when(asyncOperationDao.storeOperation(expectedOperation)).thenReturn(completedFuture(null));
+        when(asyncOpLogDao.registerOperationId(accountId, operationId)).thenReturn(completedFuture(randomSeqId()));
+        doNothing().when(worker).runUnfinishedOperations(accountId);
+        when(asyncOperationDao.findLoggedOperation(operationId)).thenReturn(completedFuture(Optional.empty()));
+
+        // When
+        CompletableFuture<Either<Failure, Success>> response = submitter.depositMoneyAsync(accountId, amount);
+
+        // Then
+        assertTrue(response.isCompletedExceptionally());
+    }
+}
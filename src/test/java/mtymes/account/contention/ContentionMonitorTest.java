@@ -0,0 +1,55 @@
+package mtymes.account.contention;
+
+import mtymes.account.domain.ContentionStats;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.node.NodeId;
+import mtymes.common.metrics.Metrics;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.test.Random.randomAccountId;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ContentionMonitorTest {
+
+    private final NodeId nodeId = nodeId(UUID.randomUUID());
+    private final ContentionMonitor contention = new ContentionMonitor(nodeId, new Metrics());
+
+    @Test
+    public void shouldCountConflictsPerHandlerAndReportHottestAccount() {
+        AccountId hotAccountId = randomAccountId();
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            contention.recordSeqIdConflict(hotAccountId);
+            contention.recordAccountUpdateConflict(hotAccountId, "TestHandler");
+        }
+        contention.recordAccountUpdateConflict(randomAccountId(), "TestHandler");
+
+        // Then
+        ContentionStats stats = contention.stats(1);
+        assertThat(stats.nodeId, equalTo(nodeId));
+        assertThat(stats.seqIdConflictCount, equalTo(1_000L));
+        assertThat(stats.accountUpdateConflictCounts.get("TestHandler"), equalTo(1_001L));
+        assertThat(stats.hottestAccounts.size(), equalTo(1));
+        assertThat(stats.hottestAccounts.get(0).accountId, equalTo(hotAccountId));
+    }
+
+    @Test
+    public void shouldNotShareCountsWithOtherNodes() {
+        ContentionMonitor otherContention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+
+        // When
+        otherContention.recordSeqIdConflict(randomAccountId());
+        otherContention.recordAccountUpdateConflict(randomAccountId(), "TestHandler");
+
+        // Then
+        ContentionStats stats = contention.stats(1);
+        assertThat(stats.seqIdConflictCount, equalTo(0L));
+        assertThat(stats.accountUpdateConflictCounts.isEmpty(), equalTo(true));
+        assertThat(stats.hottestAccounts.isEmpty(), equalTo(true));
+    }
+}
@@ -0,0 +1,141 @@
+package mtymes.account.dao;
+
+import javafixes.math.Decimal;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.test.StrictMockTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.domain.account.AccountBuilder.accountBuilder;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomPositiveAmount;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CachingAccountDaoTest extends StrictMockTest {
+
+    private AccountDao mongoAccountDao;
+    private CachingAccountDao accountDao;
+
+    private AccountId accountId = randomAccountId();
+
+    @Before
+    public void setUp() throws Exception {
+        mongoAccountDao = mock(AccountDao.class);
+        accountDao = new CachingAccountDao(mongoAccountDao, 2);
+    }
+
+    @Test
+    public void shouldLoadAccountOnlyOnce() {
+        Account account = accountBuilder().accountId(accountId).build();
+        when(mongoAccountDao.findAccount(accountId)).thenReturn(Optional.of(account));
+
+        // When
+        Optional<Account> account1 = accountDao.findAccount(accountId);
+        Optional<Account> account2 = accountDao.findAccount(accountId);
+
+        // Then
+        assertThat(account1, equalTo(Optional.of(account)));
+        assertThat(account2, equalTo(Optional.of(account)));
+        assertThat(accountDao.stats().hitCount, is(1L));
+        assertThat(accountDao.stats().missCount, is(1L));
+    }
+
+    @Test
+    public void shouldReplaceStaleCachedAccountOnRefresh() {
+        Account staleAccount = accountBuilder().accountId(accountId).version(seqId(1)).build();
+        Account storedAccount = accountBuilder().accountId(accountId).version(seqId(2)).build();
+        when(mongoAccountDao.findAccount(accountId)).thenReturn(Optional.of(staleAccount), Optional.of(storedAccount));
+        accountDao.findAccount(accountId);
+
+        // When
+        Optional<Account> refreshedAccount = accountDao.refreshAccount(staleAccount);
+
+        // Then
+        assertThat(refreshedAccount, equalTo(Optional.of(storedAccount)));
+        assertThat(accountDao.findAccount(accountId), equalTo(Optional.of(storedAccount)));
+    }
+
+    @Test
+    public void shouldNotCacheMissingAccount() {
+        when(mongoAccountDao.findAccount(accountId)).thenReturn(Optional.empty(), Optional.empty());
+
+        // When
+        Optional<Account> account1 = accountDao.findAccount(accountId);
+        Optional<Account> account2 = accountDao.findAccount(accountId);
+
+        // Then
+        assertThat(account1, equalTo(Optional.empty()));
+        assertThat(account2, equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldCacheCreatedAccount() {
+        when(mongoAccountDao.createAccount(accountId, seqId(1))).thenReturn(true);
+
+        // When
+        boolean success = accountDao.createAccount(accountId, seqId(1));
+
+        // Then
+        assertThat(success, is(true));
+        assertThat(accountDao.findAccount(accountId), equalTo(Optional.of(new Account(accountId, Decimal.ZERO, seqId(1)))));
+    }
+
+    @Test
+    public void shouldCacheUpdatedBalance() {
+        Decimal newBalance = randomPositiveAmount();
+        when(mongoAccountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder().accountId(accountId).version(seqId(1)).build()));
+        when(mongoAccountDao.updateBalance(accountId, newBalance, seqId(1), seqId(2))).thenReturn(true);
+        accountDao.findAccount(accountId);
+
+        // When
+        boolean success = accountDao.updateBalance(accountId, newBalance, seqId(1), seqId(2));
+
+        // Then
+        assertThat(success, is(true));
+        assertThat(accountDao.findAccount(accountId), equalTo(Optional.of(new Account(accountId, newBalance, seqId(2)))));
+        assertThat(accountDao.findCurrentVersion(accountId), equalTo(Optional.of(seqId(2))));
+    }
+
+    @Test
+    public void shouldReloadAccountIfBalanceUpdateFails() {
+        Account staleAccount = accountBuilder().accountId(accountId).version(seqId(1)).build();
+        Account currentAccount = accountBuilder().accountId(accountId).version(seqId(2)).build();
+        Decimal newBalance = randomPositiveAmount();
+        when(mongoAccountDao.findAccount(accountId)).thenReturn(Optional.of(staleAccount), Optional.of(currentAccount));
+        when(mongoAccountDao.updateBalance(accountId, newBalance, seqId(1), seqId(2))).thenReturn(false);
+        accountDao.findAccount(accountId);
+
+        // When
+        boolean success = accountDao.updateBalance(accountId, newBalance, seqId(1), seqId(2));
+
+        // Then
+        assertThat(success, is(false));
+        assertThat(accountDao.findAccount(accountId), equalTo(Optional.of(currentAccount)));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedAccount() {
+        AccountId accountId2 = randomAccountId();
+        AccountId accountId3 = randomAccountId();
+        when(mongoAccountDao.createAccount(accountId, seqId(1))).thenReturn(true);
+        when(mongoAccountDao.createAccount(accountId2, seqId(1))).thenReturn(true);
+        when(mongoAccountDao.createAccount(accountId3, seqId(1))).thenReturn(true);
+
+        // When
+        accountDao.createAccount(accountId, seqId(1));
+        accountDao.createAccount(accountId2, seqId(1));
+        accountDao.createAccount(accountId3, seqId(1));
+
+        // Then
+        assertThat(accountDao.stats().size, is(2L));
+        assertThat(accountDao.stats().evictionCount, is(1L));
+    }
+}
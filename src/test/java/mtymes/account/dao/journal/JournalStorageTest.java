@@ -0,0 +1,203 @@
+package mtymes.account.dao.journal;
+
+import javafixes.math.Decimal;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import mtymes.account.domain.operation.OperationId;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.object.Tuple.tuple;
+import static mtymes.account.domain.operation.FinalState.Applied;
+import static mtymes.account.domain.operation.FinalState.Rejected;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class JournalStorageTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JournalStorage storage;
+
+    @After
+    public void tearDown() throws Exception {
+        if (storage != null) {
+            storage.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRecoverStateAfterRestart() {
+        AccountId accountId = randomAccountId();
+        Operation operation1 = randomOperation(accountId);
+        Operation operation2 = randomOperation(accountId);
+        Operation operation3 = randomOperation(accountId);
+        Decimal balance = randomAmount();
+
+        storage = openStorage(SEGMENT_SIZE);
+        storage.operationDao.storeOperation(operation1);
+        storage.operationDao.storeOperation(operation2);
+        storage.operationDao.storeOperation(operation3);
+        storage.opLogDao.registerOperationId(accountId, operation1.operationId);
+        storage.opLogDao.registerOperationId(accountId, operation2.operationId);
+        storage.opLogDao.registerOperationId(accountId, operation3.operationId);
+        storage.accountDao.createAccount(accountId, seqId(1));
+        storage.accountDao.updateBalance(accountId, balance, seqId(1), seqId(2));
+        storage.operationDao.markAsApplied(operation1.operationId);
+        storage.operationDao.markAsRejected(operation2.operationId, "Insufficient funds");
+        storage.opLogDao.markAsFinished(operation1.operationId);
+
+        // When
+        restartStorage(SEGMENT_SIZE);
+
+        // Then
+        assertThat(storage.accountDao.findAccount(accountId), equalTo(Optional.of(new Account(accountId, balance, seqId(2)))));
+        assertThat(storage.operationDao.findLoggedOperation(operation1.operationId), equalTo(Optional.of(
+                new LoggedOperation(operation1, Optional.of(Applied), Optional.empty())
+        )));
+        assertThat(storage.operationDao.findLoggedOperation(operation2.operationId), equalTo(Optional.of(
+                new LoggedOperation(operation2, Optional.of(Rejected), Optional.of("Insufficient funds"))
+        )));
+        assertThat(storage.operationDao.findLoggedOperation(operation3.operationId), equalTo(Optional.of(
+                new LoggedOperation(operation3, Optional.empty(), Optional.empty())
+        )));
+        assertThat(storage.opLogDao.findUnfinishedOperationIds(accountId), equalTo(newList(
+                tuple(operation2.operationId, seqId(2)),
+                tuple(operation3.operationId, seqId(3))
+        )));
+        assertThat(storage.opLogDao.registerOperationId(accountId, randomOperationId()), equalTo(seqId(4)));
+    }
+
+    @Test
+    public void shouldRecoverStateFromSnapshotAndSegmentsWrittenAfterIt() {
+        AccountId accountId = randomAccountId();
+        OperationId operationId1 = randomOperationId();
+        OperationId operationId2 = randomOperationId();
+        Decimal balance = randomAmount();
+
+        storage = openStorage(SEGMENT_SIZE);
+        storage.accountDao.createAccount(accountId, seqId(1));
+        storage.opLogDao.registerOperationId(accountId, operationId1);
+        storage.opLogDao.registerOperationId(accountId, operationId2);
+        storage.opLogDao.markAsFinished(operationId1);
+
+        storage.takeSnapshot();
+
+        storage.accountDao.updateBalance(accountId, balance, seqId(1), seqId(2));
+        storage.opLogDao.markAsFinished(operationId2);
+
+        // When
+        restartStorage(SEGMENT_SIZE);
+
+        // Then
+        assertThat(journalFileNames(), equalTo(newList("segment-000000000002.journal", "snapshot-000000000001.journal")));
+        assertThat(storage.accountDao.findAccount(accountId), equalTo(Optional.of(new Account(accountId, balance, seqId(2)))));
+        assertThat(storage.opLogDao.findUnfinishedOperationIds(accountId), is(empty()));
+        assertThat(storage.opLogDao.registerOperationId(accountId, randomOperationId()), equalTo(seqId(3)));
+    }
+
+    @Test
+    public void shouldRecoverStateWrittenIntoMultipleSegments() {
+        AccountId accountId = randomAccountId();
+        List<OperationId> operationIds = newList();
+
+        storage = openStorage(256);
+        for (int i = 0; i < 50; i++) {
+            OperationId operationId = randomOperationId();
+            storage.opLogDao.registerOperationId(accountId, operationId);
+            operationIds.add(operationId);
+        }
+        storage.takeSnapshot();
+        for (int i = 0; i < 50; i++) {
+            OperationId operationId = randomOperationId();
+            storage.opLogDao.registerOperationId(accountId, operationId);
+            operationIds.add(operationId);
+        }
+
+        // When
+        restartStorage(256);
+
+        // Then
+        assertThat(journalFileNames().size(), greaterThan(2));
+        List<OperationId> unfinishedOperationIds = storage.opLogDao.findUnfinishedOperationIds(accountId).stream()
+                .map(operationId -> operationId.a)
+                .collect(toList());
+        assertThat(unfinishedOperationIds, equalTo(operationIds));
+    }
+
+    @Test
+    public void shouldIgnoreIncompleteRecordAtTheEndOfJournal() throws IOException {
+        Operation operation1 = randomOperation();
+        Operation operation2 = randomOperation();
+        Operation operation3 = randomOperation();
+
+        storage = openStorage(SEGMENT_SIZE);
+        storage.operationDao.storeOperation(operation1);
+        storage.operationDao.storeOperation(operation2);
+        storage.shutdown();
+        corruptLastRecord(folder.getRoot().toPath().resolve("segment-000000000001.journal"));
+
+        // When
+        storage = openStorage(SEGMENT_SIZE);
+        storage.operationDao.storeOperation(operation3);
+        restartStorage(SEGMENT_SIZE);
+
+        // Then
+        assertThat(storage.operationDao.findLoggedOperation(operation1.operationId).isPresent(), is(true));
+        assertThat(storage.operationDao.findLoggedOperation(operation2.operationId).isPresent(), is(false));
+        assertThat(storage.operationDao.findLoggedOperation(operation3.operationId).isPresent(), is(true));
+    }
+
+    private JournalStorage openStorage(int segmentSize) {
+        return new JournalStorage(folder.getRoot().toPath(), segmentSize, false, Duration.ZERO).start();
+    }
+
+    private void restartStorage(int segmentSize) {
+        storage.shutdown();
+        storage = openStorage(segmentSize);
+    }
+
+    private List<String> journalFileNames() {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.map(path -> path.getFileName().toString()).sorted().collect(toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // flips the last written byte, which is part of the content of the last record
+    private void corruptLastRecord(Path segmentPath) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentPath.toFile(), "rw")) {
+            long position = file.length() - 1;
+            file.seek(position);
+            while (file.read() == 0) {
+                position--;
+                file.seek(position);
+            }
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package mtymes.account.dao.memory;
+
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.AccountDaoContractTest;
+
+public class InMemoryAccountDaoTest extends AccountDaoContractTest {
+
+    @Override
+    protected AccountDao createDao() {
+        return new InMemoryAccountDao();
+    }
+}
@@ -0,0 +1,12 @@
+package mtymes.account.dao.memory;
+
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.dao.OpLogDaoContractTest;
+
+public class InMemoryOpLogDaoTest extends OpLogDaoContractTest {
+
+    @Override
+    protected OpLogDao createDao() {
+        return new InMemoryOpLogDao();
+    }
+}
@@ -0,0 +1,12 @@
+package mtymes.account.dao.memory;
+
+import mtymes.account.dao.OperationDao;
+import mtymes.account.dao.OperationDaoContractTest;
+
+public class InMemoryOperationDaoTest extends OperationDaoContractTest {
+
+    @Override
+    protected OperationDao createDao() {
+        return new InMemoryOperationDao();
+    }
+}
@@ -0,0 +1,99 @@
+package mtymes.account.dao.mongo;
+
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static javafixes.math.Decimal.d;
+import static javafixes.math.Decimal.decimal;
+import static mtymes.account.dao.mongo.AmountFormat.decimal128;
+import static mtymes.account.dao.mongo.AmountFormat.minorUnits;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.randomAmount;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class AmountFormatTest {
+
+    @Test
+    public void shouldConvertAmountIntoMinorUnitsAndBack() {
+        AmountFormat amountFormat = minorUnits(2);
+
+        assertThat(amountFormat.toMinorUnits(d("1234.56")), is(123456L));
+        assertThat(amountFormat.toMinorUnits(d("-0.5")), is(-50L));
+        assertThat(amountFormat.toMinorUnits(d("7")), is(700L));
+        assertThat(amountFormat.toMinorUnits(d("1.100")), is(110L));
+        assertThat(amountFormat.fromMinorUnits(123456L), equalTo(decimal(123456L, 2)));
+        for (int i = 0; i < 100; i++) {
+            // random amounts have 2 decimal places
+            long minorUnits = amountFormat.toMinorUnits(randomAmount());
+            assertThat(amountFormat.toMinorUnits(amountFormat.fromMinorUnits(minorUnits)), is(minorUnits));
+        }
+    }
+
+    @Test
+    public void shouldFailOnAmountWithMoreDecimalPlacesThanScale() {
+        try {
+            // When
+            minorUnits(2).toMinorUnits(d("0.001"));
+
+            // Then
+            fail("expected ArithmeticException");
+        } catch (ArithmeticException expectedException) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldFailOnAmountThatDoesNotFitIntoLong() {
+        assertThat(minorUnits(0).toMinorUnits(d(Long.MAX_VALUE)), is(Long.MAX_VALUE));
+        try {
+            // When
+            minorUnits(2).toMinorUnits(d(Long.MAX_VALUE / 10));
+
+            // Then
+            fail("expected ArithmeticException");
+        } catch (ArithmeticException expectedException) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldNotUseMinorUnitsForDecimal128() {
+        assertThat(decimal128().usesMinorUnits(), is(false));
+        assertThat(minorUnits(0).usesMinorUnits(), is(true));
+        try {
+            // When
+            decimal128().fromMinorUnits(100L);
+
+            // Then
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expectedException) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldValidateAmountsThatCanBeStored() {
+        assertThat(minorUnits(2).validate(d("1234.50")), is(Optional.empty()));
+        assertThat(minorUnits(2).validate(d("0.001")), isPresentAndEqualTo("Amount 0.001 has more than 2 decimal places"));
+        assertThat(minorUnits(2).validate(d(Long.MAX_VALUE / 10)), isPresentAndEqualTo("Amount " + (Long.MAX_VALUE / 10) + " does not fit into a long with 2 decimal places"));
+        assertThat(decimal128().validate(d("0.0000000001")), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldFailOnScaleThatWouldNotLeaveRoomForBalances() {
+        assertThat(minorUnits(6).usesMinorUnits(), is(true));
+        try {
+            // When
+            minorUnits(7);
+
+            // Then
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expectedException) {
+            // expected
+        }
+    }
+}
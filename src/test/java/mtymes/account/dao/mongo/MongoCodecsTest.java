@@ -0,0 +1,166 @@
+package mtymes.account.dao.mongo;
+
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.operation.*;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.math.Decimal.d;
+import static mtymes.account.dao.mongo.AmountFormat.decimal128;
+import static mtymes.account.dao.mongo.AmountFormat.minorUnits;
+import static mtymes.account.dao.mongo.MongoAccountDao.*;
+import static mtymes.account.dao.mongo.MongoCodecs.codecRegistry;
+import static mtymes.account.dao.mongo.MongoOperationDao.BODY;
+import static mtymes.account.dao.mongo.MongoOperationDao.OPERATION_ID;
+import static mtymes.account.dao.mongo.MongoOperationDao.TYPE;
+import static mtymes.account.dao.mongo.UuidFormat.Binary;
+import static mtymes.account.dao.mongo.UuidFormat.Text;
+import static mtymes.account.domain.operation.FinalState.Applied;
+import static mtymes.account.domain.operation.FinalState.Rejected;
+import static mtymes.common.mongo.DocumentBuilder.docBuilder;
+import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MongoCodecsTest {
+
+    private final List<CodecRegistry> allRegistries = newList(
+            codecRegistry(Text, decimal128()),
+            codecRegistry(Binary, decimal128()),
+            codecRegistry(Text, minorUnits(2)),
+            codecRegistry(Binary, minorUnits(2))
+    );
+
+    private MongoMapper dbMapper = new MongoMapper();
+
+    @Test
+    public void shouldStoreAccountInTheSameFormAsDocumentBuilder() {
+        Account account = new Account(randomAccountId(), randomAmount(), randomSeqId());
+
+        for (CodecRegistry registry : allRegistries) {
+            // When
+            BsonDocument encoded = encode(registry, Account.class, account);
+
+            // Then
+            assertThat(encoded, equalTo(encode(registry, Document.class, docBuilder()
+                    .put(ACCOUNT_ID, account.accountId)
+                    .put(BALANCE, account.balance)
+                    .put(VERSION, account.version)
+                    .build())));
+            assertThat(decode(registry, Account.class, encoded), equalTo(account));
+        }
+    }
+
+    @Test
+    public void shouldStoreOperationInTheSameFormAsDocumentBuilder() {
+        OperationId operationId = randomOperationId();
+        List<Operation> allOperations = newList(
+                new CreateAccount(operationId, randomAccountId()),
+                new DepositTo(operationId, randomAccountId(), randomPositiveAmount()),
+                new WithdrawFrom(operationId, randomAccountId(), randomPositiveAmount()),
+                new TransferFrom(operationId, randomOperationId(), new TransferDetail(randomAccountId(), randomAccountId(), randomPositiveAmount())),
+                new TransferTo(operationId, new TransferDetail(randomAccountId(), randomAccountId(), randomPositiveAmount()))
+        );
+
+        for (CodecRegistry registry : allRegistries) {
+            MongoMapper mapper = new MongoMapper(MongoCodecs.amountFormat(registry));
+            for (Operation operation : allOperations) {
+                // When
+                BsonDocument encoded = encode(registry, Operation.class, operation);
+
+                // Then
+                assertThat(encoded, equalTo(encode(registry, Document.class, docBuilder()
+                        .put(OPERATION_ID, operation.operationId)
+                        .put(TYPE, operation.type())
+                        .put(BODY, operation.apply(dbMapper))
+                        .build())));
+                assertThat(decode(registry, Operation.class, encoded), equalTo(operation));
+                assertThat(mapper.toOperation(operationId, operation.type(), toDocument(registry, encoded).get(BODY, Document.class)), equalTo(operation));
+            }
+        }
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeLoggedOperation() {
+        List<LoggedOperation> allLoggedOperations = newList(
+                new LoggedOperation(randomOperation(), Optional.empty(), Optional.empty()),
+                new LoggedOperation(randomOperation(), Optional.of(Applied), Optional.empty()),
+                new LoggedOperation(randomOperation(), Optional.of(Rejected), Optional.of("Insufficient funds"))
+        );
+
+        for (CodecRegistry registry : allRegistries) {
+            for (LoggedOperation loggedOperation : allLoggedOperations) {
+                // When & Then
+                assertThat(decode(registry, LoggedOperation.class, encode(registry, LoggedOperation.class, loggedOperation)), equalTo(loggedOperation));
+            }
+        }
+    }
+
+    @Test
+    public void shouldStoreAmountsAsMinorUnits() {
+        CodecRegistry registry = codecRegistry(Text, minorUnits(2));
+        Account account = new Account(randomAccountId(), d("1234.56"), randomSeqId());
+
+        // When
+        BsonDocument encoded = encode(registry, Account.class, account);
+
+        // Then
+        assertThat(encoded.get(BALANCE).getBsonType(), equalTo(BsonType.INT64));
+        assertThat(encoded.getInt64(BALANCE).getValue(), equalTo(123456L));
+    }
+
+    @Test
+    public void shouldReadAmountsStoredAsDecimal128WithMinorUnitsFormat() {
+        Account account = new Account(randomAccountId(), randomAmount(), randomSeqId());
+        BsonDocument encoded = encode(codecRegistry(Text, decimal128()), Account.class, account);
+
+        // When
+        Account decoded = decode(codecRegistry(Text, minorUnits(2)), Account.class, encoded);
+
+        // Then
+        assertThat(decoded, equalTo(account));
+    }
+
+    @Test
+    public void shouldFailToStoreAmountWithMoreDecimalPlacesThanMinorUnitScale() {
+        Account account = new Account(randomAccountId(), d("0.001"), randomSeqId());
+
+        try {
+            // When
+            encode(codecRegistry(Text, minorUnits(2)), Account.class, account);
+
+            // Then
+            fail("expected ArithmeticException");
+        } catch (ArithmeticException expectedException) {
+            // expected
+        }
+    }
+
+    private <T> BsonDocument encode(CodecRegistry registry, Class<T> clazz, T value) {
+        BsonDocument document = new BsonDocument();
+        registry.get(clazz).encode(new BsonDocumentWriter(document), value, EncoderContext.builder().build());
+        return document;
+    }
+
+    private <T> T decode(CodecRegistry registry, Class<T> clazz, BsonDocument document) {
+        return registry.get(clazz).decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    private Document toDocument(CodecRegistry registry, BsonDocument document) {
+        Codec<Document> documentCodec = registry.get(Document.class);
+        return documentCodec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,73 @@
+package mtymes.account.dao.mongo;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static java.util.stream.Collectors.toSet;
+import static java.util.stream.LongStream.rangeClosed;
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.common.CollectionUtil.newSet;
+import static mtymes.test.ConcurrencyUtil.runConcurrentlyOnNThreads;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class SeqIdBlockTest {
+
+    private final AtomicLong counter = new AtomicLong(0);
+    private final List<Integer> reservedSizes = newCopyOnWriteArrayList();
+
+    @Test
+    public void shouldHandOutReservedSeqIdsInOrder() {
+        SeqIdBlock block = new SeqIdBlock(3);
+
+        // When
+        List<Long> seqIds = newList(
+                block.nextSeqId(this::reserve),
+                block.nextSeqId(this::reserve),
+                block.nextSeqId(this::reserve),
+                block.nextSeqId(this::reserve),
+                block.nextSeqId(this::reserve)
+        );
+
+        // Then
+        assertThat(seqIds, equalTo(newList(1L, 2L, 3L, 4L, 5L)));
+        assertThat(reservedSizes, equalTo(newList(3, 3)));
+    }
+
+    @Test
+    public void shouldContinueFromNewlyReservedSeqIds() {
+        SeqIdBlock block = new SeqIdBlock(2);
+
+        assertThat(block.nextSeqId(this::reserve), equalTo(1L));
+        assertThat(block.nextSeqId(this::reserve), equalTo(2L));
+        counter.addAndGet(10); // other node reserved SeqIds in the meantime
+
+        // When & Then
+        assertThat(block.nextSeqId(this::reserve), equalTo(13L));
+        assertThat(block.nextSeqId(this::reserve), equalTo(14L));
+    }
+
+    @Test
+    public void shouldHandOutUniqueSeqIdsConcurrently() {
+        int threadCount = 50;
+        SeqIdBlock block = new SeqIdBlock(8);
+        List<Long> seqIds = newCopyOnWriteArrayList();
+
+        // When
+        runConcurrentlyOnNThreads(
+                () -> seqIds.add(block.nextSeqId(this::reserve)),
+                threadCount
+        );
+
+        // Then
+        assertThat(newSet(seqIds), equalTo(rangeClosed(1, threadCount).boxed().collect(toSet())));
+    }
+
+    private long reserve(int size) {
+        reservedSizes.add(size);
+        return counter.addAndGet(size);
+    }
+}
@@ -0,0 +1,371 @@
+package mtymes.account.handler;
+
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.*;
+import mtymes.account.exception.AmountOutOfRangeException;
+import mtymes.common.metrics.Metrics;
+import mtymes.test.StrictMockTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.google.common.collect.ImmutableMap.of;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Collections.emptySet;
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.math.Decimal.d;
+import static javafixes.object.Tuple.tuple;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.domain.account.AccountBuilder.accountBuilder;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomOperationId;
+import static mtymes.test.Random.randomPositiveAmount;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchedBalanceHandlerTest extends StrictMockTest {
+
+    private AccountDao accountDao;
+    private OperationDao operationDao;
+    private TransferRefunds refunds;
+    private BatchedBalanceHandler handler;
+
+    private AccountId accountId = randomAccountId();
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+
+    @Before
+    public void setUp() throws Exception {
+        accountDao = mock(AccountDao.class);
+        operationDao = mock(OperationDao.class);
+        refunds = mock(TransferRefunds.class);
+        handler = new BatchedBalanceHandler(accountDao, operationDao, refunds, new CompletionRegistry(), contention);
+    }
+
+    @Test
+    public void shouldHandleOnlyBalanceOperations() {
+        assertThat(handler.canHandle(new DepositTo(randomOperationId(), accountId, randomPositiveAmount())), is(true));
+        assertThat(handler.canHandle(new WithdrawFrom(randomOperationId(), accountId, randomPositiveAmount())), is(true));
+        assertThat(handler.canHandle(new TransferTo(randomOperationId(), new TransferDetail(randomAccountId(), accountId, randomPositiveAmount()))), is(true));
+        assertThat(handler.canHandle(new CreateAccount(randomOperationId(), accountId)), is(false));
+        assertThat(handler.canHandle(new TransferFrom(randomOperationId(), randomOperationId(), new TransferDetail(accountId, randomAccountId(), randomPositiveAmount()))), is(false));
+    }
+
+    @Test
+    public void shouldApplyAllOperationsWithOneBalanceUpdate() {
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, d("10.00"));
+        WithdrawFrom operation2 = new WithdrawFrom(randomOperationId(), accountId, d("50.00"));
+        TransferTo operation3 = new TransferTo(randomOperationId(), new TransferDetail(randomAccountId(), accountId, d("5.00")));
+
+        when(refunds.findRefunded(newList(operation3))).thenReturn(emptySet());
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder()
+                .accountId(accountId)
+                .balance(d("100.00"))
+                .version(seqId(3))
+                .build()));
+        when(accountDao.updateBalance(accountId, d("65.00"), seqId(3), seqId(6))).thenReturn(true);
+        when(operationDao.markAsApplied(newList(operation1.operationId, operation2.operationId, operation3.operationId))).thenReturn(3);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(4), operation1),
+                tuple(seqId(5), operation2),
+                tuple(seqId(6), operation3)
+        ));
+    }
+
+    @Test
+    public void shouldRejectOverdraftBeforeUpdatingBalance() {
+        WithdrawFrom operation1 = new WithdrawFrom(randomOperationId(), accountId, d("20.00"));
+        DepositTo operation2 = new DepositTo(randomOperationId(), accountId, d("5.00"));
+        WithdrawFrom operation3 = new WithdrawFrom(randomOperationId(), accountId, d("20.00"));
+        Account account = accountBuilder()
+                .accountId(accountId)
+                .balance(d("10.00"))
+                .version(seqId(1))
+                .build();
+
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(account));
+        when(accountDao.refreshAccount(account)).thenReturn(Optional.of(account));
+        when(operationDao.markAsRejected(of(
+                operation1.operationId, "Insufficient funds on account '" + accountId + "'",
+                operation3.operationId, "Insufficient funds on account '" + accountId + "'"
+        ))).thenReturn(2);
+        when(accountDao.updateBalance(accountId, d("15.00"), seqId(1), seqId(3))).thenReturn(true);
+        when(operationDao.markAsApplied(newList(operation2.operationId))).thenReturn(1);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(2), operation1),
+                tuple(seqId(3), operation2),
+                tuple(seqId(4), operation3)
+        ));
+    }
+
+    @Test
+    public void shouldNotUpdateBalanceIfAllOperationsAreRejected() {
+        WithdrawFrom operation = new WithdrawFrom(randomOperationId(), accountId, d("20.00"));
+        Account account = accountBuilder()
+                .accountId(accountId)
+                .balance(d("10.00"))
+                .version(seqId(1))
+                .build();
+
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(account));
+        when(accountDao.refreshAccount(account)).thenReturn(Optional.of(account));
+        when(operationDao.markAsRejected(of(operation.operationId, "Insufficient funds on account '" + accountId + "'"))).thenReturn(1);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(2), operation)
+        ));
+    }
+
+    @Test
+    public void shouldFoldOperationsAgainIfOverdraftIsBasedOnStaleAccount() {
+        WithdrawFrom operation = new WithdrawFrom(randomOperationId(), accountId, d("20.00"));
+        Account staleAccount = accountBuilder()
+                .accountId(accountId)
+                .balance(d("10.00"))
+                .version(seqId(1))
+                .build();
+        Account storedAccount = accountBuilder()
+                .accountId(accountId)
+                .balance(d("30.00"))
+                .version(seqId(2))
+                .build();
+
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(staleAccount), Optional.of(storedAccount));
+        when(accountDao.refreshAccount(staleAccount)).thenReturn(Optional.of(storedAccount));
+        when(accountDao.updateBalance(accountId, d("10.00"), seqId(2), seqId(3))).thenReturn(true);
+        when(operationDao.markAsApplied(newList(operation.operationId))).thenReturn(1);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(3), operation)
+        ));
+    }
+
+    @Test
+    public void shouldRejectAllOperationsIfAccountDoesNotExist() {
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, randomPositiveAmount());
+        TransferTo operation2 = new TransferTo(randomOperationId(), new TransferDetail(randomAccountId(), accountId, randomPositiveAmount()));
+
+        when(refunds.findRefunded(newList(operation2))).thenReturn(emptySet());
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.empty());
+        when(operationDao.markAsRejected(of(
+                operation1.operationId, "Account '" + accountId + "' does not exist",
+                operation2.operationId, "To Account '" + accountId + "' does not exist"
+        ))).thenReturn(2);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(1), operation1),
+                tuple(seqId(2), operation2)
+        ));
+    }
+
+    @Test
+    public void shouldMarkAlreadyAppliedOperationsAsApplied() {
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, d("10.00"));
+        DepositTo operation2 = new DepositTo(randomOperationId(), accountId, d("20.00"));
+        DepositTo operation3 = new DepositTo(randomOperationId(), accountId, d("30.00"));
+
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder()
+                .accountId(accountId)
+                .balance(d("30.00"))
+                .version(seqId(2))
+                .build()));
+        when(accountDao.updateBalance(accountId, d("60.00"), seqId(2), seqId(3))).thenReturn(true);
+        when(operationDao.markAsApplied(newList(operation1.operationId, operation2.operationId, operation3.operationId))).thenReturn(3);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(1), operation1),
+                tuple(seqId(2), operation2),
+                tuple(seqId(3), operation3)
+        ));
+    }
+
+    @Test
+    public void shouldFoldOperationsAgainIfAccountHasBeenUpdatedConcurrently() {
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, d("10.00"));
+        DepositTo operation2 = new DepositTo(randomOperationId(), accountId, d("20.00"));
+
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("0.00"))
+                        .version(seqId(1))
+                        .build()),
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("10.00"))
+                        .version(seqId(2))
+                        .build())
+        );
+        when(accountDao.updateBalance(accountId, d("30.00"), seqId(1), seqId(3))).thenReturn(false);
+        when(accountDao.updateBalance(accountId, d("30.00"), seqId(2), seqId(3))).thenReturn(true);
+        when(operationDao.markAsApplied(newList(operation1.operationId, operation2.operationId))).thenReturn(2);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(2), operation1),
+                tuple(seqId(3), operation2)
+        ));
+    }
+
+    @Test
+    public void shouldNotRecordConflictIfOperationsHaveBeenAlreadyAppliedConcurrently() {
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, d("10.00"));
+        DepositTo operation2 = new DepositTo(randomOperationId(), accountId, d("20.00"));
+
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("0.00"))
+                        .version(seqId(1))
+                        .build()),
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("30.00"))
+                        .version(seqId(3))
+                        .build())
+        );
+        when(accountDao.updateBalance(accountId, d("30.00"), seqId(1), seqId(3))).thenReturn(false);
+        when(operationDao.markAsApplied(newList(operation1.operationId, operation2.operationId))).thenReturn(2);
+
+        // When
+        handler.handleOperations(newList(
+                tuple(seqId(2), operation1),
+                tuple(seqId(3), operation2)
+        ));
+
+        // Then
+        assertThat(conflictCount(), is(0L));
+    }
+
+    @Test
+    public void shouldRecordConflictIfAccountHasBeenUpdatedConcurrently() {
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, d("10.00"));
+
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("0.00"))
+                        .version(seqId(1))
+                        .build()),
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("5.00"))
+                        .version(seqId(2))
+                        .build())
+        );
+        when(accountDao.updateBalance(accountId, d("10.00"), seqId(1), seqId(3))).thenReturn(false);
+        when(accountDao.updateBalance(accountId, d("15.00"), seqId(2), seqId(3))).thenReturn(true);
+        when(operationDao.markAsApplied(newList(operation1.operationId))).thenReturn(1);
+
+        // When
+        handler.handleOperations(newList(
+                tuple(seqId(3), operation1)
+        ));
+
+        // Then
+        assertThat(conflictCount(), is(1L));
+    }
+
+    @Test
+    public void shouldApplyOperationsOneByOneIfFoldedBalanceIsOutOfRange() {
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, d("10.00"));
+        DepositTo operation2 = new DepositTo(randomOperationId(), accountId, d("20.00"));
+
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("0.00"))
+                        .version(seqId(1))
+                        .build()),
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("0.00"))
+                        .version(seqId(1))
+                        .build()),
+                Optional.of(accountBuilder()
+                        .accountId(accountId)
+                        .balance(d("10.00"))
+                        .version(seqId(2))
+                        .build())
+        );
+        when(accountDao.updateBalance(accountId, d("30.00"), seqId(1), seqId(3))).thenThrow(new AmountOutOfRangeException("out of range"));
+        when(accountDao.updateBalance(accountId, d("10.00"), seqId(1), seqId(2))).thenReturn(true);
+        when(operationDao.markAsApplied(newList(operation1.operationId))).thenReturn(1);
+        when(accountDao.updateBalance(accountId, d("30.00"), seqId(2), seqId(3))).thenThrow(new AmountOutOfRangeException("out of range"));
+        when(operationDao.markAsRejected(of(operation2.operationId, "Balance of account '" + accountId + "' would be out of range"))).thenReturn(1);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(2), operation1),
+                tuple(seqId(3), operation2)
+        ));
+    }
+
+    @Test
+    public void shouldRefundTransferToIfItsCreditIsOutOfRange() {
+        AccountId fromAccountId = randomAccountId();
+        TransferTo operation = new TransferTo(randomOperationId(), new TransferDetail(fromAccountId, accountId, d("10.00")));
+        String description = "Balance of account '" + accountId + "' would be out of range - amount has been refunded to account '" + fromAccountId + "'";
+
+        when(refunds.findRefunded(newList(operation))).thenReturn(emptySet());
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder()
+                .accountId(accountId)
+                .balance(d("0.00"))
+                .version(seqId(1))
+                .build()));
+        when(accountDao.updateBalance(accountId, d("10.00"), seqId(1), seqId(2))).thenThrow(new AmountOutOfRangeException("out of range"));
+        when(refunds.refund(operation)).thenReturn(description);
+        when(operationDao.markAsRejected(of(operation.operationId, description))).thenReturn(1);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(2), operation)
+        ));
+    }
+
+    @Test
+    public void shouldNotCreditAlreadyRefundedTransferTo() {
+        AccountId fromAccountId = randomAccountId();
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, d("10.00"));
+        TransferTo operation2 = new TransferTo(randomOperationId(), new TransferDetail(fromAccountId, accountId, d("5.00")));
+        String description = "Balance of account '" + accountId + "' would be out of range - amount has been refunded to account '" + fromAccountId + "'";
+
+        when(refunds.findRefunded(newList(operation2))).thenReturn(newHashSet(operation2.operationId));
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder()
+                .accountId(accountId)
+                .balance(d("0.00"))
+                .version(seqId(1))
+                .build()));
+        when(refunds.refund(operation2)).thenReturn(description);
+        when(operationDao.markAsRejected(of(operation2.operationId, description))).thenReturn(1);
+        when(accountDao.updateBalance(accountId, d("10.00"), seqId(1), seqId(2))).thenReturn(true);
+        when(operationDao.markAsApplied(newList(operation1.operationId))).thenReturn(1);
+
+        // When & Then
+        handler.handleOperations(newList(
+                tuple(seqId(2), operation1),
+                tuple(seqId(3), operation2)
+        ));
+    }
+
+    private long conflictCount() {
+        return contention.stats(0)
+                .accountUpdateConflictCounts.getOrDefault(BatchedBalanceHandler.class.getSimpleName(), 0L);
+    }
+}
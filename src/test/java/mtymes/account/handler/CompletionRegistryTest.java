@@ -0,0 +1,81 @@
+package mtymes.account.handler;
+
+import mtymes.account.domain.operation.DepositTo;
+import mtymes.account.domain.operation.LoggedOperation;
+import mtymes.account.domain.operation.Operation;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static mtymes.account.domain.operation.FinalState.Applied;
+import static mtymes.account.domain.operation.FinalState.Rejected;
+import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class CompletionRegistryTest {
+
+    private final CompletionRegistry completions = new CompletionRegistry();
+
+    private final Operation operation = new DepositTo(randomOperationId(), randomAccountId(), randomPositiveAmount());
+
+    @Test
+    public void shouldProvideAppliedOperation() {
+        completions.awaitCompletionOf(operation.operationId);
+        completions.markAsApplied(operation.operationId);
+
+        // When
+        Optional<LoggedOperation> completion = completions.takeCompletionOf(operation);
+
+        // Then
+        assertThat(completion, equalTo(Optional.of(new LoggedOperation(operation, Optional.of(Applied), Optional.empty()))));
+    }
+
+    @Test
+    public void shouldProvideRejectedOperation() {
+        completions.awaitCompletionOf(operation.operationId);
+        completions.markAsRejected(operation.operationId, "Insufficient funds");
+
+        // When
+        Optional<LoggedOperation> completion = completions.takeCompletionOf(operation);
+
+        // Then
+        assertThat(completion, equalTo(Optional.of(new LoggedOperation(operation, Optional.of(Rejected), Optional.of("Insufficient funds")))));
+    }
+
+    @Test
+    public void shouldProvideNothingIfOperationHasNotBeenFinished() {
+        completions.awaitCompletionOf(operation.operationId);
+
+        // When
+        Optional<LoggedOperation> completion = completions.takeCompletionOf(operation);
+
+        // Then
+        assertThat(completion, equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldIgnoreOperationThatIsNotAwaited() {
+        completions.markAsApplied(operation.operationId);
+        completions.awaitCompletionOf(operation.operationId);
+
+        // When
+        Optional<LoggedOperation> completion = completions.takeCompletionOf(operation);
+
+        // Then
+        assertThat(completion, equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldProvideCompletionOnlyOnce() {
+        completions.awaitCompletionOf(operation.operationId);
+        completions.markAsApplied(operation.operationId);
+        completions.takeCompletionOf(operation);
+
+        // When
+        Optional<LoggedOperation> completion = completions.takeCompletionOf(operation);
+
+        // Then
+        assertThat(completion, equalTo(Optional.empty()));
+    }
+}
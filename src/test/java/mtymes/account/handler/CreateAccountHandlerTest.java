@@ -1,20 +1,26 @@
 package mtymes.account.handler;
 
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.CreateAccount;
 import mtymes.account.domain.operation.OperationId;
 import mtymes.account.domain.operation.SeqId;
+import mtymes.common.metrics.Metrics;
 import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Optional;
+import java.util.UUID;
 
+import static mtymes.account.domain.node.NodeId.nodeId;
 import static mtymes.test.Condition.after;
 import static mtymes.test.Condition.before;
 import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -28,12 +34,13 @@ public class CreateAccountHandlerTest extends StrictMockTest {
     private AccountId accountId = randomAccountId();
     private SeqId seqId = randomSeqId();
     private CreateAccount operation = new CreateAccount(operationId, accountId);
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
 
     @Before
     public void setUp() throws Exception {
         accountDao = mock(AccountDao.class);
         operationDao = mock(OperationDao.class);
-        handler = new CreateAccountHandler(accountDao, operationDao);
+        handler = new CreateAccountHandler(accountDao, operationDao, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -96,4 +103,41 @@ public class CreateAccountHandlerTest extends StrictMockTest {
         // When & Then
         handler.handleOperation(seqId, operation);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldNotRecordConflictIfAccountHasBeenAlreadyCreatedByThisOperation() {
+        when(accountDao.createAccount(accountId, seqId))
+                .thenReturn(false);
+        when(accountDao.findCurrentVersion(accountId))
+                .thenReturn(Optional.of(seqId));
+        when(operationDao.markAsApplied(operationId))
+                .thenReturn(true);
+
+        // When
+        handler.handleOperation(seqId, operation);
+
+        // Then
+        assertThat(conflictCount(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldRecordConflictIfAccountHasBeenCreatedByAnotherOperation() {
+        when(accountDao.createAccount(accountId, seqId))
+                .thenReturn(false);
+        when(accountDao.findCurrentVersion(accountId))
+                .thenReturn(Optional.of(randomSeqId(before(seqId))));
+        when(operationDao.markAsRejected(operationId, "Account '" + accountId + "' already exists"))
+                .thenReturn(true);
+
+        // When
+        handler.handleOperation(seqId, operation);
+
+        // Then
+        assertThat(conflictCount(), equalTo(1L));
+    }
+
+    private long conflictCount() {
+        return contention.stats(0)
+                .accountUpdateConflictCounts.getOrDefault(CreateAccountHandler.class.getSimpleName(), 0L);
+    }
+}
@@ -1,18 +1,23 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.DepositTo;
 import mtymes.account.domain.operation.OperationId;
 import mtymes.account.domain.operation.SeqId;
+import mtymes.account.exception.AmountOutOfRangeException;
+import mtymes.common.metrics.Metrics;
 import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Optional;
+import java.util.UUID;
 
+import static mtymes.account.domain.node.NodeId.nodeId;
 import static mtymes.domain.account.AccountBuilder.accountBuilder;
 import static mtymes.test.Condition.after;
 import static mtymes.test.Condition.before;
@@ -31,12 +36,13 @@ public class DepositToHandlerTest extends StrictMockTest {
     private Decimal depositAmount = randomPositiveAmount();
     private SeqId seqId = randomSeqId();
     private DepositTo operation = new DepositTo(operationId, accountId, depositAmount);
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
 
     @Before
     public void setUp() throws Exception {
         accountDao = mock(AccountDao.class);
         operationDao = mock(OperationDao.class);
-        handler = new DepositToHandler(accountDao, operationDao);
+        handler = new DepositToHandler(accountDao, operationDao, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -55,6 +61,69 @@ public class DepositToHandlerTest extends StrictMockTest {
         handler.handleOperation(seqId, operation);
     }
 
+    @Test
+    public void shouldReloadStaleAccountAndDepositTo() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        SeqId currentVersion = randomSeqId(after(staleVersion), before(seqId));
+        Decimal staleBalance = randomAmount();
+        Decimal currentBalance = randomAmount();
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(accountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(accountBuilder().accountId(accountId).balance(currentBalance).version(currentVersion).build())
+        );
+        when(accountDao.updateBalance(accountId, staleBalance.plus(depositAmount), staleVersion, seqId)).thenReturn(false);
+        when(accountDao.updateBalance(accountId, currentBalance.plus(depositAmount), currentVersion, seqId)).thenReturn(true);
+        when(operationDao.markAsApplied(operationId)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldSucceedIfStaleAccountHasBeenAlreadyUpdatedByThisOperation() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        Decimal staleBalance = randomAmount();
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(accountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(accountBuilder().accountId(accountId).version(seqId).build())
+        );
+        when(accountDao.updateBalance(accountId, staleBalance.plus(depositAmount), staleVersion, seqId)).thenReturn(false);
+        when(operationDao.markAsApplied(operationId)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldNotMarkOperationAsAppliedIfStaleAccountHasBeenUpdatedByNextOperation() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        Decimal staleBalance = randomAmount();
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(accountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(accountBuilder().accountId(accountId).version(randomSeqId(after(seqId))).build())
+        );
+        when(accountDao.updateBalance(accountId, staleBalance.plus(depositAmount), staleVersion, seqId)).thenReturn(false);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldFailIfNewBalanceIsOutOfRange() {
+        SeqId accountVersion = randomSeqId(before(seqId));
+        Decimal lastBalance = randomAmount();
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder()
+                .accountId(accountId)
+                .balance(lastBalance)
+                .version(accountVersion)
+                .build()));
+        when(accountDao.updateBalance(accountId, lastBalance.plus(depositAmount), accountVersion, seqId)).thenThrow(new AmountOutOfRangeException("out of range"));
+        when(operationDao.markAsRejected(operationId, "Balance of account '" + accountId + "' would be out of range")).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
     @Test
     public void shouldSucceedIfBalanceHasBeenAlreadyUpdatedByThisOperation() {
         SeqId accountVersion = seqId;
@@ -3,6 +3,7 @@ package mtymes.account.handler;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.*;
+import mtymes.common.metrics.Metrics;
 import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
@@ -11,11 +12,18 @@ import java.util.List;
 import java.util.Optional;
 
 import static javafixes.common.CollectionUtil.newList;
+import static javafixes.object.Tuple.tuple;
 import static mtymes.account.domain.operation.FinalState.Applied;
 import static mtymes.account.domain.operation.FinalState.Rejected;
+import static mtymes.account.domain.operation.SeqId.seqId;
 import static mtymes.test.Random.*;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class OperationDispatcherTest extends StrictMockTest {
 
@@ -36,7 +44,7 @@ public class OperationDispatcherTest extends StrictMockTest {
         withdrawFromHandler = mock(WithdrawFromHandler.class);
         transferFromHandler = mock(TransferFromHandler.class);
         transferToHandler = mock(TransferToHandler.class);
-        operationDispatcher = new OperationDispatcher(opLogDao, createAccountHandler, depositToHandler, withdrawFromHandler, transferFromHandler, transferToHandler);
+        operationDispatcher = new OperationDispatcher(opLogDao, createAccountHandler, depositToHandler, withdrawFromHandler, transferFromHandler, transferToHandler, new Metrics());
     }
 
     @Test
@@ -139,4 +147,80 @@ public class OperationDispatcherTest extends StrictMockTest {
                     ));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldDispatchOperationsAndMarkThemAsFinishedAtOnce() {
+        SeqId seqId1 = randomSeqId();
+        SeqId seqId2 = randomSeqId();
+        SeqId seqId3 = randomSeqId();
+        DepositTo operation1 = new DepositTo(randomOperationId(), randomAccountId(), randomPositiveAmount());
+        WithdrawFrom operation2 = new WithdrawFrom(randomOperationId(), randomAccountId(), randomPositiveAmount());
+        TransferTo operation3 = new TransferTo(randomOperationId(), new TransferDetail(randomAccountId(), randomAccountId(), randomPositiveAmount()));
+
+        doNothing().when(depositToHandler).handleOperation(seqId1, operation1);
+        doNothing().when(transferToHandler).handleOperation(seqId3, operation3);
+        doNothing().when(opLogDao).markAsFinished(newList(operation1.operationId, operation2.operationId, operation3.operationId));
+
+        operationDispatcher.dispatchOperations(newList(
+                tuple(seqId1, new LoggedOperation(operation1, Optional.empty(), Optional.empty())),
+                tuple(seqId2, new LoggedOperation(operation2, Optional.of(Applied), Optional.empty())),
+                tuple(seqId3, new LoggedOperation(operation3, Optional.empty(), Optional.empty()))
+        ));
+    }
+
+    @Test
+    public void shouldNotContinueToNextOperationNorMarkAnyAsFinishedOnFailure() {
+        SeqId seqId1 = randomSeqId();
+        SeqId seqId2 = randomSeqId();
+        SeqId seqId3 = randomSeqId();
+        DepositTo operation1 = new DepositTo(randomOperationId(), randomAccountId(), randomPositiveAmount());
+        WithdrawFrom operation2 = new WithdrawFrom(randomOperationId(), randomAccountId(), randomPositiveAmount());
+        DepositTo operation3 = new DepositTo(randomOperationId(), randomAccountId(), randomPositiveAmount());
+
+        doNothing().when(depositToHandler).handleOperation(seqId1, operation1);
+        RuntimeException expectedException = new RuntimeException("some exception");
+        doThrow(expectedException).when(withdrawFromHandler).handleOperation(seqId2, operation2);
+
+        try {
+            operationDispatcher.dispatchOperations(newList(
+                    tuple(seqId1, new LoggedOperation(operation1, Optional.empty(), Optional.empty())),
+                    tuple(seqId2, new LoggedOperation(operation2, Optional.empty(), Optional.empty())),
+                    tuple(seqId3, new LoggedOperation(operation3, Optional.empty(), Optional.empty()))
+            ));
+
+            fail("the call should fail");
+        } catch (RuntimeException actualException) {
+            assertThat(actualException, sameInstance(expectedException));
+        }
+    }
+
+    @Test
+    public void shouldApplyConsecutiveBalanceOperationsTogether() {
+        BatchedBalanceHandler batchedBalanceHandler = mock(BatchedBalanceHandler.class);
+        OperationDispatcher batchingDispatcher = new OperationDispatcher(opLogDao, createAccountHandler, depositToHandler, withdrawFromHandler, transferFromHandler, transferToHandler, batchedBalanceHandler, new Metrics());
+
+        AccountId accountId = randomAccountId();
+        DepositTo operation1 = new DepositTo(randomOperationId(), accountId, randomPositiveAmount());
+        WithdrawFrom operation2 = new WithdrawFrom(randomOperationId(), accountId, randomPositiveAmount());
+        TransferFrom operation3 = new TransferFrom(randomOperationId(), randomOperationId(), new TransferDetail(accountId, randomAccountId(), randomPositiveAmount()));
+        TransferTo operation4 = new TransferTo(randomOperationId(), new TransferDetail(randomAccountId(), accountId, randomPositiveAmount()));
+        DepositTo operation5 = new DepositTo(randomOperationId(), accountId, randomPositiveAmount());
+
+        when(batchedBalanceHandler.canHandle(operation1)).thenReturn(true);
+        when(batchedBalanceHandler.canHandle(operation2)).thenReturn(true);
+        when(batchedBalanceHandler.canHandle(operation3)).thenReturn(false);
+        when(batchedBalanceHandler.canHandle(operation5)).thenReturn(true);
+        doNothing().when(batchedBalanceHandler).handleOperations(newList(tuple(seqId(1), operation1), tuple(seqId(2), operation2)));
+        doNothing().when(transferFromHandler).handleOperation(seqId(3), operation3);
+        doNothing().when(batchedBalanceHandler).handleOperations(newList(tuple(seqId(5), operation5)));
+        doNothing().when(opLogDao).markAsFinished(newList(operation1.operationId, operation2.operationId, operation3.operationId, operation4.operationId, operation5.operationId));
+
+        batchingDispatcher.dispatchOperations(newList(
+                tuple(seqId(1), new LoggedOperation(operation1, Optional.empty(), Optional.empty())),
+                tuple(seqId(2), new LoggedOperation(operation2, Optional.empty(), Optional.empty())),
+                tuple(seqId(3), new LoggedOperation(operation3, Optional.empty(), Optional.empty())),
+                tuple(seqId(4), new LoggedOperation(operation4, Optional.of(Applied), Optional.empty())),
+                tuple(seqId(5), new LoggedOperation(operation5, Optional.empty(), Optional.empty()))
+        ));
+    }
+}
@@ -87,6 +87,10 @@ public abstract class ReadableOperationHandlerTest extends StrictMockTest {
         when(accountDao.updateBalance(account.accountId, newBalance, account.version, seqId)).thenReturn(true);
     }
 
+    protected void expect_refreshOf(Account account) {
+        when(accountDao.refreshAccount(account)).thenReturn(Optional.of(account));
+    }
+
     protected void expect_storageOf(Operation operation) {
         doNothing().when(operationDao).storeOperation(operation);
     }
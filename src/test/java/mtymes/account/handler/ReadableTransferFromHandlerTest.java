@@ -1,17 +1,22 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.*;
 import mtymes.account.exception.DuplicateItemException;
+import mtymes.common.metrics.Metrics;
 import mtymes.common.util.SetQueue;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.UUID;
+
 import static javafixes.math.Decimal.ZERO;
 import static javafixes.math.Decimal.d;
+import static mtymes.account.domain.node.NodeId.nodeId;
 import static mtymes.domain.account.AccountBuilder.accountBuilder;
 import static mtymes.test.Random.*;
 import static org.mockito.Mockito.*;
@@ -21,13 +26,14 @@ public class ReadableTransferFromHandlerTest extends ReadableOperationHandlerTes
     private OpLogDao opLogDao;
     private SetQueue<AccountId> queue;
     private TransferFromHandler handler;
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
 
     @Before
     public void setUp() throws Exception {
         super.setUp();
         opLogDao = mock(OpLogDao.class);
         queue = mock(SetQueue.class);
-        handler = new TransferFromHandler(accountDao, operationDao, opLogDao, queue);
+        handler = new TransferFromHandler(accountDao, operationDao, opLogDao, queue, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -135,6 +141,7 @@ public class ReadableTransferFromHandlerTest extends ReadableOperationHandlerTes
         TransferDetail transferDetail = generateTransferDetailFor(fromAccount, toAccount, amount);
 
         // Then
+        expect_refreshOf(fromAccount);
         expect_operationMarkedAsRejected(fromPartOperationId, "Insufficient funds on account '" + fromAccount.accountId + "'");
 
         // When
@@ -155,6 +162,7 @@ public class ReadableTransferFromHandlerTest extends ReadableOperationHandlerTes
         TransferDetail transferDetail = generateTransferDetailFor(fromAccount, toAccount, amount);
 
         // Then
+        expect_refreshOf(fromAccount);
         expect_operationMarkedAsRejected(fromPartOperationId, "Insufficient funds on account '" + fromAccount.accountId + "'");
 
         // When
@@ -175,6 +183,7 @@ public class ReadableTransferFromHandlerTest extends ReadableOperationHandlerTes
         TransferDetail transferDetail = generateTransferDetailFor(fromAccount, toAccount, amount);
 
         // Then
+        expect_refreshOf(fromAccount);
         expect_operationMarkedAsRejected(fromPartOperationId, "Insufficient funds on account '" + fromAccount.accountId + "'");
 
         // When
@@ -1,25 +1,35 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.OperationId;
 import mtymes.account.domain.operation.SeqId;
 import mtymes.account.domain.operation.TransferDetail;
 import mtymes.account.domain.operation.TransferTo;
+import mtymes.common.metrics.Metrics;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.UUID;
+
+import static mtymes.account.domain.node.NodeId.nodeId;
 import static mtymes.test.Random.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ReadableTransferToHandlerTest extends ReadableOperationHandlerTest {
 
+    private TransferRefunds refunds;
     private TransferToHandler handler;
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
 
     @Before
     public void setUp() throws Exception {
         super.setUp();
-        handler = new TransferToHandler(accountDao, operationDao);
+        refunds = mock(TransferRefunds.class);
+        handler = new TransferToHandler(accountDao, operationDao, refunds, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -31,13 +41,15 @@ public class ReadableTransferToHandlerTest extends ReadableOperationHandlerTest
         SeqId seqId = generateNextSeqIdFor(toAccount);
         Decimal amount = randomPositiveAmount();
         TransferDetail transferDetail = generateTransferDetailFor(randomAccountId(), toAccount, amount);
+        TransferTo operation = new TransferTo(operationId, transferDetail);
+        when(refunds.isRefunded(operation)).thenReturn(false);
 
         // Then
         expect_balanceUpdateOf(toAccount, toAccount.balance.plus(amount), seqId);
         expect_operationMarkedAsApplied(operationId);
 
         // When
-        handler.handleOperation(seqId, new TransferTo(operationId, transferDetail));
+        handler.handleOperation(seqId, operation);
     }
 
     @Test
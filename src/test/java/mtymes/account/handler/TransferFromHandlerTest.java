@@ -1,19 +1,24 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.*;
 import mtymes.account.exception.DuplicateItemException;
+import mtymes.common.metrics.Metrics;
 import mtymes.common.util.SetQueue;
 import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Optional;
+import java.util.UUID;
 
+import static mtymes.account.domain.node.NodeId.nodeId;
 import static mtymes.domain.account.AccountBuilder.accountBuilder;
 import static mtymes.test.Condition.after;
 import static mtymes.test.Condition.before;
@@ -36,6 +41,7 @@ public class TransferFromHandlerTest extends StrictMockTest {
     private SeqId seqId = randomSeqId();
     private TransferDetail detail = new TransferDetail(fromAccountId, toAccountId, amount);
     private TransferFrom operation = new TransferFrom(fromOperationId, toOperationId, detail);
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
 
     @Before
     public void setUp() throws Exception {
@@ -43,7 +49,7 @@ public class TransferFromHandlerTest extends StrictMockTest {
         operationDao = mock(OperationDao.class);
         opLogDao = mock(OpLogDao.class);
         queue = mock(SetQueue.class);
-        handler = new TransferFromHandler(accountDao, operationDao, opLogDao, queue);
+        handler = new TransferFromHandler(accountDao, operationDao, opLogDao, queue, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -73,6 +79,81 @@ public class TransferFromHandlerTest extends StrictMockTest {
         handler.handleOperation(seqId, operation);
     }
 
+    @Test
+    public void shouldReloadStaleFromAccountAndSubmitTransferToOperation() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        SeqId currentVersion = randomSeqId(after(staleVersion), before(seqId));
+        Decimal staleBalance = amount.plus(randomPositiveAmount());
+        Decimal currentBalance = amount.plus(randomPositiveAmount());
+        when(accountDao.findAccount(fromAccountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(fromAccountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(accountBuilder().accountId(fromAccountId).balance(currentBalance).version(currentVersion).build())
+        );
+        when(accountDao.updateBalance(fromAccountId, staleBalance.minus(amount), staleVersion, seqId)).thenReturn(false);
+        when(accountDao.updateBalance(fromAccountId, currentBalance.minus(amount), currentVersion, seqId)).thenReturn(true);
+
+        doReturn(
+                Optional.of(accountBuilder()
+                        .accountId(toAccountId)
+                        .build())
+        ).when(accountDao).findAccount(toAccountId);
+
+        doNothing().when(operationDao).storeOperation(new TransferTo(toOperationId, detail));
+        when(opLogDao.registerOperationId(toAccountId, toOperationId)).thenReturn(randomSeqId());
+        doNothing().when(queue).add(toAccountId);
+
+        when(operationDao.markAsApplied(fromOperationId)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldSubmitTransferToOperationIfStaleFromAccountHasBeenAlreadyUpdatedByThisOperation() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        Decimal staleBalance = amount.plus(randomPositiveAmount());
+        when(accountDao.findAccount(fromAccountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(fromAccountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(accountBuilder().accountId(fromAccountId).version(seqId).build())
+        );
+        when(accountDao.updateBalance(fromAccountId, staleBalance.minus(amount), staleVersion, seqId)).thenReturn(false);
+
+        doReturn(
+                Optional.of(accountBuilder()
+                        .accountId(toAccountId)
+                        .build())
+        ).when(accountDao).findAccount(toAccountId);
+
+        doNothing().when(operationDao).storeOperation(new TransferTo(toOperationId, detail));
+        when(opLogDao.registerOperationId(toAccountId, toOperationId)).thenReturn(randomSeqId());
+        doNothing().when(queue).add(toAccountId);
+
+        when(operationDao.markAsApplied(fromOperationId)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldNotSubmitTransferToOperationIfStaleFromAccountHasBeenUpdatedByNextOperation() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        Decimal staleBalance = amount.plus(randomPositiveAmount());
+        when(accountDao.findAccount(fromAccountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(fromAccountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(accountBuilder().accountId(fromAccountId).version(randomSeqId(after(seqId))).build())
+        );
+        when(accountDao.updateBalance(fromAccountId, staleBalance.minus(amount), staleVersion, seqId)).thenReturn(false);
+
+        doReturn(
+                Optional.of(accountBuilder()
+                        .accountId(toAccountId)
+                        .build())
+        ).when(accountDao).findAccount(toAccountId);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
     @Test
     public void shouldSucceedIfMoneyHasBeenAlreadyTransferredByThisOperationAndTransferToOperationAlreadyExists() {
         SeqId accountVersion = randomSeqId(before(seqId));
@@ -157,11 +238,13 @@ public class TransferFromHandlerTest extends StrictMockTest {
         amount = fromAccountBalance.plus(randomPositiveAmount());
         detail = new TransferDetail(fromAccountId, toAccountId, amount);
         operation = new TransferFrom(fromOperationId, toOperationId, detail);
-        when(accountDao.findAccount(fromAccountId)).thenReturn(Optional.of(accountBuilder()
+        Account fromAccount = accountBuilder()
                 .accountId(fromAccountId)
                 .balance(fromAccountBalance)
                 .version(accountVersion)
-                .build()));
+                .build();
+        when(accountDao.findAccount(fromAccountId)).thenReturn(Optional.of(fromAccount));
+        when(accountDao.refreshAccount(fromAccount)).thenReturn(Optional.of(fromAccount));
         doReturn(
                 Optional.of(accountBuilder()
                         .accountId(toAccountId)
@@ -178,11 +261,13 @@ public class TransferFromHandlerTest extends StrictMockTest {
     public void shouldFailIfFromAccountHasZeroBalance() {
         SeqId accountVersion = randomSeqId(before(seqId));
         Decimal fromAccountBalance = Decimal.ZERO;
-        when(accountDao.findAccount(fromAccountId)).thenReturn(Optional.of(accountBuilder()
+        Account fromAccount = accountBuilder()
                 .accountId(fromAccountId)
                 .balance(fromAccountBalance)
                 .version(accountVersion)
-                .build()));
+                .build();
+        when(accountDao.findAccount(fromAccountId)).thenReturn(Optional.of(fromAccount));
+        when(accountDao.refreshAccount(fromAccount)).thenReturn(Optional.of(fromAccount));
         doReturn(
                 Optional.of(accountBuilder()
                         .accountId(toAccountId)
@@ -199,11 +284,13 @@ public class TransferFromHandlerTest extends StrictMockTest {
     public void shouldFailIfFromAccountHasNegativeBalance() {
         SeqId accountVersion = randomSeqId(before(seqId));
         Decimal fromAccountBalance = randomNegativeAmount();
-        when(accountDao.findAccount(fromAccountId)).thenReturn(Optional.of(accountBuilder()
+        Account fromAccount = accountBuilder()
                 .accountId(fromAccountId)
                 .balance(fromAccountBalance)
                 .version(accountVersion)
-                .build()));
+                .build();
+        when(accountDao.findAccount(fromAccountId)).thenReturn(Optional.of(fromAccount));
+        when(accountDao.refreshAccount(fromAccount)).thenReturn(Optional.of(fromAccount));
         doReturn(
                 Optional.of(accountBuilder()
                         .accountId(toAccountId)
@@ -0,0 +1,137 @@
+package mtymes.account.handler;
+
+import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.dao.memory.InMemoryAccountDao;
+import mtymes.account.dao.memory.InMemoryOpLogDao;
+import mtymes.account.dao.memory.InMemoryOperationDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.*;
+import mtymes.account.exception.AmountOutOfRangeException;
+import mtymes.account.work.Worker;
+import mtymes.common.metrics.Metrics;
+import mtymes.common.util.SetQueue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static javafixes.math.Decimal.d;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.account.domain.operation.FinalState.Applied;
+import static mtymes.account.domain.operation.FinalState.Rejected;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomOperationId;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class TransferRefundsTest {
+
+    private static final Decimal MAX_BALANCE = d("1000.00");
+
+    private AccountDao accountDao;
+    private OperationDao operationDao;
+    private OpLogDao opLogDao;
+    private SetQueue<AccountId> workQueue;
+    private Worker worker;
+
+    private AccountId fromAccountId = randomAccountId();
+    private AccountId toAccountId = randomAccountId();
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
+
+    @Before
+    public void setUp() throws Exception {
+        accountDao = new BoundedAccountDao();
+        operationDao = new InMemoryOperationDao();
+        opLogDao = new InMemoryOpLogDao();
+        workQueue = new SetQueue<>();
+        CompletionRegistry completions = new CompletionRegistry();
+        TransferRefunds refunds = new TransferRefunds(operationDao, opLogDao, workQueue);
+        worker = new Worker(opLogDao, operationDao, new OperationDispatcher(
+                opLogDao,
+                new CreateAccountHandler(accountDao, operationDao, completions, contention),
+                new DepositToHandler(accountDao, operationDao, completions, contention),
+                new WithdrawFromHandler(accountDao, operationDao, completions, contention),
+                new TransferFromHandler(accountDao, operationDao, opLogDao, workQueue, completions, contention),
+                new TransferToHandler(accountDao, operationDao, refunds, completions, contention),
+                new BatchedBalanceHandler(accountDao, operationDao, refunds, completions, contention),
+                new Metrics()
+        ));
+    }
+
+    @Test
+    public void shouldRestoreFromAccountBalanceIfTransferWouldOverflowToAccount() {
+        logAndRun(new CreateAccount(randomOperationId(), fromAccountId));
+        logAndRun(new DepositTo(randomOperationId(), fromAccountId, d("100.00")));
+        logAndRun(new CreateAccount(randomOperationId(), toAccountId));
+        logAndRun(new DepositTo(randomOperationId(), toAccountId, d("990.00")));
+
+        OperationId transferToOperationId = randomOperationId();
+        logOperation(new TransferFrom(randomOperationId(), transferToOperationId, new TransferDetail(fromAccountId, toAccountId, d("20.00"))));
+
+        // When
+        runQueuedWork(fromAccountId);
+
+        // Then
+        assertThat(balanceOf(fromAccountId), equalTo(d("100.00")));
+        assertThat(balanceOf(toAccountId), equalTo(d("990.00")));
+        assertThat(operationDao.findLoggedOperation(transferToOperationId).get().finalState, isPresentAndEqualTo(Rejected));
+        assertThat(operationDao.findLoggedOperation(TransferRefunds.refundOperationId(transferToOperationId)).get().finalState, isPresentAndEqualTo(Applied));
+    }
+
+    @Test
+    public void shouldRefundTransferOnlyOnce() {
+        logAndRun(new CreateAccount(randomOperationId(), fromAccountId));
+        logAndRun(new CreateAccount(randomOperationId(), toAccountId));
+        TransferTo operation = new TransferTo(randomOperationId(), new TransferDetail(fromAccountId, toAccountId, d("20.00")));
+        TransferRefunds refunds = new TransferRefunds(operationDao, opLogDao, workQueue);
+
+        // When
+        refunds.refund(operation);
+        refunds.refund(operation);
+        runQueuedWork(fromAccountId);
+
+        // Then
+        assertThat(balanceOf(fromAccountId), equalTo(d("20.00")));
+        assertThat(refunds.isRefunded(operation), equalTo(true));
+    }
+
+    private void logAndRun(Operation operation) {
+        logOperation(operation);
+        worker.runUnfinishedOperations(operation.affectedAccountId());
+    }
+
+    private void logOperation(Operation operation) {
+        operationDao.storeOperation(operation);
+        opLogDao.registerOperationId(operation.affectedAccountId(), operation.operationId);
+    }
+
+    private void runQueuedWork(AccountId accountId) {
+        workQueue.add(accountId);
+        Optional<AccountId> nextAccountId;
+        while ((nextAccountId = workQueue.takeNextAvailable()).isPresent()) {
+            worker.runUnfinishedOperations(nextAccountId.get());
+        }
+    }
+
+    private Decimal balanceOf(AccountId accountId) {
+        return accountDao.findAccount(accountId).get().balance;
+    }
+
+    // fails the same way as a mongo dao storing balances in minor units
+    private static class BoundedAccountDao extends InMemoryAccountDao {
+
+        @Override
+        public boolean updateBalance(AccountId accountId, Decimal newBalance, SeqId oldVersion, SeqId newVersion) {
+            if (newBalance.compareTo(MAX_BALANCE) > 0) {
+                throw new AmountOutOfRangeException("Amount " + newBalance + " does not fit");
+            }
+            return super.updateBalance(accountId, newBalance, oldVersion, newVersion);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.AccountId;
@@ -8,12 +9,16 @@ import mtymes.account.domain.operation.OperationId;
 import mtymes.account.domain.operation.SeqId;
 import mtymes.account.domain.operation.TransferDetail;
 import mtymes.account.domain.operation.TransferTo;
+import mtymes.account.exception.AmountOutOfRangeException;
+import mtymes.common.metrics.Metrics;
 import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Optional;
+import java.util.UUID;
 
+import static mtymes.account.domain.node.NodeId.nodeId;
 import static mtymes.domain.account.AccountBuilder.accountBuilder;
 import static mtymes.test.Condition.after;
 import static mtymes.test.Condition.before;
@@ -25,6 +30,7 @@ public class TransferToHandlerTest extends StrictMockTest {
 
     private AccountDao accountDao;
     private OperationDao operationDao;
+    private TransferRefunds refunds;
     private TransferToHandler handler;
 
     private OperationId operationId = randomOperationId();
@@ -34,12 +40,14 @@ public class TransferToHandlerTest extends StrictMockTest {
     private SeqId seqId = randomSeqId();
     private TransferDetail detail = new TransferDetail(fromAccountId, toAccountId, amount);
     private TransferTo operation = new TransferTo(operationId, detail);
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
 
     @Before
     public void setUp() throws Exception {
         accountDao = mock(AccountDao.class);
         operationDao = mock(OperationDao.class);
-        handler = new TransferToHandler(accountDao, operationDao);
+        refunds = mock(TransferRefunds.class);
+        handler = new TransferToHandler(accountDao, operationDao, refunds, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -51,6 +59,7 @@ public class TransferToHandlerTest extends StrictMockTest {
                 .balance(lastBalance)
                 .version(accountVersion)
                 .build()));
+        when(refunds.isRefunded(operation)).thenReturn(false);
         when(accountDao.updateBalance(toAccountId, lastBalance.plus(amount), accountVersion, seqId)).thenReturn(true);
         when(operationDao.markAsApplied(operationId)).thenReturn(true);
 
@@ -58,6 +67,60 @@ public class TransferToHandlerTest extends StrictMockTest {
         handler.handleOperation(seqId, operation);
     }
 
+    @Test
+    public void shouldReloadStaleAccountAndDepositTo() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        SeqId currentVersion = randomSeqId(after(staleVersion), before(seqId));
+        Decimal staleBalance = randomAmount();
+        Decimal currentBalance = randomAmount();
+        when(accountDao.findAccount(toAccountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(toAccountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(accountBuilder().accountId(toAccountId).balance(currentBalance).version(currentVersion).build())
+        );
+        when(refunds.isRefunded(operation)).thenReturn(false);
+        when(accountDao.updateBalance(toAccountId, staleBalance.plus(amount), staleVersion, seqId)).thenReturn(false);
+        when(accountDao.updateBalance(toAccountId, currentBalance.plus(amount), currentVersion, seqId)).thenReturn(true);
+        when(operationDao.markAsApplied(operationId)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldRefundFromAccountAndRejectIfBalanceWouldBeOutOfRange() {
+        SeqId accountVersion = randomSeqId(before(seqId));
+        Decimal lastBalance = randomAmount();
+        String description = "Balance of account '" + toAccountId + "' would be out of range - amount has been refunded to account '" + fromAccountId + "'";
+        when(accountDao.findAccount(toAccountId)).thenReturn(Optional.of(accountBuilder()
+                .accountId(toAccountId)
+                .balance(lastBalance)
+                .version(accountVersion)
+                .build()));
+        when(refunds.isRefunded(operation)).thenReturn(false);
+        when(accountDao.updateBalance(toAccountId, lastBalance.plus(amount), accountVersion, seqId)).thenThrow(new AmountOutOfRangeException("out of range"));
+        when(refunds.refund(operation)).thenReturn(description);
+        when(operationDao.markAsRejected(operationId, description)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldNotCreditAlreadyRefundedOperation() {
+        SeqId accountVersion = randomSeqId(before(seqId));
+        String description = "Balance of account '" + toAccountId + "' would be out of range - amount has been refunded to account '" + fromAccountId + "'";
+        when(accountDao.findAccount(toAccountId)).thenReturn(Optional.of(accountBuilder()
+                .accountId(toAccountId)
+                .version(accountVersion)
+                .build()));
+        when(refunds.isRefunded(operation)).thenReturn(true);
+        when(refunds.refund(operation)).thenReturn(description);
+        when(operationDao.markAsRejected(operationId, description)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
     @Test
     public void shouldSucceedIfBalanceHasBeenAlreadyUpdatedByThisOperation() {
         SeqId accountVersion = seqId;
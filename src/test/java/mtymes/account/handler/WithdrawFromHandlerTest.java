@@ -1,18 +1,23 @@
 package mtymes.account.handler;
 
 import javafixes.math.Decimal;
+import mtymes.account.contention.ContentionMonitor;
 import mtymes.account.dao.AccountDao;
 import mtymes.account.dao.OperationDao;
+import mtymes.account.domain.account.Account;
 import mtymes.account.domain.account.AccountId;
 import mtymes.account.domain.operation.OperationId;
 import mtymes.account.domain.operation.SeqId;
 import mtymes.account.domain.operation.WithdrawFrom;
+import mtymes.common.metrics.Metrics;
 import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Optional;
+import java.util.UUID;
 
+import static mtymes.account.domain.node.NodeId.nodeId;
 import static mtymes.domain.account.AccountBuilder.accountBuilder;
 import static mtymes.test.Condition.after;
 import static mtymes.test.Condition.before;
@@ -31,12 +36,13 @@ public class WithdrawFromHandlerTest extends StrictMockTest {
     private Decimal withdrawAmount = randomPositiveAmount();
     private SeqId seqId = randomSeqId();
     private WithdrawFrom operation = new WithdrawFrom(operationId, accountId, withdrawAmount);
+    private ContentionMonitor contention = new ContentionMonitor(nodeId(UUID.randomUUID()), new Metrics());
 
     @Before
     public void setUp() throws Exception {
         accountDao = mock(AccountDao.class);
         operationDao = mock(OperationDao.class);
-        handler = new WithdrawFromHandler(accountDao, operationDao);
+        handler = new WithdrawFromHandler(accountDao, operationDao, new CompletionRegistry(), contention);
     }
 
     @Test
@@ -55,6 +61,58 @@ public class WithdrawFromHandlerTest extends StrictMockTest {
         handler.handleOperation(seqId, operation);
     }
 
+    @Test
+    public void shouldReloadStaleAccountAndWithdrawFrom() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        SeqId currentVersion = randomSeqId(after(staleVersion), before(seqId));
+        Decimal staleBalance = withdrawAmount.plus(randomPositiveAmount());
+        Decimal currentBalance = withdrawAmount.plus(randomPositiveAmount());
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(accountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(accountBuilder().accountId(accountId).balance(currentBalance).version(currentVersion).build())
+        );
+        when(accountDao.updateBalance(accountId, staleBalance.minus(withdrawAmount), staleVersion, seqId)).thenReturn(false);
+        when(accountDao.updateBalance(accountId, currentBalance.minus(withdrawAmount), currentVersion, seqId)).thenReturn(true);
+        when(operationDao.markAsApplied(operationId)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldRejectIfReloadedStaleAccountHasInsufficientFunds() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        SeqId currentVersion = randomSeqId(after(staleVersion), before(seqId));
+        Decimal staleBalance = withdrawAmount.plus(randomPositiveAmount());
+        Account currentAccount = accountBuilder().accountId(accountId).balance(Decimal.ZERO).version(currentVersion).build();
+        when(accountDao.findAccount(accountId)).thenReturn(
+                Optional.of(accountBuilder().accountId(accountId).balance(staleBalance).version(staleVersion).build()),
+                Optional.of(currentAccount)
+        );
+        when(accountDao.updateBalance(accountId, staleBalance.minus(withdrawAmount), staleVersion, seqId)).thenReturn(false);
+        when(accountDao.refreshAccount(currentAccount)).thenReturn(Optional.of(currentAccount));
+        when(operationDao.markAsRejected(operationId, "Insufficient funds on account '" + accountId + "'")).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
+    @Test
+    public void shouldNotRejectBasedOnStaleCachedAccount() {
+        SeqId staleVersion = randomSeqId(before(seqId));
+        SeqId currentVersion = randomSeqId(after(staleVersion), before(seqId));
+        Decimal currentBalance = withdrawAmount.plus(randomPositiveAmount());
+        Account staleAccount = accountBuilder().accountId(accountId).balance(Decimal.ZERO).version(staleVersion).build();
+        Account currentAccount = accountBuilder().accountId(accountId).balance(currentBalance).version(currentVersion).build();
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(staleAccount), Optional.of(currentAccount));
+        when(accountDao.refreshAccount(staleAccount)).thenReturn(Optional.of(currentAccount));
+        when(accountDao.updateBalance(accountId, currentBalance.minus(withdrawAmount), currentVersion, seqId)).thenReturn(true);
+        when(operationDao.markAsApplied(operationId)).thenReturn(true);
+
+        // When & Then
+        handler.handleOperation(seqId, operation);
+    }
+
     @Test
     public void shouldSucceedIfBalanceHasBeenAlreadyUpdatedByThisOperation() {
         SeqId accountVersion = seqId;
@@ -75,11 +133,13 @@ public class WithdrawFromHandlerTest extends StrictMockTest {
         withdrawAmount = lastBalance.plus(randomPositiveAmount());
         operation = new WithdrawFrom(operationId, accountId, withdrawAmount);
 
-        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder()
+        Account account = accountBuilder()
                 .accountId(accountId)
                 .balance(lastBalance)
                 .version(accountVersion)
-                .build()));
+                .build();
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(account));
+        when(accountDao.refreshAccount(account)).thenReturn(Optional.of(account));
         when(operationDao.markAsRejected(operationId, "Insufficient funds on account '" + accountId + "'")).thenReturn(true);
 
         // When & Then
@@ -90,11 +150,13 @@ public class WithdrawFromHandlerTest extends StrictMockTest {
     public void shouldFailIfAccountHasZeroBalance() {
         SeqId accountVersion = randomSeqId(before(seqId));
         Decimal lastBalance = Decimal.ZERO;
-        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder()
+        Account account = accountBuilder()
                 .accountId(accountId)
                 .balance(lastBalance)
                 .version(accountVersion)
-                .build()));
+                .build();
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(account));
+        when(accountDao.refreshAccount(account)).thenReturn(Optional.of(account));
         when(operationDao.markAsRejected(operationId, "Insufficient funds on account '" + accountId + "'")).thenReturn(true);
 
         // When & Then
@@ -105,11 +167,13 @@ public class WithdrawFromHandlerTest extends StrictMockTest {
     public void shouldFailIfAccountHasNegativeBalance() {
         SeqId accountVersion = randomSeqId(before(seqId));
         Decimal lastBalance = randomNegativeAmount();
-        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(accountBuilder()
+        Account account = accountBuilder()
                 .accountId(accountId)
                 .balance(lastBalance)
                 .version(accountVersion)
-                .build()));
+                .build();
+        when(accountDao.findAccount(accountId)).thenReturn(Optional.of(account));
+        when(accountDao.refreshAccount(account)).thenReturn(Optional.of(account));
         when(operationDao.markAsRejected(operationId, "Insufficient funds on account '" + accountId + "'")).thenReturn(true);
 
         // When & Then
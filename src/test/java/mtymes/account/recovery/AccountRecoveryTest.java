@@ -0,0 +1,237 @@
+package mtymes.account.recovery;
+
+import mtymes.account.dao.AccountDao;
+import mtymes.account.dao.AccountSnapshotDao;
+import mtymes.account.dao.OpLogDao;
+import mtymes.account.dao.OperationDao;
+import mtymes.account.dao.memory.InMemoryAccountDao;
+import mtymes.account.dao.memory.InMemoryAccountSnapshotDao;
+import mtymes.account.dao.memory.InMemoryOpLogDao;
+import mtymes.account.dao.memory.InMemoryOperationDao;
+import mtymes.account.domain.account.Account;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.operation.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static javafixes.common.CollectionUtil.newList;
+import static javafixes.math.Decimal.d;
+import static mtymes.account.domain.operation.SeqId.seqId;
+import static mtymes.test.OptionalMatcher.isNotPresent;
+import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
+import static mtymes.test.Random.randomAccountId;
+import static mtymes.test.Random.randomOperationId;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AccountRecoveryTest {
+
+    private AccountDao accountDao;
+    private AccountSnapshotDao snapshotDao;
+    private OperationDao operationDao;
+    private OpLogDao opLogDao;
+    private AccountRecovery recovery;
+
+    private AccountId accountId = randomAccountId();
+
+    @Before
+    public void setUp() throws Exception {
+        accountDao = new InMemoryAccountDao();
+        snapshotDao = new InMemoryAccountSnapshotDao();
+        operationDao = new InMemoryOperationDao();
+        opLogDao = new InMemoryOpLogDao();
+        recovery = new AccountRecovery(accountDao, snapshotDao, operationDao, opLogDao, 4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        recovery.shutdown();
+    }
+
+    @Test
+    public void shouldReplayAppliedOperations() {
+        applied(new CreateAccount(randomOperationId(), accountId));
+        applied(new DepositTo(randomOperationId(), accountId, d("100")));
+        rejected(new WithdrawFrom(randomOperationId(), accountId, d("500")));
+        applied(new WithdrawFrom(randomOperationId(), accountId, d("30")));
+        applied(new TransferFrom(randomOperationId(), randomOperationId(), new TransferDetail(accountId, randomAccountId(), d("20"))));
+        applied(new TransferTo(randomOperationId(), new TransferDetail(randomAccountId(), accountId, d("5"))));
+
+        // When & Then
+        assertThat(recovery.replayAccount(accountId), isPresentAndEqualTo(new Account(accountId, d("55"), seqId(6))));
+    }
+
+    @Test
+    public void shouldReplayOnlyOperationsAfterSnapshot() {
+        applied(new CreateAccount(randomOperationId(), accountId));
+        applied(new DepositTo(randomOperationId(), accountId, d("100")));
+        applied(new DepositTo(randomOperationId(), accountId, d("10")));
+        // the snapshot balance differs from the one of the operations, so it must have been used
+        snapshotDao.storeSnapshot(new Account(accountId, d("1000"), seqId(2)));
+
+        // When & Then
+        assertThat(recovery.replayAccount(accountId), isPresentAndEqualTo(new Account(accountId, d("1010"), seqId(3))));
+    }
+
+    @Test
+    public void shouldStopReplayAtFirstUnfinishedOperation() {
+        applied(new CreateAccount(randomOperationId(), accountId));
+        applied(new DepositTo(randomOperationId(), accountId, d("100")));
+        unfinished(new DepositTo(randomOperationId(), accountId, d("10")));
+        applied(new DepositTo(randomOperationId(), accountId, d("1")));
+
+        // When & Then
+        assertThat(recovery.replayAccount(accountId), isPresentAndEqualTo(new Account(accountId, d("100"), seqId(2))));
+    }
+
+    @Test
+    public void shouldNotReplayAccountThatHasNotBeenCreated() {
+        rejected(new DepositTo(randomOperationId(), accountId, d("100")));
+
+        // When & Then
+        assertThat(recovery.replayAccount(accountId), isNotPresent());
+    }
+
+    @Test
+    public void shouldFindAccountsThatDoNotMatchTheirReplay() {
+        AccountId validAccountId = randomAccountId();
+        applied(new CreateAccount(randomOperationId(), validAccountId));
+        applied(new DepositTo(randomOperationId(), validAccountId, d("100")));
+        accountDao.restoreAccount(new Account(validAccountId, d("100"), seqId(2)), Optional.empty());
+
+        AccountId brokenAccountId = randomAccountId();
+        applied(new CreateAccount(randomOperationId(), brokenAccountId));
+        applied(new DepositTo(randomOperationId(), brokenAccountId, d("100")));
+        accountDao.restoreAccount(new Account(brokenAccountId, d("90"), seqId(2)), Optional.empty());
+
+        AccountId inProgressAccountId = randomAccountId();
+        applied(new CreateAccount(randomOperationId(), inProgressAccountId));
+        unfinished(new DepositTo(randomOperationId(), inProgressAccountId, d("100")));
+        accountDao.restoreAccount(new Account(inProgressAccountId, d("100"), seqId(2)), Optional.empty());
+
+        AccountId missingAccountId = randomAccountId();
+        applied(new CreateAccount(randomOperationId(), missingAccountId));
+
+        // When
+        List<AccountId> mismatchedAccountIds = recovery.verifyAccounts(recovery.findAllAccountIds());
+
+        // Then
+        assertThat(mismatchedAccountIds.size(), is(2));
+        assertThat(mismatchedAccountIds.contains(brokenAccountId), is(true));
+        assertThat(mismatchedAccountIds.contains(missingAccountId), is(true));
+    }
+
+    @Test
+    public void shouldRebuildAccountsThatDoNotMatchTheirReplay() {
+        AccountId brokenAccountId = randomAccountId();
+        applied(new CreateAccount(randomOperationId(), brokenAccountId));
+        applied(new DepositTo(randomOperationId(), brokenAccountId, d("100")));
+        accountDao.restoreAccount(new Account(brokenAccountId, d("90"), seqId(2)), Optional.empty());
+
+        AccountId missingAccountId = randomAccountId();
+        applied(new CreateAccount(randomOperationId(), missingAccountId));
+
+        // When
+        int restoredCount = recovery.rebuildAccounts(recovery.findAllAccountIds());
+
+        // Then
+        assertThat(restoredCount, is(2));
+        assertThat(accountDao.findAccount(brokenAccountId), isPresentAndEqualTo(new Account(brokenAccountId, d("100"), seqId(2))));
+        assertThat(accountDao.findAccount(missingAccountId), isPresentAndEqualTo(new Account(missingAccountId, d("0"), seqId(1))));
+        assertThat(recovery.verifyAccounts(recovery.findAllAccountIds()), equalTo(newList()));
+    }
+
+    @Test
+    public void shouldRebuildAccountThatLostWriteOfAppliedOperation() {
+        applied(new CreateAccount(randomOperationId(), accountId));
+        applied(new DepositTo(randomOperationId(), accountId, d("100")));
+        accountDao.restoreAccount(new Account(accountId, d("0"), seqId(1)), Optional.empty());
+
+        // When
+        List<AccountId> mismatchedAccountIds = recovery.verifyAccounts(recovery.findAllAccountIds());
+        int restoredCount = recovery.rebuildAccounts(recovery.findAllAccountIds());
+
+        // Then
+        assertThat(mismatchedAccountIds, equalTo(newList(accountId)));
+        assertThat(restoredCount, is(1));
+        assertThat(accountDao.findAccount(accountId), isPresentAndEqualTo(new Account(accountId, d("100"), seqId(2))));
+    }
+
+    @Test
+    public void shouldNotRollBackAccountUpdatedDuringRebuild() {
+        AtomicBoolean liveOperationApplied = new AtomicBoolean(false);
+        accountDao = new InMemoryAccountDao() {
+            @Override
+            public Optional<Account> findAccount(AccountId accountId) {
+                Optional<Account> account = super.findAccount(accountId);
+                // a live handler applies the last operation right after the account has been read
+                if (account.isPresent() && !liveOperationApplied.getAndSet(true)) {
+                    super.updateBalance(accountId, d("110"), seqId(2), seqId(3));
+                }
+                return account;
+            }
+        };
+        recovery.shutdown();
+        recovery = new AccountRecovery(accountDao, snapshotDao, operationDao, opLogDao, 4);
+
+        applied(new CreateAccount(randomOperationId(), accountId));
+        applied(new DepositTo(randomOperationId(), accountId, d("100")));
+        applied(new DepositTo(randomOperationId(), accountId, d("10")));
+        accountDao.restoreAccount(new Account(accountId, d("100"), seqId(2)), Optional.empty());
+
+        // When
+        int restoredCount = recovery.rebuildAccounts(recovery.findAllAccountIds());
+
+        // Then
+        assertThat(restoredCount, is(0));
+        assertThat(accountDao.findAccount(accountId), isPresentAndEqualTo(new Account(accountId, d("110"), seqId(3))));
+        assertThat(recovery.verifyAccounts(recovery.findAllAccountIds()), equalTo(newList()));
+    }
+
+    @Test
+    public void shouldTakeSnapshotsOfAllAccounts() {
+        List<AccountId> accountIds = newList();
+        for (int i = 0; i < 1_000; i++) {
+            AccountId accountId = randomAccountId();
+            applied(new CreateAccount(randomOperationId(), accountId));
+            accountDao.restoreAccount(new Account(accountId, d(i), seqId(1)), Optional.empty());
+            accountIds.add(accountId);
+        }
+
+        // When
+        int snapshotCount = recovery.takeSnapshots(recovery.findAllAccountIds());
+
+        // Then
+        assertThat(snapshotCount, is(1_000));
+        for (AccountId accountId : accountIds) {
+            assertThat(snapshotDao.findSnapshot(accountId), equalTo(accountDao.findAccount(accountId)));
+        }
+    }
+
+    private void applied(Operation operation) {
+        register(operation);
+        operationDao.markAsApplied(operation.operationId);
+        opLogDao.markAsFinished(operation.operationId);
+    }
+
+    private void rejected(Operation operation) {
+        register(operation);
+        operationDao.markAsRejected(operation.operationId, "rejected");
+        opLogDao.markAsFinished(operation.operationId);
+    }
+
+    private void unfinished(Operation operation) {
+        register(operation);
+    }
+
+    private void register(Operation operation) {
+        operationDao.storeOperation(operation);
+        opLogDao.registerOperationId(operation.affectedAccountId(), operation.operationId);
+    }
+}
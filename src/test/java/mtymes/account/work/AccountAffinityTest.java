@@ -0,0 +1,141 @@
+package mtymes.account.work;
+
+import mtymes.account.dao.ForwardedWorkDao;
+import mtymes.account.dao.NodeLeaseDao;
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.node.NodeId;
+import mtymes.common.util.SetQueue;
+import mtymes.test.StrictMockTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static javafixes.common.CollectionUtil.newList;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.test.Random.randomAccountId;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class AccountAffinityTest extends StrictMockTest {
+
+    private final NodeId localNodeId = nodeId(UUID.randomUUID());
+    private final NodeId otherNodeId = nodeId(UUID.randomUUID());
+    private final Duration leaseDuration = Duration.ofSeconds(3);
+
+    private NodeLeaseDao leaseDao;
+    private ForwardedWorkDao forwardedWorkDao;
+    private SetQueue<AccountId> workQueue;
+
+    private AccountAffinity affinity;
+
+    @Before
+    public void setUp() throws Exception {
+        leaseDao = mock(NodeLeaseDao.class);
+        forwardedWorkDao = mock(ForwardedWorkDao.class);
+        workQueue = new SetQueue<>();
+
+        affinity = new AccountAffinity(localNodeId, leaseDao, forwardedWorkDao, workQueue, leaseDuration, Duration.ofMillis(100));
+    }
+
+    @Test
+    public void shouldOwnAllAccountsIfThereIsNoOtherLiveNode() {
+        when(leaseDao.findLiveNodeIds()).thenReturn(newList(localNodeId));
+        Runnable listener = mock(Runnable.class);
+        affinity.onOwnershipChange(listener);
+
+        // When
+        affinity.refreshLiveNodes();
+
+        // Then
+        verify(leaseDao).renewLease(localNodeId, leaseDuration);
+        for (int i = 0; i < 100; i++) {
+            assertThat(affinity.isOwnedLocally(randomAccountId()), is(true));
+        }
+    }
+
+    @Test
+    public void shouldShareAccountsWithOtherLiveNodes() {
+        when(leaseDao.findLiveNodeIds()).thenReturn(newList(localNodeId, otherNodeId));
+        Runnable listener = mock(Runnable.class);
+        affinity.onOwnershipChange(listener);
+
+        // When
+        affinity.refreshLiveNodes();
+
+        // Then
+        verify(leaseDao).renewLease(localNodeId, leaseDuration);
+        verify(listener).run();
+        ConsistentHashRing expectedRing = new ConsistentHashRing(newList(localNodeId, otherNodeId), 64);
+        for (int i = 0; i < 100; i++) {
+            AccountId accountId = randomAccountId();
+            assertThat(affinity.isOwnedLocally(accountId), equalTo(localNodeId.equals(expectedRing.ownerOf(accountId))));
+        }
+    }
+
+    @Test
+    public void shouldPickUpOnlyForwardedWorkOfLocallyOwnedAccounts() {
+        when(leaseDao.findLiveNodeIds()).thenReturn(newList(localNodeId, otherNodeId));
+        affinity.refreshLiveNodes();
+        verify(leaseDao).renewLease(localNodeId, leaseDuration);
+
+        AccountId localAccountId = randomAccountId();
+        while (!affinity.isOwnedLocally(localAccountId)) {
+            localAccountId = randomAccountId();
+        }
+        AccountId foreignAccountId = randomAccountId();
+        while (affinity.isOwnedLocally(foreignAccountId)) {
+            foreignAccountId = randomAccountId();
+        }
+        when(forwardedWorkDao.findForwardedWork()).thenReturn(newList(localAccountId, foreignAccountId));
+        when(forwardedWorkDao.takeForwardedWork(localAccountId)).thenReturn(true);
+
+        // When
+        affinity.pickUpForwardedWork();
+
+        // Then
+        assertThat(workQueue.size(), is(1));
+        assertThat(workQueue.takeNextAvailable().get(), equalTo(localAccountId));
+    }
+
+    @Test
+    public void shouldNotQueueWorkTakenByOtherNode() {
+        AccountId accountId = randomAccountId();
+        when(forwardedWorkDao.findForwardedWork()).thenReturn(newList(accountId));
+        when(forwardedWorkDao.takeForwardedWork(accountId)).thenReturn(false);
+
+        // When
+        affinity.pickUpForwardedWork();
+
+        // Then
+        assertThat(workQueue.size(), is(0));
+    }
+
+    @Test
+    public void shouldForwardWork() {
+        AccountId accountId = randomAccountId();
+
+        // When
+        affinity.forwardWork(accountId);
+
+        // Then
+        verify(forwardedWorkDao).forwardWork(accountId);
+    }
+
+    @Test
+    public void shouldNotAllowZeroForwardedWorkPollInterval() {
+        try {
+            // When
+            new AccountAffinity(localNodeId, leaseDao, forwardedWorkDao, workQueue, leaseDuration, Duration.ofMillis(0));
+
+            // Then
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException expectedException) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package mtymes.account.work;
+
+import mtymes.account.domain.account.AccountId;
+import mtymes.account.domain.node.NodeId;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static javafixes.common.CollectionUtil.newList;
+import static mtymes.account.domain.node.NodeId.nodeId;
+import static mtymes.test.Random.randomAccountId;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.isIn;
+import static org.junit.Assert.assertThat;
+
+public class ConsistentHashRingTest {
+
+    private final NodeId nodeId1 = nodeId(UUID.randomUUID());
+    private final NodeId nodeId2 = nodeId(UUID.randomUUID());
+    private final NodeId nodeId3 = nodeId(UUID.randomUUID());
+
+    @Test
+    public void shouldAssignEveryAccountToSingleNode() {
+        ConsistentHashRing ring = new ConsistentHashRing(newList(nodeId1), 16);
+
+        for (int i = 0; i < 100; i++) {
+            // When
+            NodeId owner = ring.ownerOf(randomAccountId());
+
+            // Then
+            assertThat(owner, equalTo(nodeId1));
+        }
+    }
+
+    @Test
+    public void shouldAssignAccountToTheSameNodeRegardlessOfNodeOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(newList(nodeId1, nodeId2, nodeId3), 16);
+        ConsistentHashRing reorderedRing = new ConsistentHashRing(newList(nodeId3, nodeId1, nodeId2), 16);
+
+        for (int i = 0; i < 100; i++) {
+            AccountId accountId = randomAccountId();
+
+            // When
+            NodeId owner = ring.ownerOf(accountId);
+
+            // Then
+            assertThat(owner, isIn(newList(nodeId1, nodeId2, nodeId3)));
+            assertThat(reorderedRing.ownerOf(accountId), equalTo(owner));
+        }
+    }
+
+    @Test
+    public void shouldMoveOnlyAccountsOfRemovedNode() {
+        ConsistentHashRing ring = new ConsistentHashRing(newList(nodeId1, nodeId2, nodeId3), 16);
+        ConsistentHashRing shrunkRing = new ConsistentHashRing(newList(nodeId1, nodeId2), 16);
+
+        for (int i = 0; i < 100; i++) {
+            AccountId accountId = randomAccountId();
+            NodeId owner = ring.ownerOf(accountId);
+
+            // When
+            NodeId newOwner = shrunkRing.ownerOf(accountId);
+
+            // Then
+            if (!owner.equals(nodeId3)) {
+                assertThat(newOwner, equalTo(owner));
+            }
+        }
+    }
+}
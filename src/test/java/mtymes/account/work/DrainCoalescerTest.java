@@ -0,0 +1,233 @@
+package mtymes.account.work;
+
+import mtymes.account.domain.account.AccountId;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
+import static mtymes.test.Random.randomAccountId;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class DrainCoalescerTest {
+
+    private final DrainCoalescer coalescer = new DrainCoalescer();
+
+    @Test
+    public void shouldRunEachSequentialDrain() {
+        AccountId accountId = randomAccountId();
+        AtomicInteger drainCount = new AtomicInteger(0);
+
+        // When
+        coalescer.drain(accountId, drainCount::incrementAndGet);
+        coalescer.drain(accountId, drainCount::incrementAndGet);
+
+        // Then
+        assertThat(drainCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldCoalesceDrainsRequestedWhileDrainIsInProgress() throws InterruptedException {
+        AccountId accountId = randomAccountId();
+        int waitingThreadCount = 10;
+        AtomicInteger drainCount = new AtomicInteger(0);
+        AtomicInteger concurrentDrains = new AtomicInteger(0);
+        AtomicInteger maxConcurrentDrains = new AtomicInteger(0);
+        CountDownLatch drainStarted = new CountDownLatch(1);
+        CountDownLatch releaseDrain = new CountDownLatch(1);
+
+        Runnable drain = () -> {
+            maxConcurrentDrains.accumulateAndGet(concurrentDrains.incrementAndGet(), Math::max);
+            if (drainCount.incrementAndGet() == 1) {
+                drainStarted.countDown();
+                try {
+                    releaseDrain.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            concurrentDrains.decrementAndGet();
+        };
+
+        Thread owner = new Thread(() -> coalescer.drain(accountId, drain));
+        owner.start();
+        drainStarted.await();
+
+        // When
+        List<Thread> waitingThreads = newArrayList();
+        for (int i = 0; i < waitingThreadCount; i++) {
+            Thread thread = new Thread(() -> coalescer.drain(accountId, drain));
+            thread.start();
+            waitingThreads.add(thread);
+        }
+        Thread.sleep(50);
+        releaseDrain.countDown();
+
+        owner.join();
+        for (Thread thread : waitingThreads) {
+            thread.join();
+        }
+
+        // Then
+        assertThat(drainCount.get(), is(2));
+        assertThat(maxConcurrentDrains.get(), is(1));
+    }
+
+    @Test
+    public void shouldNotWaitForFollowUpDrainIfRequestedWithoutWaiting() throws InterruptedException {
+        AccountId accountId = randomAccountId();
+        AtomicInteger drainCount = new AtomicInteger(0);
+        CountDownLatch drainStarted = new CountDownLatch(1);
+        CountDownLatch releaseDrain = new CountDownLatch(1);
+
+        Runnable drain = () -> {
+            if (drainCount.incrementAndGet() == 1) {
+                drainStarted.countDown();
+                try {
+                    releaseDrain.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        Thread owner = new Thread(() -> coalescer.drain(accountId, drain));
+        owner.start();
+        drainStarted.await();
+
+        // When
+        coalescer.requestDrain(accountId, drain);
+        coalescer.requestDrain(accountId, drain);
+
+        // Then
+        assertThat(drainCount.get(), is(1));
+
+        releaseDrain.countDown();
+        owner.join();
+        assertThat(drainCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldKeepRunningFollowUpDrainsNobodyWaitsFor() {
+        AccountId accountId = randomAccountId();
+        int requestCount = DrainCoalescer.MAX_FOLLOW_UP_DRAINS + 3;
+        AtomicInteger drainCount = new AtomicInteger(0);
+
+        Runnable[] drain = new Runnable[1];
+        drain[0] = () -> {
+            if (drainCount.incrementAndGet() < requestCount) {
+                Thread thread = new Thread(() -> coalescer.requestDrain(accountId, drain[0]));
+                thread.start();
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        // When
+        coalescer.drain(accountId, drain[0]);
+
+        // Then
+        assertThat(drainCount.get(), is(requestCount));
+    }
+
+    @Test
+    public void shouldHandOverFollowUpDrainsOnceThreadRanMaxFollowUpDrains() throws InterruptedException {
+        AccountId accountId = randomAccountId();
+        int requestCount = DrainCoalescer.MAX_FOLLOW_UP_DRAINS * 3;
+        AtomicInteger drainCount = new AtomicInteger(0);
+        AtomicInteger concurrentDrains = new AtomicInteger(0);
+        AtomicInteger maxConcurrentDrains = new AtomicInteger(0);
+        ConcurrentMap<Thread, Integer> drainsPerThread = new ConcurrentHashMap<>();
+        List<Thread> requestingThreads = newCopyOnWriteArrayList();
+
+        Runnable[] drain = new Runnable[1];
+        drain[0] = () -> {
+            maxConcurrentDrains.accumulateAndGet(concurrentDrains.incrementAndGet(), Math::max);
+            drainsPerThread.merge(Thread.currentThread(), 1, Integer::sum);
+            if (drainCount.incrementAndGet() < requestCount) {
+                // every drain is followed by another request, so there is always a follow-up drain
+                Thread thread = new Thread(() -> coalescer.drain(accountId, drain[0]));
+                requestingThreads.add(thread);
+                thread.start();
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            concurrentDrains.decrementAndGet();
+        };
+
+        // When
+        coalescer.drain(accountId, drain[0]);
+        for (int i = 0; i < requestingThreads.size(); i++) {
+            requestingThreads.get(i).join();
+        }
+
+        // Then
+        assertThat(drainCount.get(), is(requestCount));
+        assertThat(maxConcurrentDrains.get(), is(1));
+        for (int threadDrainCount : drainsPerThread.values()) {
+            assertThat(threadDrainCount <= 1 + DrainCoalescer.MAX_FOLLOW_UP_DRAINS, is(true));
+        }
+    }
+
+    @Test
+    public void shouldPropagateFailureToWaitingThreads() throws InterruptedException {
+        AccountId accountId = randomAccountId();
+        CountDownLatch drainStarted = new CountDownLatch(1);
+        CountDownLatch releaseDrain = new CountDownLatch(1);
+        List<String> failures = newCopyOnWriteArrayList();
+
+        Thread owner = new Thread(() -> {
+            try {
+                coalescer.drain(accountId, () -> {
+                    drainStarted.countDown();
+                    try {
+                        releaseDrain.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    throw new IllegalStateException("drain failed");
+                });
+            } catch (IllegalStateException e) {
+                failures.add(e.getMessage());
+            }
+        });
+        owner.start();
+        drainStarted.await();
+
+        // When
+        Thread waitingThread = new Thread(() -> {
+            try {
+                coalescer.drain(accountId, () -> fail("should be coalesced"));
+            } catch (IllegalStateException e) {
+                failures.add(e.getMessage());
+            }
+        });
+        waitingThread.start();
+        Thread.sleep(50);
+        releaseDrain.countDown();
+
+        owner.join();
+        waitingThread.join();
+
+        // Then
+        assertThat(failures, equalTo(newArrayList("drain failed", "drain failed")));
+
+        AtomicInteger drainCount = new AtomicInteger(0);
+        coalescer.drain(accountId, drainCount::incrementAndGet);
+        assertThat(drainCount.get(), is(1));
+    }
+}
@@ -0,0 +1,144 @@
+package mtymes.account.work;
+
+import mtymes.account.domain.account.AccountId;
+import mtymes.common.util.SetQueue;
+import mtymes.test.StrictMockTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static mtymes.test.Random.randomAccountId;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class DrainDispatcherTest extends StrictMockTest {
+
+    private SetQueue<AccountId> queue;
+    private Worker worker;
+
+    private DrainDispatcher dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        queue = mock(SetQueue.class);
+        worker = mock(Worker.class);
+
+        dispatcher = new DrainDispatcher(queue, worker, Runnable::run, 1);
+    }
+
+    @Test
+    public void shouldDrainEachQueuedAccountUntilInterrupted() throws Exception {
+        AccountId accountId1 = randomAccountId();
+        AccountId accountId2 = randomAccountId();
+        InterruptedException expectedException = new InterruptedException("thread shutdown");
+        when(queue.takeNext()).thenReturn(accountId1, accountId2).thenThrow(expectedException);
+        doAnswer(inv -> {
+            assertThat(dispatcher.drainsInProgress(), is(1));
+            return null;
+        }).when(worker).requestUnfinishedOperationsRun(accountId1);
+        doNothing().when(worker).requestUnfinishedOperationsRun(accountId2);
+
+        try {
+            // When
+            dispatcher.run();
+
+            fail("the call should be interrupted");
+        } catch (InterruptedException actualException) {
+            // Then
+            assertThat(actualException.getMessage(), equalTo(expectedException.getMessage()));
+        }
+        assertThat(dispatcher.drainsInProgress(), is(0));
+    }
+
+    @Test
+    public void shouldPutWorkBackToQueueIfWorkerFails() throws Exception {
+        AccountId accountId = randomAccountId();
+        InterruptedException expectedException = new InterruptedException("thread shutdown");
+        when(queue.takeNext()).thenReturn(accountId).thenThrow(expectedException);
+        doThrow(new RuntimeException("worker failed")).when(worker).requestUnfinishedOperationsRun(accountId);
+        doNothing().when(queue).add(accountId);
+
+        try {
+            // When
+            dispatcher.run();
+
+            fail("the call should be interrupted");
+        } catch (InterruptedException actualException) {
+            // Then
+            assertThat(actualException.getMessage(), equalTo(expectedException.getMessage()));
+        }
+        assertThat(dispatcher.drainsInProgress(), is(0));
+    }
+
+    @Test
+    public void shouldPutWorkBackToQueueIfDrainCanNotBeScheduled() throws Exception {
+        Executor rejectingExecutor = task -> {
+            throw new RejectedExecutionException("executor shut down");
+        };
+        dispatcher = new DrainDispatcher(queue, worker, rejectingExecutor, 1);
+
+        AccountId accountId = randomAccountId();
+        when(queue.takeNext()).thenReturn(accountId);
+        doNothing().when(queue).add(accountId);
+
+        try {
+            // When
+            dispatcher.run();
+
+            fail("the call should fail");
+        } catch (RejectedExecutionException expectedException) {
+            // Then
+            assertThat(expectedException.getMessage(), equalTo("executor shut down"));
+        }
+    }
+
+    @Test
+    public void shouldNotStartMoreDrainsThanMaxConcurrentDrains() throws Exception {
+        BlockingQueue<Runnable> scheduledDrains = new LinkedBlockingQueue<>();
+        dispatcher = new DrainDispatcher(queue, worker, scheduledDrains::add, 2);
+
+        AccountId accountId1 = randomAccountId();
+        AccountId accountId2 = randomAccountId();
+        AccountId accountId3 = randomAccountId();
+        when(queue.takeNext()).thenReturn(accountId1, accountId2, accountId3);
+        doNothing().when(worker).requestUnfinishedOperationsRun(accountId1);
+
+        Thread dispatcherThread = new Thread(() -> {
+            try {
+                dispatcher.run();
+            } catch (InterruptedException e) {
+                // expected on shutdown
+            }
+        });
+        dispatcherThread.start();
+
+        // When
+        Runnable drain1 = scheduledDrains.poll(1, SECONDS);
+        Runnable drain2 = scheduledDrains.poll(1, SECONDS);
+
+        // Then
+        assertThat(drain1, notNullValue());
+        assertThat(drain2, notNullValue());
+        assertThat(scheduledDrains.poll(100, MILLISECONDS), nullValue());
+
+        // When
+        drain1.run();
+
+        // Then
+        assertThat(scheduledDrains.poll(1, SECONDS), notNullValue());
+
+        dispatcherThread.interrupt();
+        dispatcherThread.join();
+    }
+}
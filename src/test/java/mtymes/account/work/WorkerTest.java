@@ -1,5 +1,6 @@
 package mtymes.account.work;
 
+import com.google.common.collect.ImmutableMap;
 import mtymes.account.dao.OpLogDao;
 import mtymes.account.dao.OperationDao;
 import mtymes.account.domain.account.AccountId;
@@ -11,8 +12,6 @@ import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.Optional;
-
 import static java.util.Collections.emptyList;
 import static javafixes.common.CollectionUtil.newList;
 import static javafixes.object.Tuple.tuple;
@@ -73,21 +72,25 @@ public class WorkerTest extends StrictMockTest {
                 tuple(operationId2, seqId2),
                 tuple(operationId3, seqId3)
         ));
-        doReturn(Optional.of(operation1)).when(operationDao).findLoggedOperation(operationId1);
-        doReturn(Optional.of(operation2)).when(operationDao).findLoggedOperation(operationId2);
-        doReturn(Optional.of(operation3)).when(operationDao).findLoggedOperation(operationId3);
+        doReturn(ImmutableMap.of(
+                operationId1, operation1,
+                operationId2, operation2,
+                operationId3, operation3
+        )).when(operationDao).findLoggedOperations(newList(operationId1, operationId2, operationId3));
 
         // Then
-        doNothing().when(dispatcher).dispatchOperation(seqId1, operation1);
-        doNothing().when(dispatcher).dispatchOperation(seqId2, operation2);
-        doNothing().when(dispatcher).dispatchOperation(seqId3, operation3);
+        doNothing().when(dispatcher).dispatchOperations(newList(
+                tuple(seqId1, operation1),
+                tuple(seqId2, operation2),
+                tuple(seqId3, operation3)
+        ));
 
         // When
         worker.runUnfinishedOperations(accountId);
     }
 
     @Test
-    public void shouldNotContinueToNextOperationOnFailure() {
+    public void shouldPropagateDispatchFailure() {
         AccountId accountId = randomAccountId();
         SeqId seqId1 = randomSeqId();
         SeqId seqId2 = randomSeqId(otherThan(seqId1));
@@ -98,19 +101,26 @@ public class WorkerTest extends StrictMockTest {
 
         LoggedOperation operation1 = mock(LoggedOperation.class);
         LoggedOperation operation2 = mock(LoggedOperation.class);
+        LoggedOperation operation3 = mock(LoggedOperation.class);
 
         when(opLogDao.findUnfinishedOperationIds(accountId)).thenReturn(newList(
                 tuple(operationId1, seqId1),
                 tuple(operationId2, seqId2),
                 tuple(operationId3, seqId3)
         ));
-        doReturn(Optional.of(operation1)).when(operationDao).findLoggedOperation(operationId1);
-        doReturn(Optional.of(operation2)).when(operationDao).findLoggedOperation(operationId2);
+        doReturn(ImmutableMap.of(
+                operationId1, operation1,
+                operationId2, operation2,
+                operationId3, operation3
+        )).when(operationDao).findLoggedOperations(newList(operationId1, operationId2, operationId3));
 
         // Then
-        doNothing().when(dispatcher).dispatchOperation(seqId1, operation1);
         RuntimeException expectedException = new RuntimeException("some exception");
-        doThrow(expectedException).when(dispatcher).dispatchOperation(seqId2, operation2);
+        doThrow(expectedException).when(dispatcher).dispatchOperations(newList(
+                tuple(seqId1, operation1),
+                tuple(seqId2, operation2),
+                tuple(seqId3, operation3)
+        ));
 
         try {
             // When
@@ -121,4 +131,62 @@ public class WorkerTest extends StrictMockTest {
             assertThat(actualException.getMessage(), equalTo(expectedException.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldFailIfLoggedOperationDoesNotExist() {
+        AccountId accountId = randomAccountId();
+        SeqId seqId1 = randomSeqId();
+        SeqId seqId2 = randomSeqId(otherThan(seqId1));
+        OperationId operationId1 = randomOperationId();
+        OperationId operationId2 = randomOperationId();
+
+        LoggedOperation operation1 = mock(LoggedOperation.class);
+
+        when(opLogDao.findUnfinishedOperationIds(accountId)).thenReturn(newList(
+                tuple(operationId1, seqId1),
+                tuple(operationId2, seqId2)
+        ));
+        doReturn(ImmutableMap.of(
+                operationId1, operation1
+        )).when(operationDao).findLoggedOperations(newList(operationId1, operationId2));
+
+        try {
+            // When
+            worker.runUnfinishedOperations(accountId);
+
+            fail("the call should fail");
+        } catch (IllegalStateException expectedException) {
+            // Then
+            assertThat(expectedException.getMessage(), equalTo("Operation '" + operationId2 + "' logged under SeqId '" + seqId2 + "' does not exist"));
+        }
+    }
+
+    @Test
+    public void shouldForwardWorkOfAccountOwnedByOtherNode() {
+        AccountAffinity affinity = mock(AccountAffinity.class);
+        Worker affineWorker = new Worker(opLogDao, operationDao, dispatcher, affinity);
+        AccountId accountId = randomAccountId();
+        when(affinity.isOwnedLocally(accountId)).thenReturn(false);
+
+        // When
+        affineWorker.runUnfinishedOperations(accountId);
+
+        // Then
+        verify(affinity).forwardWork(accountId);
+    }
+
+    @Test
+    public void shouldRunOperationsOfLocallyOwnedAccount() {
+        AccountAffinity affinity = mock(AccountAffinity.class);
+        Worker affineWorker = new Worker(opLogDao, operationDao, dispatcher, affinity);
+        AccountId accountId = randomAccountId();
+        when(affinity.isOwnedLocally(accountId)).thenReturn(true);
+        when(opLogDao.findUnfinishedOperationIds(accountId)).thenReturn(emptyList());
+
+        // When
+        affineWorker.runUnfinishedOperations(accountId);
+
+        // Then
+        // do nothing
+    }
+}
@@ -2,26 +2,21 @@ package mtymes.account.work;
 
 import mtymes.account.domain.account.AccountId;
 import mtymes.common.util.SetQueue;
-import mtymes.common.util.Sleeper;
 import mtymes.test.StrictMockTest;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.time.Duration;
-import java.util.Optional;
-
 import static mtymes.test.Random.randomAccountId;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class WorkerThreadTest extends StrictMockTest {
 
-    private SetQueue queue;
+    private SetQueue<AccountId> queue;
     private Worker worker;
-    private Sleeper sleeper;
-    private Duration timeoutIfNoWork = Duration.ofMillis(125);
 
     private WorkerThread thread;
 
@@ -29,21 +24,20 @@ public class WorkerThreadTest extends StrictMockTest {
     public void setUp() throws Exception {
         queue = mock(SetQueue.class);
         worker = mock(Worker.class);
-        sleeper = mock(Sleeper.class);
 
-        thread = new WorkerThread(queue, worker, sleeper, timeoutIfNoWork);
+        thread = new WorkerThread(queue, worker);
     }
 
     @Test
     public void shouldDoNothingIfNoWorkIsPresent() throws Exception {
-        when(queue.takeNextAvailable()).thenReturn(Optional.empty());
-
         InterruptedException expectedException = new InterruptedException("thread shutdown");
-        doThrow(expectedException).when(sleeper).sleepFor(timeoutIfNoWork);
+        when(queue.takeNext()).thenThrow(expectedException);
 
         try {
             // When
             thread.run();
+
+            fail("the call should be interrupted");
         } catch (InterruptedException actualException) {
             assertThat(actualException.getMessage(), equalTo(expectedException.getMessage()));
         }
@@ -53,18 +47,18 @@ public class WorkerThreadTest extends StrictMockTest {
     @Test
     public void shouldSubmitWorkToWorkerIfExists() throws Exception {
         AccountId accountId = randomAccountId();
-        when(queue.takeNextAvailable()).thenReturn(Optional.of(accountId));
+        InterruptedException expectedException = new InterruptedException("thread shutdown");
+        when(queue.takeNext()).thenReturn(accountId).thenThrow(expectedException);
         doAnswer(inv -> {
             assertThat(thread.isWorking(), is(true));
             return null;
-        }).when(worker).runUnfinishedOperations(accountId);
-
-        InterruptedException expectedException = new InterruptedException("thread shutdown");
-        doThrow(expectedException).when(sleeper).sleepFor(0L);
+        }).when(worker).requestUnfinishedOperationsRun(accountId);
 
         try {
             // When
             thread.run();
+
+            fail("the call should be interrupted");
         } catch (InterruptedException actualException) {
             assertThat(actualException.getMessage(), equalTo(expectedException.getMessage()));
         }
@@ -74,16 +68,16 @@ public class WorkerThreadTest extends StrictMockTest {
     @Test
     public void shouldPutWorkBackToQueueIfWorkerFails() throws Exception {
         AccountId accountId = randomAccountId();
-        when(queue.takeNextAvailable()).thenReturn(Optional.of(accountId));
-        doThrow(new RuntimeException("worker failed")).when(worker).runUnfinishedOperations(accountId);
-        doNothing().when(queue).add(accountId);
-
         InterruptedException expectedException = new InterruptedException("thread shutdown");
-        doThrow(expectedException).when(sleeper).sleepFor(0L);
+        when(queue.takeNext()).thenReturn(accountId).thenThrow(expectedException);
+        doThrow(new RuntimeException("worker failed")).when(worker).requestUnfinishedOperationsRun(accountId);
+        doNothing().when(queue).add(accountId);
 
         try {
             // When
             thread.run();
+
+            fail("the call should be interrupted");
         } catch (InterruptedException actualException) {
             assertThat(actualException.getMessage(), equalTo(expectedException.getMessage()));
         }
@@ -94,21 +88,19 @@ public class WorkerThreadTest extends StrictMockTest {
     public void shouldHandleWorkRepeatedlyUntilInterrupted() throws Exception {
         AccountId accountId1 = randomAccountId();
         AccountId accountId2 = randomAccountId();
-
-        when(queue.takeNextAvailable()).thenReturn(Optional.of(accountId1));
-
-        when(queue.takeNextAvailable()).thenReturn(Optional.of(accountId2));
-
-        when(queue.takeNextAvailable()).thenReturn(Optional.empty());
         InterruptedException expectedException = new InterruptedException("thread shutdown");
-        doThrow(expectedException).when(sleeper).sleepFor(timeoutIfNoWork);
+        when(queue.takeNext()).thenReturn(accountId1, accountId2).thenThrow(expectedException);
+        doNothing().when(worker).requestUnfinishedOperationsRun(accountId1);
+        doNothing().when(worker).requestUnfinishedOperationsRun(accountId2);
 
         try {
             // When
             thread.run();
+
+            fail("the call should be interrupted");
         } catch (InterruptedException actualException) {
             assertThat(actualException.getMessage(), equalTo(expectedException.getMessage()));
         }
         assertThat(thread.isWorking(), is(false));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package mtymes.common.metrics;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class MetricsTest {
+
+    private Metrics metrics = new Metrics();
+
+    @Test
+    public void shouldRenderCounterInPrometheusFormat() {
+        Counter counter = metrics.counter("test_counter_total", "Test counter", "type", "DepositTo");
+
+        // When
+        counter.increment();
+        counter.add(2);
+
+        // Then
+        String text = metrics.toPrometheusText();
+        assertThat(text, containsString("# HELP test_counter_total Test counter\n# TYPE test_counter_total counter\n"));
+        assertThat(text, containsString("test_counter_total{type=\"DepositTo\"} 3\n"));
+    }
+
+    @Test
+    public void shouldRenderTimerAsCumulativeHistogram() {
+        Timer timer = metrics.timer("test_timer_seconds", "Test timer");
+
+        // When
+        timer.record(MILLISECONDS.toNanos(3));
+        timer.record(MILLISECONDS.toNanos(20));
+        timer.record(MILLISECONDS.toNanos(20_000));
+
+        // Then
+        String text = metrics.toPrometheusText();
+        assertThat(text, containsString("# TYPE test_timer_seconds histogram\n"));
+        assertThat(text, containsString("test_timer_seconds_bucket{le=\"0.0025\"} 0\n"));
+        assertThat(text, containsString("test_timer_seconds_bucket{le=\"0.005\"} 1\n"));
+        assertThat(text, containsString("test_timer_seconds_bucket{le=\"0.025\"} 2\n"));
+        assertThat(text, containsString("test_timer_seconds_bucket{le=\"10.0\"} 2\n"));
+        assertThat(text, containsString("test_timer_seconds_bucket{le=\"+Inf\"} 3\n"));
+        assertThat(text, containsString("test_timer_seconds_sum 20.023\n"));
+        assertThat(text, containsString("test_timer_seconds_count 3\n"));
+    }
+
+    @Test
+    public void shouldReturnAlreadyRegisteredMetric() {
+        // When & Then
+        assertThat(
+                metrics.timer("test_shared_seconds", "Test timer", "type", "TransferTo"),
+                sameInstance(metrics.timer("test_shared_seconds", "Test timer", "type", "TransferTo"))
+        );
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailToRegisterMetricOfDifferentType() {
+        metrics.counter("test_conflicting_metric", "Test counter");
+
+        // When
+        metrics.timer("test_conflicting_metric", "Test timer");
+    }
+}
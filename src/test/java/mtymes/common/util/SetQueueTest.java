@@ -1,9 +1,15 @@
 package mtymes.common.util;
 
 import mtymes.account.domain.account.AccountId;
+import mtymes.common.metrics.Metrics;
+import mtymes.common.metrics.Timer;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.google.common.collect.Lists.newCopyOnWriteArrayList;
 import static javafixes.common.CollectionUtil.newList;
@@ -13,6 +19,8 @@ import static mtymes.test.OptionalMatcher.isNotPresent;
 import static mtymes.test.OptionalMatcher.isPresentAndEqualTo;
 import static mtymes.test.Random.randomAccountId;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
 public class SetQueueTest {
@@ -46,6 +54,22 @@ public class SetQueueTest {
         assertThat(queue.size(), equalTo(0));
     }
 
+    @Test
+    public void shouldRecordWaitTimeOfEachTakenItem() {
+        Timer waitTimer = new Metrics().timer("test_set_queue_wait_seconds", "test");
+        SetQueue<AccountId> queue = new SetQueue<>(waitTimer);
+        AccountId accountId = randomAccountId();
+
+        // When
+        queue.add(accountId);
+        queue.add(accountId);
+        queue.add(randomAccountId());
+        queue.takeNextAvailable();
+
+        // Then
+        assertThat(waitTimer.count(), equalTo(1L));
+    }
+
     @Test
     public void shouldIgnoreDuplicateItems() {
         AccountId accountId1 = randomAccountId();
@@ -106,4 +130,67 @@ public class SetQueueTest {
         assertThat(newSet(retrievedAccountIds).size(), equalTo(accountIds.size()));
         assertThat(newSet(retrievedAccountIds), equalTo(newSet(accountIds)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldBeAbleToQueueItemAgainOnceItIsTaken() {
+        AccountId accountId = randomAccountId();
+        queue.add(accountId);
+
+        // When
+        assertThat(queue.takeNextAvailable(), isPresentAndEqualTo(accountId));
+        queue.add(accountId);
+
+        // Then
+        assertThat(queue.size(), equalTo(1));
+        assertThat(queue.takeNextAvailable(), isPresentAndEqualTo(accountId));
+        assertThat(queue.takeNextAvailable(), isNotPresent());
+    }
+
+    @Test
+    public void shouldReturnAvailableItemWithoutWaitingForTimeout() throws InterruptedException {
+        AccountId accountId = randomAccountId();
+        queue.add(accountId);
+
+        // When & Then
+        assertThat(queue.takeNext(Duration.ofMinutes(1)), isPresentAndEqualTo(accountId));
+    }
+
+    @Test
+    public void shouldReturnNothingIfNoItemIsAddedBeforeTimeout() throws InterruptedException {
+        long startTime = System.nanoTime();
+
+        // When
+        Optional<AccountId> item = queue.takeNext(Duration.ofMillis(50));
+
+        // Then
+        assertThat(item, isNotPresent());
+        assertThat(System.nanoTime() - startTime, greaterThanOrEqualTo(Duration.ofMillis(50).toNanos()));
+    }
+
+    @Test
+    public void shouldWaitUntilItemIsAdded() throws InterruptedException {
+        AccountId accountId = randomAccountId();
+        AtomicReference<AccountId> takenItem = new AtomicReference<>();
+        CountDownLatch itemTaken = new CountDownLatch(1);
+
+        Thread taker = new Thread(() -> {
+            try {
+                takenItem.set(queue.takeNext());
+                itemTaken.countDown();
+            } catch (InterruptedException e) {
+                // do nothing
+            }
+        });
+        taker.start();
+
+        // When
+        Thread.sleep(20);
+        assertThat(itemTaken.getCount(), is(1L));
+        queue.add(accountId);
+
+        // Then
+        itemTaken.await();
+        assertThat(takenItem.get(), equalTo(accountId));
+        assertThat(queue.size(), equalTo(0));
+    }
+}
@@ -0,0 +1,118 @@
+package mtymes.common.util;
+
+import mtymes.common.util.SpaceSavingSketch.Estimate;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static javafixes.common.CollectionUtil.newList;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class SpaceSavingSketchTest {
+
+    @Test
+    public void shouldCountItemsExactlyWhileThereIsCapacity() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(3);
+
+        // When
+        offer(sketch, "a", 2);
+        offer(sketch, "b", 5);
+        offer(sketch, "c", 1);
+
+        // Then
+        List<Estimate<String>> top = sketch.top(2);
+        assertThat(items(top), equalTo(newList("b", "a")));
+        assertThat(top.get(0).count, equalTo(5L));
+        assertThat(top.get(0).maxOverestimate, equalTo(0L));
+        assertThat(top.get(1).count, equalTo(2L));
+    }
+
+    @Test
+    public void shouldReplaceLeastFrequentItemOnceFull() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(2);
+        offer(sketch, "a", 10);
+        offer(sketch, "b", 3);
+
+        // When
+        offer(sketch, "c", 1);
+
+        // Then
+        List<Estimate<String>> top = sketch.top(10);
+        assertThat(items(top), equalTo(newList("a", "c")));
+        assertThat(top.get(1).count, equalTo(4L));
+        assertThat(top.get(1).maxOverestimate, equalTo(3L));
+    }
+
+    @Test
+    public void shouldKeepFrequentItemWithinManyRareOnes() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(10);
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            sketch.offer("hot");
+            sketch.offer("rare-" + i);
+        }
+
+        // Then
+        Estimate<String> hottest = sketch.top(1).get(0);
+        assertThat(hottest.item, equalTo("hot"));
+        assertThat(hottest.count - hottest.maxOverestimate <= 1_000, equalTo(true));
+        assertThat(hottest.count >= 1_000, equalTo(true));
+    }
+
+    @Test
+    public void shouldMergeTopItemsOfAllStripes() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(64, 8);
+
+        // When
+        offer(sketch, "a", 5);
+        offer(sketch, "b", 3);
+        offer(sketch, "c", 9);
+        offer(sketch, "d", 1);
+
+        // Then
+        List<Estimate<String>> top = sketch.top(3);
+        assertThat(items(top), equalTo(newList("c", "a", "b")));
+        assertThat(top.get(0).count, equalTo(9L));
+        assertThat(top.get(0).maxOverestimate, equalTo(0L));
+    }
+
+    @Test
+    public void shouldCountConcurrentOffersExactlyWhileThereIsCapacity() throws Exception {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(64, 4);
+        ExecutorService executor = newFixedThreadPool(4);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    sketch.offer("hot-" + (j % 8));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, SECONDS);
+
+        // Then
+        List<Estimate<String>> top = sketch.top(64);
+        assertThat(top.size(), equalTo(8));
+        for (Estimate<String> estimate : top) {
+            assertThat(estimate.count, equalTo(500L));
+        }
+    }
+
+    private void offer(SpaceSavingSketch<String> sketch, String item, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.offer(item);
+        }
+    }
+
+    private List<String> items(List<Estimate<String>> estimates) {
+        return estimates.stream().map(estimate -> estimate.item).collect(toList());
+    }
+}